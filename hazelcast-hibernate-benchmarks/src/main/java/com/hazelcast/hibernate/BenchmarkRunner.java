@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks like JMH's own {@link Main}, with the {@code gc} profiler enabled so that every run reports the
+ * allocation rate of the benchmarked paths.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!hasGcProfiler(arguments)) {
+            arguments.add(0, "-prof");
+            arguments.add(1, "gc");
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+
+    private static boolean hasGcProfiler(List<String> arguments) {
+        for (int i = 0; i < arguments.size() - 1; i++) {
+            if ("-prof".equals(arguments.get(i)) && arguments.get(i + 1).startsWith("gc")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.local.LocalRegionCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of {@link HazelcastStorageAccessImpl} over the region cache it delegates to, with and without fallback
+ * and a {@link CircuitBreaker}. The delegate is a {@link LocalRegionCache} without a cluster, so that the overhead is not
+ * hidden by remote calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastStorageAccessBenchmark {
+
+    private static final int ENTRIES = 1000;
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(5);
+
+    private LocalRegionCache cache;
+    private HazelcastStorageAccessImpl withoutFallback;
+    private HazelcastStorageAccessImpl withFallback;
+    private HazelcastStorageAccessImpl withCircuitBreaker;
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = LocalRegionCache.builder()
+                .withName("benchmark")
+                .withTopic(false)
+                .build();
+        withoutFallback = new HazelcastStorageAccessImpl(cache, false);
+        withFallback = new HazelcastStorageAccessImpl(cache, true);
+        withCircuitBreaker = new HazelcastStorageAccessImpl(cache, true,
+                new CircuitBreaker(FAILURE_THRESHOLD, Duration.ZERO, OPEN_DURATION));
+        keys = new Integer[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = i;
+            cache.put(keys[i], "value", 0L, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    @Benchmark
+    public Object regionCache() {
+        return cache.get(nextKey(), cache.nextTimestamp());
+    }
+
+    @Benchmark
+    public Object storageAccess() {
+        return withoutFallback.getFromCache(nextKey(), null);
+    }
+
+    @Benchmark
+    public Object storageAccessWithFallback() {
+        return withFallback.getFromCache(nextKey(), null);
+    }
+
+    @Benchmark
+    public Object storageAccessWithCircuitBreaker() {
+        return withCircuitBreaker.getFromCache(nextKey(), null);
+    }
+
+    @Benchmark
+    public void putWithCircuitBreaker() {
+        withCircuitBreaker.putIntoCache(nextKey(), "value", null);
+    }
+
+    private Integer nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.util.UuidUtil;
+import org.hibernate.cache.spi.support.SimpleTimestamper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per timestamp of requesting the cluster time, of {@link HazelcastTimestamper#next()} and of Hibernate's own
+ * timestamps, on a single member.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastTimestamperBenchmark {
+
+    private HazelcastInstance instance;
+    private HazelcastTimestamper timestamper;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config().setClusterName(UuidUtil.newUnsecureUuidString());
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        instance = Hazelcast.newHazelcastInstance(config);
+        timestamper = new HazelcastTimestamper(instance, Duration.ofSeconds(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        timestamper.close();
+        instance.shutdown();
+    }
+
+    @Benchmark
+    public long clusterTime() {
+        return HazelcastTimestamper.nextTimestamp(instance);
+    }
+
+    @Benchmark
+    public long cachedOffset() {
+        return timestamper.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long cachedOffsetContended() {
+        return timestamper.next();
+    }
+
+    @Benchmark
+    public long hibernateTimestamper() {
+        return SimpleTimestamper.next();
+    }
+}
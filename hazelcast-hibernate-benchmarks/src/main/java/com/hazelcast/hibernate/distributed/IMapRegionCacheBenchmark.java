@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.HazelcastCacheRegionFactory;
+import com.hazelcast.internal.util.UuidUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of an {@link IMapRegionCache} against an embedded member, with and without a deadline and a
+ * Near Cache. The member owns all partitions, so this measures the cost of the map operations and of serialization
+ * rather than of the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IMapRegionCacheBenchmark {
+
+    private static final int ENTRIES = 1000;
+    private static final int THREADS = 4;
+    private static final Object[] VALUE = {1L, "name", 42};
+
+    @Param({"0", "100"})
+    private long deadlineMillis;
+
+    @Param({"false", "true"})
+    private boolean nearCache;
+
+    private HazelcastInstance instance;
+    private IMapRegionCache cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config().setClusterName(UuidUtil.newUnsecureUuidString());
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        instance = Hazelcast.newHazelcastInstance(config);
+        if (nearCache) {
+            NearCacheConfigurer.configure(instance, "benchmark", new NearCacheConfig().setCacheLocalEntries(true));
+        }
+        cache = new IMapRegionCache(new HazelcastCacheRegionFactory(instance), "benchmark", instance, false,
+                Duration.ofMillis(deadlineMillis));
+        keys = new Integer[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = i;
+            cache.put(keys[i], VALUE, 0L, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        instance.shutdown();
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(nextKey(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean put() {
+        return cache.put(nextKey(), VALUE, 0L, null);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Object getContended() {
+        return cache.get(nextKey(), Long.MAX_VALUE);
+    }
+
+    private Integer nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
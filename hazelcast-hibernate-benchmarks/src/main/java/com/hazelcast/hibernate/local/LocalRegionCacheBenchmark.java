@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of a {@link LocalRegionCache} without a cluster, uncontended and under contention. The keys are
+ * preallocated, so the reported allocations are those of the cache itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalRegionCacheBenchmark {
+
+    private static final int THREADS = 4;
+    private static final Object[] VALUE = {1L, "name", 42};
+
+    @Param({"10000"})
+    private int entries;
+
+    private LocalRegionCache cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = LocalRegionCache.builder()
+                .withName("benchmark")
+                .withTopic(false)
+                .build();
+        keys = new Integer[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = i;
+            cache.put(keys[i], VALUE, 0L, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(nextKey(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean put() {
+        return cache.put(nextKey(), VALUE, 0L, null);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Object getContended() {
+        return cache.get(nextKey(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean putContended() {
+        return cache.put(nextKey(), VALUE, 0L, null);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(THREADS - 1)
+    public Object readMostlyGet() {
+        return cache.get(nextKey(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public boolean readMostlyPut() {
+        return cache.put(nextKey(), VALUE, 0L, null);
+    }
+
+    private Integer nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.internal.util.UuidUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying timestamps received from other members by {@link TimestampsRegionCache#maybeInvalidate(Object)}, which
+ * either replaces the local timestamp of a table or ignores an older one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampsRegionCacheBenchmark {
+
+    private static final int TABLES = 64;
+
+    private TimestampsRegionCache cache;
+    private Timestamp[] newer;
+    private Timestamp[] older;
+
+    @Setup
+    public void setUp() {
+        cache = new TimestampsRegionCache(LocalRegionCache.builder()
+                .withName("default-update-timestamps-region")
+                .withTopic(false));
+        UUID remoteRegionId = UuidUtil.newUnsecureUUID();
+        newer = new Timestamp[TABLES];
+        older = new Timestamp[TABLES];
+        for (int i = 0; i < TABLES; i++) {
+            String table = "table" + i;
+            cache.put(table, cache.nextTimestamp(), 0L, null);
+            newer[i] = new Timestamp(table, Long.MAX_VALUE, remoteRegionId);
+            older[i] = new Timestamp(table, Long.MIN_VALUE, remoteRegionId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    @Benchmark
+    public void invalidateNewer() {
+        cache.maybeInvalidate(newer[ThreadLocalRandom.current().nextInt(TABLES)]);
+    }
+
+    @Benchmark
+    public void ignoreOlder() {
+        cache.maybeInvalidate(older[ThreadLocalRandom.current().nextInt(TABLES)]);
+    }
+}
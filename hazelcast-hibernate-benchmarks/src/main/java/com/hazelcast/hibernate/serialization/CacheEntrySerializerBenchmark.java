@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.nio.BufferObjectDataInput;
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the disassembled state of entities of different shapes by {@link Hibernate53CacheEntrySerializer}.
+ * The output buffer is reused, so the reported allocations are those of the serializer and of the entry it reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheEntrySerializerBenchmark {
+
+    private static final int WIDE_FIELDS = 24;
+    private static final int TEXT_LENGTH = 1024;
+    private static final Serializable[] SMALL = {1L, "name", 42};
+    private static final int FIELD_TYPES = 4;
+    private static final String ENTITY_NAME = "com.example.domain.catalog.ProductVariant";
+
+    /**
+     * small: a few scalar fields, wide: many scalar fields of mixed types, text: a few long strings
+     */
+    @Param({"small", "wide", "text"})
+    private String shape;
+
+    /**
+     * name: the entity name is written in full, id: the entity name is registered in the {@link CacheEntryDictionary}
+     * and written as an id, schema: the entity is also registered with a {@link CacheEntrySchema}
+     */
+    @Param({"name", "id", "schema"})
+    private String encoding;
+
+    private final Hibernate53CacheEntrySerializer serializer = new Hibernate53CacheEntrySerializer();
+    private BufferObjectDataOutput out;
+    private BufferObjectDataInput in;
+    private CacheEntry entry;
+
+    @Setup
+    public void setUp() throws IOException {
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        Serializable[] state = disassembledState(shape);
+        CacheEntryDictionary.clear();
+        if ("id".equals(encoding)) {
+            CacheEntryDictionary.register(ENTITY_NAME);
+        } else if ("schema".equals(encoding)) {
+            Class<?>[] propertyTypes = new Class<?>[state.length];
+            for (int i = 0; i < state.length; i++) {
+                propertyTypes[i] = state[i].getClass();
+            }
+            CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(propertyTypes));
+        }
+        entry = new CacheEntryImpl(state, ENTITY_NAME, 1);
+        out = serializationService.createObjectDataOutput(TEXT_LENGTH);
+        serializer.write(out, entry);
+        in = serializationService.createObjectDataInput(out.toByteArray());
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        out.clear();
+        serializer.write(out, entry);
+        return out.position();
+    }
+
+    @Benchmark
+    public CacheEntry read() throws IOException {
+        in.position(0);
+        return serializer.read(in);
+    }
+
+    private static Serializable[] disassembledState(String shape) {
+        switch (shape) {
+            case "small":
+                return SMALL;
+            case "wide":
+                Serializable[] state = new Serializable[WIDE_FIELDS];
+                for (int i = 0; i < WIDE_FIELDS; i += FIELD_TYPES) {
+                    state[i] = (long) i;
+                    state[i + 1] = "field" + i;
+                    state[i + 2] = i % 2 == 0;
+                    state[i + 3] = BigDecimal.valueOf(i, 2);
+                }
+                return state;
+            case "text":
+                String text = "x".repeat(TEXT_LENGTH);
+                return new Serializable[]{1L, text, text, text};
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+}
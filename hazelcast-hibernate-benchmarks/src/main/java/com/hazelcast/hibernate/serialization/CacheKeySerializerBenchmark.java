@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.nio.BufferObjectDataInput;
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.serialization.impl.defaultserializers.JavaDefaultSerializers;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.internal.NaturalIdCacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the cache keys Hibernate creates by {@link Hibernate53CacheKeySerializer}, compared to the Java
+ * serialization they would otherwise be written by. The {@code write} benchmarks return the size of the key in bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeySerializerBenchmark {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final long ID = 123_456L;
+    private static final String ENTITY_NAME = "com.example.domain.catalog.ProductVariant";
+
+    /**
+     * basic: an entity key of a single id, composite: an entity key of a composite id and a tenant, naturalId: the key of
+     * a natural id of two values
+     */
+    @Param({"basic", "composite", "naturalId"})
+    private String key;
+
+    /**
+     * java: Java serialization, native: the serializer of the keys
+     */
+    @Param({"java", "native"})
+    private String serialization;
+
+    private StreamSerializer<Object> serializer;
+    private BufferObjectDataOutput out;
+    private BufferObjectDataInput in;
+    private Object cacheKey;
+
+    @Setup
+    public void setUp() throws IOException {
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        serializer = "java".equals(serialization)
+                ? new JavaDefaultSerializers.JavaSerializer(false, false, null)
+                : Hibernate53CacheKeySerializer.INSTANCE;
+        cacheKey = cacheKey(key);
+        out = serializationService.createObjectDataOutput(BUFFER_SIZE);
+        serializer.write(out, cacheKey);
+        in = serializationService.createObjectDataInput(out.toByteArray());
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        out.clear();
+        serializer.write(out, cacheKey);
+        return out.position();
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        in.position(0);
+        return serializer.read(in);
+    }
+
+    private static Object cacheKey(String key) {
+        switch (key) {
+            case "basic":
+                return new BasicCacheKeyImplementation(ID, ENTITY_NAME, Long.hashCode(ID));
+            case "composite":
+                return new CacheKeyImplementation(new Object[]{ID, "EU"}, ENTITY_NAME, "tenant", Long.hashCode(ID));
+            case "naturalId":
+                return new NaturalIdCacheKey(new Object[]{"SKU-" + ID, "EU"}, ENTITY_NAME, null, Long.hashCode(ID));
+            default:
+                throw new IllegalArgumentException("Unknown key " + key);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compressing and decompressing cache entries of documents of different sizes by {@link ValueCompressor}, with and
+ * without a {@link CompressionDictionary} trained from other documents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCompressorBenchmark {
+
+    private static final int SAMPLES = 100;
+    private static final int DICTIONARY_SIZE = 4096;
+    private static final int SENTENCES_PER_PARAGRAPH = 4;
+    private static final String[] WORDS = {"cache", "region", "entity", "member", "client", "partition", "entry",
+            "version", "timestamp", "invalidation", "the", "of", "is", "and", "to"};
+
+    /**
+     * The number of paragraphs of the documents
+     */
+    @Param({"1", "10", "100"})
+    private int paragraphs;
+
+    /**
+     * none: deflated without a dictionary, trained: deflated with a dictionary trained from other documents
+     */
+    @Param({"none", "trained"})
+    private String dictionary;
+
+    private ValueCompressor compressor;
+    private Document document;
+    private Object compressed;
+
+    @Setup
+    public void setUp() {
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        CompressionDictionary trained = null;
+        if ("trained".equals(dictionary)) {
+            List<byte[]> samples = new ArrayList<>();
+            for (int i = 0; i < SAMPLES; i++) {
+                samples.add(serializationService.toData(new Document(i, paragraphs)).toByteArray());
+            }
+            trained = CompressionDictionary.train(samples, DICTIONARY_SIZE);
+        }
+        compressor = new ValueCompressor(serializationService, 1, trained, new RegionMetrics("documents"));
+        document = new Document(SAMPLES, paragraphs);
+        compressed = compressor.compress(document);
+    }
+
+    @Benchmark
+    public Object compress() {
+        return compressor.compress(document);
+    }
+
+    @Benchmark
+    public Object decompress() {
+        return compressor.decompress(compressed);
+    }
+
+    /**
+     * A document of generated text, which differs by its seed
+     */
+    public static final class Document implements Serializable {
+
+        private final long id;
+        private final String title;
+        private final String body;
+
+        Document(long seed, int paragraphs) {
+            this.id = seed;
+            this.title = "Document " + seed;
+            StringBuilder body = new StringBuilder();
+            long word = seed;
+            for (int i = 0; i < paragraphs * SENTENCES_PER_PARAGRAPH; i++) {
+                for (int j = 0; j < WORDS.length; j++) {
+                    word = word * 31 + j;
+                    body.append(WORDS[(int) Math.floorMod(word, (long) WORDS.length)]).append(' ');
+                }
+                body.append(i % SENTENCES_PER_PARAGRAPH == SENTENCES_PER_PARAGRAPH - 1 ? ".\n" : ". ");
+            }
+            this.body = body.toString();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
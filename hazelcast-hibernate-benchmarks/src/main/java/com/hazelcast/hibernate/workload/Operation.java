@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+/**
+ * The operations of the workload, each drawn with the weight given by {@link WorkloadOptions}.
+ */
+enum Operation {
+
+    /**
+     * Loads an entity by its identifier.
+     */
+    READ,
+
+    /**
+     * Loads an entity and updates its price.
+     */
+    WRITE,
+
+    /**
+     * Runs a cacheable HQL query for the entities of a category.
+     */
+    QUERY,
+
+    /**
+     * Runs a bulk HQL update of the entities of a category, which invalidates the whole entity region.
+     */
+    BULK_UPDATE
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.internal.util.UuidUtil;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.Environment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The in-JVM cluster of a workload run: Hazelcast members and clients forming their own cluster, each hosting one
+ * {@link WorkloadNode} on a shared in-memory hsqldb database.
+ */
+final class WorkloadCluster implements AutoCloseable {
+
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final int SPARE_CONNECTIONS = 2;
+
+    private final List<HazelcastInstance> instances = new ArrayList<>();
+    private final List<WorkloadNode> nodes = new ArrayList<>();
+
+    WorkloadCluster(WorkloadOptions options, Class<? extends RegionFactory> regionFactory) {
+        String clusterName = "workload-" + UuidUtil.newUnsecureUuidString();
+        String url = "jdbc:hsqldb:mem:" + clusterName + ";hsqldb.tx=mvcc";
+        try {
+            for (int i = 0; i < options.getMembers(); i++) {
+                instances.add(Hazelcast.newHazelcastInstance(memberConfig(clusterName, "member-" + i)));
+            }
+            String address = LOCALHOST + ":" + instances.get(0).getCluster().getLocalMember().getAddress().getPort();
+            for (int i = 0; i < options.getClients(); i++) {
+                instances.add(HazelcastClient.newHazelcastClient(clientConfig(clusterName, address, "client-" + i)));
+            }
+            for (int i = 0; i < instances.size(); i++) {
+                nodes.add(new WorkloadNode(instances.get(i).getName(),
+                        nodeProperties(options, regionFactory, url, instances.get(i), i >= options.getMembers())));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    List<WorkloadNode> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    @Override
+    public void close() {
+        for (WorkloadNode node : nodes) {
+            node.close();
+        }
+        for (HazelcastInstance instance : instances) {
+            // the clients are shut down with their session factories already
+            if (instance.getLifecycleService().isRunning()) {
+                instance.shutdown();
+            }
+        }
+    }
+
+    private static Config memberConfig(String clusterName, String instanceName) {
+        Config config = new Config().setClusterName(clusterName).setInstanceName(instanceName);
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember(LOCALHOST);
+        return config;
+    }
+
+    private static ClientConfig clientConfig(String clusterName, String address, String instanceName) {
+        ClientConfig config = new ClientConfig().setClusterName(clusterName).setInstanceName(instanceName);
+        config.getNetworkConfig().addAddress(address);
+        return config;
+    }
+
+    private Properties nodeProperties(WorkloadOptions options, Class<? extends RegionFactory> regionFactory, String url,
+                                      HazelcastInstance instance, boolean client) {
+        Properties properties = new Properties();
+        properties.setProperty(Environment.DRIVER, "org.hsqldb.jdbc.JDBCDriver");
+        properties.setProperty(Environment.URL, url);
+        properties.setProperty(Environment.USER, "sa");
+        properties.setProperty(Environment.POOL_SIZE, String.valueOf(options.getThreads() + SPARE_CONNECTIONS));
+        properties.setProperty(Environment.HBM2DDL_AUTO, nodes.isEmpty() ? "create" : "none");
+        properties.setProperty(Environment.USE_SECOND_LEVEL_CACHE, "true");
+        properties.setProperty(Environment.USE_QUERY_CACHE, "true");
+        properties.setProperty(Environment.GENERATE_STATISTICS, "true");
+        properties.setProperty(Environment.LOG_SESSION_METRICS, "false");
+        properties.setProperty(Environment.CACHE_REGION_FACTORY, regionFactory.getName());
+        properties.setProperty(CacheEnvironment.SHUTDOWN_ON_STOP, "false");
+        if (client) {
+            properties.setProperty(CacheEnvironment.USE_NATIVE_CLIENT, "true");
+            properties.setProperty(CacheEnvironment.NATIVE_CLIENT_INSTANCE_NAME, instance.getName());
+        } else {
+            properties.setProperty(CacheEnvironment.HAZELCAST_INSTANCE_NAME, instance.getName());
+        }
+        return properties;
+    }
+}
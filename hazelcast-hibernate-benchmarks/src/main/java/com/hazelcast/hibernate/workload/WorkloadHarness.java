@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+import org.hibernate.cache.spi.RegionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a Hibernate workload against an in-JVM cluster once per region factory and prints, for each, the throughput
+ * and latencies of the operations, the share of the reads served by the database and the delay until an update on
+ * one node is visible on another.
+ * <p/>
+ * Every node runs {@link WorkloadOptions#getThreads()} threads drawing operations from the configured mix, over
+ * entities picked with a Zipfian skew. Meanwhile a probe repeatedly updates an entity, which the workload does not
+ * touch, on the first node and polls it on the last node until the new version shows up, which measures how long
+ * the last node serves the stale cached value, plus the latency of one read.
+ */
+public final class WorkloadHarness {
+
+    private static final int PROBE_ENTITIES = 16;
+    private static final long PROBE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final WorkloadOptions options;
+    private final List<WorkloadNode> nodes;
+    private final ZipfianGenerator keys;
+    private volatile WorkloadRecorder recorder = new WorkloadRecorder();
+    private volatile boolean stopped;
+
+    private WorkloadHarness(WorkloadOptions options, List<WorkloadNode> nodes) {
+        this.options = options;
+        this.nodes = nodes;
+        this.keys = new ZipfianGenerator(options.getEntities(), options.getSkew());
+    }
+
+    /**
+     * @param args the {@code key=value} options, see {@link WorkloadOptions}
+     */
+    public static void main(String[] args) throws Exception {
+        WorkloadOptions options = WorkloadOptions.parse(args);
+        for (Class<? extends RegionFactory> regionFactory : options.getRegionFactories()) {
+            try (WorkloadCluster cluster = new WorkloadCluster(options, regionFactory)) {
+                new WorkloadHarness(options, cluster.getNodes()).run(regionFactory.getSimpleName() + ": " + options);
+            }
+        }
+    }
+
+    private void run(String title) throws InterruptedException, ExecutionException {
+        nodes.get(0).insert(1, options.getEntities(), id -> (int) (id % options.getCategories()));
+        nodes.get(0).insert(options.getEntities() + 1, PROBE_ENTITIES, id -> options.getCategories());
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        List<Future<?>> futures = new ArrayList<>();
+        for (WorkloadNode node : nodes) {
+            for (int i = 0; i < options.getThreads(); i++) {
+                futures.add(executor.submit(() -> work(node)));
+            }
+        }
+        if (nodes.size() > 1) {
+            futures.add(executor.submit(() -> probe(nodes.get(0), nodes.get(nodes.size() - 1))));
+        }
+
+        TimeUnit.SECONDS.sleep(options.getWarmupSeconds());
+        nodes.forEach(node -> node.getStatistics().clear());
+        WorkloadRecorder measured = new WorkloadRecorder();
+        recorder = measured;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(options.getSeconds());
+        stopped = true;
+        long elapsed = System.nanoTime() - start;
+
+        executor.shutdown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        measured.print(System.out, title, elapsed, nodes);
+    }
+
+    private void work(WorkloadNode node) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!stopped) {
+            Operation operation = options.operationOf(random.nextInt(options.getTotalWeight()));
+            long start = System.nanoTime();
+            boolean conflict = execute(node, operation, random);
+            recorder.record(operation, System.nanoTime() - start, conflict);
+        }
+    }
+
+    private boolean execute(WorkloadNode node, Operation operation, ThreadLocalRandom random) {
+        switch (operation) {
+            case READ:
+                node.read(nextId(random));
+                return false;
+            case WRITE:
+                return node.write(nextId(random)) == WorkloadNode.CONFLICT;
+            case QUERY:
+                node.query(random.nextInt(options.getCategories()));
+                return false;
+            case BULK_UPDATE:
+                return node.bulkUpdate(random.nextInt(options.getCategories())) == WorkloadNode.CONFLICT;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private long nextId(ThreadLocalRandom random) {
+        return keys.next(random.nextDouble()) + 1;
+    }
+
+    private void probe(WorkloadNode writer, WorkloadNode reader) {
+        long probes = 0;
+        while (!stopped) {
+            long id = options.getEntities() + 1 + probes++ % PROBE_ENTITIES;
+            // caches the current version on the reader, so that it has something to invalidate
+            reader.version(id);
+            int version = writer.write(id);
+            if (version != WorkloadNode.CONFLICT) {
+                long start = System.nanoTime();
+                int seen;
+                long delay;
+                do {
+                    seen = reader.version(id);
+                    delay = System.nanoTime() - start;
+                } while (seen < version && delay < PROBE_TIMEOUT_NANOS);
+                if (seen < version) {
+                    recorder.recordStaleProbe();
+                } else {
+                    recorder.recordPropagation(delay);
+                }
+            }
+            sleep(options.getProbeIntervalMillis());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
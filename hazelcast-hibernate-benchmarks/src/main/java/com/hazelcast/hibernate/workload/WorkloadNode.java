@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+import jakarta.persistence.PersistenceException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+
+import java.util.Properties;
+import java.util.function.LongToIntFunction;
+
+/**
+ * An application node of the workload: a {@link SessionFactory} caching through the Hazelcast member or client of the
+ * node. Updates which lose a race against a concurrent transaction are reported as {@link #CONFLICT} rather than
+ * thrown, as the workload expects them under contention.
+ */
+final class WorkloadNode implements AutoCloseable {
+
+    /**
+     * Returned by the writes which were rolled back because of a concurrent transaction
+     */
+    static final int CONFLICT = -1;
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final String name;
+    private final SessionFactory sessionFactory;
+
+    WorkloadNode(String name, Properties properties) {
+        this.name = name;
+        this.sessionFactory = new Configuration()
+                .addAnnotatedClass(Item.class)
+                .addProperties(properties)
+                .buildSessionFactory();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Statistics getStatistics() {
+        return sessionFactory.getStatistics();
+    }
+
+    /**
+     * Inserts the entities {@code [firstId, firstId + count)} directly into the database, bypassing the cache.
+     */
+    void insert(long firstId, int count, LongToIntFunction categoryOf) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                long id = firstId + i;
+                session.insert(new Item(id, categoryOf.applyAsInt(id), "item-" + id, id));
+                if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                    transaction.commit();
+                    transaction = session.beginTransaction();
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    /**
+     * @return whether the entity exists
+     */
+    boolean read(long id) {
+        return sessionFactory.fromTransaction(session -> session.get(Item.class, id) != null);
+    }
+
+    /**
+     * @return the version of the entity, or {@link #CONFLICT} if it does not exist
+     */
+    int version(long id) {
+        return sessionFactory.fromTransaction(session -> {
+            Item item = session.get(Item.class, id);
+            return item == null ? CONFLICT : item.getVersion();
+        });
+    }
+
+    /**
+     * Increments the price of the entity.
+     *
+     * @return the new version of the entity, or {@link #CONFLICT}
+     */
+    int write(long id) {
+        try {
+            return sessionFactory.fromTransaction(session -> {
+                Item item = session.get(Item.class, id);
+                item.setPrice(item.getPrice() + 1);
+                session.flush();
+                return item.getVersion();
+            });
+        } catch (PersistenceException e) {
+            return CONFLICT;
+        }
+    }
+
+    /**
+     * @return the number of entities of the category, from the query cache if possible
+     */
+    int query(int category) {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("from Item where category = :category", Item.class)
+                .setParameter("category", category)
+                .setCacheable(true)
+                .getResultList()
+                .size());
+    }
+
+    /**
+     * Increments the price of all the entities of the category, which evicts the entity region and the query results
+     * of every node.
+     *
+     * @return the number of entities updated, or {@link #CONFLICT}
+     */
+    int bulkUpdate(int category) {
+        try {
+            return sessionFactory.fromTransaction(session -> session
+                    .createMutationQuery("update versioned Item set price = price + 1 where category = :category")
+                    .setParameter("category", category)
+                    .executeUpdate());
+        } catch (PersistenceException e) {
+            return CONFLICT;
+        }
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+    }
+}
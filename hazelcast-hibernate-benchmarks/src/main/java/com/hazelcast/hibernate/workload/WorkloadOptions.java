@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+import com.hazelcast.hibernate.HazelcastCacheRegionFactory;
+import com.hazelcast.hibernate.HazelcastLocalCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The options of a {@link WorkloadHarness} run, parsed from {@code key=value} arguments.
+ */
+final class WorkloadOptions {
+
+    private static final int DEFAULT_MEMBERS = 2;
+    private static final int DEFAULT_CLIENTS = 1;
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_ENTITIES = 10_000;
+    private static final int DEFAULT_CATEGORIES = 100;
+    private static final double DEFAULT_SKEW = 0.99;
+    private static final int DEFAULT_WARMUP_SECONDS = 10;
+    private static final int DEFAULT_SECONDS = 30;
+    private static final int DEFAULT_READS = 80;
+    private static final int DEFAULT_WRITES = 15;
+    private static final int DEFAULT_QUERIES = 4;
+    private static final int DEFAULT_BULK_UPDATES = 1;
+    private static final int DEFAULT_PROBE_INTERVAL_MILLIS = 100;
+
+    private final List<Class<? extends RegionFactory>> regionFactories;
+    private final int members;
+    private final int clients;
+    private final int threads;
+    private final int entities;
+    private final int categories;
+    private final double skew;
+    private final int warmupSeconds;
+    private final int seconds;
+    private final int[] cumulativeWeights;
+    private final int probeIntervalMillis;
+
+    private WorkloadOptions(Map<String, String> values) {
+        regionFactories = parseRegionFactories(values.getOrDefault("factories", "local,distributed"));
+        members = intValue(values, "members", DEFAULT_MEMBERS);
+        clients = intValue(values, "clients", DEFAULT_CLIENTS);
+        threads = intValue(values, "threads", DEFAULT_THREADS);
+        entities = intValue(values, "entities", DEFAULT_ENTITIES);
+        categories = intValue(values, "categories", DEFAULT_CATEGORIES);
+        skew = Double.parseDouble(values.getOrDefault("skew", String.valueOf(DEFAULT_SKEW)));
+        warmupSeconds = intValue(values, "warmup", DEFAULT_WARMUP_SECONDS);
+        seconds = intValue(values, "seconds", DEFAULT_SECONDS);
+        probeIntervalMillis = intValue(values, "probeInterval", DEFAULT_PROBE_INTERVAL_MILLIS);
+        cumulativeWeights = new int[] {
+                intValue(values, "read", DEFAULT_READS),
+                intValue(values, "write", DEFAULT_WRITES),
+                intValue(values, "query", DEFAULT_QUERIES),
+                intValue(values, "bulk", DEFAULT_BULK_UPDATES),
+        };
+        for (int i = 1; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] += cumulativeWeights[i - 1];
+        }
+        if (members < 1 || threads < 1 || entities < 1 || categories < 1 || getTotalWeight() < 1) {
+            throw new IllegalArgumentException("members, threads, entities, categories and the mix must be positive");
+        }
+    }
+
+    /**
+     * @param args arguments such as {@code members=3 clients=2 read=90 write=10 query=0 bulk=0}
+     */
+    static WorkloadOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+        return new WorkloadOptions(values);
+    }
+
+    List<Class<? extends RegionFactory>> getRegionFactories() {
+        return regionFactories;
+    }
+
+    int getMembers() {
+        return members;
+    }
+
+    int getClients() {
+        return clients;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    int getEntities() {
+        return entities;
+    }
+
+    int getCategories() {
+        return categories;
+    }
+
+    double getSkew() {
+        return skew;
+    }
+
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    int getSeconds() {
+        return seconds;
+    }
+
+    int getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+
+    int getTotalWeight() {
+        return cumulativeWeights[cumulativeWeights.length - 1];
+    }
+
+    /**
+     * @param draw a value drawn uniformly from {@code [0, getTotalWeight())}
+     * @return the operation the value falls on
+     */
+    Operation operationOf(int draw) {
+        Operation[] operations = Operation.values();
+        for (int i = 0; i < operations.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalArgumentException("Draw out of range: " + draw);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder mix = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            int ordinal = operation.ordinal();
+            int weight = cumulativeWeights[ordinal] - (ordinal == 0 ? 0 : cumulativeWeights[ordinal - 1]);
+            mix.append(mix.length() == 0 ? "" : ", ").append(operation.name().toLowerCase(Locale.ROOT)).append('=')
+                    .append(weight);
+        }
+        return members + " members, " + clients + " clients, " + threads + " threads per node, " + entities
+                + " entities (skew " + skew + "), mix " + mix + ", " + seconds + "s";
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static List<Class<? extends RegionFactory>> parseRegionFactories(String value) {
+        List<Class<? extends RegionFactory>> factories = new ArrayList<>();
+        for (String name : value.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "local":
+                    factories.add(HazelcastLocalCacheRegionFactory.class);
+                    break;
+                case "distributed":
+                    factories.add(HazelcastCacheRegionFactory.class);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown region factory, expected local or distributed: " + name);
+            }
+        }
+        return factories;
+    }
+}
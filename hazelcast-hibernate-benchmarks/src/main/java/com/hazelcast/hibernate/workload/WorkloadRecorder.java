@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+import com.hazelcast.hibernate.metrics.LatencyHistogram;
+import org.hibernate.stat.Statistics;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latencies of a workload run and prints its report. The database hit ratios are derived from the
+ * Hibernate {@link Statistics} of the nodes, which are cleared when the recording starts.
+ */
+final class WorkloadRecorder {
+
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+    private static final String ROW = "%-12s %12s %10s %10s %10s %10s%n";
+    private static final String NUMBERS = "%-12s %12.1f %10.1f %10.1f %10.1f %10.1f%n";
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder conflicts = new LongAdder();
+    private final LatencyHistogram propagationDelays = new LatencyHistogram();
+    private final LongAdder staleProbes = new LongAdder();
+
+    WorkloadRecorder() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean conflict) {
+        latencies.get(operation).record(latencyNanos);
+        if (conflict) {
+            conflicts.increment();
+        }
+    }
+
+    /**
+     * @param delayNanos the time between the commit of an update on one node and the first read of the new version
+     *                   on another node
+     */
+    void recordPropagation(long delayNanos) {
+        propagationDelays.record(delayNanos);
+    }
+
+    /**
+     * Records an update which was still not visible on another node after the probe timeout.
+     */
+    void recordStaleProbe() {
+        staleProbes.increment();
+    }
+
+    void print(PrintStream out, String title, long elapsedNanos, List<WorkloadNode> nodes) {
+        out.printf("%n== %s ==%n", title);
+        out.printf(ROW, "operation", "ops/s", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)");
+        long total = 0;
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            total += histogram.getCount();
+            printRow(out, entry.getKey().name().toLowerCase(Locale.ROOT), histogram, elapsedNanos);
+        }
+        out.printf(Locale.ROOT, "total ops/s: %.1f, conflicts: %d%n", total * NANOS_PER_SECOND / elapsedNanos,
+                conflicts.sum());
+        printDatabaseHitRatios(out, nodes);
+        if (propagationDelays.getCount() > 0 || staleProbes.sum() > 0) {
+            out.printf(ROW, "propagation", "probes", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)");
+            printRow(out, "", propagationDelays, 0);
+            out.printf("stale probes: %d%n", staleProbes.sum());
+        }
+    }
+
+    private static void printDatabaseHitRatios(PrintStream out, List<WorkloadNode> nodes) {
+        long entityHits = 0;
+        long entityMisses = 0;
+        long queryHits = 0;
+        long queryMisses = 0;
+        for (WorkloadNode node : nodes) {
+            Statistics statistics = node.getStatistics();
+            entityHits += statistics.getSecondLevelCacheHitCount();
+            entityMisses += statistics.getSecondLevelCacheMissCount();
+            queryHits += statistics.getQueryCacheHitCount();
+            queryMisses += statistics.getQueryCacheMissCount();
+        }
+        out.printf(Locale.ROOT, "DB hit ratio: entities %.3f, queries %.3f%n", ratio(entityMisses, entityHits),
+                ratio(queryMisses, queryHits));
+    }
+
+    /**
+     * Prints the throughput of the histogram, or its count if no elapsed time is given
+     */
+    private static void printRow(PrintStream out, String name, LatencyHistogram histogram, long elapsedNanos) {
+        double count = histogram.getCount();
+        out.printf(Locale.ROOT, NUMBERS, name, elapsedNanos == 0 ? count : count * NANOS_PER_SECOND / elapsedNanos,
+                micros(histogram.getValueAtPercentile(P50)),
+                micros(histogram.getValueAtPercentile(P99)),
+                micros(histogram.getValueAtPercentile(P999)),
+                micros(histogram.getMax()));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+
+    private static double ratio(long misses, long hits) {
+        long accesses = misses + hits;
+        return accesses == 0 ? 0 : (double) misses / accesses;
+    }
+}
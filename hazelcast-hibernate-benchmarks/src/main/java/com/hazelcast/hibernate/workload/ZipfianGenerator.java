@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.workload;
+
+/**
+ * Draws ranks in {@code [0, items)} following a Zipfian distribution, rank 0 being the most popular, using the
+ * algorithm of Gray et al., "Quickly Generating Billion-Record Synthetic Databases" also used by YCSB.
+ */
+final class ZipfianGenerator {
+
+    private static final double HALF = 0.5;
+
+    private final long items;
+    private final double theta;
+    private final double zetan;
+    private final double alpha;
+    private final double eta;
+
+    /**
+     * @param items the number of ranks
+     * @param theta the skew, from 0 for a uniform distribution up to (excluding) 1
+     */
+    ZipfianGenerator(long items, double theta) {
+        if (items < 1) {
+            throw new IllegalArgumentException("items must be positive: " + items);
+        }
+        if (theta < 0 || theta >= 1) {
+            throw new IllegalArgumentException("theta must be in [0, 1): " + theta);
+        }
+        this.items = items;
+        this.theta = theta;
+        this.zetan = zeta(items, theta);
+        this.alpha = 1 / (1 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+    }
+
+    /**
+     * @param uniform a value drawn uniformly from {@code [0, 1)}
+     * @return the rank mapped to that value
+     */
+    long next(double uniform) {
+        double uz = uniform * zetan;
+        if (uz < 1) {
+            return 0;
+        }
+        if (items > 1 && uz < 1 + Math.pow(HALF, theta)) {
+            return 1;
+        }
+        long rank = (long) (items * Math.pow(eta * uniform - eta + 1, alpha));
+        return Math.min(rank, items - 1);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -16,11 +16,18 @@
 package com.hazelcast.hibernate;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.distributed.IMapRegionCache;
 import com.hazelcast.hibernate.instance.DefaultHazelcastInstanceFactory;
 import com.hazelcast.hibernate.instance.IHazelcastInstanceFactory;
 import com.hazelcast.hibernate.instance.IHazelcastInstanceLoader;
 import com.hazelcast.hibernate.local.FreeHeapBasedCacheEvictor;
+import com.hazelcast.hibernate.local.GcNotificationCacheEvictor;
+import com.hazelcast.hibernate.local.InvalidationBatcher;
 import com.hazelcast.hibernate.local.LocalRegionCache;
+import com.hazelcast.hibernate.local.MemoryBudgetCoordinator;
+import com.hazelcast.hibernate.metrics.RegionMetricsProvider;
+import com.hazelcast.hibernate.serialization.CacheEntryDictionary;
+import com.hazelcast.hibernate.serialization.CacheEntrySchema;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -28,19 +35,24 @@ import org.hibernate.boot.spi.SessionFactoryOptions;
 import org.hibernate.cache.CacheException;
 import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
 import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.EntityDataCachingConfig;
 import org.hibernate.cache.internal.DefaultCacheKeysFactory;
 import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.CacheTransactionSynchronization;
 import org.hibernate.cache.spi.DomainDataRegion;
 import org.hibernate.cache.spi.support.DomainDataStorageAccess;
 import org.hibernate.cache.spi.support.RegionFactoryTemplate;
 import org.hibernate.cache.spi.support.StorageAccess;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
 import static java.lang.Class.forName;
 
 /**
@@ -51,12 +63,20 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
     protected HazelcastInstance instance;
     protected final List<LocalRegionCache> localRegionCaches = new ArrayList<>();
     protected final FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor = new FreeHeapBasedCacheEvictor();
+    protected final InvalidationBatcher invalidationBatcher = new InvalidationBatcher();
+    protected final GcNotificationCacheEvictor gcNotificationCacheEvictor = new GcNotificationCacheEvictor();
+    protected MemoryBudgetCoordinator memoryBudgetCoordinator;
+    protected HazelcastTimestamper timestamper;
+    protected boolean sequencedTimestamps;
+    CircuitBreaker circuitBreaker;
+    RegionMetricsProvider regionMetricsProvider;
 
     private final PhoneHomeService phoneHomeService;
     private final CacheKeysFactory cacheKeysFactory;
     private final ILogger log = Logger.getLogger(getClass());
 
     private IHazelcastInstanceLoader instanceLoader;
+    private int bulkPrefetchSize;
 
     @SuppressWarnings("unused")
     protected AbstractHazelcastCacheRegionFactory() {
@@ -82,6 +102,7 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
     @Override
     public DomainDataRegion buildDomainDataRegion(final DomainDataRegionConfig regionConfig,
                                                   final DomainDataRegionBuildingContext buildingContext) {
+        registerEntityNames(regionConfig, buildingContext.getSessionFactory());
         return new HazelcastDomainDataRegionImpl(
           regionConfig,
           this,
@@ -91,6 +112,23 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
         );
     }
 
+    private void registerEntityNames(final DomainDataRegionConfig regionConfig,
+                                     final SessionFactoryImplementor sessionFactory) {
+        final Map<String, Object> properties = sessionFactory.getProperties();
+        // the names and schemas are always read, the properties only disable writing them
+        final boolean compactNames = CacheEnvironment.isCompactEntityNames(properties);
+        final boolean compactState = CacheEnvironment.isCompactEntityState(properties);
+        for (EntityDataCachingConfig entityCaching : regionConfig.getEntityCaching()) {
+            for (NavigableRole cachedType : entityCaching.getCachedTypes()) {
+                final String entityName = cachedType.getFullPath();
+                // the persisters are built after the regions
+                CacheEntryDictionary.register(this, entityName, () -> CacheEntrySchema.of(sessionFactory
+                        .getMappingMetamodel().getEntityDescriptor(entityName).getPropertyTypes()),
+                        compactNames, compactState);
+            }
+        }
+    }
+
     @SuppressFBWarnings("EI_EXPOSE_REP")
     public HazelcastInstance getHazelcastInstance() {
         return instance;
@@ -99,9 +137,12 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
     @Override
     protected DomainDataStorageAccess createDomainDataStorageAccess(final DomainDataRegionConfig regionConfig,
                                                                     final DomainDataRegionBuildingContext buildingContext) {
+        final RegionCache regionCache = createRegionCache(regionConfig.getRegionName(), buildingContext.getSessionFactory(),
+                regionConfig);
         return new HazelcastStorageAccessImpl(
-          createRegionCache(regionConfig.getRegionName(), buildingContext.getSessionFactory(), regionConfig),
-          CacheEnvironment.getFallback(buildingContext.getSessionFactory().getProperties())
+          withMetrics(regionCache),
+          CacheEnvironment.getFallback(buildingContext.getSessionFactory().getProperties()),
+          circuitBreakerOf(regionCache)
         );
     }
 
@@ -115,10 +156,14 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
                 .withHazelcastInstance(instance)
                 .withTopic(false)
                 .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor)
+                .withGcNotificationCacheEvictor(gcNotificationCacheEvictor,
+                        CacheEnvironment.isGcNotificationEviction(sessionFactory.getProperties(), regionName))
+                .withMemoryBudgetCoordinator(memoryBudgetCoordinator)
+                .withTimestamper(timestamper)
                 .build();
         localRegionCaches.add(regionCache);
-        return new HazelcastStorageAccessImpl(regionCache, CacheEnvironment
-                .getFallback(sessionFactory.getProperties()));
+        return new HazelcastStorageAccessImpl(withMetrics(regionCache), CacheEnvironment
+                .getFallback(sessionFactory.getProperties()), null);
     }
 
     protected abstract RegionCache createRegionCache(String unqualifiedRegionName,
@@ -128,14 +173,49 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
     @Override
     protected StorageAccess createTimestampsRegionStorageAccess(final String regionName,
                                                                 final SessionFactoryImplementor sessionFactory) {
+        final RegionCache regionCache = createTimestampsRegionCache(regionName, sessionFactory);
         return new HazelcastStorageAccessImpl(
-          createTimestampsRegionCache(regionName, sessionFactory),
-          CacheEnvironment.getFallback(sessionFactory.getProperties()));
+          withMetrics(regionCache),
+          CacheEnvironment.getFallback(sessionFactory.getProperties()), circuitBreakerOf(regionCache));
+    }
+
+    /**
+     * @return the circuit breaker if the region cache calls the cluster for its entries, otherwise {@code null}, as
+     * the entries of local region caches are available while the cluster is unreachable
+     */
+    private CircuitBreaker circuitBreakerOf(final RegionCache regionCache) {
+        return regionCache instanceof IMapRegionCache ? circuitBreaker : null;
     }
 
     protected abstract RegionCache createTimestampsRegionCache(String regionName,
                                                                SessionFactoryImplementor sessionFactory);
 
+    private RegionCache withMetrics(final RegionCache regionCache) {
+        if (regionMetricsProvider != null && regionCache.getMetrics() != null) {
+            regionMetricsProvider.add(regionCache.getMetrics());
+        }
+        return regionCache;
+    }
+
+    /**
+     * @return the provider of the metrics of the regions, or {@code null} if the region factory is not started
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public RegionMetricsProvider getRegionMetricsProvider() {
+        return regionMetricsProvider;
+    }
+
+    /**
+     * @return the cache synchronization of a session, which holds the entries the session reads in bulk if
+     * {@link CacheEnvironment#BULK_PREFETCH_SIZE} is configured, see {@link BulkPrefetch}
+     */
+    @Override
+    public CacheTransactionSynchronization createTransactionContext(final SharedSessionContractImplementor session) {
+        return bulkPrefetchSize == 0
+                ? super.createTransactionContext(session)
+                : new BulkPrefetch.Synchronization(this, bulkPrefetchSize);
+    }
+
     @Override
     protected CacheKeysFactory getImplicitCacheKeysFactory() {
         return cacheKeysFactory;
@@ -161,9 +241,26 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
             instanceLoader = resolveInstanceLoader(toProperties(configValues));
             instance = instanceLoader.loadInstance();
         }
+        sequencedTimestamps = CacheEnvironment.isSequencedTimestamps(toProperties(configValues));
+        timestamper = new HazelcastTimestamper(instance,
+                CacheEnvironment.getClusterTimeRefreshInterval(toProperties(configValues)), sequencedTimestamps);
+        circuitBreaker = createCircuitBreaker(toProperties(configValues));
+        bulkPrefetchSize = CacheEnvironment.getBulkPrefetchSize(toProperties(configValues));
+        regionMetricsProvider = RegionMetricsProvider.register(instance);
+        int memoryBudgetInMB = CacheEnvironment.getLocalCacheMemoryBudget(toProperties(configValues));
+        if (memoryBudgetInMB > 0) {
+            memoryBudgetCoordinator = MemoryBudgetCoordinator.acquire(MEGABYTES.toBytes(memoryBudgetInMB));
+        }
         phoneHomeService.start();
     }
 
+    private static CircuitBreaker createCircuitBreaker(Properties properties) {
+        int failureThreshold = CacheEnvironment.getCircuitBreakerFailureThreshold(properties);
+        return failureThreshold == 0 ? null : new CircuitBreaker(failureThreshold,
+                CacheEnvironment.getCircuitBreakerSlowCallThreshold(properties),
+                CacheEnvironment.getCircuitBreakerOpenDuration(properties));
+    }
+
     private IHazelcastInstanceLoader resolveInstanceLoader(Properties properties) {
         String factoryName = properties.getProperty(CacheEnvironment.HAZELCAST_FACTORY);
         if (factoryName != null) {
@@ -183,8 +280,23 @@ public abstract class AbstractHazelcastCacheRegionFactory extends RegionFactoryT
     @Override
     protected void releaseFromUse() {
         phoneHomeService.shutdown();
+        CacheEntryDictionary.unregister(this);
         localRegionCaches.forEach(LocalRegionCache::destroy);
         freeHeapBasedCacheEvictor.close();
+        invalidationBatcher.close();
+        gcNotificationCacheEvictor.close();
+        if (timestamper != null) {
+            timestamper.close();
+            timestamper = null;
+        }
+        if (regionMetricsProvider != null) {
+            regionMetricsProvider.close();
+            regionMetricsProvider = null;
+        }
+        if (memoryBudgetCoordinator != null) {
+            memoryBudgetCoordinator.release();
+            memoryBudgetCoordinator = null;
+        }
         if (instanceLoader != null) {
             log.info("Shutting down " + getClass().getSimpleName());
             instanceLoader.unloadInstance();
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate;
+
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk reads of the entities or collections of a region, which Hibernate's access strategies only read one key at a
+ * time. The access strategies of Hazelcast regions read all keys with a single call per partition owner, see
+ * {@link HazelcastStorageAccess#getAll}.
+ * <p/>
+ * The keys are the cache keys the access strategy generates, e.g. by
+ * {@link org.hibernate.cache.spi.access.EntityDataAccess#generateCacheKey}.
+ */
+public interface BulkDataAccess {
+
+    /**
+     * Reads the values of the keys as {@link CachedDomainDataAccess#get} would, but at once.
+     *
+     * @return the values of the keys which hit, by key
+     */
+    Map<Object, Object> getAll(SharedSessionContractImplementor session, Collection<?> keys);
+
+    /**
+     * @return the bulk reads of the access strategy. Those of Hazelcast regions read all keys at once, unless they
+     * are read-write access strategies which were not created by the region. The others read the keys one at a time.
+     */
+    static BulkDataAccess of(final CachedDomainDataAccess access) {
+        if (access instanceof BulkDataAccess) {
+            return (BulkDataAccess) access;
+        }
+        final DomainDataRegion region = access.getRegion();
+        if (!(access instanceof AbstractReadWriteAccess) && region instanceof DomainDataRegionTemplate
+                && ((DomainDataRegionTemplate) region).getCacheStorageAccess() instanceof HazelcastStorageAccess) {
+            // apart from read-write access, the access strategies read the values from the storage as they are
+            final HazelcastStorageAccess storageAccess =
+                    (HazelcastStorageAccess) ((DomainDataRegionTemplate) region).getCacheStorageAccess();
+            return (session, keys) -> storageAccess.getAll(keys, session);
+        }
+        return (session, keys) -> {
+            final Map<Object, Object> values = new HashMap<>();
+            for (Object key : keys) {
+                final Object value = access.get(session, key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+            return values;
+        };
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.serialization.CompactIdList;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.spi.CacheTransactionSynchronization;
+import org.hibernate.cache.spi.QueryKey;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.StandardCacheTransactionSynchronization;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The entries a session reads in bulk. When a session hits a collection or query results of ids, Hibernate resolves
+ * the ids one at a time, which takes a call to the cluster per id. Instead, the ids are kept, and when the session
+ * reads the first of them from a region, the entries of all of them are read from the region at once, see
+ * {@link RegionCache#getAll}, and kept for the following reads of the session.
+ * <p/>
+ * The ids of a collection are only read in bulk by the reads of the entity of its elements, or of the collections
+ * owned by it. Query results do not record the entity they are the ids of, so their ids are only read in bulk by the
+ * first read of an entity which follows the hit, which is the one Hibernate resolves them with. The keys of cache keys
+ * factories which do not record the entity either, like {@code SimpleCacheKeysFactory}, are never read in bulk.
+ * <p/>
+ * The entries are read as of the same timestamp as the first one, and are only kept while the session resolves the
+ * ids: until the session reads a key of the region which was not read in bulk, writes or removes them, an entry of the
+ * region is evicted, or its transaction completes.
+ */
+final class BulkPrefetch {
+
+    private static final Object NOT_PREFETCHED = new Object();
+
+    private static final int MAX_ID_LISTS = 16;
+
+    private final int maxSize;
+    private final Deque<IdList> idLists = new ArrayDeque<>();
+    private final Map<HazelcastStorageAccessImpl, StagedEntries> entries = new IdentityHashMap<>();
+
+    BulkPrefetch(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the bulk reads of the session, or {@code null} if there is no session or it does not prefetch
+     */
+    static BulkPrefetch of(final SharedSessionContractImplementor session) {
+        final CacheTransactionSynchronization synchronization = session == null
+                ? null
+                : session.getCacheTransactionSynchronization();
+        return synchronization instanceof Synchronization ? ((Synchronization) synchronization).prefetch : null;
+    }
+
+    /**
+     * Reads the value of the key, from the entries read in bulk if it was read in bulk. Otherwise, if the id of the key
+     * is one of the ids of its entity the session hit, reads the entries of all of them first. If the value is a
+     * collection or query results of ids, keeps the ids for the following reads.
+     */
+    Object get(final HazelcastStorageAccessImpl storageAccess, final Object key,
+               final SharedSessionContractImplementor session, final long txTimestamp) {
+        Object value = take(storageAccess, key);
+        if (value == NOT_PREFETCHED) {
+            final List<Object> keys = claimKeys(key, session);
+            if (keys != null) {
+                prefetch(storageAccess, keys, txTimestamp);
+                value = take(storageAccess, key);
+            }
+        }
+        if (value == NOT_PREFETCHED) {
+            value = storageAccess.tryWithFallback(cache -> cache.get(key, txTimestamp), null);
+        }
+        offer(key, CompactIdList.idsOf(value), session);
+        return value;
+    }
+
+    /**
+     * Discards the entry read in bulk of a key the session writes or removes
+     */
+    void discard(final HazelcastStorageAccessImpl storageAccess, final Object key) {
+        final StagedEntries storageEntries = entries.get(storageAccess);
+        if (storageEntries != null) {
+            storageEntries.values.remove(key);
+        }
+    }
+
+    void clear() {
+        idLists.clear();
+        entries.clear();
+    }
+
+    private void prefetch(final HazelcastStorageAccessImpl storageAccess, final Collection<Object> keys,
+                          final long txTimestamp) {
+        final long evictions = storageAccess.getEvictionCount();
+        final Map<Object, Object> values = storageAccess.tryWithFallback(cache -> cache.getAll(keys, txTimestamp), null);
+        if (values == null) {
+            return;
+        }
+        // replaces the entries read before, the misses included
+        final Map<Object, Object> storageEntries = new HashMap<>();
+        for (Object key : keys) {
+            storageEntries.put(key, values.get(key));
+        }
+        entries.put(storageAccess, new StagedEntries(evictions, storageEntries));
+    }
+
+    /**
+     * @return the value read in bulk, or {@link #NOT_PREFETCHED}, in which case the session is done resolving the ids
+     * of the entries of the region read in bulk, so they are discarded
+     */
+    private Object take(final HazelcastStorageAccessImpl storageAccess, final Object key) {
+        final StagedEntries storageEntries = entries.get(storageAccess);
+        if (storageEntries == null) {
+            return NOT_PREFETCHED;
+        }
+        if (storageEntries.evictions != storageAccess.getEvictionCount() || !storageEntries.values.containsKey(key)) {
+            entries.remove(storageAccess);
+            return NOT_PREFETCHED;
+        }
+        return storageEntries.values.remove(key);
+    }
+
+    private void offer(final Object key, final List<?> ids, final SharedSessionContractImplementor session) {
+        if (ids == null || ids.size() < 2) {
+            return;
+        }
+        final Object cacheKey = unwrap(key);
+        final String entityName;
+        if (cacheKey instanceof QueryKey) {
+            entityName = null;
+        } else {
+            entityName = elementEntityNameOf(nameOf(cacheKey), session.getFactory().getMappingMetamodel());
+            if (entityName == null) {
+                // not a collection of entities, or one whose role is not known
+                return;
+            }
+        }
+        if (idLists.size() == MAX_ID_LISTS) {
+            idLists.removeLast();
+        }
+        idLists.addFirst(new IdList(entityName, ids.size() > maxSize ? ids.subList(0, maxSize) : ids));
+    }
+
+    /**
+     * Claims the ids the id of the key is one of, if they are the ids of its entity or of the owner of its collection.
+     * Drops the ids of query results, unless the key is that of an entity whose id is one of them.
+     *
+     * @return the keys of the claimed ids in the region of the key, or {@code null} if none are claimed
+     */
+    private List<Object> claimKeys(final Object key, final SharedSessionContractImplementor session) {
+        final Object cacheKey = unwrap(key);
+        final String name = nameOf(cacheKey);
+        if (name == null) {
+            return null;
+        }
+        final Object id = cacheKey instanceof BasicCacheKeyImplementation
+                ? ((BasicCacheKeyImplementation) cacheKey).getId()
+                : ((CacheKeyImplementation) cacheKey).getId();
+        final String tenantId = cacheKey instanceof CacheKeyImplementation
+                ? ((CacheKeyImplementation) cacheKey).getTenantId()
+                : null;
+        final SessionFactoryImplementor factory = session.getFactory();
+        final MappingMetamodel metamodel = factory.getMappingMetamodel();
+        final EntityPersister entityPersister = metamodel.findEntityDescriptor(name);
+        if (entityPersister != null) {
+            final Set<Object> ids = claimIdList(entityPersister.getRootEntityName(), id, true);
+            if (ids == null || !entityPersister.canReadFromCache()) {
+                return null;
+            }
+            final List<Object> keys = new ArrayList<>(ids.size());
+            for (Object claimedId : ids) {
+                keys.add(entityPersister.getCacheAccessStrategy()
+                        .generateCacheKey(claimedId, entityPersister, factory, tenantId));
+            }
+            return keys;
+        }
+        final CollectionPersister collectionPersister = metamodel.findCollectionDescriptor(name);
+        if (collectionPersister == null || !collectionPersister.hasCache()) {
+            return null;
+        }
+        final Set<Object> ids = claimIdList(collectionPersister.getOwnerEntityPersister().getRootEntityName(), id, false);
+        if (ids == null) {
+            return null;
+        }
+        final List<Object> keys = new ArrayList<>(ids.size());
+        for (Object claimedId : ids) {
+            keys.add(collectionPersister.getCacheAccessStrategy()
+                    .generateCacheKey(claimedId, collectionPersister, factory, tenantId));
+        }
+        return keys;
+    }
+
+    private Set<Object> claimIdList(final String entityName, final Object id, final boolean entityRead) {
+        for (Iterator<IdList> iterator = idLists.iterator(); iterator.hasNext();) {
+            final IdList idList = iterator.next();
+            if (idList.entityName == null) {
+                if (entityRead) {
+                    // the read which resolves the query results, if they are the ids of the entity
+                    iterator.remove();
+                    if (idList.ids.contains(id)) {
+                        return idList.ids;
+                    }
+                }
+            } else if (idList.entityName.equals(entityName) && idList.ids.contains(id)) {
+                iterator.remove();
+                return idList.ids;
+            }
+        }
+        return null;
+    }
+
+    private static Object unwrap(final Object key) {
+        return key instanceof PartitionAwareCacheKey ? ((PartitionAwareCacheKey) key).getKey() : key;
+    }
+
+    /**
+     * @return the name of the entity or collection role of the key, or {@code null} if the key does not record it
+     */
+    private static String nameOf(final Object cacheKey) {
+        if (cacheKey instanceof BasicCacheKeyImplementation) {
+            return ((BasicCacheKeyImplementation) cacheKey).getEntityOrRoleName();
+        }
+        return cacheKey instanceof CacheKeyImplementation ? ((CacheKeyImplementation) cacheKey).getEntityOrRoleName() : null;
+    }
+
+    /**
+     * @return the root entity name of the elements of the collection role, or {@code null} if they are not entities
+     */
+    private static String elementEntityNameOf(final String role, final MappingMetamodel metamodel) {
+        final CollectionPersister collectionPersister = role == null ? null : metamodel.findCollectionDescriptor(role);
+        if (collectionPersister == null || !collectionPersister.getElementType().isEntityType()) {
+            return null;
+        }
+        final String elementEntityName = ((EntityType) collectionPersister.getElementType()).getAssociatedEntityName();
+        return metamodel.getEntityDescriptor(elementEntityName).getRootEntityName();
+    }
+
+    /**
+     * The ids of a collection or query results the session hit
+     */
+    private static final class IdList {
+
+        /**
+         * The root entity name of the ids, or {@code null} for query results
+         */
+        private final String entityName;
+        private final Set<Object> ids;
+
+        private IdList(final String entityName, final List<?> ids) {
+            this.entityName = entityName;
+            this.ids = new LinkedHashSet<>(ids);
+        }
+    }
+
+    /**
+     * The entries of a region read in bulk, and the number of evictions of the region before they were read
+     */
+    private static final class StagedEntries {
+
+        private final long evictions;
+        private final Map<Object, Object> values;
+
+        private StagedEntries(final long evictions, final Map<Object, Object> values) {
+            this.evictions = evictions;
+            this.values = values;
+        }
+    }
+
+    /**
+     * The cache synchronization of a session which prefetches, which holds its {@link BulkPrefetch}
+     */
+    static final class Synchronization extends StandardCacheTransactionSynchronization {
+
+        private final BulkPrefetch prefetch;
+
+        Synchronization(final RegionFactory regionFactory, final int maxSize) {
+            super(regionFactory);
+            this.prefetch = new BulkPrefetch(maxSize);
+        }
+
+        @Override
+        public void transactionCompleted(final boolean success) {
+            super.transactionCompleted(success);
+            prefetch.clear();
+        }
+    }
+}
@@ -15,10 +15,19 @@
 
 package com.hazelcast.hibernate;
 
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.hibernate.local.OffHeapStore;
+import com.hazelcast.hibernate.serialization.CompressionDictionary;
 import org.hibernate.internal.util.config.ConfigurationException;
 import org.hibernate.internal.util.config.ConfigurationHelper;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 
@@ -102,6 +111,248 @@ public final class CacheEnvironment {
      */
     public static final String HAZELCAST_FACTORY = "hibernate.cache.hazelcast.factory";
 
+    /**
+     * Property to configure the time window (in milliseconds) during which invalidations of a local region are
+     * coalesced into a single topic message. {@code 0} (the default) publishes every invalidation on its own.
+     * <p>
+     * Can be overridden for a single region by appending the region name, e.g.
+     * {@code hibernate.cache.hazelcast.invalidation_batch_window.com.example.Order}
+     */
+    public static final String INVALIDATION_BATCH_WINDOW_MS = "hibernate.cache.hazelcast.invalidation_batch_window";
+
+    /**
+     * Property to configure the maximum number of invalidations of a local region sent in a single topic message.
+     * A batch is published as soon as it reaches this size, even if its time window has not elapsed yet.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String INVALIDATION_BATCH_MAX_SIZE = "hibernate.cache.hazelcast.invalidation_batch_max_size";
+
+    /**
+     * Property to enable distributing the invalidations of a local region through a reliable topic instead of
+     * a plain one. Invalidations missed e.g. during a client reconnect are then replayed from the topic's
+     * ringbuffer, and the region is cleared only if the ringbuffer no longer holds them.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String RELIABLE_INVALIDATION = "hibernate.cache.hazelcast.reliable_invalidation";
+
+    /**
+     * Property to enable publishing the invalidations of local regions asynchronously, so that committing
+     * transactions do not wait for the cluster to acknowledge them. The value is the maximum number of
+     * invalidation messages in flight per region; when it is reached, publishing blocks until one is acknowledged.
+     * Defaults to {@code 0}, which publishes synchronously.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String ASYNC_INVALIDATION_MAX_IN_FLIGHT = "hibernate.cache.hazelcast.async_invalidation_max_in_flight";
+
+    /**
+     * Property to evict local regions with the {@code FREE_HEAP_SIZE} max-size policy after garbage collections
+     * instead of polling the free heap once a second. The {@code FREE_HEAP_PERCENTAGE} policy is always evicted after
+     * garbage collections.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String GC_NOTIFICATION_EVICTION = "hibernate.cache.hazelcast.gc_notification_eviction";
+
+    /**
+     * Property to configure the total memory budget in megabytes of the local region caches of the JVM. The budget
+     * is split dynamically among the regions with the {@code PER_NODE} or {@code USED_HEAP_SIZE} max-size policy,
+     * favouring the regions with the most hits per byte. Defaults to {@code 0}, which sizes every region on its own.
+     */
+    public static final String LOCAL_CACHE_MEMORY_BUDGET = "hibernate.cache.hazelcast.local_cache_memory_budget";
+
+    /**
+     * Property to keep the entries of local regions serialized in direct memory instead of on the heap. The value
+     * is the capacity of a region in megabytes. Defaults to {@code 0}, which keeps the entries on the heap.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String OFF_HEAP_CAPACITY = "hibernate.cache.hazelcast.off_heap_capacity";
+
+    /**
+     * Property to configure the entries evicted from off-heap local regions when their capacity is exhausted,
+     * {@code LRU} (the default) or {@code LFU}.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String OFF_HEAP_EVICTION_POLICY = "hibernate.cache.hazelcast.off_heap_eviction_policy";
+
+    /**
+     * Property to configure the format in which local entity and collection regions store the cached values,
+     * {@code OBJECT} (the default) or {@code BINARY}, which stores them serialized.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String LOCAL_IN_MEMORY_FORMAT = "hibernate.cache.hazelcast.local_in_memory_format";
+
+    /**
+     * Property to configure the number of deserialized values which local regions in the {@code BINARY} in-memory
+     * format keep in front of the serialized ones. Defaults to {@code 0}, deserializing on every read.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String HOT_OBJECT_CACHE_SIZE = "hibernate.cache.hazelcast.hot_object_cache_size";
+
+    /**
+     * Property to attach a Near Cache to the maps of the regions of {@link HazelcastCacheRegionFactory}, on members
+     * and clients. Defaults to {@code false}.
+     * <p>
+     * Can be overridden for a single region by appending the region name, as can the other Near Cache properties
+     */
+    public static final String NEAR_CACHE_ENABLED = "hibernate.cache.hazelcast.near_cache_enabled";
+
+    /**
+     * Property to configure the maximum number of entries in the Near Cache of a region
+     */
+    public static final String NEAR_CACHE_MAX_SIZE = "hibernate.cache.hazelcast.near_cache_max_size";
+
+    /**
+     * Property to configure the time in seconds after which entries expire from the Near Cache of a region,
+     * {@code 0} for never
+     */
+    public static final String NEAR_CACHE_TIME_TO_LIVE = "hibernate.cache.hazelcast.near_cache_time_to_live";
+
+    /**
+     * Property to configure the in-memory format of the Near Cache of a region, {@code BINARY} (the default)
+     * or {@code OBJECT}
+     */
+    public static final String NEAR_CACHE_IN_MEMORY_FORMAT = "hibernate.cache.hazelcast.near_cache_in_memory_format";
+
+    /**
+     * Property to configure whether Near Cache entries are invalidated when the entries of the map change.
+     * Defaults to {@code true}.
+     */
+    public static final String NEAR_CACHE_INVALIDATE_ON_CHANGE = "hibernate.cache.hazelcast.near_cache_invalidate_on_change";
+
+    /**
+     * Property to configure whether the keys of the Near Cache of a region are stored and preloaded when a
+     * client restarts. Ignored on members. Defaults to {@code false}.
+     */
+    public static final String NEAR_CACHE_PRELOADER = "hibernate.cache.hazelcast.near_cache_preloader";
+
+    /**
+     * Property to hold the soft locks of read-write regions of {@link HazelcastCacheRegionFactory} in the map entries,
+     * locking and unlocking them by entry processors on the partition owners. Requires hazelcast-hibernate on the
+     * classpath of the members. Defaults to {@code false}.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String SERVER_SIDE_SOFT_LOCKS = "hibernate.cache.hazelcast.server_side_soft_locks";
+
+    /**
+     * Property to configure the interval in milliseconds in which local region caches refresh the offset of the
+     * cluster time from the local clock, instead of requesting the cluster time for every timestamp. Zero requests
+     * the cluster time for every timestamp. Defaults to 1000.
+     */
+    public static final String CLUSTER_TIME_REFRESH_INTERVAL = "hibernate.cache.hazelcast.cluster_time_refresh_interval";
+
+    /**
+     * Property to create the timestamps of {@code HazelcastLocalCacheRegionFactory} with {@code 4096} sequence numbers per
+     * millisecond, like Hibernate's own timestamps, rather than in milliseconds. The earlier versions create them in
+     * milliseconds, so disable it while upgrading a cluster of which some nodes run such a version. Defaults to
+     * {@code true}.
+     */
+    public static final String SEQUENCED_TIMESTAMPS = "hibernate.cache.hazelcast.sequenced_timestamps";
+
+    /**
+     * Property to configure the number of consecutive failed cache operations after which the regions fall back to the
+     * datasource without calling the cluster, if {@link #FALLBACK} is enabled. Zero disables the circuit breaker.
+     * Defaults to 5.
+     */
+    public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD = "hibernate.cache.hazelcast.circuit_breaker_failure_threshold";
+
+    /**
+     * Property to configure the duration in milliseconds after which a cache operation counts as failed for the
+     * circuit breaker. Zero disables it. Defaults to 0.
+     */
+    public static final String CIRCUIT_BREAKER_SLOW_CALL_THRESHOLD =
+            "hibernate.cache.hazelcast.circuit_breaker_slow_call_threshold";
+
+    /**
+     * Property to configure the duration in milliseconds for which an opened circuit breaker falls back to the
+     * datasource before a single cache operation probes the cluster again. Defaults to 5000.
+     */
+    public static final String CIRCUIT_BREAKER_OPEN_DURATION = "hibernate.cache.hazelcast.circuit_breaker_open_duration";
+
+    /**
+     * Property to configure the deadline in milliseconds of reads and writes of the regions of
+     * {@link HazelcastCacheRegionFactory}. A read which does not complete within the deadline is a cache miss, a write
+     * completes in the background. Zero waits until the operations complete. Defaults to 0.
+     * <p>
+     * Without a deadline, bulk reads take a single call per partition owner. IMap has no asynchronous bulk read, so
+     * with a deadline they take one call per key instead. Regions which read many entries at once, like those of
+     * batch-fetched entities, may be faster without a deadline.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String OPERATION_DEADLINE = "hibernate.cache.hazelcast.operation_deadline";
+
+    /**
+     * Property to write the entity name of the cached entities as a 64-bit id rather than as a string. The nodes of
+     * earlier versions misread such entries, so only enable it once all nodes of the cluster are upgraded; the ids are
+     * read whether it is enabled or not. Defaults to {@code false}.
+     */
+    public static final String COMPACT_ENTITY_NAMES = "hibernate.cache.hazelcast.compact_entity_names";
+
+    /**
+     * Property to write the state of the cached entities positionally by the types of their properties, without type
+     * information for primitives and strings. Requires {@link #COMPACT_ENTITY_NAMES}. Like it, only enable it once all
+     * nodes of the cluster are upgraded; such entries are read whether it is enabled or not. Defaults to {@code false}.
+     */
+    public static final String COMPACT_ENTITY_STATE = "hibernate.cache.hazelcast.compact_entity_state";
+
+    /**
+     * System property to write the values, soft locks, invalidations and timestamps in the compact wire format, see
+     * {@link com.hazelcast.hibernate.serialization.WireFormat}. It applies to the whole JVM, members and region factories
+     * alike, so it is only read from the system properties. Nodes of earlier versions do not read the format, so enable
+     * it only once every node of the cluster runs this version. Defaults to {@code false}.
+     */
+    public static final String COMPACT_WIRE_FORMAT = "hibernate.cache.hazelcast.compact_wire_format";
+
+    /**
+     * System property to write the cache keys Hibernate creates by the serializers of {@code hazelcast-hibernate53} rather
+     * than by Java serialization. The serializers are registered when the serialization service of the node is built,
+     * before any region factory, so it is only read from the system properties. The keys of a map are compared by their
+     * serialized form, so every node of the cluster, members and clients alike, must enable it at the same time, by a
+     * restart of the whole cluster. Defaults to {@code false}.
+     */
+    public static final String NATIVE_KEY_SERIALIZATION = "hibernate.cache.hazelcast.native_key_serialization";
+
+    /**
+     * System property to write the entity entries Hibernate creates by the serializer of {@code hazelcast-hibernate53}
+     * rather than by Java serialization. Like {@link #NATIVE_KEY_SERIALIZATION}, it is only read from the system
+     * properties. Nodes of earlier versions read such entries as entries of another type, which Hibernate fails to load,
+     * so enable it only once every node of the cluster runs this version, on all of them at the same time. Defaults to
+     * {@code false}.
+     */
+    public static final String NATIVE_ENTRY_SERIALIZATION = "hibernate.cache.hazelcast.native_entry_serialization";
+
+    /**
+     * Property to configure the size in bytes of the serialized values of the regions of
+     * {@link HazelcastCacheRegionFactory} from which they are compressed, see
+     * {@link com.hazelcast.hibernate.serialization.ValueCompressor}. Zero caches the values uncompressed. Defaults to 0.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String COMPRESSION_THRESHOLD = "hibernate.cache.hazelcast.compression_threshold";
+
+    /**
+     * Property to configure the path of a file holding the preset dictionary the values of a region are compressed with,
+     * see {@link com.hazelcast.hibernate.serialization.CompressionDictionary}. Defaults to none.
+     * <p>
+     * Can be overridden for a single region by appending the region name
+     */
+    public static final String COMPRESSION_DICTIONARY = "hibernate.cache.hazelcast.compression_dictionary";
+
+    /**
+     * Property to configure the maximum number of ids of a cached collection or query result whose entries a session
+     * reads from their region at once, when it loads the first of them. Defaults to {@code 0}, which reads them one
+     * at a time.
+     */
+    public static final String BULK_PREFETCH_SIZE = "hibernate.cache.hazelcast.bulk_prefetch_size";
+
     private static final Duration DEFAULT_CACHE_TIMEOUT = Duration.ofHours(1);
 
     private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMillis(35000);
@@ -110,6 +361,14 @@ public final class CacheEnvironment {
 
     private static final double DEFAULT_BACKOFF_MULTIPLIER = 1.5;
 
+    private static final int DEFAULT_INVALIDATION_BATCH_MAX_SIZE = 1000;
+
+    private static final Duration DEFAULT_CLUSTER_TIME_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+
+    private static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(5);
+
 
     private CacheEnvironment() {
     }
@@ -170,4 +429,219 @@ public final class CacheEnvironment {
     public static boolean getFallback(final Map<String, Object> props) {
         return ConfigurationHelper.getBoolean(CacheEnvironment.FALLBACK, props, true);
     }
+
+    public static int getCircuitBreakerFailureThreshold(final Properties props) {
+        int threshold = ConfigurationHelper.getInt(CIRCUIT_BREAKER_FAILURE_THRESHOLD, props,
+                DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        if (threshold < 0) {
+            throw new ConfigurationException("Invalid circuit breaker failure threshold [" + threshold + "]");
+        }
+        return threshold;
+    }
+
+    public static Duration getCircuitBreakerSlowCallThreshold(final Properties props) {
+        int thresholdMillis = ConfigurationHelper.getInt(CIRCUIT_BREAKER_SLOW_CALL_THRESHOLD, props, 0);
+        if (thresholdMillis < 0) {
+            throw new ConfigurationException("Invalid circuit breaker slow call threshold [" + thresholdMillis + "]");
+        }
+        return Duration.ofMillis(thresholdMillis);
+    }
+
+    public static Duration getCircuitBreakerOpenDuration(final Properties props) {
+        int durationMillis = ConfigurationHelper.getInt(CIRCUIT_BREAKER_OPEN_DURATION, props,
+                (int) DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION.toMillis());
+        if (durationMillis <= 0) {
+            throw new ConfigurationException("Invalid circuit breaker open duration [" + durationMillis + "]");
+        }
+        return Duration.ofMillis(durationMillis);
+    }
+
+    public static Duration getInvalidationBatchWindow(final Map<String, Object> props, final String regionName) {
+        int windowMillis = ConfigurationHelper.getInt(regionProperty(INVALIDATION_BATCH_WINDOW_MS, props, regionName),
+          props, 0);
+        if (windowMillis < 0) {
+            throw new ConfigurationException("Invalid invalidation batch window [" + windowMillis + "]");
+        }
+        return Duration.ofMillis(windowMillis);
+    }
+
+    public static int getInvalidationBatchMaxSize(final Map<String, Object> props, final String regionName) {
+        int maxSize = ConfigurationHelper.getInt(regionProperty(INVALIDATION_BATCH_MAX_SIZE, props, regionName),
+          props, DEFAULT_INVALIDATION_BATCH_MAX_SIZE);
+        if (maxSize <= 0) {
+            throw new ConfigurationException("Invalid invalidation batch max size [" + maxSize + "]");
+        }
+        return maxSize;
+    }
+
+    public static boolean isReliableInvalidation(final Map<String, Object> props, final String regionName) {
+        return ConfigurationHelper.getBoolean(regionProperty(RELIABLE_INVALIDATION, props, regionName), props, false);
+    }
+
+    public static int getAsyncInvalidationMaxInFlight(final Map<String, Object> props, final String regionName) {
+        int maxInFlight = ConfigurationHelper.getInt(regionProperty(ASYNC_INVALIDATION_MAX_IN_FLIGHT, props, regionName),
+          props, 0);
+        if (maxInFlight < 0) {
+            throw new ConfigurationException("Invalid async invalidation max in flight [" + maxInFlight + "]");
+        }
+        return maxInFlight;
+    }
+
+    public static boolean isGcNotificationEviction(final Map<String, Object> props, final String regionName) {
+        return ConfigurationHelper.getBoolean(regionProperty(GC_NOTIFICATION_EVICTION, props, regionName), props, false);
+    }
+
+    public static int getLocalCacheMemoryBudget(final Properties props) {
+        int budgetInMB = ConfigurationHelper.getInt(LOCAL_CACHE_MEMORY_BUDGET, props, 0);
+        if (budgetInMB < 0) {
+            throw new ConfigurationException("Invalid local cache memory budget [" + budgetInMB + "]");
+        }
+        return budgetInMB;
+    }
+
+    public static int getBulkPrefetchSize(final Properties props) {
+        int size = ConfigurationHelper.getInt(BULK_PREFETCH_SIZE, props, 0);
+        if (size < 0) {
+            throw new ConfigurationException("Invalid bulk prefetch size [" + size + "]");
+        }
+        return size;
+    }
+
+    public static boolean isSequencedTimestamps(final Properties props) {
+        return ConfigurationHelper.getBoolean(SEQUENCED_TIMESTAMPS, props, true);
+    }
+
+    public static Duration getClusterTimeRefreshInterval(final Properties props) {
+        int intervalMillis = ConfigurationHelper.getInt(CLUSTER_TIME_REFRESH_INTERVAL, props,
+                (int) DEFAULT_CLUSTER_TIME_REFRESH_INTERVAL.toMillis());
+        if (intervalMillis < 0) {
+            throw new ConfigurationException("Invalid cluster time refresh interval [" + intervalMillis + "]");
+        }
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    public static int getOffHeapCapacity(final Map<String, Object> props, final String regionName) {
+        int capacityInMB = ConfigurationHelper.getInt(regionProperty(OFF_HEAP_CAPACITY, props, regionName), props, 0);
+        if (capacityInMB < 0) {
+            throw new ConfigurationException("Invalid off-heap capacity [" + capacityInMB + "]");
+        }
+        return capacityInMB;
+    }
+
+    public static OffHeapStore.EvictionPolicy getOffHeapEvictionPolicy(final Map<String, Object> props,
+                                                                       final String regionName) {
+        String policy = ConfigurationHelper.getString(regionProperty(OFF_HEAP_EVICTION_POLICY, props, regionName), props,
+                OffHeapStore.EvictionPolicy.LRU.name());
+        try {
+            return OffHeapStore.EvictionPolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid off-heap eviction policy [" + policy + "]", e);
+        }
+    }
+
+    public static InMemoryFormat getLocalInMemoryFormat(final Map<String, Object> props, final String regionName) {
+        return getInMemoryFormat(LOCAL_IN_MEMORY_FORMAT, props, regionName, InMemoryFormat.OBJECT);
+    }
+
+    public static int getHotObjectCacheSize(final Map<String, Object> props, final String regionName) {
+        int size = ConfigurationHelper.getInt(regionProperty(HOT_OBJECT_CACHE_SIZE, props, regionName), props, 0);
+        if (size < 0) {
+            throw new ConfigurationException("Invalid hot object cache size [" + size + "]");
+        }
+        return size;
+    }
+
+    public static Duration getOperationDeadline(final Map<String, Object> props, final String regionName) {
+        int deadlineMillis = ConfigurationHelper.getInt(regionProperty(OPERATION_DEADLINE, props, regionName), props, 0);
+        if (deadlineMillis < 0) {
+            throw new ConfigurationException("Invalid operation deadline [" + deadlineMillis + "]");
+        }
+        return Duration.ofMillis(deadlineMillis);
+    }
+
+    public static boolean isServerSideSoftLocks(final Map<String, Object> props, final String regionName) {
+        return ConfigurationHelper.getBoolean(regionProperty(SERVER_SIDE_SOFT_LOCKS, props, regionName), props, false);
+    }
+
+    public static boolean isCompactEntityNames(final Map<String, Object> props) {
+        return ConfigurationHelper.getBoolean(COMPACT_ENTITY_NAMES, props, false);
+    }
+
+    public static boolean isCompactEntityState(final Map<String, Object> props) {
+        return ConfigurationHelper.getBoolean(COMPACT_ENTITY_STATE, props, false);
+    }
+
+    public static int getCompressionThreshold(final Map<String, Object> props, final String regionName) {
+        int threshold = ConfigurationHelper.getInt(regionProperty(COMPRESSION_THRESHOLD, props, regionName), props, 0);
+        if (threshold < 0) {
+            throw new ConfigurationException("Invalid compression threshold [" + threshold + "]");
+        }
+        return threshold;
+    }
+
+    /**
+     * @return the compression dictionary of the region, or {@code null} if the region has none
+     */
+    public static CompressionDictionary getCompressionDictionary(final Map<String, Object> props,
+                                                                 final String regionName) {
+        String path = getString(regionProperty(COMPRESSION_DICTIONARY, props, regionName), props, (String) null);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            return new CompressionDictionary(Files.readAllBytes(Paths.get(path)));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid compression dictionary [" + path + "]", e);
+        }
+    }
+
+    /**
+     * @return the Near Cache configuration of the region, or {@code null} if the region has no Near Cache
+     */
+    public static NearCacheConfig getNearCacheConfig(final Map<String, Object> props, final String regionName) {
+        if (!ConfigurationHelper.getBoolean(regionProperty(NEAR_CACHE_ENABLED, props, regionName), props, false)) {
+            return null;
+        }
+        int maxSize = ConfigurationHelper.getInt(regionProperty(NEAR_CACHE_MAX_SIZE, props, regionName), props,
+                EvictionConfig.DEFAULT_MAX_ENTRY_COUNT);
+        int timeToLiveSeconds = ConfigurationHelper.getInt(regionProperty(NEAR_CACHE_TIME_TO_LIVE, props, regionName),
+                props, NearCacheConfig.DEFAULT_TTL_SECONDS);
+        if (maxSize <= 0 || timeToLiveSeconds < 0) {
+            throw new ConfigurationException("Invalid Near Cache max size [" + maxSize + "] or time to live ["
+                    + timeToLiveSeconds + "]");
+        }
+        NearCacheConfig nearCacheConfig = new NearCacheConfig(regionName)
+                .setInMemoryFormat(getInMemoryFormat(NEAR_CACHE_IN_MEMORY_FORMAT, props, regionName,
+                        NearCacheConfig.DEFAULT_MEMORY_FORMAT))
+                .setTimeToLiveSeconds(timeToLiveSeconds)
+                .setInvalidateOnChange(ConfigurationHelper.getBoolean(
+                        regionProperty(NEAR_CACHE_INVALIDATE_ON_CHANGE, props, regionName), props, true));
+        nearCacheConfig.getEvictionConfig().setSize(maxSize);
+        nearCacheConfig.getPreloaderConfig().setEnabled(ConfigurationHelper.getBoolean(
+                regionProperty(NEAR_CACHE_PRELOADER, props, regionName), props, false));
+        return nearCacheConfig;
+    }
+
+    private static InMemoryFormat getInMemoryFormat(final String property, final Map<String, Object> props,
+                                                    final String regionName, final InMemoryFormat defaultFormat) {
+        String format = ConfigurationHelper.getString(regionProperty(property, props, regionName), props,
+                defaultFormat.name());
+        try {
+            InMemoryFormat inMemoryFormat = InMemoryFormat.valueOf(format.toUpperCase(Locale.ROOT));
+            if (inMemoryFormat != InMemoryFormat.NATIVE) {
+                return inMemoryFormat;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid in-memory format [" + format + "]", e);
+        }
+        throw new ConfigurationException("Unsupported in-memory format [" + format + "]");
+    }
+
+    /**
+     * @return the region specific variant of the given property if it is configured, the property itself otherwise
+     */
+    private static String regionProperty(final String property, final Map<String, Object> props, final String regionName) {
+        final String regionSpecificProperty = property + "." + regionName;
+        return props.containsKey(regionSpecificProperty) ? regionSpecificProperty : property;
+    }
 }
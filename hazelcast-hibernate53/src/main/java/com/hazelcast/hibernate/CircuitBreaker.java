@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling the cluster while it is unreachable, shared by the distributed regions of a region factory. Local
+ * regions hold their entries themselves, so they do not use the breaker.
+ * <p>
+ * The breaker opens after a number of consecutive failed calls, where a call slower than the slow call threshold
+ * counts as failed as well. While it is open, calls are not permitted and the regions fall back to the database
+ * immediately. After the open duration, a single probe call is permitted: the breaker closes if it succeeds and opens
+ * again otherwise. Calls which were permitted before the breaker opened neither close it nor postpone the probe.
+ * <p>
+ * Only the operations which read or cache entries are short-circuited. The operations which invalidate entries, like
+ * evictions, soft locks and unlocks, are always called, as short-circuiting them would leave stale entries behind.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final ILogger LOG = Logger.getLogger(CircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final long slowCallThresholdNanos;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    /**
+     * @param failureThreshold   the number of consecutive failed calls which open the breaker
+     * @param slowCallThreshold  the duration after which a call counts as failed, or zero if slow calls never do
+     * @param openDuration       the duration after which an open breaker permits a probe call
+     */
+    CircuitBreaker(final int failureThreshold, final Duration slowCallThreshold, final Duration openDuration) {
+        this(failureThreshold, slowCallThreshold, openDuration, System::nanoTime);
+    }
+
+    /**
+     * just for testing
+     */
+    CircuitBreaker(final int failureThreshold, final Duration slowCallThreshold, final Duration openDuration,
+                   final LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.slowCallThresholdNanos = slowCallThreshold.isZero() ? Long.MAX_VALUE : slowCallThreshold.toNanos();
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Executes the call if it is permitted, recording its outcome. Exceptions thrown by the call are rethrown.
+     *
+     * @return the result of the call, or the fallback value if the call is not permitted
+     */
+    <T> T execute(final Supplier<T> call, final T fallbackValue) {
+        final State permit = permit();
+        if (permit == null) {
+            return fallbackValue;
+        }
+        final boolean probe = permit == State.HALF_OPEN;
+        final long start = nanoClock.getAsLong();
+        final T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            onFailure(probe);
+            throw e;
+        }
+        onSuccess(start, probe);
+        return result;
+    }
+
+    /**
+     * @return {@link State#CLOSED} if the call is permitted, {@link State#HALF_OPEN} if it is the probe call, or
+     * {@code null} if it is not permitted
+     */
+    private State permit() {
+        final State current = state.get();
+        if (current == State.CLOSED) {
+            return State.CLOSED;
+        }
+        return current == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN) ? State.HALF_OPEN : null;
+    }
+
+    private void onSuccess(final long start, final boolean probe) {
+        if (nanoClock.getAsLong() - start > slowCallThresholdNanos) {
+            onFailure(probe);
+            return;
+        }
+        consecutiveFailures.set(0);
+        // only the probe closes the breaker, calls permitted before it opened prove nothing
+        if (probe && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            LOG.info("Hazelcast cluster is reachable again, closed the circuit breaker of the cache regions");
+        }
+    }
+
+    private void onFailure(final boolean probe) {
+        if (probe) {
+            open(State.HALF_OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    private void open(final State expected) {
+        final long now = nanoClock.getAsLong();
+        if (state.compareAndSet(expected, State.OPEN)) {
+            openedAt = now;
+            consecutiveFailures.set(0);
+            LOG.warning("Hazelcast cluster is unreachable, cache regions fall back to the database for the next "
+                    + Duration.ofNanos(openDurationNanos).toMillis() + " ms");
+        }
+    }
+}
@@ -15,8 +15,10 @@
 
 package com.hazelcast.hibernate;
 
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.hibernate.distributed.IMapRegionCache;
+import com.hazelcast.hibernate.distributed.NearCacheConfigurer;
 import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
 import org.hibernate.cache.spi.CacheKeysFactory;
 import org.hibernate.cache.spi.support.RegionNameQualifier;
@@ -56,9 +58,20 @@ public class HazelcastCacheRegionFactory extends AbstractHazelcastCacheRegionFac
                 sessionFactory.getSessionFactoryOptions()
         );
 
-        return new IMapRegionCache(this, qualifiedRegionName, instance);
+        final NearCacheConfig nearCacheConfig = CacheEnvironment.getNearCacheConfig(sessionFactory.getProperties(),
+                unqualifiedRegionName);
+        if (nearCacheConfig != null) {
+            NearCacheConfigurer.configure(instance, qualifiedRegionName, nearCacheConfig);
+        }
+        return new IMapRegionCache(this, qualifiedRegionName, instance,
+                CacheEnvironment.isServerSideSoftLocks(sessionFactory.getProperties(), unqualifiedRegionName),
+                CacheEnvironment.getOperationDeadline(sessionFactory.getProperties(), unqualifiedRegionName),
+                CacheEnvironment.getCompressionThreshold(sessionFactory.getProperties(), unqualifiedRegionName),
+                CacheEnvironment.getCompressionDictionary(sessionFactory.getProperties(), unqualifiedRegionName));
     }
 
+    // No Near Cache and no deadline for the timestamps, stale or missing timestamps would let queries return stale
+    // results
     @Override
     protected RegionCache createTimestampsRegionCache(final String unqualifiedRegionName,
                                                       final SessionFactoryImplementor sessionFactory) {
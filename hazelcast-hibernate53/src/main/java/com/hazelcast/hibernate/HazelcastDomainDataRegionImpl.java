@@ -21,11 +21,13 @@ import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
 import org.hibernate.cache.cfg.spi.EntityDataCachingConfig;
 import org.hibernate.cache.cfg.spi.NaturalIdDataCachingConfig;
 import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.DomainDataRegion;
 import org.hibernate.cache.spi.access.AccessType;
 import org.hibernate.cache.spi.access.CollectionDataAccess;
 import org.hibernate.cache.spi.access.EntityDataAccess;
 import org.hibernate.cache.spi.access.NaturalIdDataAccess;
 import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess.Lockable;
 import org.hibernate.cache.spi.support.CollectionReadWriteAccess;
 import org.hibernate.cache.spi.support.CollectionTransactionAccess;
 import org.hibernate.cache.spi.support.DomainDataRegionImpl;
@@ -37,6 +39,11 @@ import org.hibernate.cache.spi.support.NaturalIdTransactionalAccess;
 import org.hibernate.cache.spi.support.RegionFactoryTemplate;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
 /**
  * Hazelcast based timestamp using region implementation
  */
@@ -61,27 +68,19 @@ public class HazelcastDomainDataRegionImpl extends DomainDataRegionImpl {
 
     @Override
     protected EntityDataAccess generateReadWriteEntityAccess(final EntityDataCachingConfig accessConfig) {
-        return new EntityReadWriteAccess(this, getEffectiveKeysFactory(), getCacheStorageAccess(), accessConfig) {
-            @Override
-            public boolean afterUpdate(final SharedSessionContractImplementor session, final Object key,
-                                       final Object value, final Object currentVersion, final Object previousVersion,
-                                       final SoftLock lock) {
-                final boolean result = super.afterUpdate(session, key, value, currentVersion, previousVersion, lock);
-                ((HazelcastStorageAccess) getStorageAccess()).afterUpdate(key, value, currentVersion);
-                return result;
-            }
-
-            @Override
-            public void unlockItem(final SharedSessionContractImplementor session, final Object key,
-                                   final SoftLock lock) {
-                super.unlockItem(session, key, lock);
-                ((HazelcastStorageAccess) getStorageAccess()).unlockItem(key, lock);
-            }
-        };
+        if (SoftLockingAccess.isSoftLocking(getCacheStorageAccess())) {
+            return new SoftLockingEntityReadWriteAccess(this, getEffectiveKeysFactory(),
+                    (HazelcastStorageAccessImpl) getCacheStorageAccess(), accessConfig);
+        }
+        return new ReadWriteEntityAccess(this, getEffectiveKeysFactory(), getCacheStorageAccess(), accessConfig);
     }
 
     @Override
     protected NaturalIdDataAccess generateReadWriteNaturalIdAccess(final NaturalIdDataCachingConfig accessConfig) {
+        if (SoftLockingAccess.isSoftLocking(getCacheStorageAccess())) {
+            return new SoftLockingNaturalIdReadWriteAccess(this, getEffectiveKeysFactory(),
+                    (HazelcastStorageAccessImpl) getCacheStorageAccess(), accessConfig);
+        }
         return new NaturalIdReadWriteAccess(this, getEffectiveKeysFactory(), getCacheStorageAccess(), accessConfig) {
             @Override
             public boolean afterUpdate(final SharedSessionContractImplementor session, final Object key,
@@ -155,13 +154,88 @@ public class HazelcastDomainDataRegionImpl extends DomainDataRegionImpl {
     }
 
     private CollectionDataAccess generateReadWriteCollectionAccess(final CollectionDataCachingConfig accessConfig) {
-        return new CollectionReadWriteAccess(this, getEffectiveKeysFactory(), getCacheStorageAccess(), accessConfig) {
-            @Override
-            public void unlockItem(final SharedSessionContractImplementor session, final Object key,
+        if (SoftLockingAccess.isSoftLocking(getCacheStorageAccess())) {
+            return new SoftLockingCollectionReadWriteAccess(this, getEffectiveKeysFactory(),
+                    (HazelcastStorageAccessImpl) getCacheStorageAccess(), accessConfig);
+        }
+        return new ReadWriteCollectionAccess(this, getEffectiveKeysFactory(), getCacheStorageAccess(), accessConfig);
+    }
+
+    /**
+     * Reads the items of read-write access in bulk, under its read lock, returning the values of those readable by
+     * the transaction of the session like {@code AbstractReadWriteAccess#get} does for a single item
+     */
+    private static Map<Object, Object> getAllReadable(final SharedSessionContractImplementor session,
+                                                      final Collection<?> keys,
+                                                      final DomainDataStorageAccess storageAccess,
+                                                      final Lock readLock) {
+        final long txTimestamp = session.getCacheTransactionSynchronization().getCachingTimestamp();
+        final Map<Object, Object> values = new HashMap<>();
+        readLock.lock();
+        try {
+            ((HazelcastStorageAccess) storageAccess).getAll(keys, session).forEach((key, item) -> {
+                if (item instanceof Lockable && ((Lockable) item).isReadable(txTimestamp)) {
+                    values.put(key, ((Lockable) item).getValue());
+                }
+            });
+        } finally {
+            readLock.unlock();
+        }
+        return values;
+    }
+
+    /**
+     * Read-write access to entities, which reads the entities in bulk like {@link #get} reads a single one
+     */
+    private static final class ReadWriteEntityAccess extends EntityReadWriteAccess implements BulkDataAccess {
+
+        ReadWriteEntityAccess(final DomainDataRegion region, final CacheKeysFactory keysFactory,
+                              final DomainDataStorageAccess storageAccess, final EntityDataCachingConfig config) {
+            super(region, keysFactory, storageAccess, config);
+        }
+
+        @Override
+        public Map<Object, Object> getAll(final SharedSessionContractImplementor session, final Collection<?> keys) {
+            return getAllReadable(session, keys, getStorageAccess(), readLock());
+        }
+
+        @Override
+        public boolean afterUpdate(final SharedSessionContractImplementor session, final Object key,
+                                   final Object value, final Object currentVersion, final Object previousVersion,
                                    final SoftLock lock) {
-                super.unlockItem(session, key, lock);
-                ((HazelcastStorageAccess) getStorageAccess()).unlockItem(key, lock);
-            }
-        };
+            final boolean result = super.afterUpdate(session, key, value, currentVersion, previousVersion, lock);
+            ((HazelcastStorageAccess) getStorageAccess()).afterUpdate(key, value, currentVersion);
+            return result;
+        }
+
+        @Override
+        public void unlockItem(final SharedSessionContractImplementor session, final Object key,
+                               final SoftLock lock) {
+            super.unlockItem(session, key, lock);
+            ((HazelcastStorageAccess) getStorageAccess()).unlockItem(key, lock);
+        }
+    }
+
+    /**
+     * Read-write access to collections, which reads the collections in bulk like {@link #get} reads a single one
+     */
+    private static final class ReadWriteCollectionAccess extends CollectionReadWriteAccess implements BulkDataAccess {
+
+        ReadWriteCollectionAccess(final DomainDataRegion region, final CacheKeysFactory keysFactory,
+                                  final DomainDataStorageAccess storageAccess, final CollectionDataCachingConfig config) {
+            super(region, keysFactory, storageAccess, config);
+        }
+
+        @Override
+        public Map<Object, Object> getAll(final SharedSessionContractImplementor session, final Collection<?> keys) {
+            return getAllReadable(session, keys, getStorageAccess(), readLock());
+        }
+
+        @Override
+        public void unlockItem(final SharedSessionContractImplementor session, final Object key,
+                               final SoftLock lock) {
+            super.unlockItem(session, key, lock);
+            ((HazelcastStorageAccess) getStorageAccess()).unlockItem(key, lock);
+        }
     }
 }
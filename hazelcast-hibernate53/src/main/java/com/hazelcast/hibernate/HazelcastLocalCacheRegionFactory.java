@@ -22,8 +22,13 @@ import com.hazelcast.internal.util.Clock;
 import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
 import org.hibernate.cache.spi.CacheKeysFactory;
 import org.hibernate.cache.spi.support.RegionNameQualifier;
+import org.hibernate.cache.spi.support.SimpleTimestamper;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 
+import java.util.Map;
+
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
+
 /**
  * Simple RegionFactory implementation to return Hazelcast based local Region implementations
  */
@@ -57,12 +62,26 @@ public class HazelcastLocalCacheRegionFactory extends AbstractHazelcastCacheRegi
                 unqualifiedRegionName,
                 sessionFactory.getSessionFactoryOptions()
         );
+        final Map<String, Object> properties = sessionFactory.getProperties();
         final LocalRegionCache regionCache = LocalRegionCache.builder().withRegionFactory(this)
                 .withName(qualifiedRegionName)
                 .withHazelcastInstance(instance)
                 .withRegionConfig(regionConfig)
                 .withTopic(true)
+                .withReliableTopic(CacheEnvironment.isReliableInvalidation(properties, unqualifiedRegionName))
                 .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor)
+                .withGcNotificationCacheEvictor(gcNotificationCacheEvictor,
+                        CacheEnvironment.isGcNotificationEviction(properties, unqualifiedRegionName))
+                .withMemoryBudgetCoordinator(memoryBudgetCoordinator)
+                .withTimestamper(timestamper)
+                .withOffHeapStorage(MEGABYTES.toBytes(CacheEnvironment.getOffHeapCapacity(properties, unqualifiedRegionName)),
+                        CacheEnvironment.getOffHeapEvictionPolicy(properties, unqualifiedRegionName))
+                .withInMemoryFormat(CacheEnvironment.getLocalInMemoryFormat(properties, unqualifiedRegionName),
+                        CacheEnvironment.getHotObjectCacheSize(properties, unqualifiedRegionName))
+                .withInvalidationBatching(invalidationBatcher,
+                        CacheEnvironment.getInvalidationBatchWindow(properties, unqualifiedRegionName),
+                        CacheEnvironment.getInvalidationBatchMaxSize(properties, unqualifiedRegionName))
+                .withAsyncPublishing(CacheEnvironment.getAsyncInvalidationMaxInFlight(properties, unqualifiedRegionName))
                 .build();
         localRegionCaches.add(regionCache);
         return regionCache;
@@ -79,8 +98,17 @@ public class HazelcastLocalCacheRegionFactory extends AbstractHazelcastCacheRegi
                 sessionFactory.getSessionFactoryOptions()
         );
 
-        TimestampsRegionCache timestampsRegionCache = new TimestampsRegionCache(this, qualifiedRegionName, instance,
-                freeHeapBasedCacheEvictor);
+        TimestampsRegionCache timestampsRegionCache = new TimestampsRegionCache(LocalRegionCache.builder()
+                .withRegionFactory(this)
+                .withName(qualifiedRegionName)
+                .withHazelcastInstance(instance)
+                .withTopic(true)
+                .withTimestamper(timestamper)
+                .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor)
+                .withGcNotificationCacheEvictor(gcNotificationCacheEvictor,
+                        CacheEnvironment.isGcNotificationEviction(sessionFactory.getProperties(), unqualifiedRegionName))
+                .withAsyncPublishing(CacheEnvironment.getAsyncInvalidationMaxInFlight(sessionFactory.getProperties(),
+                        unqualifiedRegionName)));
         localRegionCaches.add(timestampsRegionCache);
         return timestampsRegionCache;
     }
@@ -91,8 +119,9 @@ public class HazelcastLocalCacheRegionFactory extends AbstractHazelcastCacheRegi
     }
 
     public long nextTimestamp() {
-        return instance == null
-          ? Clock.currentTimeMillis()
-          : HazelcastTimestamper.nextTimestamp(instance);
+        if (timestamper != null) {
+            return timestamper.next();
+        }
+        return sequencedTimestamps ? SimpleTimestamper.next() : Clock.currentTimeMillis();
     }
 }
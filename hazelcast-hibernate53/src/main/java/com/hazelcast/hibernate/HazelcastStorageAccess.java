@@ -17,6 +17,10 @@ package com.hazelcast.hibernate;
 
 import org.hibernate.cache.spi.access.SoftLock;
 import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Hazelcast specific interface version of Hibernate's DomainDataStorageAccess
@@ -25,5 +29,13 @@ public interface HazelcastStorageAccess extends DomainDataStorageAccess {
 
     void afterUpdate(Object key, Object newValue, Object newVersion);
 
+    /**
+     * Reads the values of several keys at once, as {@link #getFromCache(Object, SharedSessionContractImplementor)}
+     * reads the value of one. Distributed regions read them with a single call per partition owner.
+     *
+     * @return the values of the keys which hit, by key
+     */
+    Map<Object, Object> getAll(Collection<?> keys, SharedSessionContractImplementor session);
+
     void unlockItem(Object key, SoftLock lock);
 }
@@ -20,6 +20,10 @@ import org.hibernate.cache.CacheException;
 import org.hibernate.cache.spi.access.SoftLock;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -31,15 +35,26 @@ public class HazelcastStorageAccessImpl implements HazelcastStorageAccess {
 
     private final RegionCache delegate;
     private final boolean fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicLong evictionCount = new AtomicLong();
 
     HazelcastStorageAccessImpl(final RegionCache delegate, boolean fallback) {
+        this(delegate, fallback, null);
+    }
+
+    /**
+     * @param circuitBreaker the breaker which short-circuits the operations to their fallback values while the
+     *                       cluster is unreachable, or {@code null}. Only used if {@code fallback} is enabled.
+     */
+    HazelcastStorageAccessImpl(final RegionCache delegate, boolean fallback, final CircuitBreaker circuitBreaker) {
         this.delegate = delegate;
         this.fallback = fallback;
+        this.circuitBreaker = fallback ? circuitBreaker : null;
     }
 
     @Override
     public void afterUpdate(final Object key, final Object newValue, final Object newVersion) {
-        tryWithFallback(cache -> cache.afterUpdate(key, newValue, newVersion));
+        tryInvalidating(cache -> cache.afterUpdate(key, newValue, newVersion));
     }
 
     @Override
@@ -49,23 +64,59 @@ public class HazelcastStorageAccessImpl implements HazelcastStorageAccess {
 
     @Override
     public void evictData() throws CacheException {
-        tryWithFallback(RegionCache::evictData);
+        evictionCount.incrementAndGet();
+        tryInvalidating(RegionCache::evictData);
     }
 
     @Override
     public void evictData(final Object key) throws CacheException {
-        tryWithFallback(cache -> cache.evictData(key));
+        evictionCount.incrementAndGet();
+        tryInvalidating(cache -> cache.evictData(key));
+    }
+
+    @Override
+    public void removeFromCache(final Object key, final SharedSessionContractImplementor session) {
+        final BulkPrefetch prefetch = BulkPrefetch.of(session);
+        if (prefetch != null) {
+            prefetch.discard(this, key);
+        }
+        evictData(key);
     }
 
     @Override
     public Object getFromCache(final Object key, final SharedSessionContractImplementor session) throws CacheException {
-        return tryWithFallback(cache -> cache.get(key, delegate.nextTimestamp()), null);
+        return getFromCache(key, session, delegate.nextTimestamp());
+    }
+
+    /**
+     * Reads the value as of the timestamp. The sessions which prefetch read the values of the ids of the collections
+     * and query results they hit in bulk, when they read the first of them, see {@link BulkPrefetch}.
+     */
+    Object getFromCache(final Object key, final SharedSessionContractImplementor session, final long txTimestamp) {
+        final BulkPrefetch prefetch = BulkPrefetch.of(session);
+        return prefetch == null
+                ? tryWithFallback(cache -> cache.get(key, txTimestamp), null)
+                : prefetch.get(this, key, session, txTimestamp);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(final Collection<?> keys, final SharedSessionContractImplementor session) {
+        return tryWithFallback(cache -> cache.getAll(keys, delegate.nextTimestamp()), Collections.emptyMap());
     }
 
     @Override
     public void putIntoCache(final Object key, final Object value, final SharedSessionContractImplementor session)
       throws CacheException {
-        tryWithFallback(cache -> cache.put(key, value, delegate.nextTimestamp(), null));
+        final BulkPrefetch prefetch = BulkPrefetch.of(session);
+        if (prefetch != null) {
+            prefetch.discard(this, key);
+        }
+        if (value instanceof SoftLock) {
+            // the soft locks of read-write access invalidate the entry
+            tryInvalidating(cache -> cache.put(key, value, delegate.nextTimestamp(), null));
+        } else {
+            tryWithFallback(cache -> cache.put(key, value, delegate.nextTimestamp(), null));
+        }
     }
 
     @Override
@@ -75,7 +126,14 @@ public class HazelcastStorageAccessImpl implements HazelcastStorageAccess {
 
     @Override
     public void unlockItem(final Object key, final SoftLock lock) {
-        tryWithFallback(cache -> cache.unlockItem(key, lock));
+        tryInvalidating(cache -> cache.unlockItem(key, lock));
+    }
+
+    /**
+     * @return the number of evictions of entries by this node, after which the entries read in bulk before are discarded
+     */
+    long getEvictionCount() {
+        return evictionCount.get();
     }
 
     RegionCache getDelegate() {
@@ -89,9 +147,30 @@ public class HazelcastStorageAccessImpl implements HazelcastStorageAccess {
         }, null);
     }
 
-    private <T> T tryWithFallback(Function<RegionCache, T> action, T fallbackValue) {
+    /**
+     * Runs an operation which invalidates entries, which the circuit breaker never short-circuits, as the entries would
+     * otherwise stay stale once the cluster is reachable again
+     */
+    private void tryInvalidating(Consumer<RegionCache> action) {
+        tryInvalidating(cache -> {
+            action.accept(cache);
+            return null;
+        }, null);
+    }
+
+    <T> T tryInvalidating(Function<RegionCache, T> action, T fallbackValue) {
+        return tryWithFallback(action, fallbackValue, false);
+    }
+
+    <T> T tryWithFallback(Function<RegionCache, T> action, T fallbackValue) {
+        return tryWithFallback(action, fallbackValue, true);
+    }
+
+    private <T> T tryWithFallback(Function<RegionCache, T> action, T fallbackValue, boolean shortCircuit) {
         try {
-            return action.apply(delegate);
+            return circuitBreaker == null || !shortCircuit
+                    ? action.apply(delegate)
+                    : circuitBreaker.execute(() -> action.apply(delegate), fallbackValue);
         } catch (Exception e) {
             if (fallback) {
                 Logger.getLogger(HazelcastStorageAccessImpl.class).finest(e.getMessage(), e);
@@ -16,14 +16,91 @@
 package com.hazelcast.hibernate;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.util.Clock;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 
 /**
  * Helper class to create timestamps and calculate timeouts based on either Hazelcast
  * configuration of by requesting values on the cluster.
+ * <p>
+ * An instance of this class caches the offset of the cluster time from the local clock and refreshes it in the
+ * background, so that {@link #next()} does not request the cluster time. Its timestamps are strictly monotonic and,
+ * like Hibernate's own timestamps, carry {@value #ONE_MS} sequence numbers per millisecond, unless it creates them in
+ * milliseconds like the earlier versions, see {@link CacheEnvironment#SEQUENCED_TIMESTAMPS}.
  */
-public final class HazelcastTimestamper {
+public final class HazelcastTimestamper implements AutoCloseable {
+
+    /**
+     * The number of timestamps per millisecond
+     */
+    public static final int ONE_MS = 4096;
+
+    private static final int BIN_DIGITS = 12;
+    // greater than any timestamp in milliseconds for millennia, less than any sequenced timestamp since 1972
+    private static final int MIN_SEQUENCED_TIMESTAMP_BITS = 48;
+    private static final long MIN_SEQUENCED_TIMESTAMP = 1L << MIN_SEQUENCED_TIMESTAMP_BITS;
+    private static final int TERMINATE_TIMEOUT_SECONDS = 5;
+    private static final ILogger LOG = Logger.getLogger(HazelcastTimestamper.class);
 
-    private HazelcastTimestamper() {
+    private final HazelcastInstance instance;
+    private final ScheduledExecutorService executorService;
+    private final AtomicLong last = new AtomicLong();
+    private final boolean sequenced;
+
+    private volatile long clusterTimeOffset;
+
+    /**
+     * @param refreshInterval the interval in which the offset of the cluster time is refreshed, or zero to request
+     *                        the cluster time for every timestamp
+     */
+    public HazelcastTimestamper(final HazelcastInstance instance, final Duration refreshInterval) {
+        this(instance, refreshInterval, true);
+    }
+
+    /**
+     * @param refreshInterval the interval in which the offset of the cluster time is refreshed, or zero to request
+     *                        the cluster time for every timestamp
+     * @param sequenced       {@code true} to create the timestamps with {@value #ONE_MS} sequence numbers per
+     *                        millisecond, {@code false} to create them in milliseconds
+     */
+    public HazelcastTimestamper(final HazelcastInstance instance, final Duration refreshInterval, final boolean sequenced) {
+        this(instance, refreshInterval.isZero() ? null : newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, HazelcastTimestamper.class.getSimpleName() + "-thread");
+            thread.setDaemon(true);
+            return thread;
+        }), refreshInterval, sequenced);
+    }
+
+    /**
+     * just for testing
+     */
+    HazelcastTimestamper(final HazelcastInstance instance, final ScheduledExecutorService executorService,
+                         final Duration refreshInterval) {
+        this(instance, executorService, refreshInterval, true);
+    }
+
+    /**
+     * @param executorService the executor which refreshes the offset of the cluster time, or {@code null} to request
+     *                        the cluster time for every timestamp
+     */
+    HazelcastTimestamper(final HazelcastInstance instance, final ScheduledExecutorService executorService,
+                         final Duration refreshInterval, final boolean sequenced) {
+        this.instance = instance;
+        this.executorService = executorService;
+        this.sequenced = sequenced;
+        this.clusterTimeOffset = nextTimestamp(instance) - Clock.currentTimeMillis();
+        if (executorService != null) {
+            executorService.scheduleWithFixedDelay(this::refreshClusterTimeOffset, refreshInterval.toMillis(),
+                    refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
     }
 
     public static long nextTimestamp(final HazelcastInstance instance) {
@@ -36,4 +113,59 @@ public final class HazelcastTimestamper {
         // System time in ms.
         return instance.getCluster().getClusterTime();
     }
+
+    /**
+     * @return the next timestamp, the cluster time in milliseconds shifted by {@value #BIN_DIGITS} bits plus a
+     * sequence number, greater than all timestamps returned before, or the cluster time in milliseconds, not less
+     * than the timestamps returned before, if the timestamps are not sequenced
+     */
+    public long next() {
+        final long clusterTime = executorService == null
+                ? nextTimestamp(instance)
+                : Clock.currentTimeMillis() + clusterTimeOffset;
+        if (!sequenced) {
+            return last.accumulateAndGet(clusterTime, Math::max);
+        }
+        final long candidate = clusterTime << BIN_DIGITS;
+        // runs ahead of the clock rather than waiting when the sequence numbers of the millisecond are used up
+        return last.accumulateAndGet(candidate, (previous, next) -> Math.max(previous + 1, next));
+    }
+
+    /**
+     * Converts a timestamp to the unit of another, as nodes which create them in milliseconds, like those of earlier
+     * versions, and nodes which create them with sequence numbers may exchange them while a cluster is upgraded.
+     *
+     * @return the timestamp in the unit of the reference timestamp
+     */
+    public static long inUnitOf(final long timestamp, final long reference) {
+        final boolean sequenced = timestamp >= MIN_SEQUENCED_TIMESTAMP;
+        if (sequenced == reference >= MIN_SEQUENCED_TIMESTAMP) {
+            return timestamp;
+        }
+        return sequenced ? timestamp >> BIN_DIGITS : timestamp << BIN_DIGITS;
+    }
+
+    void refreshClusterTimeOffset() {
+        try {
+            clusterTimeOffset = nextTimestamp(instance) - Clock.currentTimeMillis();
+        } catch (RuntimeException e) {
+            LOG.fine("Could not refresh the cluster time offset, keeping " + clusterTimeOffset + " ms", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executorService == null) {
+            return;
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(TERMINATE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
 }
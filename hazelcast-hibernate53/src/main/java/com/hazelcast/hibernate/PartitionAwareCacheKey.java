@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.partition.PartitionAware;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A cache key of Hibernate together with the key it is partitioned by, see {@link PartitionAwareCacheKeysFactory}. Keys
+ * are equal if the keys of Hibernate are.
+ */
+public final class PartitionAwareCacheKey implements PartitionAware<Object>, IdentifiedDataSerializable {
+
+    private Object key;
+    private Object partitionKey;
+
+    public PartitionAwareCacheKey() {
+    }
+
+    public PartitionAwareCacheKey(final Object key, final Object partitionKey) {
+        this.key = Objects.requireNonNull(key, "key");
+        this.partitionKey = Objects.requireNonNull(partitionKey, "partitionKey");
+    }
+
+    /**
+     * @return the cache key of Hibernate
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeObject(key);
+        out.writeObject(partitionKey);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        key = in.readObject();
+        partitionKey = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.PARTITION_AWARE_CACHE_KEY;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return key.equals(((PartitionAwareCacheKey) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key.toString();
+    }
+}
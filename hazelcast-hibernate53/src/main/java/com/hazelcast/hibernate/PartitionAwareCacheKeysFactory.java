@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate;
+
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * A {@link CacheKeysFactory} whose keys of entities and collections are {@link PartitionAwareCacheKey}s, which the
+ * members partition by the id of the entity rather than by the whole key. An entity and the collections it owns, which
+ * are keyed by the id of their owner, are thereby stored in the same partition, so the operations on an aggregate are
+ * served by a single member.
+ * <p/>
+ * The keys of natural ids are those of {@link DefaultCacheKeysFactory}, as the id of their entity is not known when
+ * they are created. The factory is passed to the constructor of the region factory:
+ * <pre>
+ * new HazelcastCacheRegionFactory(PartitionAwareCacheKeysFactory.INSTANCE)
+ * </pre>
+ * All nodes of a cluster must use the same keys factory, as they would miss the entries of the others otherwise.
+ */
+public class PartitionAwareCacheKeysFactory implements CacheKeysFactory {
+
+    /**
+     * The factory which partitions the entries by the ids themselves
+     */
+    public static final PartitionAwareCacheKeysFactory INSTANCE = new PartitionAwareCacheKeysFactory();
+
+    @Override
+    public Object createCollectionKey(final Object id, final CollectionPersister persister,
+                                      final SessionFactoryImplementor factory, final String tenantIdentifier) {
+        final Object key = DefaultCacheKeysFactory.staticCreateCollectionKey(id, persister, factory, tenantIdentifier);
+        return new PartitionAwareCacheKey(key, partitionKey(DefaultCacheKeysFactory.staticGetCollectionId(key)));
+    }
+
+    @Override
+    public Object createEntityKey(final Object id, final EntityPersister persister, final SessionFactoryImplementor factory,
+                                  final String tenantIdentifier) {
+        final Object key = DefaultCacheKeysFactory.staticCreateEntityKey(id, persister, factory, tenantIdentifier);
+        return new PartitionAwareCacheKey(key, partitionKey(DefaultCacheKeysFactory.staticGetEntityId(key)));
+    }
+
+    @Override
+    public Object createNaturalIdKey(final Object naturalIdValues, final EntityPersister persister,
+                                     final SharedSessionContractImplementor session) {
+        return DefaultCacheKeysFactory.staticCreateNaturalIdKey(naturalIdValues, persister, session);
+    }
+
+    @Override
+    public Object getEntityId(final Object cacheKey) {
+        return DefaultCacheKeysFactory.staticGetEntityId(unwrap(cacheKey));
+    }
+
+    @Override
+    public Object getCollectionId(final Object cacheKey) {
+        return DefaultCacheKeysFactory.staticGetCollectionId(unwrap(cacheKey));
+    }
+
+    @Override
+    public Object getNaturalIdValues(final Object cacheKey) {
+        return DefaultCacheKeysFactory.staticGetNaturalIdValues(unwrap(cacheKey));
+    }
+
+    /**
+     * Returns the partition key of the entries of an entity or of the collections it owns. Override it to co-locate the
+     * entries of entities with composite ids with those of another entity, like order lines with their order by the
+     * element of the id which is the id of the order.
+     *
+     * @param id the disassembled id of the entity or of the owner of the collection, an {@code Object[]} of the
+     *           elements of composite ids
+     * @return the partition key, the id itself by default
+     */
+    protected Object partitionKey(final Object id) {
+        return id;
+    }
+
+    private static Object unwrap(final Object cacheKey) {
+        return cacheKey instanceof PartitionAwareCacheKey ? ((PartitionAwareCacheKey) cacheKey).getKey() : cacheKey;
+    }
+}
@@ -15,10 +15,15 @@
 
 package com.hazelcast.hibernate;
 
+import com.hazelcast.hibernate.metrics.RegionMetrics;
 import org.hibernate.cache.spi.ExtendedStatisticsSupport;
 import org.hibernate.cache.spi.Region;
 import org.hibernate.cache.spi.access.SoftLock;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This interface defines an internal cached region implementation.
  */
@@ -43,6 +48,22 @@ public interface RegionCache extends Region, ExtendedStatisticsSupport {
 
     Object get(Object key, long txTimestamp);
 
+    /**
+     * Reads the values of several keys at once, as {@link #get(Object, long)} reads the value of one.
+     *
+     * @return the values of the keys which hit, by key
+     */
+    default Map<Object, Object> getAll(Collection<?> keys, long txTimestamp) {
+        final Map<Object, Object> values = new HashMap<>();
+        for (Object key : keys) {
+            final Object value = get(key, txTimestamp);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * Hazelcast does not support pushing elements to disk.
      *
@@ -53,6 +74,13 @@ public interface RegionCache extends Region, ExtendedStatisticsSupport {
         return -1;
     }
 
+    /**
+     * @return the metrics of this region cache, or {@code null} if it does not record any
+     */
+    default RegionMetrics getMetrics() {
+        return null;
+    }
+
     default long nextTimestamp() {
         return getRegionFactory().nextTimestamp();
     }
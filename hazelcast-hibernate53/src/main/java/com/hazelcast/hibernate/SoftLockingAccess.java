@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.distributed.IMapRegionCache;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Read-write access to an {@link IMapRegionCache} whose entries hold their soft locks, see
+ * {@link IMapRegionCache#tryLock(Object, Object)}.
+ * <p>
+ * Hibernate's read-write access reads its soft locks from the cache, modifies them and writes them back, under a lock
+ * which is local to the JVM. Here, every operation is a single atomic operation on the partition owner, so that
+ * transactions on different JVMs cannot overwrite newer data.
+ */
+final class SoftLockingAccess {
+
+    private final HazelcastStorageAccessImpl storageAccess;
+    private final Comparator versionComparator;
+
+    SoftLockingAccess(final HazelcastStorageAccessImpl storageAccess, final Comparator versionComparator) {
+        this.storageAccess = storageAccess;
+        this.versionComparator = versionComparator;
+    }
+
+    /**
+     * @return whether the storage is an {@link IMapRegionCache} with soft-locking enabled
+     */
+    static boolean isSoftLocking(final Object storageAccess) {
+        return storageAccess instanceof HazelcastStorageAccessImpl
+                && ((HazelcastStorageAccessImpl) storageAccess).getDelegate() instanceof IMapRegionCache
+                && ((IMapRegionCache) ((HazelcastStorageAccessImpl) storageAccess).getDelegate()).isSoftLocking();
+    }
+
+    Object get(final SharedSessionContractImplementor session, final Object key) {
+        return storageAccess.getFromCache(key, session, cachingTimestamp(session));
+    }
+
+    Map<Object, Object> getAll(final SharedSessionContractImplementor session, final Collection<?> keys) {
+        return storageAccess.tryWithFallback(cache -> cache.getAll(keys, cachingTimestamp(session)), Collections.emptyMap());
+    }
+
+    boolean putFromLoad(final SharedSessionContractImplementor session, final Object key, final Object value,
+                        final Object version) {
+        return storageAccess.tryWithFallback(cache -> ((IMapRegionCache) cache)
+                .putFromLoad(key, value, cachingTimestamp(session), version, versionComparator), false);
+    }
+
+    SoftLock lockItem(final Object key, final Object version) {
+        return storageAccess.tryInvalidating(cache -> ((IMapRegionCache) cache).tryLock(key, version), null);
+    }
+
+    void unlockItem(final Object key, final SoftLock lock) {
+        storageAccess.tryInvalidating(cache -> {
+            ((IMapRegionCache) cache).unlock(key, lock);
+            return null;
+        }, null);
+    }
+
+    boolean afterInsert(final Object key, final Object value, final Object version) {
+        return storageAccess.tryWithFallback(cache -> ((IMapRegionCache) cache).insert(key, value, version), false);
+    }
+
+    boolean afterUpdate(final Object key, final Object value, final Object version, final SoftLock lock) {
+        return storageAccess.tryInvalidating(cache -> ((IMapRegionCache) cache).update(key, value, version, lock), false);
+    }
+
+    private static long cachingTimestamp(final SharedSessionContractImplementor session) {
+        return session.getCacheTransactionSynchronization().getCachingTimestamp();
+    }
+}
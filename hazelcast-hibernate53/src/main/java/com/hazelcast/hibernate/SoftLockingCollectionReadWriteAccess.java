@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import org.hibernate.cache.cfg.spi.CollectionDataCachingConfig;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.CollectionReadWriteAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Read-write access to collections with soft locks held by the map entries, see {@link SoftLockingAccess}
+ */
+class SoftLockingCollectionReadWriteAccess extends CollectionReadWriteAccess implements BulkDataAccess {
+
+    private final SoftLockingAccess access;
+
+    SoftLockingCollectionReadWriteAccess(final DomainDataRegion region, final CacheKeysFactory keysFactory,
+                                         final HazelcastStorageAccessImpl storageAccess,
+                                         final CollectionDataCachingConfig config) {
+        super(region, keysFactory, storageAccess, config);
+        this.access = new SoftLockingAccess(storageAccess, getVersionComparator());
+    }
+
+    @Override
+    public Object get(final SharedSessionContractImplementor session, final Object key) {
+        return access.get(session, key);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(final SharedSessionContractImplementor session, final Collection<?> keys) {
+        return access.getAll(session, keys);
+    }
+
+    @Override
+    public boolean putFromLoad(final SharedSessionContractImplementor session, final Object key, final Object value,
+                               final Object version) {
+        return access.putFromLoad(session, key, value, version);
+    }
+
+    @Override
+    public SoftLock lockItem(final SharedSessionContractImplementor session, final Object key, final Object version) {
+        return access.lockItem(key, version);
+    }
+
+    @Override
+    public void unlockItem(final SharedSessionContractImplementor session, final Object key, final SoftLock lock) {
+        access.unlockItem(key, lock);
+    }
+
+    @Override
+    public void remove(final SharedSessionContractImplementor session, final Object key) {
+        // the entry is soft-locked, it is expired when it is unlocked
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate;
+
+import org.hibernate.cache.cfg.spi.NaturalIdDataCachingConfig;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.NaturalIdReadWriteAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Read-write access to natural ids with soft locks held by the map entries, see {@link SoftLockingAccess}
+ */
+class SoftLockingNaturalIdReadWriteAccess extends NaturalIdReadWriteAccess {
+
+    private final SoftLockingAccess access;
+
+    SoftLockingNaturalIdReadWriteAccess(final DomainDataRegion region, final CacheKeysFactory keysFactory,
+                                        final HazelcastStorageAccessImpl storageAccess,
+                                        final NaturalIdDataCachingConfig naturalIdDataCachingConfig) {
+        super(region, keysFactory, storageAccess, naturalIdDataCachingConfig);
+        this.access = new SoftLockingAccess(storageAccess, getVersionComparator());
+    }
+
+    @Override
+    public Object get(final SharedSessionContractImplementor session, final Object key) {
+        return access.get(session, key);
+    }
+
+    @Override
+    public boolean putFromLoad(final SharedSessionContractImplementor session, final Object key, final Object value,
+                               final Object version) {
+        return access.putFromLoad(session, key, value, version);
+    }
+
+    @Override
+    public SoftLock lockItem(final SharedSessionContractImplementor session, final Object key, final Object version) {
+        return access.lockItem(key, version);
+    }
+
+    @Override
+    public void unlockItem(final SharedSessionContractImplementor session, final Object key, final SoftLock lock) {
+        access.unlockItem(key, lock);
+    }
+
+    @Override
+    public void remove(final SharedSessionContractImplementor session, final Object key) {
+        // the entry is soft-locked, it is expired when it is unlocked
+    }
+
+    @Override
+    public boolean afterInsert(final SharedSessionContractImplementor session, final Object key, final Object value) {
+        return access.afterInsert(key, value, null);
+    }
+
+    @Override
+    public boolean afterUpdate(final SharedSessionContractImplementor session, final Object key, final Object value,
+                               final SoftLock lock) {
+        return access.afterUpdate(key, value, null, lock);
+    }
+}
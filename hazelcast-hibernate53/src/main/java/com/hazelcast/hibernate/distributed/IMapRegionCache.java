@@ -18,12 +18,34 @@ package com.hazelcast.hibernate.distributed;
 import com.hazelcast.cluster.Member;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.hibernate.RegionCache;
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.hibernate.serialization.CompactIdList;
+import com.hazelcast.hibernate.serialization.CompressionDictionary;
 import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.ExpiryMarker;
 import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.hibernate.serialization.ValueCompressor;
+import com.hazelcast.internal.util.UuidUtil;
 import com.hazelcast.map.IMap;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import org.hibernate.cache.CacheException;
 import org.hibernate.cache.spi.RegionFactory;
 import org.hibernate.cache.spi.access.SoftLock;
 
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * A {@link RegionCache} implementation based on the underlying IMap
  * <p/>
@@ -35,7 +57,9 @@ import org.hibernate.cache.spi.access.SoftLock;
  *     <li>An entry is unlocked from a soft-lock when all transactions complete</li>
  *     <li>An entry is unlocked if it reaches the configured lock timeout</li>
  * </ul>
- * These requirements are incompatible with IMap locks
+ * These requirements are incompatible with IMap locks. If soft-locking is enabled, the soft locks are instead held by
+ * the entries themselves as {@link ExpiryMarker}s, which entry processors lock and unlock atomically on the partition
+ * owners.
  */
 public class IMapRegionCache implements RegionCache {
 
@@ -43,15 +67,121 @@ public class IMapRegionCache implements RegionCache {
     private final String name;
     private final RegionFactory regionFactory;
     private final boolean isMember;
+    private final boolean softLocking;
+    private final long deadlineMillis;
+    private final RegionMetrics metrics;
+    private final ValueCompressor compressor;
 
     public IMapRegionCache(
       RegionFactory regionFactory,
       String name,
       HazelcastInstance hazelcastInstance) {
+        this(regionFactory, name, hazelcastInstance, false, Duration.ZERO);
+    }
+
+    /**
+     * @param softLocking {@code true} to hold the soft locks of read-write access in the entries of the map, see
+     *                    {@link #tryLock(Object, Object)}
+     * @param deadline    the duration after which {@link #get(Object, long)} misses and {@link #put(Object, Object,
+     *                    long, Object)} returns without waiting for the map, or zero to wait until they complete
+     */
+    public IMapRegionCache(
+      RegionFactory regionFactory,
+      String name,
+      HazelcastInstance hazelcastInstance,
+      boolean softLocking,
+      Duration deadline) {
+        this(regionFactory, name, hazelcastInstance, softLocking, deadline, 0, null);
+    }
+
+    /**
+     * @param compressionThreshold the size in bytes of the serialized values from which they are compressed, see
+     *                             {@link ValueCompressor}, or zero to cache the values uncompressed
+     * @param dictionary           the preset dictionary of the compressor, or {@code null} to compress without one
+     */
+    public IMapRegionCache(
+      RegionFactory regionFactory,
+      String name,
+      HazelcastInstance hazelcastInstance,
+      boolean softLocking,
+      Duration deadline,
+      int compressionThreshold,
+      CompressionDictionary dictionary) {
         this.name = name;
         this.regionFactory = regionFactory;
         this.isMember = isMemberInstance(hazelcastInstance);
         this.map = hazelcastInstance.getMap(this.name);
+        this.softLocking = softLocking;
+        this.deadlineMillis = deadline.toMillis();
+        this.metrics = new RegionMetrics(name, this::getElementCountInMemory, this::getSizeInMemory);
+        this.compressor = compressionThreshold <= 0
+                ? null
+                : new ValueCompressor(((SerializationServiceSupport) hazelcastInstance).getSerializationService(),
+                compressionThreshold, dictionary, metrics);
+    }
+
+    /**
+     * @return whether read-write access should soft-lock the entries by {@link #tryLock(Object, Object)} instead of
+     * storing Hibernate's soft locks as values
+     */
+    public boolean isSoftLocking() {
+        return softLocking;
+    }
+
+    /**
+     * Soft-locks the entry on its partition owner, see {@link LockEntryProcessor}. While the entry is locked, reads
+     * miss and values loaded from the database are not cached.
+     *
+     * @return the lock to release by {@link #unlock(Object, SoftLock)} or {@link #update(Object, Object, Object, SoftLock)}
+     */
+    public SoftLock tryLock(final Object key, final Object version) {
+        final long timeout = nextTimestamp() + regionFactory.getTimeout();
+        return map.executeOnKey(key, new LockEntryProcessor(nextMarkerId(), timeout, version));
+    }
+
+    /**
+     * Releases the lock without updating the entry, see {@link UnlockEntryProcessor}.
+     */
+    public void unlock(final Object key, final SoftLock lock) {
+        if (lock instanceof ExpiryMarker) {
+            map.executeOnKey(key, new UnlockEntryProcessor((ExpiryMarker) lock, nextMarkerId(), nextTimestamp()));
+        }
+    }
+
+    /**
+     * Updates the entry and releases the lock, unless the entry was locked concurrently or the lock was lost, see
+     * {@link UpdateEntryProcessor}.
+     *
+     * @return whether the entry was updated
+     */
+    public boolean update(final Object key, final Object newValue, final Object newVersion, final SoftLock lock) {
+        if (!(lock instanceof ExpiryMarker)) {
+            return false;
+        }
+        return map.executeOnKey(key, new UpdateEntryProcessor((ExpiryMarker) lock, nextMarkerId(), encode(newValue),
+                newVersion, nextTimestamp()));
+    }
+
+    /**
+     * Caches a newly inserted value, unless the entry exists already.
+     *
+     * @return whether the value was cached
+     */
+    public boolean insert(final Object key, final Object value, final Object version) {
+        return map.putIfAbsent(key, new Value(version, nextTimestamp(), encode(value))) == null;
+    }
+
+    /**
+     * Caches a value loaded from the database, unless the entry is locked or holds a newer value, see
+     * {@link PutFromLoadEntryProcessor}.
+     *
+     * @return whether the value was cached
+     */
+    public boolean putFromLoad(final Object key, final Object value, final long txTimestamp, final Object version,
+                               final Comparator versionComparator) {
+        final Comparator serializableComparator = versionComparator instanceof Serializable ? versionComparator : null;
+        return map.executeOnKey(key,
+                new PutFromLoadEntryProcessor(encode(value), version, txTimestamp, nextTimestamp(), serializableComparator));
     }
 
     @Override
@@ -76,8 +206,88 @@ public class IMapRegionCache implements RegionCache {
 
     @Override
     public Object get(final Object key, final long txTimestamp) {
-        final Expirable entry = map.get(key);
-        return entry == null ? null : entry.getValue(txTimestamp);
+        final long start = System.nanoTime();
+        final Expirable entry;
+        if (deadlineMillis == 0) {
+            entry = map.get(key);
+        } else {
+            entry = await(map.getAsync(key), metrics::recordReadTimeout);
+        }
+        final Object value = entry == null ? null : decode(entry.getValue(txTimestamp));
+        metrics.recordGet(start, value != null);
+        return value;
+    }
+
+    /**
+     * Reads the entries by {@link IMap#getAll(Set)}, which groups the keys by partition and reads them with a single
+     * call per partition owner, rather than one per key. IMap has no asynchronous variant of it, so with a deadline the
+     * entries are read by concurrent {@link IMap#getAsync(Object)} calls instead, and the keys whose entries are not
+     * read in time miss.
+     */
+    @Override
+    public Map<Object, Object> getAll(final Collection<?> keys, final long txTimestamp) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final long start = System.nanoTime();
+        final Set<Object> keySet = new HashSet<>(keys);
+        final Map<Object, Expirable> entries;
+        if (deadlineMillis == 0) {
+            entries = map.getAll(keySet);
+        } else {
+            entries = getAllWithinDeadline(keySet);
+        }
+        final Map<Object, Object> values = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            final Object value = entry == null ? null : decode(entry.getValue(txTimestamp));
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        metrics.recordGetAll(start, values.size(), keySet.size() - values.size());
+        return values;
+    }
+
+    /**
+     * @return the entries read within the deadline, which all reads share
+     */
+    private Map<Object, Expirable> getAllWithinDeadline(final Set<Object> keys) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        final Map<Object, CompletionStage<Expirable>> reads = new HashMap<>();
+        for (Object key : keys) {
+            reads.put(key, map.getAsync(key));
+        }
+        final Map<Object, Expirable> entries = new HashMap<>();
+        reads.forEach((key, read) -> {
+            final Expirable entry = await(read, deadline - System.nanoTime(), metrics::recordReadTimeout);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * @return the metrics of this region cache
+     */
+    public RegionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of reads which missed because they did not complete within the deadline, see
+     * {@link RegionMetrics#getReadTimeoutCount()}
+     */
+    public long getReadTimeoutCount() {
+        return metrics.getReadTimeoutCount();
+    }
+
+    /**
+     * @return the number of writes which did not complete within the deadline and were left to complete in the
+     * background, see {@link RegionMetrics#getWriteTimeoutCount()}
+     */
+    public long getWriteTimeoutCount() {
+        return metrics.getWriteTimeoutCount();
     }
 
     /**
@@ -111,8 +321,14 @@ public class IMapRegionCache implements RegionCache {
 
     @Override
     public boolean put(final Object key, final Object value, final long txTimestamp, final Object version) {
-        final Value newValue = new Value(version, txTimestamp, value);
-        map.put(key, newValue);
+        final long start = System.nanoTime();
+        final Value newValue = new Value(version, txTimestamp, encode(value));
+        if (deadlineMillis == 0) {
+            map.put(key, newValue);
+        } else {
+            await(map.setAsync(key, newValue), metrics::recordWriteTimeout);
+        }
+        metrics.recordPut(start);
         return true;
     }
 
@@ -121,6 +337,42 @@ public class IMapRegionCache implements RegionCache {
         // no-op
     }
 
+    private <T> T await(final CompletionStage<T> stage, final Runnable onTimeout) {
+        return await(stage, TimeUnit.MILLISECONDS.toNanos(deadlineMillis), onTimeout);
+    }
+
+    private <T> T await(final CompletionStage<T> stage, final long timeoutNanos, final Runnable onTimeout) {
+        try {
+            return stage.toCompletableFuture().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            onTimeout.run();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new CacheException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the value as it is cached, with its ids compacted and compressed if it is large
+     */
+    private Object encode(final Object value) {
+        final Object compacted = CompactIdList.compact(value);
+        return compressor == null ? compacted : compressor.compress(compacted);
+    }
+
+    private Object decode(final Object value) {
+        return CompactIdList.expand(compressor == null ? value : compressor.decompress(value));
+    }
+
+    private static String nextMarkerId() {
+        return UuidUtil.newUnsecureUuidString();
+    }
+
     private static boolean isMemberInstance(HazelcastInstance instance) {
         return instance.getLocalEndpoint() instanceof Member;
     }
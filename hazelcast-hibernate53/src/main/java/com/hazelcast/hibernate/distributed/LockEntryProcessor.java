@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.ExpiryMarker;
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Soft-locks an entry by marking it for expiration, see {@link Expirable#markForExpiration(long, String)}.
+ * Returns the marker, which is the lock to pass to {@link UnlockEntryProcessor} and {@link UpdateEntryProcessor}.
+ */
+public class LockEntryProcessor implements EntryProcessor<Object, Expirable, ExpiryMarker>, IdentifiedDataSerializable {
+
+    private String nextMarkerId;
+    private long timeout;
+    private Object version;
+
+    public LockEntryProcessor() {
+    }
+
+    public LockEntryProcessor(final String nextMarkerId, final long timeout, final Object version) {
+        this.nextMarkerId = nextMarkerId;
+        this.timeout = timeout;
+        this.version = version;
+    }
+
+    @Override
+    public ExpiryMarker process(final Map.Entry<Object, Expirable> entry) {
+        Expirable expirable = entry.getValue();
+        ExpiryMarker marker = expirable == null
+                ? new ExpiryMarker(version, timeout, nextMarkerId)
+                : expirable.markForExpiration(timeout, nextMarkerId);
+        entry.setValue(marker);
+        return marker;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeString(nextMarkerId);
+        out.writeLong(timeout);
+        out.writeObject(version);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        nextMarkerId = in.readString();
+        timeout = in.readLong();
+        version = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.LOCK;
+    }
+}
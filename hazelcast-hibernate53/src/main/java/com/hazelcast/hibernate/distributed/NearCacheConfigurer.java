@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+/**
+ * Attaches a Near Cache to the map of an {@link IMapRegionCache}, so that cache hits are served from local memory
+ * while the map stays the source of truth.
+ * <p>
+ * The Near Cache has to be configured before the map proxy is created. On a client, it is added to the configuration
+ * of the client. On a member, the map configuration is added as a dynamic configuration, which applies to the whole
+ * cluster. A Near Cache configured for the map explicitly is left as it is.
+ */
+public final class NearCacheConfigurer {
+
+    private static final ILogger LOGGER = Logger.getLogger(NearCacheConfigurer.class);
+
+    private NearCacheConfigurer() {
+    }
+
+    /**
+     * @param instance        the instance on which the map is going to be used
+     * @param mapName         the name of the map of the region
+     * @param nearCacheConfig the Near Cache to attach
+     */
+    public static void configure(HazelcastInstance instance, String mapName, NearCacheConfig nearCacheConfig) {
+        NearCacheConfig namedConfig = new NearCacheConfig(nearCacheConfig).setName(mapName);
+        if (instance instanceof HazelcastClientProxy) {
+            ClientConfig clientConfig = ((HazelcastClientProxy) instance).getClientConfig();
+            if (!clientConfig.getNearCacheConfigMap().containsKey(mapName)) {
+                clientConfig.addNearCacheConfig(namedConfig);
+            }
+            return;
+        }
+        // the pre-loader is available on clients only
+        namedConfig.getPreloaderConfig().setEnabled(false);
+        Config config = instance.getConfig();
+        MapConfig mapConfig = config.findMapConfig(mapName);
+        if (mapConfig.getNearCacheConfig() != null) {
+            return;
+        }
+        try {
+            config.addMapConfig(new MapConfig(mapConfig).setName(mapName).setNearCacheConfig(namedConfig));
+        } catch (InvalidConfigurationException e) {
+            LOGGER.warning("Could not attach a Near Cache to map " + mapName + ": " + e.getMessage());
+        }
+    }
+}
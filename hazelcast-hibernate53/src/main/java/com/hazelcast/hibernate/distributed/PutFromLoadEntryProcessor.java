@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import org.hibernate.internal.util.compare.ComparableComparator;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Caches a value loaded from the database, unless the entry is soft-locked or holds a newer value, see
+ * {@link Expirable#isReplaceableBy(long, Object, Comparator)}. Returns whether the value was cached.
+ * <p>
+ * Versions are compared by the given comparator if it is serializable, otherwise by their natural order. Versions
+ * which cannot be compared are never replaced.
+ */
+public class PutFromLoadEntryProcessor implements EntryProcessor<Object, Expirable, Boolean>, IdentifiedDataSerializable {
+
+    private Object value;
+    private Object version;
+    private long txTimestamp;
+    private long timestamp;
+    private Comparator versionComparator;
+
+    public PutFromLoadEntryProcessor() {
+    }
+
+    public PutFromLoadEntryProcessor(final Object value, final Object version, final long txTimestamp,
+                                     final long timestamp, final Comparator versionComparator) {
+        this.value = value;
+        this.version = version;
+        this.txTimestamp = txTimestamp;
+        this.timestamp = timestamp;
+        this.versionComparator = versionComparator;
+    }
+
+    @Override
+    public Boolean process(final Map.Entry<Object, Expirable> entry) {
+        Expirable expirable = entry.getValue();
+        if (expirable != null && !isReplaceable(expirable)) {
+            return false;
+        }
+        entry.setValue(new Value(version, timestamp, value));
+        return true;
+    }
+
+    private boolean isReplaceable(final Expirable expirable) {
+        Comparator comparator = versionComparator;
+        if (comparator == null) {
+            if (expirable.getVersion() != null && !(expirable.getVersion() instanceof Comparable)) {
+                return false;
+            }
+            comparator = ComparableComparator.INSTANCE;
+        }
+        return expirable.isReplaceableBy(txTimestamp, version, comparator);
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeObject(value);
+        out.writeObject(version);
+        out.writeLong(txTimestamp);
+        out.writeLong(timestamp);
+        out.writeObject(versionComparator);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        value = in.readObject();
+        version = in.readObject();
+        txTimestamp = in.readLong();
+        timestamp = in.readLong();
+        versionComparator = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.PUT_FROM_LOAD;
+    }
+}
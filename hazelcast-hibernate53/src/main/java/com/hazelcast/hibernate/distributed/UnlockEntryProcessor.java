@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.ExpiryMarker;
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Releases a soft lock taken by {@link LockEntryProcessor} without updating the entry, see
+ * {@link ExpiryMarker#expire(long)}.
+ * <p>
+ * If the entry holds a value instead, the lock was lost, e.g. because it timed out, and the value may be stale.
+ * The value is then replaced by an expired marker, which keeps in-flight transactions from caching stale values.
+ */
+public class UnlockEntryProcessor implements EntryProcessor<Object, Expirable, Void>, IdentifiedDataSerializable {
+
+    private ExpiryMarker lock;
+    private String nextMarkerId;
+    private long timestamp;
+
+    public UnlockEntryProcessor() {
+    }
+
+    public UnlockEntryProcessor(final ExpiryMarker lock, final String nextMarkerId, final long timestamp) {
+        this.lock = lock;
+        this.nextMarkerId = nextMarkerId;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public Void process(final Map.Entry<Object, Expirable> entry) {
+        Expirable expirable = entry.getValue();
+        if (expirable == null) {
+            return null;
+        }
+        if (expirable.matches(lock)) {
+            entry.setValue(((ExpiryMarker) expirable).expire(timestamp));
+        } else if (expirable.getValue() != null) {
+            entry.setValue(new ExpiryMarker(null, timestamp, nextMarkerId).expire(timestamp));
+        }
+        // otherwise, the entry is locked by someone else, leave it as is
+        return null;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeObject(lock);
+        out.writeString(nextMarkerId);
+        out.writeLong(timestamp);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        lock = in.readObject();
+        nextMarkerId = in.readString();
+        timestamp = in.readLong();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.UNLOCK;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.ExpiryMarker;
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Updates an entry soft-locked by {@link LockEntryProcessor} after the transaction which locked it committed,
+ * releasing the lock. Returns whether the entry was updated.
+ * <p>
+ * If the entry was locked concurrently by another transaction, the outcome of the other transaction is unknown, and
+ * the lock is released without updating the entry. An entry locked by someone else is left as it is.
+ * <p>
+ * If the entry holds a value instead, the lock was lost, e.g. because it timed out, and the value may be newer than the
+ * one of this transaction. The value is then replaced by an expired marker, as {@link UnlockEntryProcessor} does.
+ */
+public class UpdateEntryProcessor implements EntryProcessor<Object, Expirable, Boolean>, IdentifiedDataSerializable {
+
+    private ExpiryMarker lock;
+    private String nextMarkerId;
+    private Object newValue;
+    private Object newVersion;
+    private long timestamp;
+
+    public UpdateEntryProcessor() {
+    }
+
+    public UpdateEntryProcessor(final ExpiryMarker lock, final String nextMarkerId, final Object newValue,
+                                final Object newVersion, final long timestamp) {
+        this.lock = lock;
+        this.nextMarkerId = nextMarkerId;
+        this.newValue = newValue;
+        this.newVersion = newVersion;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public Boolean process(final Map.Entry<Object, Expirable> entry) {
+        Expirable expirable = entry.getValue();
+        if (expirable == null || expirable.matches(lock) && !((ExpiryMarker) expirable).isConcurrent()) {
+            // the entry is locked by this transaction only, or it was evicted along with the lock
+            entry.setValue(new Value(newVersion, timestamp, newValue));
+            return true;
+        }
+        if (expirable.matches(lock)) {
+            entry.setValue(((ExpiryMarker) expirable).expire(timestamp));
+        } else if (expirable.getValue() != null) {
+            entry.setValue(new ExpiryMarker(null, timestamp, nextMarkerId).expire(timestamp));
+        }
+        // otherwise, the entry is locked by someone else, leave it as is
+        return false;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeObject(lock);
+        out.writeString(nextMarkerId);
+        out.writeObject(newValue);
+        out.writeObject(newVersion);
+        out.writeLong(timestamp);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        lock = in.readObject();
+        nextMarkerId = in.readString();
+        newValue = in.readObject();
+        newVersion = in.readObject();
+        timestamp = in.readLong();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.UPDATE;
+    }
+}
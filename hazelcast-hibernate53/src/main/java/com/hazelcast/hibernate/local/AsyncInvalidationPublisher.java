@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.topic.ITopic;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the invalidation messages of a local region with {@link ITopic#publishAsync(Object)}, so that the
+ * calling (usually Hibernate transaction) thread does not wait for the round trip to the cluster.
+ * <p>
+ * The number of messages in flight is bounded. When the window is full, callers block until a publication
+ * completes, which applies backpressure instead of queueing invalidations without limit.
+ * <p>
+ * The messages in flight, the outcomes of the publications and their latencies are recorded in the
+ * {@link RegionMetrics} of the region.
+ */
+public class AsyncInvalidationPublisher {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+    private static final ILogger LOG = Logger.getLogger(AsyncInvalidationPublisher.class);
+
+    private final String cacheName;
+    private final ITopic<Object> topic;
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+    private final RegionMetrics metrics;
+
+    /**
+     * @param cacheName   the name of the region cache, used for logging
+     * @param topic       the topic to publish the messages on
+     * @param maxInFlight the maximum number of messages published but not yet acknowledged
+     * @param metrics     the metrics of the region cache
+     */
+    public AsyncInvalidationPublisher(String cacheName, ITopic<Object> topic, int maxInFlight, RegionMetrics metrics) {
+        this.cacheName = cacheName;
+        this.topic = topic;
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.metrics = metrics;
+    }
+
+    public void publish(Object message) {
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // do not lose the invalidation, fall back to the blocking variant
+            topic.publish(message);
+            return;
+        }
+        final long start = System.nanoTime();
+        metrics.recordInvalidationPublishing();
+        try {
+            topic.publishAsync(message).whenComplete((ignored, failure) -> onComplete(start, failure));
+        } catch (RuntimeException e) {
+            inFlightPermits.release();
+            metrics.recordInvalidationPublished(start, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the messages in flight to be acknowledged, at most a few seconds.
+     */
+    public void drain() {
+        try {
+            if (inFlightPermits.tryAcquire(maxInFlight, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                inFlightPermits.release(maxInFlight);
+            } else {
+                LOG.warning(getInFlightCount() + " invalidation(s) of cache '" + cacheName
+                        + "' were not acknowledged in " + DRAIN_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of messages published but not yet acknowledged
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    private void onComplete(long start, Throwable failure) {
+        inFlightPermits.release();
+        metrics.recordInvalidationPublished(start, failure == null);
+        if (failure != null) {
+            LOG.warning("Failed to publish invalidation of cache '" + cacheName + "'", failure);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+
+/**
+ * The {@link com.hazelcast.config.InMemoryFormat#BINARY} in-memory format of a {@link LocalRegionCache}, which stores
+ * the cached values serialized and deserializes them when they are read.
+ * <p>
+ * Serialized values take a fraction of the heap of the object graphs of Hibernate cache entries, and are a single
+ * object for the garbage collector to trace. Optionally, the most recently deserialized values are kept in a small
+ * cache in front of the serialized ones, which is keyed by the identity of the stored {@link SerializedValue}, so
+ * that replaced or removed values drop out of it without being invalidated.
+ */
+final class BinaryInMemoryFormat {
+
+    private final SerializationService serializationService;
+    private final Cache<SerializedValue, Object> hotObjects;
+
+    /**
+     * @param serializationService the serialization service of the Hazelcast instance
+     * @param hotObjectCacheSize   the maximum number of deserialized values to keep, {@code 0} to keep none
+     */
+    BinaryInMemoryFormat(SerializationService serializationService, int hotObjectCacheSize) {
+        this.serializationService = serializationService;
+        this.hotObjects = hotObjectCacheSize <= 0
+                ? null
+                : Caffeine.newBuilder().weakKeys().maximumSize(hotObjectCacheSize).build();
+    }
+
+    Expirable newValue(Object version, long timestamp, Object value) {
+        return new SerializedValue(version, timestamp, serializationService.toData(value).toByteArray(), this);
+    }
+
+    Object toObject(SerializedValue value) {
+        if (hotObjects == null) {
+            return deserialize(value);
+        }
+        return hotObjects.get(value, this::deserialize);
+    }
+
+    private Object deserialize(SerializedValue value) {
+        return serializationService.toObject(new HeapData(value.getBytes()));
+    }
+}
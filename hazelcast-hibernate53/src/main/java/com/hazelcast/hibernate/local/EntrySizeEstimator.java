@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.PartitionAwareCacheKey;
+import com.hazelcast.hibernate.serialization.CompactIdList;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.IdListEntries;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Estimates the heap footprint of local region cache entries, used to weigh them for the
+ * {@link com.hazelcast.config.MaxSizePolicy#USED_HEAP_SIZE} policy.
+ * <p>
+ * The estimate assumes a 64-bit JVM with compressed references. It follows the disassembled state of Hibernate
+ * cache entries, the items of read-write access and query results they are wrapped in, and the ids of cache keys,
+ * but not arbitrary object graphs: the shallow size of any other object is
+ * computed once per class by reflection and cached. Large arrays and collections are sampled. Strings shared by
+ * all entries of a region, such as entity names, are not counted.
+ */
+final class EntrySizeEstimator {
+
+    /**
+     * The bookkeeping of a Caffeine cache per entry.
+     */
+    private static final int CACHE_ENTRY_OVERHEAD = 64;
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    private static final int COLLECTION_NODE = 16;
+    private static final int MAP_NODE = 32;
+    private static final int SAMPLE_SIZE = 16;
+    private static final int MAX_DEPTH = 4;
+
+    private static final Object NOT_A_WRAPPER = new Object();
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return computeShallowSize(type);
+        }
+    };
+
+    private EntrySizeEstimator() {
+    }
+
+    /**
+     * @return the estimated heap footprint of the entry in bytes, capped at {@link Integer#MAX_VALUE}
+     */
+    static int weigh(Object key, Expirable value) {
+        long size = CACHE_ENTRY_OVERHEAD + estimate(key, 0) + estimate(value, 0);
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    static long estimate(Object object, int depth) {
+        if (object == null) {
+            return 0;
+        }
+        if (depth > MAX_DEPTH) {
+            return shallowSize(object.getClass());
+        }
+        if (object instanceof String) {
+            // assumes compact, i.e. Latin-1 encoded strings
+            return shallowSize(String.class) + align(ARRAY_HEADER + ((String) object).length());
+        }
+        if (object instanceof SerializedValue) {
+            // do not deserialize the value just to weigh it
+            return shallowSize(object.getClass()) + estimate(((SerializedValue) object).getBytes(), depth + 1)
+                    + estimate(((SerializedValue) object).getVersion(), depth + 1);
+        }
+        if (object instanceof Expirable) {
+            Expirable expirable = (Expirable) object;
+            return shallowSize(object.getClass()) + estimate(expirable.getValue(), depth + 1)
+                    + estimate(expirable.getVersion(), depth + 1);
+        }
+        if (object instanceof CacheEntry) {
+            CacheEntry entry = (CacheEntry) object;
+            return shallowSize(object.getClass()) + estimate(entry.getDisassembledState(), depth + 1)
+                    + estimate(entry.getVersion(), depth + 1);
+        }
+        Object wrapped = wrappedContent(object);
+        if (wrapped != NOT_A_WRAPPER) {
+            return shallowSize(object.getClass()) + estimate(wrapped, depth + 1);
+        }
+        if (object.getClass().isArray()) {
+            return estimateArray(object, depth);
+        }
+        if (object instanceof Collection) {
+            Collection<?> collection = (Collection<?>) object;
+            return shallowSize(object.getClass())
+                    + estimateElements(collection.iterator(), collection.size(), COLLECTION_NODE, depth);
+        }
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            return shallowSize(object.getClass())
+                    + estimateElements(map.entrySet().iterator(), map.size(), MAP_NODE, depth);
+        }
+        return shallowSize(object.getClass());
+    }
+
+    /**
+     * @return the content of the keys, id lists and entry wrappers that hold a single value,
+     * or {@link #NOT_A_WRAPPER} for any other object
+     */
+    private static Object wrappedContent(Object object) {
+        if (object instanceof AbstractReadWriteAccess.Lockable) {
+            // the items and soft locks read-write access wraps every entry of its regions in
+            return ((AbstractReadWriteAccess.Lockable) object).getValue();
+        }
+        if (IdListEntries.isQueryResults(object)) {
+            return IdListEntries.queryResults(object);
+        }
+        if (object instanceof PartitionAwareCacheKey) {
+            return ((PartitionAwareCacheKey) object).getKey();
+        }
+        if (object instanceof CompactIdList) {
+            return ((CompactIdList) object).getIds();
+        }
+        if (object instanceof CollectionCacheEntry) {
+            return ((CollectionCacheEntry) object).getState();
+        }
+        if (object instanceof CacheKeyImplementation) {
+            return ((CacheKeyImplementation) object).getId();
+        }
+        if (object instanceof BasicCacheKeyImplementation) {
+            return ((BasicCacheKeyImplementation) object).getId();
+        }
+        return NOT_A_WRAPPER;
+    }
+
+    private static long estimateArray(Object array, int depth) {
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER + (long) Array.getLength(array) * primitiveSize(componentType));
+        }
+        Object[] elements = (Object[]) array;
+        return align(ARRAY_HEADER + (long) elements.length * REFERENCE)
+                + estimateElements(Arrays.asList(elements).iterator(), elements.length, 0, depth);
+    }
+
+    /**
+     * Estimates the size of the elements, extrapolating from the first few ones if there are many of them.
+     */
+    private static long estimateElements(Iterator<?> elements, int count, int perElementOverhead, int depth) {
+        long sampledSize = 0;
+        int sampled = 0;
+        while (sampled < SAMPLE_SIZE && elements.hasNext()) {
+            Object element = elements.next();
+            if (element instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+                sampledSize += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            } else {
+                sampledSize += estimate(element, depth + 1);
+            }
+            sampled++;
+        }
+        long elementsSize = sampled == 0 ? 0 : sampledSize * count / sampled;
+        return elementsSize + (long) perElementOverhead * count;
+    }
+
+    private static long shallowSize(Class<?> type) {
+        return SHALLOW_SIZES.get(type);
+    }
+
+    private static long computeShallowSize(Class<?> type) {
+        long size = OBJECT_HEADER;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    Class<?> fieldType = field.getType();
+                    size += fieldType.isPrimitive() ? primitiveSize(fieldType) : REFERENCE;
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return Long.BYTES;
+        }
+        if (type == int.class || type == float.class) {
+            return Integer.BYTES;
+        }
+        if (type == short.class || type == char.class) {
+            return Short.BYTES;
+        }
+        return Byte.BYTES;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -30,6 +30,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
 
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 
@@ -60,12 +61,21 @@ public class FreeHeapBasedCacheEvictor implements AutoCloseable {
     }
 
     void start(String cacheName, Cache<?, ?> cache, long minimalHeapSizeInMB) {
+        start(cacheName, cache, minimalHeapSizeInMB, evicted -> { });
+    }
+
+    /**
+     * @param evictionCounter notified of the number of entries evicted by each run
+     */
+    void start(String cacheName, Cache<?, ?> cache, long minimalHeapSizeInMB, LongConsumer evictionCounter) {
         Policy.Eviction<?, ?> eviction = cache.policy().eviction()
                 .orElseThrow(() -> new IllegalStateException("Eviction for cache '" + cacheName + "' not enabled"));
         LOG.info("Starting free-heap-size-based eviction of cache '" + cacheName + "'");
         ScheduledFuture<?> evictingTask = executorService.scheduleWithFixedDelay(() -> {
             if (freeHeapTooSmall(minimalHeapSizeInMB)) {
-                eviction.coldest(EVICTION_BATCH_SIZE).forEach((key, value) -> cache.invalidate(key));
+                Map<?, ?> coldest = eviction.coldest(EVICTION_BATCH_SIZE);
+                coldest.forEach((key, value) -> cache.invalidate(key));
+                evictionCounter.accept(coldest.size());
             }
         }, 0, evictionDelay.toMillis(), TimeUnit.MILLISECONDS);
         tasks.put(cacheName, evictingTask);
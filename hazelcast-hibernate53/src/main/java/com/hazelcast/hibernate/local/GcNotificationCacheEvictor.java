@@ -0,0 +1,317 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+/**
+ * Evicts entries of local region caches when the heap exceeds their budget, reacting to garbage collections
+ * instead of polling.
+ * <p>
+ * After every garbage collection, the heap usage reported by the collector is compared to the budget of each
+ * registered cache. A collection usage threshold on the tenured pool additionally signals when the live data
+ * crosses the strictest budget. Each cache over budget then evicts its coldest entries until their estimated
+ * footprint covers its share of the excess. Evicted entries are reclaimed only by the next collection of the
+ * tenured pool, so they are deducted from the excess until then, which prevents evicting them twice.
+ * <p>
+ * Supports the {@link MaxSizePolicy#FREE_HEAP_SIZE} and {@link MaxSizePolicy#FREE_HEAP_PERCENTAGE} policies.
+ */
+public class GcNotificationCacheEvictor implements AutoCloseable {
+
+    private static final int TERMINATE_TIMEOUT_SECONDS = 5;
+    private static final int EVICTION_CHUNK_SIZE = 128;
+    private static final int PERCENT = 100;
+    private static final ILogger LOG = Logger.getLogger(GcNotificationCacheEvictor.class);
+
+    private final ExecutorService executorService;
+    private final LongSupplier maxHeapSupplier;
+    private final boolean listenToGc;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final NotificationListener gcListener = this::onGcNotification;
+    private final NotificationListener thresholdListener = this::onThresholdNotification;
+    private final AtomicBoolean evictionPending = new AtomicBoolean();
+    private final AtomicBoolean listening = new AtomicBoolean();
+
+    private final AtomicLong pendingReclaim = new AtomicLong();
+
+    private volatile long usedAfterGc;
+
+    public GcNotificationCacheEvictor() {
+        this(newSingleThreadExecutor(r -> new Thread(r, GcNotificationCacheEvictor.class.getSimpleName() + "-thread")),
+                () -> Runtime.getRuntime().maxMemory(), true);
+    }
+
+    /**
+     * just for testing
+     */
+    GcNotificationCacheEvictor(ExecutorService executorService, LongSupplier maxHeapSupplier, boolean listenToGc) {
+        this.executorService = executorService;
+        this.maxHeapSupplier = maxHeapSupplier;
+        this.listenToGc = listenToGc;
+    }
+
+    /**
+     * @param policy one of the heap based {@link MaxSizePolicy max size policies}
+     * @param size   the size of the policy, megabytes or percents
+     */
+    void start(String cacheName, Cache<Object, Expirable> cache, MaxSizePolicy policy, int size) {
+        start(cacheName, cache, policy, size, evicted -> { });
+    }
+
+    /**
+     * @param evictionCounter notified of the number of entries evicted from the cache by each eviction
+     */
+    void start(String cacheName, Cache<Object, Expirable> cache, MaxSizePolicy policy, int size,
+               LongConsumer evictionCounter) {
+        Policy.Eviction<Object, Expirable> eviction = cache.policy().eviction()
+                .orElseThrow(() -> new IllegalStateException("Eviction for cache '" + cacheName + "' not enabled"));
+        LOG.info("Starting GC-notification-based " + policy + " eviction of cache '" + cacheName + "'");
+        budgets.put(cacheName, new Budget(cache, eviction, policy, size, evictionCounter));
+        if (listenToGc && listening.compareAndSet(false, true)) {
+            addListeners();
+        }
+        updateCollectionUsageThreshold();
+    }
+
+    public void stop(String cacheName) {
+        if (budgets.remove(cacheName) == null) {
+            throw new IllegalStateException("Evicting of cache '" + cacheName + "' not started");
+        }
+        updateCollectionUsageThreshold();
+    }
+
+    /**
+     * Evaluates the heap usage after a garbage collection.
+     *
+     * @param usedBytes          the heap usage after the collection
+     * @param tenuredPoolReclaimed whether the collection reclaimed space in the tenured pool
+     */
+    void onHeapUsageAfterGc(long usedBytes, boolean tenuredPoolReclaimed) {
+        usedAfterGc = usedBytes;
+        if (tenuredPoolReclaimed) {
+            pendingReclaim.set(0);
+        }
+        long maxHeap = maxHeapSupplier.getAsLong();
+        boolean overBudget = budgets.values().stream()
+                .anyMatch(budget -> usedBytes - pendingReclaim.get() > budget.allowedUsedBytes(maxHeap));
+        if (overBudget && evictionPending.compareAndSet(false, true)) {
+            executorService.execute(this::evict);
+        }
+    }
+
+    private void evict() {
+        evictionPending.set(false);
+        long maxHeap = maxHeapSupplier.getAsLong();
+        long used = usedAfterGc - pendingReclaim.get();
+        long totalEntries = 0;
+        for (Budget budget : budgets.values()) {
+            if (used > budget.allowedUsedBytes(maxHeap)) {
+                totalEntries += budget.cache.estimatedSize();
+            }
+        }
+        long evicted = 0;
+        for (Budget budget : budgets.values()) {
+            long excess = used - budget.allowedUsedBytes(maxHeap);
+            long entries = budget.cache.estimatedSize();
+            if (excess > 0 && entries > 0) {
+                // caches over budget evict in proportion to their number of entries
+                evicted += budget.evict((long) (excess * ((double) entries / totalEntries)));
+            }
+        }
+        pendingReclaim.addAndGet(evicted);
+    }
+
+    private void onGcNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        Map<String, MemoryUsage> before = info.getGcInfo().getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = info.getGcInfo().getMemoryUsageAfterGc();
+        long used = 0;
+        boolean tenuredPoolReclaimed = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usageAfter = after.get(pool.getName());
+            if (pool.getType() != MemoryType.HEAP || usageAfter == null) {
+                continue;
+            }
+            used += usageAfter.getUsed();
+            MemoryUsage usageBefore = before.get(pool.getName());
+            if (isTenured(pool) && usageBefore != null && usageAfter.getUsed() < usageBefore.getUsed()) {
+                tenuredPoolReclaimed = true;
+            }
+        }
+        onHeapUsageAfterGc(used, tenuredPoolReclaimed);
+    }
+
+    private void onThresholdNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            // the tenured pool alone may already exceed the heap usage measured after the last collection
+            onHeapUsageAfterGc(Math.max(usedAfterGc, info.getUsage().getUsed()), false);
+        }
+    }
+
+    private void addListeners() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(gcListener, null, null);
+            }
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(thresholdListener, null, null);
+    }
+
+    private void removeListeners() {
+        try {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter) {
+                    ((NotificationEmitter) gc).removeNotificationListener(gcListener);
+                }
+            }
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(thresholdListener);
+        } catch (ListenerNotFoundException e) {
+            LOG.finest("GC notification listener already removed", e);
+        }
+    }
+
+    /**
+     * Sets the collection usage threshold of the tenured pool to the share of the strictest budget it can hold.
+     */
+    private void updateCollectionUsageThreshold() {
+        if (!listenToGc) {
+            return;
+        }
+        long maxHeap = maxHeapSupplier.getAsLong();
+        long allowedUsedBytes = budgets.values().stream()
+                .mapToLong(budget -> budget.allowedUsedBytes(maxHeap))
+                .min()
+                .orElse(0);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (isTenured(pool) && pool.isCollectionUsageThresholdSupported() && pool.getUsage().getMax() > 0) {
+                long threshold = allowedUsedBytes * pool.getUsage().getMax() / maxHeap;
+                pool.setCollectionUsageThreshold(Math.max(0, threshold));
+            }
+        }
+    }
+
+    /**
+     * The tenured pool is the only heap pool supporting usage thresholds.
+     */
+    private static boolean isTenured(MemoryPoolMXBean pool) {
+        return pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported();
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Shutting down " + GcNotificationCacheEvictor.class.getSimpleName());
+        if (listening.compareAndSet(true, false)) {
+            removeListeners();
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(TERMINATE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+    private static final class Budget {
+        private final Cache<Object, Expirable> cache;
+        private final Policy.Eviction<Object, Expirable> eviction;
+        private final MaxSizePolicy policy;
+        private final int size;
+        private final LongConsumer evictionCounter;
+
+        private Budget(Cache<Object, Expirable> cache, Policy.Eviction<Object, Expirable> eviction,
+                       MaxSizePolicy policy, int size, LongConsumer evictionCounter) {
+            this.cache = cache;
+            this.eviction = eviction;
+            this.policy = policy;
+            this.size = size;
+            this.evictionCounter = evictionCounter;
+        }
+
+        long allowedUsedBytes(long maxHeap) {
+            switch (policy) {
+                case FREE_HEAP_SIZE:
+                    return maxHeap - MEGABYTES.toBytes(size);
+                case FREE_HEAP_PERCENTAGE:
+                    return maxHeap - maxHeap / PERCENT * size;
+                default:
+                    throw new IllegalArgumentException(policy + " policy not supported");
+            }
+        }
+
+        /**
+         * Evicts the coldest entries until their estimated footprint reaches the given number of bytes.
+         *
+         * @return the estimated footprint of the evicted entries
+         */
+        long evict(long bytes) {
+            long evicted = 0;
+            long entries = 0;
+            while (evicted < bytes) {
+                Map<Object, Expirable> coldest = eviction.coldest(EVICTION_CHUNK_SIZE);
+                if (coldest.isEmpty()) {
+                    break;
+                }
+                for (Map.Entry<Object, Expirable> entry : coldest.entrySet()) {
+                    cache.invalidate(entry.getKey());
+                    evicted += EntrySizeEstimator.weigh(entry.getKey(), entry.getValue());
+                    entries++;
+                    if (evicted >= bytes) {
+                        break;
+                    }
+                }
+            }
+            evictionCounter.accept(entries);
+            return evicted;
+        }
+    }
+}
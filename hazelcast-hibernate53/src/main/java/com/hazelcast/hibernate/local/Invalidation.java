@@ -16,20 +16,22 @@
 package com.hazelcast.hibernate.local;
 
 
+import com.hazelcast.hibernate.serialization.CompactWireFormatSupport;
 import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.hibernate.serialization.WireFormat;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
-import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
 
 /**
  * An invalidation messages
  */
-public class Invalidation implements IdentifiedDataSerializable {
+public class Invalidation implements CompactWireFormatSupport {
 
     private Object key;
     private Object version;
+    private boolean compactWireFormat = WireFormat.isCompact();
 
     public Invalidation() {
     }
@@ -47,16 +49,41 @@ public class Invalidation implements IdentifiedDataSerializable {
         return version;
     }
 
+    @Override
+    public void setCompactWireFormat(final boolean compact) {
+        this.compactWireFormat = compact;
+    }
+
+    @Override
+    public boolean isCompactWireFormat() {
+        return compactWireFormat;
+    }
+
     @Override
     public void writeData(final ObjectDataOutput out) throws IOException {
-        out.writeObject(key);
-        out.writeObject(version);
+        writeData(out, compactWireFormat);
     }
 
     @Override
     public void readData(final ObjectDataInput in) throws IOException {
+        readData(in, compactWireFormat);
+    }
+
+    /**
+     * Writes the invalidation in the given wire format, that of the {@link InvalidationBatch} it is written by
+     */
+    void writeData(final ObjectDataOutput out, final boolean compact) throws IOException {
+        out.writeObject(key);
+        if (compact) {
+            WireFormat.writeVersion(out, version);
+        } else {
+            out.writeObject(version);
+        }
+    }
+
+    void readData(final ObjectDataInput in, final boolean compact) throws IOException {
         key = in.readObject();
-        version = in.readObject();
+        version = compact ? WireFormat.readVersion(in) : in.readObject();
     }
 
     @Override
@@ -66,7 +93,7 @@ public class Invalidation implements IdentifiedDataSerializable {
 
     @Override
     public int getClassId() {
-        return HibernateDataSerializerHook.INVALIDATION;
+        return compactWireFormat ? HibernateDataSerializerHook.INVALIDATION_V2 : HibernateDataSerializerHook.INVALIDATION;
     }
 
     @Override
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.CompactWireFormatSupport;
+import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.hibernate.serialization.WireFormat;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of {@link Invalidation} messages published as a single topic message. The invalidations
+ * are applied by the receivers in the order they were added to the batch. The invalidations are written in the wire
+ * format of the batch.
+ */
+public class InvalidationBatch implements CompactWireFormatSupport {
+
+    private List<Invalidation> invalidations;
+    private boolean compactWireFormat = WireFormat.isCompact();
+
+    public InvalidationBatch() {
+    }
+
+    public InvalidationBatch(final List<Invalidation> invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public List<Invalidation> getInvalidations() {
+        return Collections.unmodifiableList(invalidations);
+    }
+
+    @Override
+    public void setCompactWireFormat(final boolean compact) {
+        this.compactWireFormat = compact;
+    }
+
+    @Override
+    public boolean isCompactWireFormat() {
+        return compactWireFormat;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeInt(invalidations.size());
+        for (Invalidation invalidation : invalidations) {
+            // written inline to avoid repeating the factory/class header for every element
+            invalidation.writeData(out, compactWireFormat);
+        }
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        final int size = in.readInt();
+        invalidations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Invalidation invalidation = new Invalidation();
+            invalidation.setCompactWireFormat(compactWireFormat);
+            invalidation.readData(in, compactWireFormat);
+            invalidations.add(invalidation);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return compactWireFormat
+                ? HibernateDataSerializerHook.INVALIDATION_BATCH_V2
+                : HibernateDataSerializerHook.INVALIDATION_BATCH;
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationBatch{invalidations=" + invalidations + '}';
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+/**
+ * Coalesces the {@link Invalidation} messages of local regions into {@link InvalidationBatch} messages.
+ * <p>
+ * Invalidations of a region are collected until either its time window elapses or its maximum batch size
+ * is reached, whichever comes first, and are then published as a single message.
+ */
+public class InvalidationBatcher implements AutoCloseable {
+    private static final int TERMINATE_TIMEOUT_SECONDS = 5;
+    private static final ILogger LOG = Logger.getLogger(InvalidationBatcher.class);
+
+    private final ScheduledExecutorService executorService;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    public InvalidationBatcher() {
+        this(newSingleThreadScheduledExecutor(defaultThreadFactory()));
+    }
+
+    /**
+     * just for testing
+     */
+    InvalidationBatcher(ScheduledExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    void start(String cacheName, Consumer<Object> publisher, Duration window, int maxBatchSize) {
+        LOG.info("Starting batching of invalidations of cache '" + cacheName + "' (window: " + window.toMillis()
+                + " ms, max batch size: " + maxBatchSize + ")");
+        batches.put(cacheName, new Batch(cacheName, publisher, window, maxBatchSize));
+    }
+
+    void add(String cacheName, Invalidation invalidation) {
+        Batch batch = batches.get(cacheName);
+        if (batch == null) {
+            throw new IllegalStateException("Invalidation batching for cache '" + cacheName + "' not started");
+        }
+        batch.add(invalidation);
+    }
+
+    /**
+     * Stops batching the invalidations of the given cache and publishes the pending ones.
+     */
+    public void stop(String cacheName) {
+        Batch batch = batches.remove(cacheName);
+        if (batch != null) {
+            batch.flush();
+        }
+    }
+
+    static ThreadFactory defaultThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> new Thread(r, InvalidationBatcher.class.getSimpleName() + "-invalidation-batcher-"
+                + counter.getAndIncrement());
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Shutting down " + InvalidationBatcher.class.getSimpleName());
+        batches.keySet().forEach(this::stop);
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(TERMINATE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warning("ExecutorService awaitTermination could not completed gracefully in "
+                        + TERMINATE_TIMEOUT_SECONDS + " seconds. Terminating forcefully.");
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warning("ExecutorService awaitTermination is interrupted. Terminating forcefully.", e);
+            executorService.shutdownNow();
+        }
+    }
+
+    private final class Batch {
+        private final String cacheName;
+        private final Consumer<Object> publisher;
+        private final Duration window;
+        private final int maxBatchSize;
+
+        private List<Invalidation> pending = new ArrayList<>();
+        private boolean flushScheduled;
+
+        private Batch(String cacheName, Consumer<Object> publisher, Duration window, int maxBatchSize) {
+            this.cacheName = cacheName;
+            this.publisher = publisher;
+            this.window = window;
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        void add(Invalidation invalidation) {
+            List<Invalidation> full = null;
+            synchronized (this) {
+                pending.add(invalidation);
+                if (pending.size() >= maxBatchSize) {
+                    full = drain();
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    executorService.schedule(this::flushScheduled, window.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+            // a full batch is published on the calling thread, which throttles producers outpacing the window
+            publish(full);
+        }
+
+        void flush() {
+            List<Invalidation> invalidations;
+            synchronized (this) {
+                invalidations = drain();
+            }
+            publish(invalidations);
+        }
+
+        private void flushScheduled() {
+            List<Invalidation> invalidations;
+            synchronized (this) {
+                flushScheduled = false;
+                invalidations = drain();
+            }
+            try {
+                publish(invalidations);
+            } catch (Exception e) {
+                LOG.warning("Failed to publish " + invalidations.size() + " invalidations of cache '" + cacheName + "'", e);
+            }
+        }
+
+        private List<Invalidation> drain() {
+            List<Invalidation> drained = pending;
+            pending = new ArrayList<>();
+            return drained;
+        }
+
+        private void publish(List<Invalidation> invalidations) {
+            if (invalidations == null || invalidations.isEmpty()) {
+                return;
+            }
+            if (invalidations.size() == 1) {
+                publisher.accept(invalidations.get(0));
+            } else {
+                publisher.accept(new InvalidationBatch(invalidations));
+            }
+        }
+    }
+}
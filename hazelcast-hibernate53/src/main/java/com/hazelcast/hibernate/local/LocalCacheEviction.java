@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.local.LocalRegionCache.EvictionConfig;
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
+
+/**
+ * Creates the cache of a {@link LocalRegionCache} bounded according to its {@link EvictionConfig}, or by the capacity
+ * of an {@link OffHeapStore}, and holds on to the evictor or memory budget which bounds it.
+ */
+final class LocalCacheEviction {
+
+    private static final int MAX_SLAB_SIZE = 4 * 1024 * 1024;
+    private static final int PERCENT = 100;
+
+    private final String name;
+    private final EvictionConfig evictionConfig;
+    private final ConcurrentMap<Object, Expirable> cache;
+    private final RegionMetrics metrics;
+
+    private OffHeapStore offHeapStore;
+    private FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor;
+    private GcNotificationCacheEvictor gcNotificationCacheEvictor;
+    private MemoryBudgetCoordinator.Registration budgetRegistration;
+    private Policy.Eviction<Object, Expirable> weightedEviction;
+
+    LocalCacheEviction(String name, EvictionConfig evictionConfig, FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor,
+                       GcNotificationCacheEvictor gcNotificationCacheEvictor, boolean gcNotificationBasedFreeHeapEviction,
+                       MemoryBudgetCoordinator memoryBudgetCoordinator, long offHeapCapacityInBytes,
+                       OffHeapStore.EvictionPolicy offHeapEvictionPolicy, HazelcastInstance hazelcastInstance,
+                       RegionMetrics metrics) {
+        this.name = name;
+        this.evictionConfig = evictionConfig;
+        this.metrics = metrics;
+        if (offHeapCapacityInBytes > 0) {
+            this.offHeapStore = new OffHeapStore(offHeapCapacityInBytes, (int) Math.min(offHeapCapacityInBytes, MAX_SLAB_SIZE),
+                    offHeapEvictionPolicy, resolveTTL().toMillis(),
+                    ((SerializationServiceSupport) hazelcastInstance).getSerializationService(), metrics::recordEvictions);
+            this.cache = offHeapStore;
+            return;
+        }
+        this.cache = createCache(freeHeapBasedCacheEvictor, gcNotificationCacheEvictor, gcNotificationBasedFreeHeapEviction,
+                memoryBudgetCoordinator).asMap();
+    }
+
+    private Cache<Object, Expirable> createCache(FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor,
+                                                 GcNotificationCacheEvictor gcNotificationCacheEvictor,
+                                                 boolean gcNotificationBasedFreeHeapEviction,
+                                                 MemoryBudgetCoordinator memoryBudgetCoordinator) {
+        Caffeine<Object, Object> caffeineBuilder = Caffeine.newBuilder()
+                .expireAfterWrite(resolveTTL())
+                .evictionListener((key, value, cause) -> recordEviction(key, value, cause));
+        MaxSizePolicy maxSizePolicy = evictionConfig.getMaxSizePolicy();
+        Cache<Object, Expirable> caffeineCache = null;
+        if (maxSizePolicy == null) {
+            maxSizePolicy = MaxSizePolicy.PER_NODE;
+        }
+        switch (maxSizePolicy) {
+            case PER_NODE:
+                if (memoryBudgetCoordinator != null) {
+                    // the size caps the number of entries the budget grants the region
+                    caffeineCache = startBudgetedEviction(caffeineBuilder, memoryBudgetCoordinator, Long.MAX_VALUE,
+                            evictionConfig.getSize());
+                } else {
+                    caffeineBuilder.maximumSize(evictionConfig.getSize());
+                }
+                break;
+            case FREE_HEAP_SIZE:
+                if (!gcNotificationBasedFreeHeapEviction) {
+                    this.freeHeapBasedCacheEvictor = requireEvictor(freeHeapBasedCacheEvictor,
+                            FreeHeapBasedCacheEvictor.class, maxSizePolicy);
+                    enableEviction(caffeineBuilder);
+                    caffeineCache = caffeineBuilder.build();
+                    long minimalHeapSizeInMB = MEGABYTES.toBytes(evictionConfig.getSize());
+                    this.freeHeapBasedCacheEvictor.start(name, caffeineCache, minimalHeapSizeInMB,
+                            metrics::recordFreeHeapEvictions);
+                    break;
+                }
+                // fall through
+            case FREE_HEAP_PERCENTAGE:
+                this.gcNotificationCacheEvictor = requireEvictor(gcNotificationCacheEvictor,
+                        GcNotificationCacheEvictor.class, maxSizePolicy);
+                enableEviction(caffeineBuilder);
+                caffeineCache = caffeineBuilder.build();
+                this.gcNotificationCacheEvictor.start(name, caffeineCache, maxSizePolicy, evictionConfig.getSize(),
+                        metrics::recordFreeHeapEvictions);
+                break;
+            case USED_HEAP_SIZE:
+                caffeineCache = startBudgetedEviction(caffeineBuilder, memoryBudgetCoordinator,
+                        MEGABYTES.toBytes(evictionConfig.getSize()), Long.MAX_VALUE);
+                break;
+            case USED_HEAP_PERCENTAGE:
+                // like USED_HEAP_SIZE, bounds the estimated footprint of the cache rather than that of the heap
+                caffeineCache = startBudgetedEviction(caffeineBuilder, memoryBudgetCoordinator,
+                        Runtime.getRuntime().maxMemory() / PERCENT * evictionConfig.getSize(), Long.MAX_VALUE);
+                break;
+            default:
+                throw new IllegalArgumentException(maxSizePolicy + " policy not supported");
+        }
+        return caffeineCache == null ? caffeineBuilder.build() : caffeineCache;
+    }
+
+    ConcurrentMap<Object, Expirable> getCache() {
+        return cache;
+    }
+
+    /**
+     * @return the bytes of direct memory used by the entries if they are stored off-heap, the estimated heap
+     * footprint of the entries if the cache is weighed, 0 otherwise
+     */
+    long getSizeInMemory() {
+        if (offHeapStore != null) {
+            return offHeapStore.getUsedBytes();
+        }
+        return weightedEviction == null ? 0 : weightedEviction.weightedSize().orElse(0);
+    }
+
+    void recordAccess(Object key, boolean hit) {
+        if (budgetRegistration != null) {
+            budgetRegistration.recordAccess(key, hit);
+        }
+    }
+
+    void stop() {
+        if (freeHeapBasedCacheEvictor != null) {
+            freeHeapBasedCacheEvictor.stop(name);
+        }
+        if (gcNotificationCacheEvictor != null) {
+            gcNotificationCacheEvictor.stop(name);
+        }
+        if (budgetRegistration != null) {
+            budgetRegistration.unregister();
+        }
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
+    }
+
+    private void recordEviction(Object key, Object value, RemovalCause cause) {
+        metrics.recordEvictions(1);
+        MemoryBudgetCoordinator.Registration registration = budgetRegistration;
+        if (registration != null && cause == RemovalCause.SIZE) {
+            registration.recordEviction(key, EntrySizeEstimator.weigh(key, (Expirable) value));
+        }
+    }
+
+    /**
+     * Weighs the entries by their estimated heap footprint, bounded by the given maximum and, if there is one,
+     * by the share of the memory budget granted by the coordinator, which grants no more than the maximum number of
+     * entries take.
+     */
+    private Cache<Object, Expirable> startBudgetedEviction(Caffeine<Object, Object> caffeineBuilder,
+                                                           MemoryBudgetCoordinator memoryBudgetCoordinator,
+                                                           long maximumInBytes, long maximumEntries) {
+        caffeineBuilder.maximumWeight(maximumInBytes)
+                .<Object, Expirable>weigher(EntrySizeEstimator::weigh);
+        Cache<Object, Expirable> caffeineCache = caffeineBuilder.build();
+        this.weightedEviction = caffeineCache.policy().eviction().orElse(null);
+        if (memoryBudgetCoordinator != null) {
+            this.budgetRegistration = memoryBudgetCoordinator.register(name, weightedEviction, maximumInBytes,
+                    maximumEntries, caffeineCache::estimatedSize);
+        }
+        return caffeineCache;
+    }
+
+    private void enableEviction(Caffeine<Object, Object> caffeineBuilder) {
+        //cache has to be size-bound to enable eviction, see caffeineCache.policy().eviction()
+        caffeineBuilder.maximumSize(Long.MAX_VALUE);
+    }
+
+    private static <T> T requireEvictor(T evictor, Class<T> evictorType, MaxSizePolicy maxSizePolicy) {
+        if (evictor == null) {
+            throw new IllegalStateException(evictorType.getSimpleName() + " is required for " + maxSizePolicy + " policy");
+        }
+        return evictor;
+    }
+
+    private Duration resolveTTL() {
+        // zero is interpreted differently by Hazelcast and Caffeine
+        return Math.max(evictionConfig.getTimeToLive().toMillis(), 0) == 0
+          ? Duration.ofMillis(Integer.MAX_VALUE)
+          : evictionConfig.getTimeToLive();
+    }
+}
@@ -15,21 +15,23 @@
 
 package com.hazelcast.hibernate.local;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MaxSizePolicy;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.hibernate.CacheEnvironment;
 import com.hazelcast.hibernate.HazelcastTimestamper;
 import com.hazelcast.hibernate.RegionCache;
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.hibernate.serialization.CompactIdList;
 import com.hazelcast.hibernate.serialization.Expirable;
 import com.hazelcast.hibernate.serialization.Value;
 import com.hazelcast.internal.util.Clock;
 import com.hazelcast.internal.util.EmptyStatement;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
 import com.hazelcast.topic.ITopic;
 import com.hazelcast.topic.MessageListener;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -47,8 +49,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 
-import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
-
 /**
  * Local only {@link RegionCache} implementation based on a topic to distribute cache updates.
  */
@@ -66,7 +66,12 @@ public class LocalRegionCache implements RegionCache {
     private final UUID listenerRegistrationId;
     private final Comparator versionComparator;
     private final EvictionConfig evictionConfig;
-    private FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor;
+    private final InvalidationBatcher invalidationBatcher;
+    private final AsyncInvalidationPublisher asyncPublisher;
+    private final LocalCacheEviction eviction;
+    private final BinaryInMemoryFormat binaryInMemoryFormat;
+    private final HazelcastTimestamper timestamper;
+    private final RegionMetrics metrics;
 
     private MapConfig config;
 
@@ -90,17 +95,32 @@ public class LocalRegionCache implements RegionCache {
                                final HazelcastInstance hazelcastInstance, final DomainDataRegionConfig regionConfig,
                                final boolean withTopic, final EvictionConfig evictionConfig,
                                final FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor) {
-        this.hazelcastInstance = hazelcastInstance;
-        this.name = name;
-        this.regionFactory = regionFactory;
-
-        try {
-            this.config = hazelcastInstance == null ? null : hazelcastInstance.getConfig().findMapConfig(name);
-        } catch (UnsupportedOperationException ignored) {
-            EmptyStatement.ignore(ignored);
-        }
+        this(builder().withRegionFactory(regionFactory)
+                .withName(name)
+                .withHazelcastInstance(hazelcastInstance)
+                .withRegionConfig(regionConfig)
+                .withTopic(withTopic)
+                .withEvictionConfig(evictionConfig)
+                .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor));
+    }
 
-        if (withTopic && hazelcastInstance != null) {
+    /**
+     * @param builder the builder holding the configuration of this region cache
+     */
+    protected LocalRegionCache(final Builder builder) {
+        this.hazelcastInstance = builder.hazelcastInstance;
+        this.name = builder.name;
+        this.regionFactory = builder.regionFactory;
+        this.timestamper = builder.timestamper;
+        this.metrics = new RegionMetrics(name, this::getElementCountInMemory, this::getSizeInMemory);
+
+        this.config = findMapConfig(hazelcastInstance, name);
+
+        if (builder.withTopic && hazelcastInstance != null && builder.withReliableTopic) {
+            this.topic = hazelcastInstance.getReliableTopic(name);
+            this.listenerRegistrationId = topic.addMessageListener(
+                    new ReliableInvalidationListener(name, createMessageListener(), this::clearLocally));
+        } else if (builder.withTopic && hazelcastInstance != null) {
             this.topic = hazelcastInstance.getTopic(name);
             this.listenerRegistrationId = topic.addMessageListener(createMessageListener());
         } else {
@@ -108,10 +128,23 @@ public class LocalRegionCache implements RegionCache {
             this.listenerRegistrationId = null;
         }
 
-        this.versionComparator = findVersionComparator(regionConfig).orElse(null);
-        this.evictionConfig = evictionConfig == null ? EvictionConfig.create(config) : evictionConfig;
-
-        this.cache = createCache(freeHeapBasedCacheEvictor, name);
+        this.versionComparator = findVersionComparator(builder.regionConfig).orElse(null);
+        this.evictionConfig = builder.evictionConfig == null ? EvictionConfig.create(config) : builder.evictionConfig;
+
+        this.eviction = new LocalCacheEviction(name, evictionConfig, builder.freeHeapBasedCacheEvictor,
+                builder.gcNotificationCacheEvictor, builder.gcNotificationBasedFreeHeapEviction,
+                builder.memoryBudgetCoordinator, builder.offHeapCapacityInBytes, builder.offHeapEvictionPolicy,
+                hazelcastInstance, metrics);
+        this.cache = eviction.getCache();
+        // entries stored off-heap are serialized anyway
+        this.binaryInMemoryFormat = builder.inMemoryFormat == InMemoryFormat.BINARY && builder.offHeapCapacityInBytes <= 0
+                ? new BinaryInMemoryFormat(((SerializationServiceSupport) hazelcastInstance).getSerializationService(),
+                        builder.hotObjectCacheSize)
+                : null;
+        this.asyncPublisher = topic == null || builder.asyncPublishingMaxInFlight <= 0
+                ? null
+                : new AsyncInvalidationPublisher(name, topic, builder.asyncPublishingMaxInFlight, metrics);
+        this.invalidationBatcher = startInvalidationBatching(builder);
     }
 
     public static Builder builder() {
@@ -124,14 +157,24 @@ public class LocalRegionCache implements RegionCache {
         private HazelcastInstance hazelcastInstance;
         private DomainDataRegionConfig regionConfig;
         private boolean withTopic;
+        private boolean withReliableTopic;
         private EvictionConfig evictionConfig;
         private FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor;
+        private GcNotificationCacheEvictor gcNotificationCacheEvictor;
+        private boolean gcNotificationBasedFreeHeapEviction;
+        private MemoryBudgetCoordinator memoryBudgetCoordinator;
+        private long offHeapCapacityInBytes;
+        private OffHeapStore.EvictionPolicy offHeapEvictionPolicy = OffHeapStore.EvictionPolicy.LRU;
+        private InvalidationBatcher invalidationBatcher;
+        private Duration invalidationBatchWindow = Duration.ZERO;
+        private int invalidationBatchMaxSize = 1;
+        private int asyncPublishingMaxInFlight;
+        private InMemoryFormat inMemoryFormat = InMemoryFormat.OBJECT;
+        private int hotObjectCacheSize;
+        private HazelcastTimestamper timestamper;
 
         public LocalRegionCache build() {
-            return new LocalRegionCache(regionFactory, name,
-                    hazelcastInstance, regionConfig,
-                    withTopic, evictionConfig,
-                    freeHeapBasedCacheEvictor);
+            return new LocalRegionCache(this);
         }
 
         public Builder withRegionFactory(RegionFactory regionFactory) {
@@ -160,6 +203,18 @@ public class LocalRegionCache implements RegionCache {
             return this;
         }
 
+        /**
+         * Uses a reliable topic, which is backed by a ringbuffer, to distribute the invalidations. Listeners
+         * replay invalidations they missed from the ringbuffer and clear the region only if the ringbuffer no
+         * longer holds all of them. Has an effect only if the region has a topic.
+         *
+         * @param withReliableTopic {@code true} to use a reliable topic instead of a plain one
+         */
+        public Builder withReliableTopic(boolean withReliableTopic) {
+            this.withReliableTopic = withReliableTopic;
+            return this;
+        }
+
         public Builder withEvictionConfig(EvictionConfig evictionConfig) {
             this.evictionConfig = evictionConfig;
             return this;
@@ -169,47 +224,106 @@ public class LocalRegionCache implements RegionCache {
             this.freeHeapBasedCacheEvictor = freeHeapBasedCacheEvictor;
             return this;
         }
-    }
 
-    private ConcurrentMap<Object, Expirable> createCache(FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor, String name) {
-        Caffeine<Object, Object> caffeineBuilder = Caffeine.newBuilder()
-                .expireAfterWrite(resolveTTL());
-        MaxSizePolicy maxSizePolicy = evictionConfig.getMaxSizePolicy();
-        Cache<Object, Expirable> caffeineCache = null;
-        if (maxSizePolicy == null) {
-            maxSizePolicy = MaxSizePolicy.PER_NODE;
+        /**
+         * Sets the evictor of the {@link MaxSizePolicy#FREE_HEAP_PERCENTAGE} policy, see {@link GcNotificationCacheEvictor}.
+         *
+         * @param gcNotificationCacheEvictor           the evictor
+         * @param gcNotificationBasedFreeHeapEviction  {@code true} to use the evictor also for the
+         *                                             {@link MaxSizePolicy#FREE_HEAP_SIZE} policy instead of
+         *                                             the polling {@link FreeHeapBasedCacheEvictor}
+         */
+        public Builder withGcNotificationCacheEvictor(GcNotificationCacheEvictor gcNotificationCacheEvictor,
+                                                      boolean gcNotificationBasedFreeHeapEviction) {
+            this.gcNotificationCacheEvictor = gcNotificationCacheEvictor;
+            this.gcNotificationBasedFreeHeapEviction = gcNotificationBasedFreeHeapEviction;
+            return this;
+        }
+
+        /**
+         * Bounds the region by a share of the memory budget of all local region caches, if its max size policy is
+         * {@link MaxSizePolicy#PER_NODE} or {@link MaxSizePolicy#USED_HEAP_SIZE}, see {@link MemoryBudgetCoordinator}.
+         * The size of the {@link MaxSizePolicy#USED_HEAP_SIZE} policy then caps the share of the region.
+         */
+        public Builder withMemoryBudgetCoordinator(MemoryBudgetCoordinator memoryBudgetCoordinator) {
+            this.memoryBudgetCoordinator = memoryBudgetCoordinator;
+            return this;
         }
-        switch (maxSizePolicy) {
-            case PER_NODE:
-                caffeineBuilder.maximumSize(evictionConfig.getSize());
-                break;
-            case FREE_HEAP_SIZE:
-                this.freeHeapBasedCacheEvictor = freeHeapBasedCacheEvictor;
-                assertEvictorPresent(maxSizePolicy);
-                enableEviction(caffeineBuilder);
-                caffeineCache = caffeineBuilder.build();
-                long minimalHeapSizeInMB = MEGABYTES.toBytes(evictionConfig.getSize());
-                this.freeHeapBasedCacheEvictor.start(name, caffeineCache, minimalHeapSizeInMB);
-                break;
-            default:
-                throw new IllegalArgumentException(maxSizePolicy + " policy not supported");
+
+        /**
+         * Creates the timestamps by the given timestamper instead of requesting the cluster time for each of them.
+         * Its timestamps carry sequence numbers, so they are not comparable with the cluster time in milliseconds.
+         */
+        public Builder withTimestamper(HazelcastTimestamper timestamper) {
+            this.timestamper = timestamper;
+            return this;
+        }
+
+        /**
+         * Keeps the entries serialized in direct memory instead of on the heap, see {@link OffHeapStore}. The region
+         * is then bounded by the capacity, and its max size policy is ignored.
+         *
+         * @param capacityInBytes the maximum number of bytes of direct memory, {@code 0} to keep the entries on-heap
+         * @param evictionPolicy  the entries to evict when the capacity is exhausted
+         */
+        public Builder withOffHeapStorage(long capacityInBytes, OffHeapStore.EvictionPolicy evictionPolicy) {
+            this.offHeapCapacityInBytes = capacityInBytes;
+            this.offHeapEvictionPolicy = evictionPolicy;
+            return this;
         }
-        if (caffeineCache == null) {
-            caffeineCache = caffeineBuilder.build();
+
+        /**
+         * Sets the format in which the cached values are stored. In the {@link InMemoryFormat#BINARY} format, values are
+         * stored serialized and deserialized when they are read, see {@link BinaryInMemoryFormat}. The format has no
+         * effect if the entries are stored off-heap.
+         *
+         * @param inMemoryFormat     {@link InMemoryFormat#OBJECT} or {@link InMemoryFormat#BINARY}
+         * @param hotObjectCacheSize the maximum number of deserialized values kept in front of the serialized ones
+         *                           in the {@link InMemoryFormat#BINARY} format, {@code 0} to keep none
+         */
+        public Builder withInMemoryFormat(InMemoryFormat inMemoryFormat, int hotObjectCacheSize) {
+            if (inMemoryFormat == InMemoryFormat.NATIVE) {
+                throw new IllegalArgumentException(inMemoryFormat + " in-memory format not supported");
+            }
+            this.inMemoryFormat = inMemoryFormat;
+            this.hotObjectCacheSize = hotObjectCacheSize;
+            return this;
         }
-        return caffeineCache.asMap();
-    }
 
-    private void enableEviction(Caffeine<Object, Object> caffeineBuilder) {
-        //cache has to be size-bound to enable eviction, see caffeineCache.policy().eviction()
-        caffeineBuilder.maximumSize(Long.MAX_VALUE);
+        /**
+         * Coalesces the invalidations published on the region's topic, see {@link InvalidationBatcher}.
+         * Batching is enabled only if the region has a topic and the window is positive.
+         *
+         * @param invalidationBatcher the batcher publishing the batches
+         * @param window              the time window during which invalidations are collected
+         * @param maxBatchSize        the maximum number of invalidations in a batch
+         */
+        public Builder withInvalidationBatching(InvalidationBatcher invalidationBatcher, Duration window, int maxBatchSize) {
+            this.invalidationBatcher = invalidationBatcher;
+            this.invalidationBatchWindow = window;
+            this.invalidationBatchMaxSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Publishes the invalidations without waiting for the cluster to acknowledge them,
+         * see {@link AsyncInvalidationPublisher}. Has an effect only if the region has a topic.
+         *
+         * @param maxInFlight the maximum number of invalidation messages in flight, {@code 0} to publish synchronously
+         */
+        public Builder withAsyncPublishing(int maxInFlight) {
+            this.asyncPublishingMaxInFlight = maxInFlight;
+            return this;
+        }
     }
 
-    private void assertEvictorPresent(MaxSizePolicy maxSizePolicy) {
-        if (freeHeapBasedCacheEvictor == null) {
-            throw new IllegalStateException(FreeHeapBasedCacheEvictor.class.getSimpleName() + " is required for "
-                    + maxSizePolicy + " policy");
+    private InvalidationBatcher startInvalidationBatching(Builder builder) {
+        if (topic == null || builder.invalidationBatcher == null || builder.invalidationBatchWindow.isZero()
+                || builder.invalidationBatchMaxSize <= 1) {
+            return null;
         }
+        builder.invalidationBatcher.start(name, this::publish, builder.invalidationBatchWindow, builder.invalidationBatchMaxSize);
+        return builder.invalidationBatcher;
     }
 
     @Override
@@ -236,8 +350,12 @@ public class LocalRegionCache implements RegionCache {
 
     @Override
     public Object get(final Object key, final long txTimestamp) {
+        final long start = System.nanoTime();
         final Expirable value = cache.get(key);
-        return value == null ? null : value.getValue(txTimestamp);
+        final Object result = value == null ? null : CompactIdList.expand(value.getValue(txTimestamp));
+        eviction.recordAccess(key, result != null);
+        metrics.recordGet(start, result != null);
+        return result;
     }
 
     @Override
@@ -255,16 +373,25 @@ public class LocalRegionCache implements RegionCache {
         return regionFactory;
     }
 
+    /**
+     * Returns the estimated heap footprint of the cache entries in bytes if they are weighed, i.e. if the region
+     * uses the {@link MaxSizePolicy#USED_HEAP_SIZE} policy or a memory budget, 0 otherwise
+     */
     @Override
     public long getSizeInMemory() {
-        return 0;
+        return eviction.getSizeInMemory();
     }
 
     @Override
     public boolean put(final Object key, final Object value, final long txTimestamp, final Object version) {
         // The calling code has already done the work of checking if any existing cached entry is replaceable.
-        final Value newValue = new Value(version, nextTimestamp(), value);
+        final long start = System.nanoTime();
+        final Object cachedValue = CompactIdList.compact(value);
+        final Expirable newValue = binaryInMemoryFormat == null
+                ? new Value(version, nextTimestamp(), cachedValue)
+                : binaryInMemoryFormat.newValue(version, nextTimestamp(), cachedValue);
         cache.put(key, newValue);
+        metrics.recordPut(start);
         return true;
     }
 
@@ -274,6 +401,9 @@ public class LocalRegionCache implements RegionCache {
     }
 
     public long nextTimestamp() {
+        if (timestamper != null) {
+            return timestamper.next();
+        }
         return hazelcastInstance == null
           ? Clock.currentTimeMillis()
           : HazelcastTimestamper.nextTimestamp(hazelcastInstance);
@@ -283,9 +413,17 @@ public class LocalRegionCache implements RegionCache {
         return new Invalidation(key, currentVersion);
     }
 
-    @SuppressWarnings("Duplicates")
     protected void maybeInvalidate(final Object messageObject) {
-        final Invalidation invalidation = (Invalidation) messageObject;
+        if (messageObject instanceof InvalidationBatch) {
+            ((InvalidationBatch) messageObject).getInvalidations().forEach(this::invalidate);
+        } else {
+            invalidate((Invalidation) messageObject);
+        }
+    }
+
+    @SuppressWarnings("Duplicates")
+    private void invalidate(final Invalidation invalidation) {
+        metrics.recordInvalidationsReceived(1);
         final Object key = invalidation.getKey();
         if (key == null) {
             // Invalidate the entire region cache.
@@ -305,8 +443,12 @@ public class LocalRegionCache implements RegionCache {
 
     @Override
     public void destroy() {
-        if (freeHeapBasedCacheEvictor != null) {
-            freeHeapBasedCacheEvictor.stop(name);
+        eviction.stop();
+        if (invalidationBatcher != null) {
+            invalidationBatcher.stop(name);
+        }
+        if (asyncPublisher != null) {
+            asyncPublisher.drain();
         }
         if (topic != null && listenerRegistrationId != null) {
             topic.removeMessageListener(listenerRegistrationId);
@@ -315,7 +457,35 @@ public class LocalRegionCache implements RegionCache {
 
     void maybeNotifyTopic(final Object key, final Object value, final Object version) {
         if (topic != null) {
-            topic.publish(createMessage(key, value, version));
+            metrics.recordInvalidationSent();
+            final Object message = createMessage(key, value, version);
+            if (invalidationBatcher != null && message instanceof Invalidation) {
+                invalidationBatcher.add(name, (Invalidation) message);
+            } else {
+                publish(message);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics of this region cache
+     */
+    public RegionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the publisher of invalidations if they are published asynchronously, {@code null} otherwise
+     */
+    public AsyncInvalidationPublisher getAsyncInvalidationPublisher() {
+        return asyncPublisher;
+    }
+
+    private void publish(final Object message) {
+        if (asyncPublisher != null) {
+            asyncPublisher.publish(message);
+        } else {
+            topic.publish(message);
         }
     }
 
@@ -332,6 +502,19 @@ public class LocalRegionCache implements RegionCache {
         };
     }
 
+    private static MapConfig findMapConfig(final HazelcastInstance hazelcastInstance, final String name) {
+        try {
+            return hazelcastInstance == null ? null : hazelcastInstance.getConfig().findMapConfig(name);
+        } catch (UnsupportedOperationException ignored) {
+            EmptyStatement.ignore(ignored);
+            return null;
+        }
+    }
+
+    private void clearLocally() {
+        cache.clear();
+    }
+
     private boolean isClient() {
         return hazelcastInstance instanceof HazelcastClientProxy;
     }
@@ -374,12 +557,6 @@ public class LocalRegionCache implements RegionCache {
         }
     }
 
-    private Duration resolveTTL() {
-        // zero is interpreted differently by Hazelcast and Caffeine
-        return Math.max(evictionConfig.getTimeToLive().toMillis(), 0) == 0
-          ? Duration.ofMillis(Integer.MAX_VALUE)
-          : evictionConfig.getTimeToLive();
-    }
 
     /**
      * Generic representation of eviction-related configuration
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+/**
+ * Shares a total memory budget among the local region caches of a JVM.
+ * <p>
+ * The caches of the registered regions are weighed by their estimated heap footprint. Periodically, the budget is
+ * split anew: every region is granted a small floor, and the rest is granted to the regions in the order of their
+ * marginal utility, each up to its demand. A region which is full and still misses demands a quarter more than its
+ * current maximum, any other region just a little more than its current size.
+ * <p>
+ * The marginal utility of a region is the number of hits a quarter more memory would gain it, per byte. It is
+ * measured by remembering the hashes of the keys the region evicted to stay within that quarter of its maximum, and
+ * counting the misses on them, which would have been hits had the region been larger. The average hits per byte of a
+ * region only break ties, e.g. between regions which do not evict. The regions with the least marginal utility
+ * therefore end up with the floor, and their caches evict their coldest entries.
+ * <p>
+ * A single coordinator, and rebalancing thread, is shared by all region factories of the JVM, see
+ * {@link #acquire(long)}.
+ */
+public class MemoryBudgetCoordinator implements AutoCloseable {
+
+    private static final Duration DEFAULT_REBALANCE_INTERVAL = Duration.ofSeconds(1);
+    private static final int TERMINATE_TIMEOUT_SECONDS = 5;
+    private static final int FLOOR_DIVISOR = 10;
+    private static final double FULL_RATIO = 0.9;
+    private static final double GROWTH_RATIO = 1.25;
+    private static final double HEADROOM_RATIO = 1.1;
+    private static final ILogger LOG = Logger.getLogger(MemoryBudgetCoordinator.class);
+
+    private static final Object SHARED_LOCK = new Object();
+    private static MemoryBudgetCoordinator shared;
+    private static int sharedUsers;
+
+    private final ScheduledExecutorService executorService;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private volatile long budgetInBytes;
+
+    /**
+     * just for testing
+     */
+    MemoryBudgetCoordinator(ScheduledExecutorService executorService, long budgetInBytes, Duration rebalanceInterval) {
+        this.executorService = executorService;
+        this.budgetInBytes = budgetInBytes;
+        long intervalMillis = rebalanceInterval.toMillis();
+        executorService.scheduleWithFixedDelay(this::rebalance, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the coordinator shared in the JVM, creating it if needed. Must be paired with {@link #release()}.
+     *
+     * @param budgetInBytes the total memory budget of the local region caches, replaces the budget of the
+     *                      shared coordinator if it already exists
+     */
+    public static MemoryBudgetCoordinator acquire(long budgetInBytes) {
+        synchronized (SHARED_LOCK) {
+            if (shared == null) {
+                shared = new MemoryBudgetCoordinator(newSingleThreadScheduledExecutor(
+                        r -> new Thread(r, MemoryBudgetCoordinator.class.getSimpleName() + "-thread")),
+                        budgetInBytes, DEFAULT_REBALANCE_INTERVAL);
+            } else if (shared.budgetInBytes != budgetInBytes) {
+                LOG.warning("Changing the local region cache memory budget from " + shared.budgetInBytes
+                        + " to " + budgetInBytes + " bytes");
+                shared.budgetInBytes = budgetInBytes;
+            }
+            sharedUsers++;
+            return shared;
+        }
+    }
+
+    /**
+     * Releases a coordinator returned by {@link #acquire(long)}, shutting it down once no longer used.
+     */
+    public void release() {
+        synchronized (SHARED_LOCK) {
+            if (shared == this && --sharedUsers == 0) {
+                shared = null;
+                close();
+            }
+        }
+    }
+
+    /**
+     * Registers the cache of a region, which must be weighed in bytes.
+     *
+     * @param maximumInBytes the maximum the region must not exceed whatever the budget
+     */
+    Registration register(String cacheName, Policy.Eviction<?, ?> eviction, long maximumInBytes) {
+        return register(cacheName, eviction, maximumInBytes, Long.MAX_VALUE, () -> 0);
+    }
+
+    /**
+     * Registers the cache of a region, which must be weighed in bytes, and must not hold more than a number of entries.
+     *
+     * @param maximumInBytes the maximum the region must not exceed whatever the budget
+     * @param maximumEntries the number of entries the region must not exceed whatever the budget, enforced as the
+     *                       bytes they take at the current mean weight of the entries
+     * @param entryCount     reports the number of entries of the region
+     */
+    Registration register(String cacheName, Policy.Eviction<?, ?> eviction, long maximumInBytes, long maximumEntries,
+                          LongSupplier entryCount) {
+        Registration registration = new Registration(cacheName, eviction, maximumInBytes, maximumEntries, entryCount);
+        synchronized (this) {
+            long allocated = registrations.stream().mapToLong(r -> r.eviction.getMaximum()).sum();
+            long initialMaximum = Math.max(floor(registrations.size() + 1), budgetInBytes - allocated);
+            eviction.setMaximum(Math.min(initialMaximum, maximumInBytes));
+            registrations.add(registration);
+        }
+        LOG.info("Cache '" + cacheName + "' is bounded by the local region cache memory budget");
+        return registration;
+    }
+
+    synchronized void rebalance() {
+        if (registrations.isEmpty()) {
+            return;
+        }
+        long floor = floor(registrations.size());
+        List<Registration> byUtility = new ArrayList<>(registrations);
+        byUtility.forEach(Registration::sample);
+        byUtility.sort(Comparator.comparingDouble(Registration::marginalHitsPerByte)
+                .thenComparingDouble(Registration::hitsPerByte).reversed());
+
+        long remaining = budgetInBytes;
+        for (Registration registration : byUtility) {
+            registration.grant = Math.min(floor, registration.demand(floor));
+            remaining -= registration.grant;
+        }
+        for (Registration registration : byUtility) {
+            long extra = Math.max(0, Math.min(registration.demand(floor) - registration.grant, remaining));
+            registration.grant += extra;
+            remaining -= extra;
+        }
+        for (Registration registration : byUtility) {
+            registration.eviction.setMaximum(Math.max(1, registration.grant));
+        }
+    }
+
+    private long floor(int regionCount) {
+        return budgetInBytes / ((long) FLOOR_DIVISOR * regionCount);
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(TERMINATE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * The registration of a region cache, which records its hits, misses and evictions.
+     */
+    final class Registration {
+        private final String cacheName;
+        private final Policy.Eviction<?, ?> eviction;
+        private final long maximumInBytes;
+        private final long maximumEntries;
+        private final LongSupplier entryCount;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder ghostHits = new LongAdder();
+        /**
+         * The weights of the entries last evicted, by the hashes of their keys, in the order of their eviction
+         */
+        private final LinkedHashMap<Integer, Integer> ghosts = new LinkedHashMap<>();
+        private long ghostBytes;
+
+        private long sampledHits;
+        private long sampledMisses;
+        private long sampledGhostHits;
+        private double smoothedHits;
+        private double smoothedMisses;
+        private double smoothedGhostHits;
+        private long sampledGhostBytes;
+        private long weightedSize;
+        private long grant;
+
+        private Registration(String cacheName, Policy.Eviction<?, ?> eviction, long maximumInBytes, long maximumEntries,
+                             LongSupplier entryCount) {
+            this.cacheName = cacheName;
+            this.eviction = eviction;
+            this.maximumInBytes = maximumInBytes;
+            this.maximumEntries = maximumEntries;
+            this.entryCount = entryCount;
+        }
+
+        void recordAccess(Object key, boolean hit) {
+            if (hit) {
+                hits.increment();
+                return;
+            }
+            misses.increment();
+            synchronized (ghosts) {
+                Integer weight = ghosts.remove(key.hashCode());
+                if (weight != null) {
+                    ghostBytes -= weight;
+                    ghostHits.increment();
+                }
+            }
+        }
+
+        /**
+         * Remembers the key of an entry evicted to stay within the maximum, as long as the entries evicted after it
+         * fit into the growth a full region demands.
+         */
+        void recordEviction(Object key, int weight) {
+            long capacity = (long) (eviction.getMaximum() * (GROWTH_RATIO - 1));
+            synchronized (ghosts) {
+                Integer replaced = ghosts.put(key.hashCode(), weight);
+                ghostBytes += weight - (replaced == null ? 0 : replaced);
+                Iterator<Integer> eldest = ghosts.values().iterator();
+                while (ghostBytes > capacity && eldest.hasNext()) {
+                    ghostBytes -= eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+
+        void unregister() {
+            registrations.remove(this);
+            LOG.finest("Cache '" + cacheName + "' unregistered from the local region cache memory budget");
+        }
+
+        /**
+         * Takes the hits and misses since the last sample into the moving averages, and the current size.
+         */
+        private void sample() {
+            long currentHits = hits.sum();
+            long currentMisses = misses.sum();
+            smoothedHits = (smoothedHits + currentHits - sampledHits) / 2;
+            smoothedMisses = (smoothedMisses + currentMisses - sampledMisses) / 2;
+            sampledHits = currentHits;
+            sampledMisses = currentMisses;
+            long currentGhostHits = ghostHits.sum();
+            smoothedGhostHits = (smoothedGhostHits + currentGhostHits - sampledGhostHits) / 2;
+            sampledGhostHits = currentGhostHits;
+            synchronized (ghosts) {
+                sampledGhostBytes = ghostBytes;
+            }
+            weightedSize = eviction.weightedSize().orElse(0);
+        }
+
+        /**
+         * @return the hits the evicted entries still remembered would have gained, per byte they take
+         */
+        private double marginalHitsPerByte() {
+            return smoothedGhostHits / Math.max(sampledGhostBytes, 1);
+        }
+
+        private double hitsPerByte() {
+            return smoothedHits / Math.max(weightedSize, 1);
+        }
+
+        private long demand(long floor) {
+            long maximum = eviction.getMaximum();
+            boolean full = weightedSize >= maximum * FULL_RATIO;
+            long demand = full && smoothedMisses > 0
+                    ? (long) (maximum * GROWTH_RATIO)
+                    : (long) (weightedSize * HEADROOM_RATIO);
+            return Math.min(Math.max(demand, floor), maximum());
+        }
+
+        /**
+         * @return the maximum in bytes, or the bytes the maximum number of entries take at their current mean weight
+         * if less
+         */
+        private long maximum() {
+            long entries = entryCount.getAsLong();
+            if (maximumEntries == Long.MAX_VALUE || entries == 0) {
+                return maximumInBytes;
+            }
+            return Math.min(maximumInBytes, (long) ((double) weightedSize / entries * maximumEntries));
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.internal.util.Clock;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * A map of local region cache entries which keeps the serialized values in direct memory, see {@link SlabAllocator}.
+ * <p>
+ * Only the keys and a small index record per entry stay on the heap. Values are serialized by the
+ * {@link SerializationService} of the Hazelcast instance, so Hibernate cache entries are written by the
+ * {@link com.hazelcast.hibernate.serialization.Hibernate53CacheEntrySerializer}, and deserialized on every read.
+ * Entries expire after the time-to-live since they were written. When the capacity is exhausted, entries are
+ * evicted by sampling entries of the same size class and evicting the least recently or least frequently used one.
+ * Access frequencies are halved whenever as many entries have been evicted as the store holds.
+ * Values are compared by their serialized form in {@link #remove(Object, Object)} and
+ * {@link #replace(Object, Object, Object)}.
+ * <p>
+ * Reads share a lock, and the rest is exclusive. Serialization and deserialization take place outside the lock.
+ */
+public class OffHeapStore extends AbstractMap<Object, Expirable> implements ConcurrentMap<Object, Expirable> {
+
+    /**
+     * The entry evicted when the capacity of the store is exhausted.
+     */
+    public enum EvictionPolicy {
+        /**
+         * The least recently used entry
+         */
+        LRU,
+        /**
+         * The least frequently used entry
+         */
+        LFU
+    }
+
+    private static final int SAMPLE_SIZE = 8;
+
+    private final SlabAllocator allocator;
+    private final EvictionPolicy evictionPolicy;
+    private final long timeToLiveMillis;
+    private final SerializationService serializationService;
+    private final LongConsumer evictionCounter;
+    private final Map<Object, Slot> index = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long usedBytes;
+    private int evictionsSinceAging;
+
+    /**
+     * @param capacityInBytes      the maximum number of bytes of direct memory to reserve
+     * @param slabSize             the size of the slabs, which is also the maximum size of a serialized value
+     * @param evictionPolicy       the entries to evict when the capacity is exhausted
+     * @param timeToLiveMillis     the time in milliseconds after which an entry expires, or 0 to never expire
+     * @param serializationService the serialization service of the Hazelcast instance
+     */
+    public OffHeapStore(long capacityInBytes, int slabSize, EvictionPolicy evictionPolicy, long timeToLiveMillis,
+                        SerializationService serializationService) {
+        this(capacityInBytes, slabSize, evictionPolicy, timeToLiveMillis, serializationService, evicted -> { });
+    }
+
+    /**
+     * @param evictionCounter notified of the number of entries evicted to make room for new ones
+     */
+    public OffHeapStore(long capacityInBytes, int slabSize, EvictionPolicy evictionPolicy, long timeToLiveMillis,
+                        SerializationService serializationService, LongConsumer evictionCounter) {
+        this.evictionCounter = evictionCounter;
+        this.allocator = new SlabAllocator(capacityInBytes, slabSize);
+        this.evictionPolicy = evictionPolicy;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.serializationService = serializationService;
+    }
+
+    @Override
+    public Expirable get(Object key) {
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot == null || slot.isExpired(Clock.currentTimeMillis())) {
+                return null;
+            }
+            slot.recordAccess();
+            bytes = allocator.read(slot.address, slot.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toObject(bytes);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            return slot != null && !slot.isExpired(Clock.currentTimeMillis());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Expirable put(Object key, Expirable value) {
+        byte[] bytes = toBytes(value);
+        byte[] previous;
+        lock.writeLock().lock();
+        try {
+            previous = removeLive(key);
+            store(key, bytes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return toObject(previous);
+    }
+
+    @Override
+    public Expirable putIfAbsent(Object key, Expirable value) {
+        byte[] bytes = toBytes(value);
+        byte[] existing;
+        lock.writeLock().lock();
+        try {
+            existing = readLive(key);
+            if (existing == null) {
+                remove(index.get(key));
+                store(key, bytes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return toObject(existing);
+    }
+
+    @Override
+    public Expirable remove(Object key) {
+        byte[] previous;
+        lock.writeLock().lock();
+        try {
+            previous = removeLive(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return toObject(previous);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(value instanceof Expirable)) {
+            return false;
+        }
+        byte[] expected = toBytes((Expirable) value);
+        lock.writeLock().lock();
+        try {
+            if (!Arrays.equals(readLive(key), expected)) {
+                return false;
+            }
+            remove(index.get(key));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(Object key, Expirable oldValue, Expirable newValue) {
+        byte[] expected = toBytes(oldValue);
+        byte[] bytes = toBytes(newValue);
+        lock.writeLock().lock();
+        try {
+            if (!Arrays.equals(readLive(key), expected)) {
+                return false;
+            }
+            remove(index.get(key));
+            store(key, bytes);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Expirable replace(Object key, Expirable value) {
+        byte[] bytes = toBytes(value);
+        byte[] previous;
+        lock.writeLock().lock();
+        try {
+            previous = removeLive(key);
+            if (previous != null) {
+                store(key, bytes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return toObject(previous);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            allocator.clear();
+            usedBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the entries which are not expired, deserializing all of them.
+     */
+    @Override
+    public Set<Entry<Object, Expirable>> entrySet() {
+        List<Entry<Object, byte[]>> serialized = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long now = Clock.currentTimeMillis();
+            index.forEach((key, slot) -> {
+                if (!slot.isExpired(now)) {
+                    serialized.add(new SimpleImmutableEntry<>(key, allocator.read(slot.address, slot.length)));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        Set<Entry<Object, Expirable>> entries = new HashSet<>();
+        serialized.forEach(entry -> entries.add(new SimpleImmutableEntry<>(entry.getKey(), toObject(entry.getValue()))));
+        return Collections.unmodifiableSet(entries);
+    }
+
+    /**
+     * @return the number of bytes of the chunks holding entries
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes of direct memory reserved
+     */
+    public long getReservedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocator.reservedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte[] readLive(Object key) {
+        Slot slot = index.get(key);
+        return slot == null || slot.isExpired(Clock.currentTimeMillis()) ? null : allocator.read(slot.address, slot.length);
+    }
+
+    private byte[] removeLive(Object key) {
+        byte[] bytes = readLive(key);
+        remove(index.get(key));
+        return bytes;
+    }
+
+    private void remove(Slot slot) {
+        if (slot != null) {
+            index.remove(slot.key);
+            allocator.free(slot.address);
+            usedBytes -= allocator.chunkSize(slot.sizeClass);
+        }
+    }
+
+    /**
+     * Stores the value, evicting other entries if needed. A value larger than a slab is not stored.
+     */
+    private void store(Object key, byte[] bytes) {
+        int sizeClass = allocator.sizeClassOf(bytes.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        long expiresAt = timeToLiveMillis > 0 ? Clock.currentTimeMillis() + timeToLiveMillis : Long.MAX_VALUE;
+        Slot slot = new Slot(key, sizeClass, bytes.length, expiresAt);
+        long address = allocator.allocate(sizeClass, slot);
+        while (address == SlabAllocator.NO_CHUNK) {
+            if (!evict(sizeClass)) {
+                return;
+            }
+            address = allocator.allocate(sizeClass, slot);
+        }
+        slot.address = address;
+        allocator.write(address, bytes);
+        index.put(key, slot);
+        usedBytes += allocator.chunkSize(sizeClass);
+    }
+
+    /**
+     * Evicts an entry of the size class or, if there is none, a slab of another size class.
+     *
+     * @return whether anything was evicted
+     */
+    private boolean evict(int sizeClass) {
+        List<Object> candidates = allocator.sampleOwners(sizeClass, SAMPLE_SIZE);
+        if (candidates.isEmpty()) {
+            List<Object> owners = allocator.releaseSlab(sizeClass);
+            if (owners == null) {
+                return false;
+            }
+            for (Object owner : owners) {
+                Slot slot = (Slot) owner;
+                index.remove(slot.key);
+                usedBytes -= allocator.chunkSize(slot.sizeClass);
+            }
+            evictionCounter.accept(owners.size());
+            return true;
+        }
+        long now = Clock.currentTimeMillis();
+        Slot victim = null;
+        for (Object candidate : candidates) {
+            Slot slot = (Slot) candidate;
+            if (victim == null || slot.isExpired(now) || slot.isColderThan(victim, evictionPolicy)) {
+                victim = slot;
+                if (slot.isExpired(now)) {
+                    break;
+                }
+            }
+        }
+        remove(victim);
+        evictionCounter.accept(1);
+        if (evictionPolicy == EvictionPolicy.LFU && ++evictionsSinceAging >= index.size()) {
+            // age the frequencies once the entries have turned over, so that entries hot in the past do not stay forever
+            index.values().forEach(Slot::halveFrequency);
+            evictionsSinceAging = 0;
+        }
+        return true;
+    }
+
+    private byte[] toBytes(Expirable value) {
+        return serializationService.toData(value).toByteArray();
+    }
+
+    private Expirable toObject(byte[] bytes) {
+        return bytes == null ? null : serializationService.toObject(new HeapData(bytes));
+    }
+
+    /**
+     * The index record of an entry.
+     */
+    private static final class Slot {
+        private final Object key;
+        private final int sizeClass;
+        private final int length;
+        private final long expiresAt;
+        private long address;
+        // updated by concurrent readers without synchronization, lost updates are fine for choosing eviction victims
+        private long lastAccess;
+        private int frequency;
+
+        private Slot(Object key, int sizeClass, int length, long expiresAt) {
+            this.key = key;
+            this.sizeClass = sizeClass;
+            this.length = length;
+            this.expiresAt = expiresAt;
+            this.lastAccess = System.nanoTime();
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        private void recordAccess() {
+            lastAccess = System.nanoTime();
+            if (frequency < Integer.MAX_VALUE) {
+                frequency++;
+            }
+        }
+
+        private void halveFrequency() {
+            frequency >>= 1;
+        }
+
+        private boolean isColderThan(Slot other, EvictionPolicy evictionPolicy) {
+            if (evictionPolicy == EvictionPolicy.LFU && frequency != other.frequency) {
+                return frequency < other.frequency;
+            }
+            return lastAccess - other.lastAccess < 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import com.hazelcast.topic.ReliableMessageListener;
+
+/**
+ * A {@link ReliableMessageListener} for the invalidation stream of a local region backed by a reliable topic.
+ * <p>
+ * Every message of a reliable topic carries the sequence of the underlying ringbuffer. When a listener falls
+ * behind, e.g. because its member is slow or its client was disconnected, it catches up by replaying the
+ * missed invalidations from the ringbuffer. Only when the ringbuffer no longer holds all the missed messages,
+ * which shows up as a gap in the sequence, the whole region is cleared.
+ */
+class ReliableInvalidationListener implements ReliableMessageListener<Object> {
+
+    private static final long NO_SEQUENCE = -1;
+    private static final ILogger LOG = Logger.getLogger(ReliableInvalidationListener.class);
+
+    private final String cacheName;
+    private final MessageListener<Object> delegate;
+    private final Runnable onGap;
+
+    private volatile long lastSequence = NO_SEQUENCE;
+
+    /**
+     * @param cacheName the name of the region cache, used for logging
+     * @param delegate  the listener applying the invalidations
+     * @param onGap     invoked when invalidations were lost and the region has to be cleared
+     */
+    ReliableInvalidationListener(String cacheName, MessageListener<Object> delegate, Runnable onGap) {
+        this.cacheName = cacheName;
+        this.delegate = delegate;
+        this.onGap = onGap;
+    }
+
+    @Override
+    public void onMessage(Message<Object> message) {
+        delegate.onMessage(message);
+    }
+
+    @Override
+    public long retrieveInitialSequence() {
+        // start with the next published message, the local cache is empty at this point anyway
+        return NO_SEQUENCE;
+    }
+
+    @Override
+    public void storeSequence(long sequence) {
+        long previous = lastSequence;
+        if (previous != NO_SEQUENCE && sequence > previous + 1) {
+            LOG.warning("Lost " + (sequence - previous - 1) + " invalidation(s) of cache '" + cacheName
+                    + "' which are no longer available in the ringbuffer, clearing the cache");
+            onGap.run();
+        }
+        lastSequence = sequence;
+    }
+
+    @Override
+    public boolean isLossTolerant() {
+        // losses are handled by clearing the cache when the gap is detected in storeSequence
+        return true;
+    }
+
+    @Override
+    public boolean isTerminal(Throwable failure) {
+        LOG.warning("Failed to process invalidation of cache '" + cacheName + "'", failure);
+        return false;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+}
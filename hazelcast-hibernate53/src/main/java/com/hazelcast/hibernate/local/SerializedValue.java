@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.Value;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+
+/**
+ * A value within a local region cache stored in the {@link com.hazelcast.config.InMemoryFormat#BINARY} in-memory
+ * format, see {@link BinaryInMemoryFormat}. It behaves like a {@link Value}, except that the value is deserialized
+ * when it is read.
+ * <p>
+ * It is written as a {@link Value}, by the ids and {@link #writeData} of one, and so read back as one. Reading into it
+ * delegates to {@link Value#readData}, after which it holds the value read instead of its serialized value.
+ */
+final class SerializedValue extends Value {
+
+    private final byte[] bytes;
+    private final BinaryInMemoryFormat format;
+
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    SerializedValue(Object version, long timestamp, byte[] bytes, BinaryInMemoryFormat format) {
+        super(version, timestamp, null);
+        this.bytes = bytes;
+        this.format = format;
+    }
+
+    @Override
+    public Object getValue() {
+        final Object read = super.getValue();
+        return read != null ? read : format.toObject(this);
+    }
+
+    @Override
+    public Object getValue(final long txTimestamp) {
+        return getTimestamp() <= txTimestamp ? getValue() : null;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+        SerializedValue that = (SerializedValue) o;
+        return Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Arrays.hashCode(bytes);
+    }
+}
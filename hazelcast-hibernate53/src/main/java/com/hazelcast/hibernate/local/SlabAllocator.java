@@ -0,0 +1,245 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.local;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Allocates fixed-size chunks from direct memory slabs for an {@link OffHeapStore}.
+ * <p>
+ * Memory is reserved in slabs of equal size, each of which is split into the chunks of a single size class. Chunk
+ * sizes grow by a quarter from one size class to the next, which bounds the waste per entry. Every allocated chunk
+ * has an owner, which lets the store sample eviction candidates of a size class. A slab can be taken away from a
+ * size class, evicting its owners, so that memory is not stuck with size classes no longer in use.
+ * <p>
+ * Not thread-safe, guarded by the store.
+ */
+final class SlabAllocator {
+
+    static final long NO_CHUNK = -1;
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final int ALIGNMENT = 8;
+    private static final int GROWTH_NUMERATOR = 5;
+    private static final int GROWTH_DENOMINATOR = 4;
+
+    private final int slabSize;
+    private final long maxSlabs;
+    private final SizeClass[] sizeClasses;
+    private final List<ByteBuffer> spareSlabs = new ArrayList<>();
+    private long slabCount;
+
+    SlabAllocator(long capacityInBytes, int slabSize) {
+        this.slabSize = slabSize;
+        this.maxSlabs = Math.max(1, capacityInBytes / slabSize);
+        List<SizeClass> classes = new ArrayList<>();
+        int chunkSize = Math.min(MIN_CHUNK_SIZE, slabSize);
+        while (chunkSize < slabSize) {
+            classes.add(new SizeClass(chunkSize, slabSize / chunkSize));
+            int grown = chunkSize * GROWTH_NUMERATOR / GROWTH_DENOMINATOR;
+            chunkSize = (grown + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        }
+        classes.add(new SizeClass(slabSize, 1));
+        this.sizeClasses = classes.toArray(new SizeClass[0]);
+    }
+
+    /**
+     * @return the size class of chunks holding the given number of bytes, or -1 if the bytes do not fit in a slab
+     */
+    int sizeClassOf(int length) {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (sizeClasses[i].chunkSize >= length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int chunkSize(int sizeClass) {
+        return sizeClasses[sizeClass].chunkSize;
+    }
+
+    /**
+     * Allocates a chunk of the size class, reserving a new slab if the capacity allows.
+     *
+     * @return the address of the chunk, or {@link #NO_CHUNK} if the size class is full
+     */
+    long allocate(int sizeClass, Object owner) {
+        SizeClass chunks = sizeClasses[sizeClass];
+        if (chunks.freeCount == 0) {
+            if (!spareSlabs.isEmpty()) {
+                chunks.addSlab(spareSlabs.remove(spareSlabs.size() - 1));
+            } else if (slabCount < maxSlabs) {
+                chunks.addSlab(ByteBuffer.allocateDirect(slabSize));
+                slabCount++;
+            } else {
+                return NO_CHUNK;
+            }
+        }
+        int chunk = chunks.freeChunks[--chunks.freeCount];
+        chunks.owners[chunk] = owner;
+        return address(sizeClass, chunk);
+    }
+
+    void free(long address) {
+        SizeClass chunks = sizeClasses[sizeClass(address)];
+        int chunk = chunk(address);
+        chunks.owners[chunk] = null;
+        chunks.freeChunks[chunks.freeCount++] = chunk;
+    }
+
+    void write(long address, byte[] bytes) {
+        buffer(address).put(bytes);
+    }
+
+    byte[] read(long address, int length) {
+        byte[] bytes = new byte[length];
+        buffer(address).get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the owners of up to {@code count} randomly chosen allocated chunks of the size class
+     */
+    List<Object> sampleOwners(int sizeClass, int count) {
+        SizeClass chunks = sizeClasses[sizeClass];
+        List<Object> owners = new ArrayList<>(count);
+        int chunkCount = chunks.slabs.size() * chunks.chunksPerSlab;
+        if (chunkCount == chunks.freeCount) {
+            return owners;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < count * 2 && owners.size() < count; attempt++) {
+            Object owner = chunks.owners[random.nextInt(chunkCount)];
+            if (owner != null) {
+                owners.add(owner);
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Takes the last slab away from the size class with the most slabs other than the given one, so that it can
+     * be used by any size class. The owners of the chunks of the slab must be evicted by the caller.
+     *
+     * @return the owners of the chunks of the released slab, or {@code null} if there is no slab to release
+     */
+    List<Object> releaseSlab(int exceptSizeClass) {
+        SizeClass victim = null;
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (i != exceptSizeClass && (victim == null || sizeClasses[i].slabs.size() > victim.slabs.size())) {
+                victim = sizeClasses[i];
+            }
+        }
+        if (victim == null || victim.slabs.isEmpty()) {
+            return null;
+        }
+        spareSlabs.add(victim.slabs.get(victim.slabs.size() - 1));
+        return victim.removeLastSlab();
+    }
+
+    void clear() {
+        for (SizeClass sizeClass : sizeClasses) {
+            sizeClass.clear();
+        }
+    }
+
+    /**
+     * @return the number of bytes of direct memory reserved
+     */
+    long reservedBytes() {
+        return slabCount * slabSize;
+    }
+
+    private ByteBuffer buffer(long address) {
+        SizeClass chunks = sizeClasses[sizeClass(address)];
+        int chunk = chunk(address);
+        ByteBuffer buffer = chunks.slabs.get(chunk / chunks.chunksPerSlab).duplicate();
+        buffer.position(chunk % chunks.chunksPerSlab * chunks.chunkSize);
+        return buffer;
+    }
+
+    private static long address(int sizeClass, int chunk) {
+        return ((long) sizeClass << Integer.SIZE) | chunk;
+    }
+
+    private static int sizeClass(long address) {
+        return (int) (address >>> Integer.SIZE);
+    }
+
+    private static int chunk(long address) {
+        return (int) address;
+    }
+
+    private static final class SizeClass {
+        private final int chunkSize;
+        private final int chunksPerSlab;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private Object[] owners = new Object[0];
+        private int[] freeChunks = new int[0];
+        private int freeCount;
+
+        private SizeClass(int chunkSize, int chunksPerSlab) {
+            this.chunkSize = chunkSize;
+            this.chunksPerSlab = chunksPerSlab;
+        }
+
+        private void addSlab(ByteBuffer slab) {
+            int first = slabs.size() * chunksPerSlab;
+            slabs.add(slab);
+            owners = Arrays.copyOf(owners, first + chunksPerSlab);
+            freeChunks = Arrays.copyOf(freeChunks, first + chunksPerSlab);
+            // push in reverse, so that the chunks are handed out in address order
+            for (int chunk = first + chunksPerSlab - 1; chunk >= first; chunk--) {
+                freeChunks[freeCount++] = chunk;
+            }
+        }
+
+        private List<Object> removeLastSlab() {
+            int first = (slabs.size() - 1) * chunksPerSlab;
+            List<Object> evicted = new ArrayList<>();
+            for (int chunk = first; chunk < first + chunksPerSlab; chunk++) {
+                if (owners[chunk] != null) {
+                    evicted.add(owners[chunk]);
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (freeChunks[i] < first) {
+                    freeChunks[kept++] = freeChunks[i];
+                }
+            }
+            freeCount = kept;
+            owners = Arrays.copyOf(owners, first);
+            freeChunks = Arrays.copyOf(freeChunks, first);
+            slabs.remove(slabs.size() - 1);
+            return evicted;
+        }
+
+        private void clear() {
+            List<ByteBuffer> reserved = new ArrayList<>(slabs);
+            slabs.clear();
+            owners = new Object[0];
+            freeChunks = new int[0];
+            freeCount = 0;
+            reserved.forEach(this::addSlab);
+        }
+    }
+}
@@ -15,10 +15,11 @@
 
 package com.hazelcast.hibernate.local;
 
+import com.hazelcast.hibernate.serialization.CompactWireFormatSupport;
 import com.hazelcast.hibernate.serialization.HibernateDataSerializerHook;
+import com.hazelcast.hibernate.serialization.WireFormat;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
-import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
 import java.util.UUID;
@@ -26,11 +27,12 @@ import java.util.UUID;
 /**
  * Hazelcast compatible implementation of a timestamp for internal eviction
  */
-public class Timestamp implements IdentifiedDataSerializable {
+public class Timestamp implements CompactWireFormatSupport {
 
     private Object key;
     private long timestamp;
     private UUID senderId;
+    private boolean compactWireFormat = WireFormat.isCompact();
 
     public Timestamp() {
     }
@@ -53,18 +55,32 @@ public class Timestamp implements IdentifiedDataSerializable {
         return senderId;
     }
 
+    @Override
+    public void setCompactWireFormat(final boolean compact) {
+        this.compactWireFormat = compact;
+    }
+
+    @Override
+    public boolean isCompactWireFormat() {
+        return compactWireFormat;
+    }
+
     @Override
     public void writeData(final ObjectDataOutput out) throws IOException {
         out.writeObject(key);
         out.writeLong(timestamp);
-        out.writeUTF(senderId.toString());
+        if (compactWireFormat) {
+            WireFormat.writeUuid(out, senderId);
+        } else {
+            out.writeUTF(senderId.toString());
+        }
     }
 
     @Override
     public void readData(final ObjectDataInput in) throws IOException {
         key = in.readObject();
         timestamp = in.readLong();
-        senderId = UUID.fromString(in.readUTF());
+        senderId = compactWireFormat ? WireFormat.readUuid(in) : UUID.fromString(in.readUTF());
     }
 
     @Override
@@ -74,7 +90,7 @@ public class Timestamp implements IdentifiedDataSerializable {
 
     @Override
     public int getClassId() {
-        return HibernateDataSerializerHook.TIMESTAMP;
+        return compactWireFormat ? HibernateDataSerializerHook.TIMESTAMP_V2 : HibernateDataSerializerHook.TIMESTAMP;
     }
 
     @Override
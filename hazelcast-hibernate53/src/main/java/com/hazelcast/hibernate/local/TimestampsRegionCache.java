@@ -16,6 +16,7 @@
 package com.hazelcast.hibernate.local;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.HazelcastTimestamper;
 import com.hazelcast.hibernate.RegionCache;
 import com.hazelcast.hibernate.serialization.Expirable;
 import com.hazelcast.hibernate.serialization.Value;
@@ -48,6 +49,14 @@ public class TimestampsRegionCache extends LocalRegionCache implements RegionCac
         regionId = UuidUtil.newSecureUUID();
     }
 
+    /**
+     * @param builder the builder holding the configuration of this region cache
+     */
+    public TimestampsRegionCache(final Builder builder) {
+        super(builder);
+        regionId = UuidUtil.newSecureUUID();
+    }
+
     @Override
     public void evictData() {
         cache.clear();
@@ -78,6 +87,7 @@ public class TimestampsRegionCache extends LocalRegionCache implements RegionCac
         if (ts.getSenderId().equals(regionId)) {
             return;
         }
+        getMetrics().recordInvalidationsReceived(1);
 
         final Object key = ts.getKey();
         if (key == null) {
@@ -90,7 +100,8 @@ public class TimestampsRegionCache extends LocalRegionCache implements RegionCac
             final Expirable value = cache.get(key);
             final Long current = value != null ? (Long) value.getValue() : null;
             if (current != null) {
-                if (ts.getTimestamp() > current) {
+                // the sender may create its timestamps in another unit while the cluster is upgraded
+                if (HazelcastTimestamper.inUnitOf(ts.getTimestamp(), current) > current) {
                     //Do not use ts.getTimestamp for value to avoid preInvalidation with offset effect.
                     long nextTime = nextTimestamp();
                     if (cache.replace(key, value, new Value(value.getVersion(), nextTime, nextTime))) {
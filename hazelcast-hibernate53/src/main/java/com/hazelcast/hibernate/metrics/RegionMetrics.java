@@ -0,0 +1,326 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.metrics;
+
+import com.hazelcast.internal.metrics.MetricDescriptor;
+import com.hazelcast.internal.metrics.MetricsCollectionContext;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of a region cache, see {@link RegionMetricsProvider}.
+ */
+public final class RegionMetrics {
+
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+
+    private final String regionName;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder freeHeapEvictions = new LongAdder();
+    private final LongAdder invalidationsSent = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+    private final LongAdder invalidationsInFlight = new LongAdder();
+    private final LongAdder invalidationsPublished = new LongAdder();
+    private final LongAdder invalidationPublishFailures = new LongAdder();
+    private final LatencyHistogram invalidationPublishLatency = new LatencyHistogram();
+    private final LongAdder readTimeouts = new LongAdder();
+    private final LongAdder writeTimeouts = new LongAdder();
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+    private final LatencyHistogram getAllLatency = new LatencyHistogram();
+    private final LongAdder compressionInputBytes = new LongAdder();
+    private final LongAdder compressionOutputBytes = new LongAdder();
+    private final LatencyHistogram compressionTime = new LatencyHistogram();
+    private final LatencyHistogram decompressionTime = new LatencyHistogram();
+
+    private final LongSupplier entryCount;
+    private final LongSupplier sizeInMemory;
+
+    public RegionMetrics(String regionName) {
+        this(regionName, () -> 0, () -> 0);
+    }
+
+    /**
+     * @param entryCount   reports the number of entries in the region cache
+     * @param sizeInMemory reports the size in memory of the region cache in bytes
+     */
+    public RegionMetrics(String regionName, LongSupplier entryCount, LongSupplier sizeInMemory) {
+        this.regionName = regionName;
+        this.entryCount = entryCount;
+        this.sizeInMemory = sizeInMemory;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which the read started
+     */
+    public void recordGet(long startNanos, boolean hit) {
+        getLatency.record(System.nanoTime() - startNanos);
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which the write started
+     */
+    public void recordPut(long startNanos) {
+        putLatency.record(System.nanoTime() - startNanos);
+        puts.increment();
+    }
+
+    /**
+     * Records a bulk read, whose latency is recorded once rather than per key.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the bulk read started
+     */
+    public void recordGetAll(long startNanos, long hitCount, long missCount) {
+        getAllLatency.record(System.nanoTime() - startNanos);
+        hits.add(hitCount);
+        misses.add(missCount);
+    }
+
+    /**
+     * Records entries evicted by the cache to stay within its size, or because they expired.
+     */
+    public void recordEvictions(long count) {
+        evictions.add(count);
+    }
+
+    /**
+     * Records entries evicted because the free heap of the JVM was too small.
+     */
+    public void recordFreeHeapEvictions(long count) {
+        freeHeapEvictions.add(count);
+    }
+
+    /**
+     * @param startNanos  the {@link System#nanoTime()} at which the compression started
+     * @param inputBytes  the size of the value before compression
+     * @param outputBytes the size of the value after compression
+     */
+    public void recordCompression(long startNanos, long inputBytes, long outputBytes) {
+        compressionTime.record(System.nanoTime() - startNanos);
+        compressionInputBytes.add(inputBytes);
+        compressionOutputBytes.add(outputBytes);
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which the decompression started
+     */
+    public void recordDecompression(long startNanos) {
+        decompressionTime.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a read which missed because it did not complete within the deadline of the region.
+     */
+    public void recordReadTimeout() {
+        readTimeouts.increment();
+    }
+
+    /**
+     * Records a write which did not complete within the deadline of the region and was left to complete in the
+     * background.
+     */
+    public void recordWriteTimeout() {
+        writeTimeouts.increment();
+    }
+
+    public void recordInvalidationSent() {
+        invalidationsSent.increment();
+    }
+
+    public void recordInvalidationsReceived(long count) {
+        invalidationsReceived.add(count);
+    }
+
+    /**
+     * Records an invalidation published asynchronously, which is in flight until it is acknowledged.
+     */
+    public void recordInvalidationPublishing() {
+        invalidationsInFlight.increment();
+    }
+
+    /**
+     * Records the completion of an invalidation published asynchronously.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the invalidation was published
+     * @param success    whether the publication was acknowledged rather than failed
+     */
+    public void recordInvalidationPublished(long startNanos, boolean success) {
+        invalidationPublishLatency.record(System.nanoTime() - startNanos);
+        invalidationsInFlight.decrement();
+        if (success) {
+            invalidationsPublished.increment();
+        } else {
+            invalidationPublishFailures.increment();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getFreeHeapEvictionCount() {
+        return freeHeapEvictions.sum();
+    }
+
+    public long getInvalidationsSentCount() {
+        return invalidationsSent.sum();
+    }
+
+    public long getInvalidationsReceivedCount() {
+        return invalidationsReceived.sum();
+    }
+
+    public long getInvalidationsInFlightCount() {
+        return invalidationsInFlight.sum();
+    }
+
+    public long getInvalidationsPublishedCount() {
+        return invalidationsPublished.sum();
+    }
+
+    public long getInvalidationPublishFailureCount() {
+        return invalidationPublishFailures.sum();
+    }
+
+    public LatencyHistogram getInvalidationPublishLatency() {
+        return invalidationPublishLatency;
+    }
+
+    public long getReadTimeoutCount() {
+        return readTimeouts.sum();
+    }
+
+    public long getWriteTimeoutCount() {
+        return writeTimeouts.sum();
+    }
+
+    public long getCompressionInputBytes() {
+        return compressionInputBytes.sum();
+    }
+
+    public long getCompressionOutputBytes() {
+        return compressionOutputBytes.sum();
+    }
+
+    /**
+     * @return the size of the compressed values before compression divided by their size after, or {@code 1} if no
+     * values were compressed
+     */
+    public double getCompressionRatio() {
+        long outputBytes = getCompressionOutputBytes();
+        return outputBytes == 0 ? 1 : (double) getCompressionInputBytes() / outputBytes;
+    }
+
+    public LatencyHistogram getCompressionTime() {
+        return compressionTime;
+    }
+
+    public LatencyHistogram getDecompressionTime() {
+        return decompressionTime;
+    }
+
+    public LatencyHistogram getGetLatency() {
+        return getLatency;
+    }
+
+    public LatencyHistogram getPutLatency() {
+        return putLatency;
+    }
+
+    public LatencyHistogram getGetAllLatency() {
+        return getAllLatency;
+    }
+
+    void provideMetrics(MetricDescriptor descriptor, MetricsCollectionContext context) {
+        collect(descriptor, context, "hits", ProbeUnit.COUNT, getHitCount());
+        collect(descriptor, context, "misses", ProbeUnit.COUNT, getMissCount());
+        collect(descriptor, context, "puts", ProbeUnit.COUNT, getPutCount());
+        collect(descriptor, context, "evictions", ProbeUnit.COUNT, getEvictionCount());
+        collect(descriptor, context, "freeHeapEvictions", ProbeUnit.COUNT, getFreeHeapEvictionCount());
+        collect(descriptor, context, "invalidationsSent", ProbeUnit.COUNT, getInvalidationsSentCount());
+        collect(descriptor, context, "invalidationsReceived", ProbeUnit.COUNT, getInvalidationsReceivedCount());
+        collect(descriptor, context, "readTimeouts", ProbeUnit.COUNT, getReadTimeoutCount());
+        collect(descriptor, context, "writeTimeouts", ProbeUnit.COUNT, getWriteTimeoutCount());
+        collect(descriptor, context, "entryCount", ProbeUnit.COUNT, entryCount.getAsLong());
+        collect(descriptor, context, "sizeInMemory", ProbeUnit.BYTES, sizeInMemory.getAsLong());
+        collectLatency(descriptor, context, "get", getLatency);
+        collectLatency(descriptor, context, "put", putLatency);
+        collectLatency(descriptor, context, "getAll", getAllLatency);
+        if (compressionTime.getCount() > 0 || decompressionTime.getCount() > 0) {
+            collect(descriptor, context, "compressionInputBytes", ProbeUnit.BYTES, getCompressionInputBytes());
+            collect(descriptor, context, "compressionOutputBytes", ProbeUnit.BYTES, getCompressionOutputBytes());
+            collectLatency(descriptor, context, "compression", compressionTime);
+            collectLatency(descriptor, context, "decompression", decompressionTime);
+        }
+        if (invalidationPublishLatency.getCount() > 0 || getInvalidationsInFlightCount() > 0) {
+            collect(descriptor, context, "invalidationsInFlight", ProbeUnit.COUNT, getInvalidationsInFlightCount());
+            collect(descriptor, context, "invalidationsPublished", ProbeUnit.COUNT, getInvalidationsPublishedCount());
+            collect(descriptor, context, "invalidationPublishFailures", ProbeUnit.COUNT,
+                    getInvalidationPublishFailureCount());
+            collectLatency(descriptor, context, "invalidationPublish", invalidationPublishLatency);
+        }
+    }
+
+    private static void collectLatency(MetricDescriptor descriptor, MetricsCollectionContext context, String operation,
+                                       LatencyHistogram histogram) {
+        collect(descriptor, context, operation + "Count", ProbeUnit.COUNT, histogram.getCount());
+        collect(descriptor, context, operation + "LatencyMean", ProbeUnit.US, toMicros(histogram.getMean()));
+        collect(descriptor, context, operation + "LatencyP50", ProbeUnit.US, toMicros(histogram.getValueAtPercentile(P50)));
+        collect(descriptor, context, operation + "LatencyP99", ProbeUnit.US, toMicros(histogram.getValueAtPercentile(P99)));
+        collect(descriptor, context, operation + "LatencyP999", ProbeUnit.US,
+                toMicros(histogram.getValueAtPercentile(P999)));
+        collect(descriptor, context, operation + "LatencyMax", ProbeUnit.US, toMicros(histogram.getMax()));
+    }
+
+    private static void collect(MetricDescriptor descriptor, MetricsCollectionContext context, String name,
+                                ProbeUnit unit, long value) {
+        context.collect(descriptor.copy(), name, ProbeLevel.INFO, unit, value);
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
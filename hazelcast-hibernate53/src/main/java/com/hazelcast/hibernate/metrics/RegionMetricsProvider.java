@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.metrics;
+
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.instance.impl.HazelcastInstanceProxy;
+import com.hazelcast.internal.metrics.DynamicMetricsProvider;
+import com.hazelcast.internal.metrics.MetricDescriptor;
+import com.hazelcast.internal.metrics.MetricsCollectionContext;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides the {@link RegionMetrics} of the regions of a region factory to the metrics registry of its Hazelcast
+ * instance, which publishes them to JMX and Management Center if they are enabled in its metrics configuration.
+ * <p>
+ * The metrics of a region have the prefix {@value #PREFIX} and the region name as discriminator.
+ */
+public final class RegionMetricsProvider implements DynamicMetricsProvider, AutoCloseable {
+
+    /**
+     * The prefix of the region metrics
+     */
+    public static final String PREFIX = "hibernate.region";
+
+    private static final ILogger LOG = Logger.getLogger(RegionMetricsProvider.class);
+
+    private final Map<String, RegionMetrics> regions = new ConcurrentHashMap<>();
+    private final MetricsRegistry metricsRegistry;
+
+    RegionMetricsProvider(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        if (metricsRegistry != null) {
+            metricsRegistry.registerDynamicMetricsProvider(this);
+        }
+    }
+
+    /**
+     * Registers a provider with the metrics registry of the instance. If the registry of the instance is not
+     * accessible, the metrics are still recorded, but not published.
+     */
+    public static RegionMetricsProvider register(HazelcastInstance instance) {
+        return new RegionMetricsProvider(findMetricsRegistry(instance));
+    }
+
+    public void add(RegionMetrics metrics) {
+        regions.put(metrics.getRegionName(), metrics);
+    }
+
+    public void remove(RegionMetrics metrics) {
+        regions.remove(metrics.getRegionName(), metrics);
+    }
+
+    /**
+     * @return the metrics of the region, or {@code null} if the region is unknown
+     */
+    public RegionMetrics get(String regionName) {
+        return regions.get(regionName);
+    }
+
+    @Override
+    public void provideDynamicMetrics(MetricDescriptor descriptor, MetricsCollectionContext context) {
+        for (RegionMetrics metrics : regions.values()) {
+            metrics.provideMetrics(descriptor.copy().withPrefix(PREFIX).withDiscriminator("name", metrics.getRegionName()),
+                    context);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (metricsRegistry != null) {
+            metricsRegistry.deregisterDynamicMetricsProvider(this);
+        }
+        regions.clear();
+    }
+
+    private static MetricsRegistry findMetricsRegistry(HazelcastInstance instance) {
+        try {
+            if (instance instanceof HazelcastInstanceProxy) {
+                return ((HazelcastInstanceProxy) instance).getOriginal().node.getNodeEngine().getMetricsRegistry();
+            } else if (instance instanceof HazelcastClientProxy) {
+                return ((HazelcastClientProxy) instance).client.getMetricsRegistry();
+            }
+        } catch (RuntimeException e) {
+            LOG.fine("Could not access the metrics registry of the Hazelcast instance", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.util.HashUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps the entity names of cache entries to ids, so that {@link Hibernate53CacheEntrySerializer} writes the id of the
+ * entity of an entry instead of its name, which is often longer than the rest of a small entry.
+ * <p/>
+ * The id of a name is a 64-bit hash of the name, so every node of the cluster assigns the same id to a name without
+ * coordinating with the others; a node only has to know a name to decode its id. The region factories register the
+ * names of the entities they cache when building their regions, and unregister them when they stop. Names which are
+ * not registered, or whose ids collide with those of other names, are written in full. Nodes which read the id of a
+ * name they do not know, like members without the entities, keep the id and write it back unchanged.
+ * <p/>
+ * The dictionary also holds the {@link CacheEntrySchema schemas} of the entities registered with one, resolved when
+ * the first entry of the entity is written or read, as the persisters of the entities are not built yet when the
+ * regions are.
+ * <p/>
+ * Names and schemas may be registered for reading only, so that a node which writes the names and states of the
+ * entries in full, like while a cluster is upgraded, still reads the ids and schemas of the others.
+ * <p/>
+ * The serializer is shared by all region factories of the JVM, so the dictionary is too, and the registrations are
+ * kept per factory. A name is written as its id only if every factory which registered it writes ids, and a state by
+ * its schema only if every factory writes schemas and resolves the same one. Entries are read by the schema of any
+ * of the factories.
+ */
+public final class CacheEntryDictionary {
+
+    /**
+     * The id of the names which are not in the dictionary
+     */
+    static final long NO_ID = 0;
+
+    /**
+     * The owner of the names registered without one
+     */
+    private static final Object DEFAULT_OWNER = new Object();
+
+    private static final Map<String, Map<Object, Registration>> REGISTRATIONS = new HashMap<>();
+    private static final Map<Long, Set<String>> NAMES_OF_IDS = new HashMap<>();
+
+    private static final ConcurrentMap<String, Long> IDS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Long, String> NAMES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Schemas> SCHEMAS = new ConcurrentHashMap<>();
+
+    private CacheEntryDictionary() {
+    }
+
+    /**
+     * Adds the name to the dictionary, unless its id collides with that of another name, in which case neither of
+     * them is encoded.
+     *
+     * @param name the name of an entity
+     */
+    public static void register(final String name) {
+        register(DEFAULT_OWNER, name, null, true, false);
+    }
+
+    /**
+     * Adds the name to the dictionary, together with the schema of the entity, which replaces any schema registered
+     * before for the name without an owner.
+     *
+     * @param name   the name of an entity
+     * @param schema supplies the schema of the entity, or fails if it cannot be resolved yet
+     */
+    public static void register(final String name, final Supplier<CacheEntrySchema> schema) {
+        register(DEFAULT_OWNER, name, schema, true, true);
+    }
+
+    /**
+     * Adds the name to the dictionary on behalf of the owner, together with the schema of the entity, which replaces
+     * any registration of the name by the same owner. The id and the schema of the name are always read, but only
+     * written if enabled by every owner of the name.
+     *
+     * @param owner       the region factory which caches the entity
+     * @param name        the name of an entity
+     * @param schema      supplies the schema of the entity, or fails if it cannot be resolved yet, may be {@code null}
+     * @param writeId     whether the entries of the entity are written with the id of its name
+     * @param writeSchema whether the entries of the entity are written with its schema, requires {@code writeId}
+     */
+    public static synchronized void register(final Object owner, final String name, final Supplier<CacheEntrySchema> schema,
+                                             final boolean writeId, final boolean writeSchema) {
+        final long id = hash(name);
+        REGISTRATIONS.computeIfAbsent(name, n -> new LinkedHashMap<>())
+                .put(owner, new Registration(schema, writeId, writeId && writeSchema));
+        NAMES_OF_IDS.computeIfAbsent(id, i -> new HashSet<>()).add(name);
+        refresh(id);
+    }
+
+    /**
+     * Removes the names registered by the owner, like when a region factory stops. The names registered by other
+     * owners as well stay in the dictionary.
+     *
+     * @param owner the region factory which cached the entities
+     */
+    public static synchronized void unregister(final Object owner) {
+        final Set<Long> ids = new HashSet<>();
+        final Iterator<Map.Entry<String, Map<Object, Registration>>> iterator = REGISTRATIONS.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Map<Object, Registration>> registrations = iterator.next();
+            if (registrations.getValue().remove(owner) == null) {
+                continue;
+            }
+            final String name = registrations.getKey();
+            final long id = hash(name);
+            if (registrations.getValue().isEmpty()) {
+                iterator.remove();
+                NAMES_OF_IDS.get(id).remove(name);
+                IDS.remove(name);
+                SCHEMAS.remove(name);
+            }
+            ids.add(id);
+        }
+        ids.forEach(CacheEntryDictionary::refresh);
+    }
+
+    /**
+     * @return the id of the name, or {@link #NO_ID} if the name is not in the dictionary
+     */
+    static long idOf(final String name) {
+        final Long id = IDS.get(name);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * @return the name of the id, or {@code null} if it is not in the dictionary
+     */
+    static String nameOf(final long id) {
+        return NAMES.get(id);
+    }
+
+    /**
+     * @return the schema of the given id of the entity of the name id, or {@code null} if the entity has no such schema
+     * or it cannot be resolved yet
+     */
+    static CacheEntrySchema schemaOf(final long id, final int schemaId) {
+        final Schemas schemas = schemasOf(id);
+        return schemas == null ? null : schemas.byId(schemaId);
+    }
+
+    /**
+     * @return the schema to write the entries of the entity of the name id with, or {@code null} if they are written
+     * without one
+     */
+    static CacheEntrySchema writtenSchemaOf(final long id) {
+        final Schemas schemas = schemasOf(id);
+        return schemas == null ? null : schemas.written();
+    }
+
+    /**
+     * Removes all names, for testing
+     */
+    static synchronized void clear() {
+        REGISTRATIONS.clear();
+        NAMES_OF_IDS.clear();
+        IDS.clear();
+        NAMES.clear();
+        SCHEMAS.clear();
+    }
+
+    private static Schemas schemasOf(final long id) {
+        final String name = id == NO_ID ? null : NAMES.get(id);
+        return name == null ? null : SCHEMAS.get(name);
+    }
+
+    /**
+     * Derives what is read and written for the names of the id from their registrations
+     */
+    private static void refresh(final long id) {
+        final Set<String> names = NAMES_OF_IDS.get(id);
+        if (names.size() != 1) {
+            // the id is ambiguous, or no longer registered, none of the names is encoded
+            NAMES.remove(id);
+            names.forEach(IDS::remove);
+            names.forEach(SCHEMAS::remove);
+            if (names.isEmpty()) {
+                NAMES_OF_IDS.remove(id);
+            }
+            return;
+        }
+        final String name = names.iterator().next();
+        final List<Registration> registrations = new ArrayList<>(REGISTRATIONS.get(name).values());
+        NAMES.put(id, name);
+        if (registrations.stream().allMatch(registration -> registration.writeId)) {
+            IDS.put(name, id);
+        } else {
+            IDS.remove(name);
+        }
+        SCHEMAS.put(name, new Schemas(registrations));
+    }
+
+    static long hash(final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        final long hash = HashUtil.MurmurHash3_x64_64(bytes, 0, bytes.length);
+        // NO_ID marks the names written in full
+        return hash == NO_ID ? 1 : hash;
+    }
+
+    /**
+     * The registration of a name by one owner, which resolves its schema once it is available
+     */
+    private static final class Registration {
+
+        private final Supplier<CacheEntrySchema> supplier;
+        private final boolean writeId;
+        private final boolean writeSchema;
+        private volatile CacheEntrySchema schema;
+
+        Registration(final Supplier<CacheEntrySchema> supplier, final boolean writeId, final boolean writeSchema) {
+            this.supplier = supplier;
+            this.writeId = writeId;
+            this.writeSchema = writeSchema;
+        }
+
+        CacheEntrySchema schema() {
+            if (schema != null || supplier == null) {
+                return schema;
+            }
+            try {
+                schema = supplier.get();
+            } catch (RuntimeException e) {
+                // the persister is not built yet, retried with the next entry
+                return null;
+            }
+            return schema;
+        }
+    }
+
+    /**
+     * The schemas of a name, one per owner
+     */
+    private static final class Schemas {
+
+        private final List<Registration> registrations;
+        private final boolean written;
+
+        Schemas(final List<Registration> registrations) {
+            this.registrations = registrations;
+            this.written = registrations.stream().allMatch(registration -> registration.writeSchema);
+        }
+
+        CacheEntrySchema byId(final int schemaId) {
+            for (Registration registration : registrations) {
+                final CacheEntrySchema schema = registration.schema();
+                if (schema != null && schema.getId() == schemaId) {
+                    return schema;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the schema all owners write, or {@code null} if any of them does not write one or they disagree
+         */
+        CacheEntrySchema written() {
+            if (!written) {
+                return null;
+            }
+            CacheEntrySchema written = null;
+            for (Registration registration : registrations) {
+                final CacheEntrySchema schema = registration.schema();
+                if (schema == null || written != null && written.getId() != schema.getId()) {
+                    return null;
+                }
+                written = schema;
+            }
+            return written;
+        }
+    }
+}
@@ -15,29 +15,83 @@
 
 package com.hazelcast.hibernate.serialization;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.hibernate.cache.spi.entry.CacheEntry;
 
 import java.io.Serializable;
 
 /**
  * Simple CacheEntry implementation to avoid using internal Hibernate class StandardCacheEntryImpl
+ * <p/>
+ * An entry read with the id of its entity name keeps the id, see {@link CacheEntryDictionary}, and resolves the name
+ * only when it is asked for. An entry read with a {@link CacheEntrySchema} which is not known keeps its state encoded,
+ * to be written back unchanged.
  */
 public class CacheEntryImpl implements CacheEntry {
     private final Serializable[] disassembledState;
-    private final String subclass;
+    private final long subclassId;
     private final Object version;
+    private final int schemaId;
+    private final byte[] encodedState;
+    private String subclass;
 
     public CacheEntryImpl(final Serializable[] disassembledState, final String subclass, final Object version) {
+        this(disassembledState, subclass, CacheEntryDictionary.NO_ID, version, 0, null);
+    }
+
+    CacheEntryImpl(final Serializable[] disassembledState, final long subclassId, final Object version) {
+        this(disassembledState, null, subclassId, version, 0, null);
+    }
+
+    CacheEntryImpl(final long subclassId, final int schemaId, final byte[] encodedState, final Object version) {
+        this(null, null, subclassId, version, schemaId, encodedState);
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    private CacheEntryImpl(final Serializable[] disassembledState, final String subclass, final long subclassId,
+                           final Object version, final int schemaId, final byte[] encodedState) {
         this.disassembledState = disassembledState;
         this.subclass = subclass;
+        this.subclassId = subclassId;
         this.version = version;
+        this.schemaId = schemaId;
+        this.encodedState = encodedState;
     }
 
     @Override
     public String getSubclass() {
+        if (subclass == null && subclassId != CacheEntryDictionary.NO_ID) {
+            subclass = CacheEntryDictionary.nameOf(subclassId);
+            if (subclass == null) {
+                throw new IllegalStateException("Unknown entity name id " + subclassId
+                        + ", the entity is not cached by this node");
+            }
+        }
         return subclass;
     }
 
+    /**
+     * @return the id of the entity name this entry was read with, or {@link CacheEntryDictionary#NO_ID}
+     */
+    long getSubclassId() {
+        return subclassId;
+    }
+
+    /**
+     * @return the id of the unknown schema the state is encoded with
+     */
+    int getSchemaId() {
+        return schemaId;
+    }
+
+    /**
+     * @return the state encoded with an unknown schema, or {@code null} if the state is decoded
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    byte[] getEncodedState() {
+        return encodedState;
+    }
+
     @Override
     public Object getVersion() {
         return version;
@@ -45,6 +99,10 @@ public class CacheEntryImpl implements CacheEntry {
 
     @Override
     public Serializable[] getDisassembledState() {
+        if (encodedState != null) {
+            throw new IllegalStateException("Unknown schema id " + schemaId + " of entity name id " + subclassId
+                    + ", the entity is mapped differently or not cached by this node");
+        }
         return disassembledState;
     }
 
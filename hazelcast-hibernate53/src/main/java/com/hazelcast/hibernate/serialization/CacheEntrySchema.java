@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.util.HashUtil;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.Type;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The layout of the disassembled state of an entity, derived from the types of its properties, which lets
+ * {@link Hibernate53CacheEntrySerializer} write the properties positionally: a bitmap of the {@code null} properties
+ * followed by the values of the others, primitives and strings without any type information. Properties of other
+ * types are written by {@link ObjectDataOutput#writeObject(Object)}.
+ * <p/>
+ * The id of a schema is a hash of the kinds of its properties, so nodes with the same mapping agree on it without
+ * coordination, and an entry written with a schema can be read only by the nodes which know a schema of the same id.
+ */
+public final class CacheEntrySchema {
+
+    private static final byte OBJECT = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte CHAR = 8;
+    private static final byte STRING = 9;
+    private static final Map<Class<?>, Byte> KINDS = new HashMap<>();
+
+    static {
+        KINDS.put(Long.class, LONG);
+        KINDS.put(Integer.class, INT);
+        KINDS.put(Short.class, SHORT);
+        KINDS.put(Byte.class, BYTE);
+        KINDS.put(Boolean.class, BOOLEAN);
+        KINDS.put(Double.class, DOUBLE);
+        KINDS.put(Float.class, FLOAT);
+        KINDS.put(Character.class, CHAR);
+        KINDS.put(String.class, STRING);
+        KINDS.put(long.class, LONG);
+        KINDS.put(int.class, INT);
+        KINDS.put(short.class, SHORT);
+        KINDS.put(byte.class, BYTE);
+        KINDS.put(boolean.class, BOOLEAN);
+        KINDS.put(double.class, DOUBLE);
+        KINDS.put(float.class, FLOAT);
+        KINDS.put(char.class, CHAR);
+    }
+
+    private final byte[] kinds;
+    private final int id;
+
+    /**
+     * @param propertyTypes the classes of the disassembled values of the properties, {@code null} for those which
+     *                      are not known
+     */
+    public CacheEntrySchema(final Class<?>... propertyTypes) {
+        kinds = new byte[propertyTypes.length];
+        for (int i = 0; i < propertyTypes.length; i++) {
+            kinds[i] = propertyTypes[i] == null ? OBJECT : KINDS.getOrDefault(propertyTypes[i], OBJECT);
+        }
+        id = HashUtil.MurmurHash3_x86_32(kinds, 0, kinds.length);
+    }
+
+    /**
+     * @param propertyTypes the types of the properties of an entity persister; the basic types are written by their
+     *                      Java type, the other ones as objects
+     */
+    public static CacheEntrySchema of(final Type... propertyTypes) {
+        final Class<?>[] classes = new Class<?>[propertyTypes.length];
+        for (int i = 0; i < propertyTypes.length; i++) {
+            classes[i] = propertyTypes[i] instanceof BasicType ? propertyTypes[i].getReturnedClass() : null;
+        }
+        return new CacheEntrySchema(classes);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * @return whether every value of the state is {@code null} or of the kind of its property, as the disassembled
+     * values of some types, like converted ones, differ from the Java types of the properties
+     */
+    boolean accepts(final Serializable[] state) {
+        if (state.length != kinds.length) {
+            return false;
+        }
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] != null && kinds[i] != OBJECT && KINDS.get(state[i].getClass()) != kinds[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void write(final ObjectDataOutput out, final Serializable[] state) throws IOException {
+        final byte[] nulls = new byte[(state.length + Byte.SIZE - 1) / Byte.SIZE];
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == null) {
+                nulls[i / Byte.SIZE] |= 1 << (i % Byte.SIZE);
+            }
+        }
+        out.write(nulls);
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] != null) {
+                writeValue(out, kinds[i], state[i]);
+            }
+        }
+    }
+
+    Serializable[] read(final ObjectDataInput in) throws IOException {
+        final byte[] nulls = new byte[(kinds.length + Byte.SIZE - 1) / Byte.SIZE];
+        in.readFully(nulls);
+        final Serializable[] state = new Serializable[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            if ((nulls[i / Byte.SIZE] & (1 << (i % Byte.SIZE))) == 0) {
+                state[i] = readValue(in, kinds[i]);
+            }
+        }
+        return state;
+    }
+
+    private static void writeValue(final ObjectDataOutput out, final byte kind, final Serializable value)
+            throws IOException {
+        switch (kind) {
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case INT:
+                out.writeInt((Integer) value);
+                break;
+            case SHORT:
+                out.writeShort((Short) value);
+                break;
+            case BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case CHAR:
+                out.writeChar((Character) value);
+                break;
+            case STRING:
+                out.writeString((String) value);
+                break;
+            default:
+                out.writeObject(value);
+        }
+    }
+
+    private static Serializable readValue(final ObjectDataInput in, final byte kind) throws IOException {
+        switch (kind) {
+            case LONG:
+                return in.readLong();
+            case INT:
+                return in.readInt();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case CHAR:
+                return in.readChar();
+            case STRING:
+                return in.readString();
+            default:
+                return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.Serializer;
+import com.hazelcast.nio.serialization.SerializerHook;
+
+/**
+ * Registers {@link Hibernate53CacheKeySerializer} for a type of the cache keys Hibernate creates, unless Hibernate is not
+ * available or {@link CacheEnvironment#NATIVE_KEY_SERIALIZATION} is disabled. A hook registers a single type, so each
+ * type of key has a hook of its own.
+ */
+abstract class CacheKeySerializerHook implements SerializerHook {
+
+    private static final String SKIP_INIT_MSG = "Hibernate cache key %s not available, skipping serializer initialization";
+
+    private final Class<?> keyClass;
+
+    CacheKeySerializerHook(final String keyClassName) {
+        this.keyClass = tryLoadKeyClass(keyClassName);
+    }
+
+    private static Class<?> tryLoadKeyClass(final String keyClassName) {
+        if (!Boolean.parseBoolean(System.getProperty(CacheEnvironment.NATIVE_KEY_SERIALIZATION, "false"))) {
+            return null;
+        }
+        Class<?> keyClass;
+        try {
+            // like CacheEntryImpl, the serializer can only be loaded if Hibernate is available
+            keyClass = Class.forName(keyClassName);
+        } catch (Throwable e) {
+            keyClass = null;
+        }
+        if (keyClass == null || !Hibernate53CacheKeySerializer.supports(keyClass)) {
+            Logger.getLogger(CacheKeySerializerHook.class).finest(String.format(SKIP_INIT_MSG, keyClassName));
+            return null;
+        }
+        return keyClass;
+    }
+
+    @Override
+    public Serializer createSerializer() {
+        // the same serializer for all types of keys, as they share its type id
+        return keyClass == null ? null : Hibernate53CacheKeySerializer.INSTANCE;
+    }
+
+    @Override
+    public Class<?> getSerializationType() {
+        return keyClass;
+    }
+
+    @Override
+    public boolean isOverwritable() {
+        return true;
+    }
+}
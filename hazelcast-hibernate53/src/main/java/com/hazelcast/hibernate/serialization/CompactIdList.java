@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The cached form of a collection entry or of query results which consist of numeric ids only, like the elements of a
+ * one-to-many collection or the results of a query selecting ids, as a {@code long[]} or an {@code int[]} rather than
+ * boxed ids. On the wire, the ids are written as the differences between subsequent ids, zigzag and variable-length
+ * encoded, which takes one or two bytes per id for ids assigned in sequence.
+ * <p/>
+ * The region caches replace the values they cache by {@link #compact(Object)} and restore them by {@link #expand(Object)}.
+ * Collection entries wrapped in an item of read-write access are replaced together with the item, whose version and
+ * timestamp are kept to create it again.
+ * Values are only replaced in the {@link WireFormat compact wire format}, which the earlier versions cannot read.
+ */
+public final class CompactIdList implements IdentifiedDataSerializable {
+
+    static final byte COLLECTION = 0;
+    static final byte QUERY_RESULTS = 1;
+    static final byte COLLECTION_IN_READ_WRITE_ITEM = 2;
+
+    private static final byte LONG_IDS = 0;
+    private static final byte INT_IDS = 1;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private byte kind;
+    private long timestamp;
+    private Object itemVersion;
+    private long[] longIds;
+    private int[] intIds;
+
+    public CompactIdList() {
+    }
+
+    private CompactIdList(final byte kind, final long timestamp, final Object itemVersion, final long[] longIds,
+                          final int[] intIds) {
+        this.kind = kind;
+        this.timestamp = timestamp;
+        this.itemVersion = itemVersion;
+        this.longIds = longIds;
+        this.intIds = intIds;
+    }
+
+    /**
+     * @return the compact form of the value if it is a collection entry, possibly wrapped by read-write access, or query
+     * results of numeric ids only, otherwise the value itself
+     */
+    public static Object compact(final Object value) {
+        if (!WireFormat.isCompact()) {
+            return value;
+        }
+        if (value instanceof CollectionCacheEntry) {
+            final Serializable[] state = IdListEntries.collectionState((CollectionCacheEntry) value);
+            return state == null ? value : compact(COLLECTION, 0, null, Arrays.asList(state), value);
+        }
+        if (IdListEntries.isReadWriteItem(value)) {
+            final Object entry = IdListEntries.unwrapReadWriteItem(value);
+            final Serializable[] state = entry instanceof CollectionCacheEntry
+                    ? IdListEntries.collectionState((CollectionCacheEntry) entry)
+                    : null;
+            return state == null ? value : compact(COLLECTION_IN_READ_WRITE_ITEM,
+                    IdListEntries.readWriteItemTimestamp(value), IdListEntries.readWriteItemVersion(value),
+                    Arrays.asList(state), value);
+        }
+        if (IdListEntries.isQueryResults(value)) {
+            final List<?> results = IdListEntries.queryResults(value);
+            return results == null ? value
+                    : compact(QUERY_RESULTS, IdListEntries.queryTimestamp(value), null, results, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the ids of the value, possibly wrapped by read-write access, if it is a collection entry or query results of
+     * numeric ids only, otherwise {@code null}
+     */
+    public static List<?> idsOf(final Object value) {
+        final Object entry = IdListEntries.unwrapReadWriteItem(value);
+        final List<?> ids;
+        if (entry instanceof CollectionCacheEntry) {
+            final Serializable[] state = IdListEntries.collectionState((CollectionCacheEntry) entry);
+            ids = state == null ? null : Arrays.asList(state);
+        } else if (IdListEntries.isQueryResults(entry)) {
+            ids = IdListEntries.queryResults(entry);
+        } else {
+            return null;
+        }
+        return ids != null && isIdList(ids) ? ids : null;
+    }
+
+    /**
+     * @return the collection entry, possibly wrapped by read-write access, or query results of a compact id list,
+     * otherwise the value itself
+     */
+    public static Object expand(final Object value) {
+        return value instanceof CompactIdList ? ((CompactIdList) value).toValue() : value;
+    }
+
+    private static Object compact(final byte kind, final long timestamp, final Object itemVersion, final List<?> ids,
+                                  final Object value) {
+        if (ids.isEmpty()) {
+            return value;
+        }
+        final Class<?> type = ids.get(0) == null ? null : ids.get(0).getClass();
+        if (type == Long.class) {
+            final long[] longIds = new long[ids.size()];
+            for (int i = 0; i < longIds.length; i++) {
+                final Object id = ids.get(i);
+                if (id == null || id.getClass() != Long.class) {
+                    return value;
+                }
+                longIds[i] = (Long) id;
+            }
+            return new CompactIdList(kind, timestamp, itemVersion, longIds, null);
+        }
+        if (type == Integer.class) {
+            final int[] intIds = new int[ids.size()];
+            for (int i = 0; i < intIds.length; i++) {
+                final Object id = ids.get(i);
+                if (id == null || id.getClass() != Integer.class) {
+                    return value;
+                }
+                intIds[i] = (Integer) id;
+            }
+            return new CompactIdList(kind, timestamp, itemVersion, null, intIds);
+        }
+        return value;
+    }
+
+    private static boolean isIdList(final List<?> ids) {
+        final Class<?> type = ids.isEmpty() || ids.get(0) == null ? null : ids.get(0).getClass();
+        if (type != Long.class && type != Integer.class) {
+            return false;
+        }
+        for (Object id : ids) {
+            if (id == null || id.getClass() != type) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the collection entry, possibly wrapped by read-write access, or query results this is the compact form of
+     */
+    Object toValue() {
+        final int size = size();
+        final Serializable[] ids = new Serializable[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = longIds != null ? (Serializable) longIds[i] : (Serializable) intIds[i];
+        }
+        switch (kind) {
+            case COLLECTION:
+                return IdListEntries.newCollectionEntry(ids);
+            case COLLECTION_IN_READ_WRITE_ITEM:
+                return IdListEntries.newReadWriteItem(IdListEntries.newCollectionEntry(ids), itemVersion, timestamp);
+            default:
+                return IdListEntries.newQueryResults(timestamp, new ArrayList<>(Arrays.asList(ids)));
+        }
+    }
+
+    /**
+     * @return the ids, a {@code long[]} or an {@code int[]}
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public Object getIds() {
+        return longIds != null ? longIds : intIds;
+    }
+
+    public int size() {
+        return longIds != null ? longIds.length : intIds.length;
+    }
+
+    byte getKind() {
+        return kind;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeByte(kind);
+        if (kind != COLLECTION) {
+            out.writeLong(timestamp);
+        }
+        if (kind == COLLECTION_IN_READ_WRITE_ITEM) {
+            WireFormat.writeVersion(out, itemVersion);
+        }
+        out.writeByte(longIds != null ? LONG_IDS : INT_IDS);
+        final int size = size();
+        out.writeInt(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            final long id = longIds != null ? longIds[i] : intIds[i];
+            writeVarLong(out, zigzag(id - previous));
+            previous = id;
+        }
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        kind = in.readByte();
+        if (kind != COLLECTION) {
+            timestamp = in.readLong();
+        }
+        if (kind == COLLECTION_IN_READ_WRITE_ITEM) {
+            itemVersion = WireFormat.readVersion(in);
+        }
+        final boolean longs = in.readByte() == LONG_IDS;
+        final int size = in.readInt();
+        longIds = longs ? new long[size] : null;
+        intIds = longs ? null : new int[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            final long id = previous + unzigzag(readVarLong(in));
+            if (longs) {
+                longIds[i] = id;
+            } else {
+                intIds[i] = (int) id;
+            }
+            previous = id;
+        }
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(final ObjectDataOutput out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD) != 0) {
+            out.writeByte((int) (remaining & VARINT_PAYLOAD) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(final ObjectDataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_PAYLOAD_BITS) {
+            final byte b = in.readByte();
+            value |= (long) (b & VARINT_PAYLOAD) << shift;
+            if ((b & VARINT_CONTINUATION) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length id");
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.COMPACT_ID_LIST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CompactIdList that = (CompactIdList) o;
+        return kind == that.kind && timestamp == that.timestamp && Objects.equals(itemVersion, that.itemVersion)
+                && Arrays.equals(longIds, that.longIds)
+                && Arrays.equals(intIds, that.intIds);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = kind;
+        result = 31 * result + Long.hashCode(timestamp);
+        result = 31 * result + Objects.hashCode(itemVersion);
+        result = 31 * result + Arrays.hashCode(longIds);
+        result = 31 * result + Arrays.hashCode(intIds);
+        return result;
+    }
+}
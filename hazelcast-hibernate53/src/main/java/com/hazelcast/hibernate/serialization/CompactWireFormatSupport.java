@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * An {@link IdentifiedDataSerializable} which is written either in its original wire format or in the compact one, see
+ * {@link WireFormat}. Each format has its own class id, so nodes which only know the original one fail to read the
+ * compact one instead of misreading it. Objects are written in the format they were read in, and objects created by
+ * a node in the format it is configured with.
+ */
+public interface CompactWireFormatSupport extends IdentifiedDataSerializable {
+
+    /**
+     * @param compact {@code true} to read and write the object in the compact wire format
+     */
+    void setCompactWireFormat(boolean compact);
+
+    /**
+     * @return whether the object is read and written in the compact wire format
+     */
+    boolean isCompactWireFormat();
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The serialized form of a cached value of a region which compresses its values, see {@link ValueCompressor}. The
+ * header flags how the bytes are encoded, so that the members, which do not decompress the values, store and return
+ * them as they are.
+ */
+public final class CompressedValue implements IdentifiedDataSerializable {
+
+    /**
+     * The serialized value, as it is below the compression threshold or does not compress
+     */
+    static final byte STORED = 0;
+    /**
+     * The serialized value compressed by a {@link java.util.zip.Deflater}
+     */
+    static final byte DEFLATED = 1;
+    /**
+     * The serialized value compressed by a {@link java.util.zip.Deflater} with a {@link CompressionDictionary}
+     */
+    static final byte DEFLATED_WITH_DICTIONARY = 2;
+
+    private byte encoding;
+    private int dictionaryId;
+    private int length;
+    private byte[] bytes;
+
+    public CompressedValue() {
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    CompressedValue(final byte encoding, final int dictionaryId, final int length, final byte[] bytes) {
+        this.encoding = encoding;
+        this.dictionaryId = dictionaryId;
+        this.length = length;
+        this.bytes = bytes;
+    }
+
+    byte getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the id of the dictionary the value is compressed with, if it is {@link #DEFLATED_WITH_DICTIONARY}
+     */
+    int getDictionaryId() {
+        return dictionaryId;
+    }
+
+    /**
+     * @return the length of the serialized value
+     */
+    int getLength() {
+        return length;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void writeData(final ObjectDataOutput out) throws IOException {
+        out.writeByte(encoding);
+        if (encoding == DEFLATED_WITH_DICTIONARY) {
+            out.writeInt(dictionaryId);
+        }
+        if (encoding != STORED) {
+            out.writeInt(length);
+        }
+        out.writeByteArray(bytes);
+    }
+
+    @Override
+    public void readData(final ObjectDataInput in) throws IOException {
+        encoding = in.readByte();
+        if (encoding == DEFLATED_WITH_DICTIONARY) {
+            dictionaryId = in.readInt();
+        }
+        if (encoding != STORED) {
+            length = in.readInt();
+        }
+        bytes = in.readByteArray();
+        if (encoding == STORED) {
+            length = bytes.length;
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HibernateDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return HibernateDataSerializerHook.COMPRESSED_VALUE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CompressedValue that = (CompressedValue) o;
+        return encoding == that.encoding && dictionaryId == that.dictionaryId && length == that.length
+                && Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = encoding;
+        result = 31 * result + dictionaryId;
+        result = 31 * result + length;
+        result = 31 * result + Arrays.hashCode(bytes);
+        return result;
+    }
+}
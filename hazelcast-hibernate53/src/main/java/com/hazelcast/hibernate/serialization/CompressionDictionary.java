@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.util.HashUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A preset dictionary of a {@link ValueCompressor}, the bytes that the values of a region commonly share, like the
+ * class descriptors and field names of their serialized form. Small values compress several times better with a
+ * dictionary, as the compressor refers to the dictionary instead of to the value itself.
+ * <p/>
+ * Values are compressed with the id of their dictionary, a hash of its bytes, and nodes which do not have the
+ * dictionary miss those values.
+ */
+public final class CompressionDictionary {
+
+    /**
+     * The maximum size of a dictionary, that of the window of the {@link java.util.zip.Deflater}
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private static final int SEGMENT_LENGTH = 16;
+    private static final int SEGMENT_STRIDE = 4;
+
+    private final byte[] bytes;
+    private final int id;
+
+    public CompressionDictionary(final byte[] bytes) {
+        if (bytes.length == 0 || bytes.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid dictionary size [" + bytes.length + "]");
+        }
+        this.bytes = bytes.clone();
+        this.id = HashUtil.MurmurHash3_x86_32(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Trains a dictionary from samples of the serialized values of a region, as returned by
+     * {@code serializationService.toData(value).toByteArray()}. The dictionary holds the segments of the samples which
+     * occur in most of them, the most common last, where the compressor refers to them at the shortest distance.
+     *
+     * @param samples the serialized values
+     * @param size    the maximum size of the dictionary, at most {@link #MAX_SIZE}
+     * @return the dictionary, or {@code null} if the samples share no segments
+     */
+    public static CompressionDictionary train(final Collection<byte[]> samples, final int size) {
+        final Map<ByteBuffer, Integer> occurrences = new LinkedHashMap<>();
+        for (final byte[] sample : samples) {
+            final Set<ByteBuffer> segments = new HashSet<>();
+            for (int offset = 0; offset + SEGMENT_LENGTH <= sample.length; offset += SEGMENT_STRIDE) {
+                segments.add(ByteBuffer.wrap(sample, offset, SEGMENT_LENGTH).slice());
+            }
+            for (final ByteBuffer segment : segments) {
+                occurrences.merge(segment, 1, Integer::sum);
+            }
+        }
+        final List<Map.Entry<ByteBuffer, Integer>> common = new ArrayList<>();
+        for (final Map.Entry<ByteBuffer, Integer> entry : occurrences.entrySet()) {
+            if (entry.getValue() > 1) {
+                common.add(entry);
+            }
+        }
+        // stable, so segments which occur equally often keep the order in which they were first seen
+        common.sort(Map.Entry.<ByteBuffer, Integer>comparingByValue(Comparator.reverseOrder()));
+        final List<ByteBuffer> selected = select(common, Math.min(size, MAX_SIZE) / SEGMENT_LENGTH);
+        if (selected.isEmpty()) {
+            return null;
+        }
+        final ByteArrayOutputStream dictionary = new ByteArrayOutputStream(selected.size() * SEGMENT_LENGTH);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            final ByteBuffer segment = selected.get(i).duplicate();
+            while (segment.hasRemaining()) {
+                dictionary.write(segment.get());
+            }
+        }
+        return new CompressionDictionary(dictionary.toByteArray());
+    }
+
+    /**
+     * Selects the most common segments, skipping those which overlap selected ones, like the same bytes at another
+     * offset of the samples, which would only take up the space of other segments.
+     */
+    private static List<ByteBuffer> select(final List<Map.Entry<ByteBuffer, Integer>> common, final int count) {
+        final List<ByteBuffer> selected = new ArrayList<>(count);
+        final Set<Long> windows = new HashSet<>();
+        for (int i = 0; i < common.size() && selected.size() < count; i++) {
+            final ByteBuffer segment = common.get(i).getKey();
+            boolean overlaps = false;
+            for (int offset = 0; offset + Long.BYTES <= SEGMENT_LENGTH; offset += SEGMENT_STRIDE) {
+                overlaps |= windows.contains(segment.getLong(offset));
+            }
+            if (!overlaps) {
+                selected.add(segment);
+                for (int offset = 0; offset + Long.BYTES <= SEGMENT_LENGTH; offset++) {
+                    windows.add(segment.getLong(offset));
+                }
+            }
+        }
+        return selected;
+    }
+
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
@@ -17,7 +17,6 @@ package com.hazelcast.hibernate.serialization;
 
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
-import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
 import java.util.Comparator;
@@ -26,9 +25,10 @@ import java.util.Objects;
 /**
  * A container class which represents an entry in a region cache which can be marked for expiration
  */
-public abstract class Expirable implements IdentifiedDataSerializable {
+public abstract class Expirable implements CompactWireFormatSupport {
 
     protected Object version;
+    private boolean compactWireFormat = WireFormat.isCompact();
 
     protected Expirable() {
     }
@@ -90,14 +90,28 @@ public abstract class Expirable implements IdentifiedDataSerializable {
      */
     public abstract ExpiryMarker markForExpiration(long timeout, String nextMarkerId);
 
+    @Override
+    public void setCompactWireFormat(boolean compact) {
+        this.compactWireFormat = compact;
+    }
+
+    @Override
+    public boolean isCompactWireFormat() {
+        return compactWireFormat;
+    }
+
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
-        out.writeObject(version);
+        if (compactWireFormat) {
+            WireFormat.writeVersion(out, version);
+        } else {
+            out.writeObject(version);
+        }
     }
 
     @Override
     public void readData(ObjectDataInput in) throws IOException {
-        version = in.readObject();
+        version = compactWireFormat ? WireFormat.readVersion(in) : in.readObject();
     }
 
     @Override
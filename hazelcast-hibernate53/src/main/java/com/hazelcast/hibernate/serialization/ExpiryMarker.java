@@ -17,6 +17,7 @@ package com.hazelcast.hibernate.serialization;
 
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
+import org.hibernate.cache.spi.access.SoftLock;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -33,8 +34,10 @@ import java.util.Comparator;
  *     <li>It can be marked by multiple transactions at the same time and will not expire until all transactions complete</li>
  *     <li>It should not be expired unless {@link #matches(ExpiryMarker)} is true</li>
  * </ul>
+ * The marker is also the {@link SoftLock} handed out by
+ * {@link com.hazelcast.hibernate.distributed.IMapRegionCache#tryLock(Object, Object)}.
  */
-public class ExpiryMarker extends Expirable implements Serializable {
+public class ExpiryMarker extends Expirable implements SoftLock, Serializable {
 
     private static final long NOT_COMPLETELY_EXPIRED = -1;
     private boolean concurrent;
@@ -128,7 +131,11 @@ public class ExpiryMarker extends Expirable implements Serializable {
     public void writeData(final ObjectDataOutput out) throws IOException {
         super.writeData(out);
         out.writeBoolean(concurrent);
-        out.writeString(markerId);
+        if (isCompactWireFormat()) {
+            WireFormat.writeId(out, markerId);
+        } else {
+            out.writeString(markerId);
+        }
         out.writeInt(multiplicity);
         out.writeLong(timeout);
         out.writeLong(expiredTimestamp);
@@ -138,7 +145,7 @@ public class ExpiryMarker extends Expirable implements Serializable {
     public void readData(final ObjectDataInput in) throws IOException {
         super.readData(in);
         concurrent = in.readBoolean();
-        markerId = in.readString();
+        markerId = isCompactWireFormat() ? WireFormat.readId(in) : in.readString();
         multiplicity = in.readInt();
         timeout = in.readLong();
         expiredTimestamp = in.readLong();
@@ -151,7 +158,9 @@ public class ExpiryMarker extends Expirable implements Serializable {
 
     @Override
     public int getClassId() {
-        return HibernateDataSerializerHook.EXPIRY_MARKER;
+        return isCompactWireFormat()
+                ? HibernateDataSerializerHook.EXPIRY_MARKER_V2
+                : HibernateDataSerializerHook.EXPIRY_MARKER;
     }
 
 }
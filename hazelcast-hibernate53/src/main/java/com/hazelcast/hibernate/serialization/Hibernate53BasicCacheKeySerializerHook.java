@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+/**
+ * Registers {@link Hibernate53CacheKeySerializer} for the keys of the entities and collections with a single id
+ */
+public class Hibernate53BasicCacheKeySerializerHook extends CacheKeySerializerHook {
+
+    public Hibernate53BasicCacheKeySerializerHook() {
+        super("org.hibernate.cache.internal.BasicCacheKeyImplementation");
+    }
+}
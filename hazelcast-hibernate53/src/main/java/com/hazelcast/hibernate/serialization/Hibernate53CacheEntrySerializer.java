@@ -15,6 +15,7 @@
 
 package com.hazelcast.hibernate.serialization;
 
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
 import com.hazelcast.internal.serialization.impl.SerializationConstants;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
@@ -29,8 +30,28 @@ import java.io.Serializable;
  * entries the {@code CacheEntry} is serialized directly to avoid relying on too many Hibernate implementation
  * details. Entity entries (the most common type) are serialized by accessing the fields using the interface's
  * methods. Note that the {@code areLazyPropertiesUnfetched()} method was removed in 5.1.
+ * <p/>
+ * The entries Hibernate creates, {@code StandardCacheEntryImpl}, are only written by it, and so with the ids of their
+ * entity names and their schemas, if {@link Hibernate53StandardCacheEntrySerializerHook} registers it for their class,
+ * see {@link com.hazelcast.hibernate.CacheEnvironment#NATIVE_ENTRY_SERIALIZATION}. Otherwise they are written by Java
+ * serialization, and only {@link CacheEntryImpl} by this serializer.
+ * <p/>
+ * Entries whose state was written with a schema this node cannot decode are read as {@code null}, i.e. as misses, on
+ * the nodes which cache their entity.
  */
 class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
+
+    /**
+     * The serializer registered by the hooks, which is stateless
+     */
+    static final Hibernate53CacheEntrySerializer INSTANCE = new Hibernate53CacheEntrySerializer();
+
+    // The first byte of an entry. The first two are those of the boolean written by the earlier versions.
+    private static final byte DISASSEMBLED = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte DISASSEMBLED_WITH_SUBCLASS_ID = 2;
+    private static final byte DISASSEMBLED_WITH_SCHEMA = 3;
+
     @Override
     public int getTypeId() {
         return SerializationConstants.HIBERNATE5_TYPE_HIBERNATE_CACHE_ENTRY;
@@ -46,10 +67,18 @@ class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
             throws IOException {
 
         try {
-            if (in.readBoolean()) {
-                return readReference(in);
+            final byte format = in.readByte();
+            switch (format) {
+                case DISASSEMBLED:
+                case DISASSEMBLED_WITH_SUBCLASS_ID:
+                    return readDisassembled(in, format);
+                case DISASSEMBLED_WITH_SCHEMA:
+                    return readWithSchema(in);
+                case REFERENCE:
+                    return readReference(in);
+                default:
+                    throw new IOException("Unknown cache entry format " + format);
             }
-            return readDisassembled(in);
         } catch (Exception e) {
             throw rethrow(e);
         }
@@ -61,8 +90,8 @@ class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
             throws IOException {
 
         try {
-            out.writeBoolean(object.isReferenceEntry());
             if (object.isReferenceEntry()) {
+                out.writeByte(REFERENCE);
                 // Reference entries are not disassembled. Instead, to be serialized, they rely entirely on
                 // the entity itself being Serializable. This is not a common thing (Hibernate is currently
                 // very restrictive about what can be cached by reference), so it may not be worth dealing
@@ -77,7 +106,7 @@ class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
     }
 
     @SuppressWarnings("Duplicates")
-    private static CacheEntry readDisassembled(final ObjectDataInput in)
+    private static CacheEntry readDisassembled(final ObjectDataInput in, final byte format)
             throws IOException {
 
         final int length = in.readInt();
@@ -86,10 +115,46 @@ class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
             disassembledState[i] = in.readObject();
         }
 
-        final String subclass = in.readUTF();
+        if (format == DISASSEMBLED_WITH_SUBCLASS_ID) {
+            final long subclassId = in.readLong();
+            return newEntry(disassembledState, subclassId, in.readObject());
+        }
+        final String subclass = in.readString();
         final Object version = in.readObject();
 
-        return new CacheEntryImpl(disassembledState, subclass, version);
+        return StandardCacheEntries.newEntry(disassembledState, subclass, version);
+    }
+
+    private static CacheEntry readWithSchema(final ObjectDataInput in)
+            throws IOException {
+
+        final long subclassId = in.readLong();
+        final int schemaId = in.readInt();
+        final int length = in.readInt();
+        final CacheEntrySchema schema = CacheEntryDictionary.schemaOf(subclassId, schemaId);
+        if (schema != null) {
+            final Serializable[] disassembledState = schema.read(in);
+            return newEntry(disassembledState, subclassId, in.readObject());
+        }
+        final byte[] encodedState = new byte[length];
+        in.readFully(encodedState);
+        final Object version = in.readObject();
+        // a node which caches the entity but cannot decode its state, e.g. written by another version of it, misses the
+        // entry, as Hibernate could not read it; the others keep the state to write it back
+        return CacheEntryDictionary.nameOf(subclassId) == null
+                ? new CacheEntryImpl(subclassId, schemaId, encodedState, version)
+                : null;
+    }
+
+    /**
+     * @return the entry as Hibernate creates it if the name of the id is known, as Hibernate may read it, otherwise
+     * one which keeps the id to write it back
+     */
+    private static CacheEntry newEntry(final Serializable[] disassembledState, final long subclassId, final Object version) {
+        final String subclass = CacheEntryDictionary.nameOf(subclassId);
+        return subclass == null
+                ? new CacheEntryImpl(disassembledState, subclassId, version)
+                : StandardCacheEntries.newEntry(disassembledState, subclass, version);
     }
 
     private static CacheEntry readReference(final ObjectDataInput in) throws IOException {
@@ -109,16 +174,71 @@ class Hibernate53CacheEntrySerializer implements StreamSerializer<CacheEntry> {
     private static void writeDisassembled(final ObjectDataOutput out, final CacheEntry object)
             throws IOException {
 
+        final long subclassId = subclassIdOf(object);
+        if (subclassId != CacheEntryDictionary.NO_ID && writeWithSchema(out, object, subclassId)) {
+            return;
+        }
+        out.writeByte(subclassId == CacheEntryDictionary.NO_ID ? DISASSEMBLED : DISASSEMBLED_WITH_SUBCLASS_ID);
         final Serializable[] disassembledState = object.getDisassembledState();
         out.writeInt(disassembledState.length);
         for (final Serializable state : disassembledState) {
             out.writeObject(state);
         }
 
-        out.writeUTF(object.getSubclass());
+        if (subclassId == CacheEntryDictionary.NO_ID) {
+            out.writeString(object.getSubclass());
+        } else {
+            out.writeLong(subclassId);
+        }
         out.writeObject(object.getVersion());
     }
 
+    /**
+     * Writes the entry with the schema of its entity, or its state as it was read if the schema is unknown.
+     *
+     * @return {@code false} if the entry has to be written without a schema
+     */
+    private static boolean writeWithSchema(final ObjectDataOutput out, final CacheEntry object, final long subclassId)
+            throws IOException {
+
+        final byte[] encodedState = object instanceof CacheEntryImpl ? ((CacheEntryImpl) object).getEncodedState() : null;
+        if (encodedState != null) {
+            out.writeByte(DISASSEMBLED_WITH_SCHEMA);
+            out.writeLong(subclassId);
+            out.writeInt(((CacheEntryImpl) object).getSchemaId());
+            out.writeInt(encodedState.length);
+            out.write(encodedState);
+            out.writeObject(object.getVersion());
+            return true;
+        }
+        final CacheEntrySchema schema = CacheEntryDictionary.writtenSchemaOf(subclassId);
+        if (schema == null || !(out instanceof BufferObjectDataOutput) || !schema.accepts(object.getDisassembledState())) {
+            return false;
+        }
+        final BufferObjectDataOutput buffer = (BufferObjectDataOutput) out;
+        buffer.writeByte(DISASSEMBLED_WITH_SCHEMA);
+        buffer.writeLong(subclassId);
+        buffer.writeInt(schema.getId());
+        // the length lets the nodes which do not know the schema keep the state as it is
+        final int lengthPosition = buffer.position();
+        buffer.writeInt(0);
+        schema.write(buffer, object.getDisassembledState());
+        buffer.writeInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+        buffer.writeObject(object.getVersion());
+        return true;
+    }
+
+    private static long subclassIdOf(final CacheEntry object) {
+        if (object instanceof CacheEntryImpl) {
+            final long subclassId = ((CacheEntryImpl) object).getSubclassId();
+            if (subclassId != CacheEntryDictionary.NO_ID) {
+                // read with an id, possibly one this node does not know
+                return subclassId;
+            }
+        }
+        return CacheEntryDictionary.idOf(object.getSubclass());
+    }
+
     private static void writeReference(final ObjectDataOutput out, final CacheEntry object)
             throws IOException {
 
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.serialization.impl.SerializationConstants;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.internal.NaturalIdCacheKey;
+import org.hibernate.cache.spi.QueryKey;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A serializer of the keys Hibernate creates for the entries of entities, collections and natural ids by its
+ * {@code DefaultCacheKeysFactory}, and of the keys of query results, which would otherwise be written by Java
+ * serialization together with the descriptors of their classes.
+ * <p/>
+ * The members of a cluster compare the keys of a map by their serialized form, so a key is written the same way by every
+ * node: the names of its entity or collection are written in full, as not every node registers them in the
+ * {@link CacheEntryDictionary}. The ids are written by their type, the elements of composite ids one by one, and the
+ * hash codes Hibernate derived from the types of the ids as they are, so that the keys read are equal to the keys
+ * Hibernate creates.
+ */
+final class Hibernate53CacheKeySerializer implements StreamSerializer<Object> {
+
+    /**
+     * The serializer registered by the hooks, which is stateless
+     */
+    static final Hibernate53CacheKeySerializer INSTANCE = new Hibernate53CacheKeySerializer();
+
+    // The first byte of a key, its type
+    private static final byte BASIC_KEY = 0;
+    private static final byte KEY = 1;
+    private static final byte NATURAL_ID_KEY = 2;
+    private static final byte QUERY_KEY = 3;
+
+    // The first byte of an id
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte STRING = 3;
+    private static final byte UUID_VALUE = 4;
+    private static final byte ARRAY = 5;
+    private static final byte OBJECT = 6;
+
+    @Override
+    public int getTypeId() {
+        return SerializationConstants.HIBERNATE5_TYPE_HIBERNATE_CACHE_KEY;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * @return whether the keys of the type are written by this serializer
+     */
+    static boolean supports(final Class<?> keyClass) {
+        return keyClass != QueryKey.class || QueryKeyFields.AVAILABLE;
+    }
+
+    @Override
+    public void write(final ObjectDataOutput out, final Object object)
+            throws IOException {
+
+        if (object instanceof BasicCacheKeyImplementation) {
+            final BasicCacheKeyImplementation key = (BasicCacheKeyImplementation) object;
+            out.writeByte(BASIC_KEY);
+            writeId(out, key.getId());
+            out.writeString(key.getEntityOrRoleName());
+            out.writeInt(key.hashCode());
+        } else if (object instanceof CacheKeyImplementation) {
+            final CacheKeyImplementation key = (CacheKeyImplementation) object;
+            out.writeByte(KEY);
+            writeId(out, key.getId());
+            out.writeString(key.getEntityOrRoleName());
+            out.writeString(key.getTenantId());
+            out.writeInt(key.hashCode());
+        } else if (object instanceof NaturalIdCacheKey) {
+            final NaturalIdCacheKey key = (NaturalIdCacheKey) object;
+            out.writeByte(NATURAL_ID_KEY);
+            writeId(out, key.getNaturalIdValues());
+            out.writeString(key.getEntityName());
+            out.writeString(key.getTenantId());
+            out.writeInt(key.hashCode());
+        } else if (object instanceof QueryKey) {
+            out.writeByte(QUERY_KEY);
+            writeQueryKey(out, (QueryKey) object);
+        } else {
+            throw new IOException("Unknown cache key type " + object.getClass().getName());
+        }
+    }
+
+    @Override
+    public Object read(final ObjectDataInput in)
+            throws IOException {
+
+        final byte type = in.readByte();
+        switch (type) {
+            case BASIC_KEY:
+                return new BasicCacheKeyImplementation((Serializable) readId(in), in.readString(), in.readInt());
+            case KEY:
+                return new CacheKeyImplementation(readId(in), in.readString(), in.readString(), in.readInt());
+            case NATURAL_ID_KEY:
+                return new NaturalIdCacheKey(readId(in), in.readString(), in.readString(), in.readInt());
+            case QUERY_KEY:
+                return readQueryKey(in);
+            default:
+                throw new IOException("Unknown cache key type " + type);
+        }
+    }
+
+    /**
+     * Writes an id or the values of a natural id, by a tag and the value for the common types of ids, and the elements
+     * of the arrays composite ids are disassembled into one by one
+     */
+    private static void writeId(final ObjectDataOutput out, final Object id)
+            throws IOException {
+
+        if (id == null) {
+            out.writeByte(NULL);
+        } else if (id instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) id);
+        } else if (id instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) id);
+        } else if (id instanceof String) {
+            out.writeByte(STRING);
+            out.writeString((String) id);
+        } else if (id instanceof UUID) {
+            out.writeByte(UUID_VALUE);
+            WireFormat.writeUuid(out, (UUID) id);
+        } else if (id.getClass() == Object[].class) {
+            final Object[] elements = (Object[]) id;
+            out.writeByte(ARRAY);
+            out.writeInt(elements.length);
+            for (final Object element : elements) {
+                writeId(out, element);
+            }
+        } else {
+            out.writeByte(OBJECT);
+            out.writeObject(id);
+        }
+    }
+
+    private static Object readId(final ObjectDataInput in)
+            throws IOException {
+
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case LONG:
+                return in.readLong();
+            case INT:
+                return in.readInt();
+            case STRING:
+                return in.readString();
+            case UUID_VALUE:
+                return WireFormat.readUuid(in);
+            case ARRAY:
+                final Object[] elements = new Object[in.readInt()];
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = readId(in);
+                }
+                return elements;
+            case OBJECT:
+                return in.readObject();
+            default:
+                throw new IOException("Unknown id tag " + tag);
+        }
+    }
+
+    private static void writeQueryKey(final ObjectDataOutput out, final QueryKey key)
+            throws IOException {
+
+        try {
+            out.writeString((String) QueryKeyFields.SQL_QUERY_STRING.get(key));
+            out.writeObject(QueryKeyFields.PARAMETER_BINDINGS.get(key));
+            writeNullableInt(out, (Integer) QueryKeyFields.FIRST_ROW.get(key));
+            writeNullableInt(out, (Integer) QueryKeyFields.MAX_ROWS.get(key));
+            out.writeStringArray((String[]) QueryKeyFields.ENABLED_FILTER_NAMES.get(key));
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static QueryKey readQueryKey(final ObjectDataInput in)
+            throws IOException {
+
+        final String sqlQueryString = in.readString();
+        final QueryKey.ParameterBindingsMemento parameterBindings = in.readObject();
+        final Integer firstRow = readNullableInt(in);
+        final Integer maxRows = readNullableInt(in);
+        // in the order they were written, as the key compares the names in order
+        final Set<String> enabledFilterNames = new LinkedHashSet<>(Arrays.asList(in.readStringArray()));
+        return new QueryKey(sqlQueryString, parameterBindings, firstRow, maxRows, enabledFilterNames);
+    }
+
+    private static void writeNullableInt(final ObjectDataOutput out, final Integer value)
+            throws IOException {
+
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readNullableInt(final ObjectDataInput in)
+            throws IOException {
+
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    /**
+     * The fields of a {@code QueryKey}, which has no accessors. Query keys are written by Java serialization if the
+     * fields cannot be accessed, like those of another version of Hibernate.
+     */
+    private static final class QueryKeyFields {
+
+        static final Field SQL_QUERY_STRING = field("sqlQueryString");
+        static final Field PARAMETER_BINDINGS = field("parameterBindingsMemento");
+        static final Field FIRST_ROW = field("firstRow");
+        static final Field MAX_ROWS = field("maxRows");
+        static final Field ENABLED_FILTER_NAMES = field("enabledFilterNames");
+        static final boolean AVAILABLE = SQL_QUERY_STRING != null && PARAMETER_BINDINGS != null && FIRST_ROW != null
+                && MAX_ROWS != null && ENABLED_FILTER_NAMES != null;
+
+        private QueryKeyFields() {
+        }
+
+        private static Field field(final String name) {
+            try {
+                final Field field = QueryKey.class.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.Serializer;
+import com.hazelcast.nio.serialization.SerializerHook;
+
+/**
+ * Registers {@link Hibernate53CacheEntrySerializer} for the entries Hibernate builds itself, which would otherwise be
+ * written by Java serialization. They are read back as {@code StandardCacheEntryImpl}s, unless the node does not know
+ * the entity of an entry. The hook registers nothing if {@link CacheEnvironment#NATIVE_ENTRY_SERIALIZATION} is
+ * disabled.
+ */
+public class Hibernate53StandardCacheEntrySerializerHook implements SerializerHook {
+
+    private static final String SKIP_INIT_MSG = "Hibernate 5 not available, skipping serializer initialization";
+
+    private final Class<?> cacheEntryClass = tryLoadStandardCacheEntryImpl();
+
+    private static Class<?> tryLoadStandardCacheEntryImpl() {
+        if (!Boolean.parseBoolean(System.getProperty(CacheEnvironment.NATIVE_ENTRY_SERIALIZATION, "false"))) {
+            return null;
+        }
+        // registered only if the entries it reads can be created as the type Hibernate expects
+        final Class<?> entryClass = StandardCacheEntries.entryClass();
+        if (entryClass == null) {
+            Logger.getLogger(Hibernate53StandardCacheEntrySerializerHook.class).finest(SKIP_INIT_MSG);
+        }
+        return entryClass;
+    }
+
+    @Override
+    public Serializer createSerializer() {
+        // the same serializer as that of CacheEntryImpl, as both share its type id
+        return cacheEntryClass == null ? null : Hibernate53CacheEntrySerializer.INSTANCE;
+    }
+
+    @Override
+    public Class<?> getSerializationType() {
+        return cacheEntryClass;
+    }
+
+    @Override
+    public boolean isOverwritable() {
+        return true;
+    }
+}
@@ -54,7 +54,7 @@ public class Hibernate5CacheEntrySerializerHook implements SerializerHook {
 
     @Override
     public Serializer createSerializer() {
-        return cacheEntryClass == null ? null : new Hibernate53CacheEntrySerializer();
+        return cacheEntryClass == null ? null : Hibernate53CacheEntrySerializer.INSTANCE;
     }
 
     @Override
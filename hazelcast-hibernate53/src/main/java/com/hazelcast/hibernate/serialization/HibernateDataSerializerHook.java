@@ -15,7 +15,13 @@
 
 package com.hazelcast.hibernate.serialization;
 
+import com.hazelcast.hibernate.PartitionAwareCacheKey;
+import com.hazelcast.hibernate.distributed.LockEntryProcessor;
+import com.hazelcast.hibernate.distributed.PutFromLoadEntryProcessor;
+import com.hazelcast.hibernate.distributed.UnlockEntryProcessor;
+import com.hazelcast.hibernate.distributed.UpdateEntryProcessor;
 import com.hazelcast.hibernate.local.Invalidation;
+import com.hazelcast.hibernate.local.InvalidationBatch;
 import com.hazelcast.hibernate.local.Timestamp;
 import com.hazelcast.internal.serialization.DataSerializerHook;
 import com.hazelcast.internal.serialization.impl.FactoryIdHelper;
@@ -41,6 +47,18 @@ public class HibernateDataSerializerHook implements DataSerializerHook {
      * @see ExpiryMarker
      */
     public static final int EXPIRY_MARKER = 1;
+    /**
+     * @see LockEntryProcessor
+     */
+    public static final int LOCK = 2;
+    /**
+     * @see UnlockEntryProcessor
+     */
+    public static final int UNLOCK = 3;
+    /**
+     * @see UpdateEntryProcessor
+     */
+    public static final int UPDATE = 4;
 
     /**
      * @see Invalidation
@@ -50,6 +68,46 @@ public class HibernateDataSerializerHook implements DataSerializerHook {
      * @see Timestamp
      */
     public static final int TIMESTAMP = 6;
+    /**
+     * @see InvalidationBatch
+     */
+    public static final int INVALIDATION_BATCH = 7;
+    /**
+     * @see PutFromLoadEntryProcessor
+     */
+    public static final int PUT_FROM_LOAD = 8;
+    /**
+     * @see CompressedValue
+     */
+    public static final int COMPRESSED_VALUE = 9;
+    /**
+     * @see Value in the compact wire format
+     */
+    public static final int VALUE_V2 = 10;
+    /**
+     * @see ExpiryMarker in the compact wire format
+     */
+    public static final int EXPIRY_MARKER_V2 = 11;
+    /**
+     * @see Invalidation in the compact wire format
+     */
+    public static final int INVALIDATION_V2 = 12;
+    /**
+     * @see Timestamp in the compact wire format
+     */
+    public static final int TIMESTAMP_V2 = 13;
+    /**
+     * @see InvalidationBatch in the compact wire format
+     */
+    public static final int INVALIDATION_BATCH_V2 = 14;
+    /**
+     * @see CompactIdList
+     */
+    public static final int COMPACT_ID_LIST = 15;
+    /**
+     * @see PartitionAwareCacheKey
+     */
+    public static final int PARTITION_AWARE_CACHE_KEY = 16;
 
     @Override
     public int getFactoryId() {
@@ -64,25 +122,82 @@ public class HibernateDataSerializerHook implements DataSerializerHook {
     private static class Factory implements DataSerializableFactory {
         @Override
         public IdentifiedDataSerializable create(final int typeId) {
+            if (typeId >= VALUE_V2 && typeId <= INVALIDATION_BATCH_V2) {
+                return createCompact(typeId);
+            }
             IdentifiedDataSerializable result;
             switch (typeId) {
                 case VALUE:
-                    result = new Value();
+                    result = original(new Value());
                     break;
                 case EXPIRY_MARKER:
-                    result = new ExpiryMarker();
+                    result = original(new ExpiryMarker());
+                    break;
+                case LOCK:
+                    result = new LockEntryProcessor();
+                    break;
+                case UNLOCK:
+                    result = new UnlockEntryProcessor();
+                    break;
+                case UPDATE:
+                    result = new UpdateEntryProcessor();
+                    break;
+                case PUT_FROM_LOAD:
+                    result = new PutFromLoadEntryProcessor();
                     break;
                 case INVALIDATION:
-                    result = new Invalidation();
+                    result = original(new Invalidation());
                     break;
                 case TIMESTAMP:
-                    result = new Timestamp();
+                    result = original(new Timestamp());
+                    break;
+                case INVALIDATION_BATCH:
+                    result = original(new InvalidationBatch());
+                    break;
+                case COMPRESSED_VALUE:
+                    result = new CompressedValue();
+                    break;
+                case COMPACT_ID_LIST:
+                    result = new CompactIdList();
+                    break;
+                case PARTITION_AWARE_CACHE_KEY:
+                    result = new PartitionAwareCacheKey();
                     break;
                 default:
                     result = null;
             }
             return result;
         }
+
+        private static IdentifiedDataSerializable createCompact(final int typeId) {
+            final CompactWireFormatSupport result;
+            switch (typeId) {
+                case VALUE_V2:
+                    result = new Value();
+                    break;
+                case EXPIRY_MARKER_V2:
+                    result = new ExpiryMarker();
+                    break;
+                case INVALIDATION_V2:
+                    result = new Invalidation();
+                    break;
+                case TIMESTAMP_V2:
+                    result = new Timestamp();
+                    break;
+                case INVALIDATION_BATCH_V2:
+                    result = new InvalidationBatch();
+                    break;
+                default:
+                    return null;
+            }
+            result.setCompactWireFormat(true);
+            return result;
+        }
+
+        private static IdentifiedDataSerializable original(final CompactWireFormatSupport result) {
+            result.setCompactWireFormat(false);
+            return result;
+        }
     }
 
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.logging.Logger;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Accesses the id lists of the entries Hibernate caches for collections and query results, which {@link CompactIdList}
+ * replaces. Hibernate only creates the entries from collections and result sets, so they are created and read by the
+ * constructors and fields it keeps for deserialization, which are not public. Entries are left as they are if those
+ * cannot be accessed. The same applies to the items read-write access wraps the entries in.
+ */
+public final class IdListEntries {
+
+    private static final String QUERY_RESULTS_CLASS_NAME = "org.hibernate.cache.internal.QueryResultsCacheImpl$CacheItem";
+    private static final String READ_WRITE_ITEM_CLASS_NAME = "org.hibernate.cache.spi.support.AbstractReadWriteAccess$Item";
+
+    private static final Field COLLECTION_STATE = tryLoadField(CollectionCacheEntry.class, "state");
+    private static final Constructor<?> COLLECTION_CONSTRUCTOR = tryLoadConstructor(CollectionCacheEntry.class,
+            Serializable.class);
+    private static final Class<?> QUERY_RESULTS_CLASS = tryLoadClass(QUERY_RESULTS_CLASS_NAME);
+    private static final Field QUERY_TIMESTAMP = tryLoadField(QUERY_RESULTS_CLASS, "timestamp");
+    private static final Field QUERY_RESULTS = tryLoadField(QUERY_RESULTS_CLASS, "results");
+    private static final Constructor<?> QUERY_RESULTS_CONSTRUCTOR = tryLoadConstructor(QUERY_RESULTS_CLASS,
+            long.class, List.class);
+    private static final Class<?> READ_WRITE_ITEM_CLASS = tryLoadClass(READ_WRITE_ITEM_CLASS_NAME);
+    private static final Field READ_WRITE_ITEM_VALUE = tryLoadField(READ_WRITE_ITEM_CLASS, "value");
+    private static final Field READ_WRITE_ITEM_VERSION = tryLoadField(READ_WRITE_ITEM_CLASS, "version");
+    private static final Field READ_WRITE_ITEM_TIMESTAMP = tryLoadField(READ_WRITE_ITEM_CLASS, "timestamp");
+    private static final Constructor<?> READ_WRITE_ITEM_CONSTRUCTOR = tryLoadConstructor(READ_WRITE_ITEM_CLASS,
+            Object.class, Object.class, long.class);
+    private static final boolean READ_WRITE_ITEM_ACCESSIBLE = READ_WRITE_ITEM_VALUE != null
+            && READ_WRITE_ITEM_VERSION != null && READ_WRITE_ITEM_TIMESTAMP != null && READ_WRITE_ITEM_CONSTRUCTOR != null;
+
+    private IdListEntries() {
+    }
+
+    /**
+     * @return the disassembled elements of the collection, or {@code null} if they are not an array of the
+     * {@code Serializable[]} type Hibernate disassembles most collections into
+     */
+    static Serializable[] collectionState(final CollectionCacheEntry entry) {
+        if (COLLECTION_STATE == null || COLLECTION_CONSTRUCTOR == null) {
+            return null;
+        }
+        final Object state = get(COLLECTION_STATE, entry);
+        return state != null && state.getClass() == Serializable[].class ? (Serializable[]) state : null;
+    }
+
+    static CollectionCacheEntry newCollectionEntry(final Serializable[] state) {
+        return (CollectionCacheEntry) newInstance(COLLECTION_CONSTRUCTOR, (Object) state);
+    }
+
+    /**
+     * @return whether the value is the entry of query results, whose results can be read
+     */
+    public static boolean isQueryResults(final Object value) {
+        return value != null && value.getClass() == QUERY_RESULTS_CLASS && QUERY_TIMESTAMP != null && QUERY_RESULTS != null
+                && QUERY_RESULTS_CONSTRUCTOR != null;
+    }
+
+    static long queryTimestamp(final Object queryResults) {
+        return (Long) get(QUERY_TIMESTAMP, queryResults);
+    }
+
+    public static List<?> queryResults(final Object queryResults) {
+        return (List<?>) get(QUERY_RESULTS, queryResults);
+    }
+
+    /**
+     * @return the value of the item if the value is an item of read-write access, otherwise the value itself
+     */
+    static Object unwrapReadWriteItem(final Object value) {
+        return value != null && value.getClass() == READ_WRITE_ITEM_CLASS && READ_WRITE_ITEM_VALUE != null
+                ? get(READ_WRITE_ITEM_VALUE, value)
+                : value;
+    }
+
+    /**
+     * @return whether the value is an item of read-write access, which can be read and created again
+     */
+    static boolean isReadWriteItem(final Object value) {
+        return READ_WRITE_ITEM_ACCESSIBLE && value != null && value.getClass() == READ_WRITE_ITEM_CLASS;
+    }
+
+    static Object readWriteItemVersion(final Object item) {
+        return get(READ_WRITE_ITEM_VERSION, item);
+    }
+
+    static long readWriteItemTimestamp(final Object item) {
+        return (Long) get(READ_WRITE_ITEM_TIMESTAMP, item);
+    }
+
+    static Object newReadWriteItem(final Object value, final Object version, final long timestamp) {
+        return newInstance(READ_WRITE_ITEM_CONSTRUCTOR, value, version, timestamp);
+    }
+
+    static Object newQueryResults(final long timestamp, final List<?> results) {
+        return newInstance(QUERY_RESULTS_CONSTRUCTOR, timestamp, results);
+    }
+
+    private static Object get(final Field field, final Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    private static Object newInstance(final Constructor<?> constructor, final Object... arguments) {
+        try {
+            return constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    private static Class<?> tryLoadClass(final String className) {
+        try {
+            return Class.forName(className);
+        } catch (Throwable e) {
+            Logger.getLogger(IdListEntries.class).finest("Cannot load " + className + ", " + e);
+            return null;
+        }
+    }
+
+    private static Field tryLoadField(final Class<?> type, final String name) {
+        try {
+            final Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Throwable e) {
+            Logger.getLogger(IdListEntries.class).finest("Cannot access " + name + " of " + type + ", " + e);
+            return null;
+        }
+    }
+
+    private static Constructor<?> tryLoadConstructor(final Class<?> type, final Class<?>... parameterTypes) {
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (Throwable e) {
+            Logger.getLogger(IdListEntries.class).finest("Cannot create " + type + ", " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.logging.Logger;
+import org.hibernate.cache.spi.entry.CacheEntry;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates the {@code StandardCacheEntryImpl}s of Hibernate, which its loaders cast the entries of entity regions to, so
+ * that {@link Hibernate53CacheEntrySerializer} reads the entries Hibernate cached as the same type. Hibernate only
+ * creates them from entities, so they are created by the constructor Hibernate keeps for deserialization, which is
+ * not public.
+ */
+final class StandardCacheEntries {
+
+    private static final String CLASS_NAME = "org.hibernate.cache.spi.entry.StandardCacheEntryImpl";
+
+    private static final Constructor<? extends CacheEntry> CONSTRUCTOR = tryLoadConstructor();
+
+    private StandardCacheEntries() {
+    }
+
+    /**
+     * @return the class of the entries, or {@code null} if they cannot be created
+     */
+    static Class<? extends CacheEntry> entryClass() {
+        return CONSTRUCTOR == null ? null : CONSTRUCTOR.getDeclaringClass();
+    }
+
+    /**
+     * @return a {@code StandardCacheEntryImpl}, or a {@link CacheEntryImpl} if they cannot be created
+     */
+    static CacheEntry newEntry(final Serializable[] disassembledState, final String subclass, final Object version) {
+        if (CONSTRUCTOR == null) {
+            return new CacheEntryImpl(disassembledState, subclass, version);
+        }
+        try {
+            return CONSTRUCTOR.newInstance(disassembledState, subclass, version);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the cache entry of " + subclass, e);
+        }
+    }
+
+    private static Constructor<? extends CacheEntry> tryLoadConstructor() {
+        try {
+            final Constructor<? extends CacheEntry> constructor = Class.forName(CLASS_NAME)
+                    .asSubclass(CacheEntry.class)
+                    .getDeclaredConstructor(Serializable[].class, String.class, Object.class);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (Throwable e) {
+            Logger.getLogger(StandardCacheEntries.class).finest("Cannot create " + CLASS_NAME + ", " + e);
+            return null;
+        }
+    }
+}
@@ -83,7 +83,8 @@ public class Value extends Expirable {
     public void writeData(final ObjectDataOutput out) throws IOException {
         super.writeData(out);
         out.writeLong(timestamp);
-        out.writeObject(value);
+        // the value of subclasses which hold it in another form
+        out.writeObject(getValue());
     }
 
     @Override
@@ -93,7 +94,7 @@ public class Value extends Expirable {
 
     @Override
     public int getClassId() {
-        return HibernateDataSerializerHook.VALUE;
+        return isCompactWireFormat() ? HibernateDataSerializerHook.VALUE_V2 : HibernateDataSerializerHook.VALUE;
     }
 
     @Override
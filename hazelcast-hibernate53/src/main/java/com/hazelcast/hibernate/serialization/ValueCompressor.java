@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the cached values of a region whose serialized form is at least as large as a threshold, like those of
+ * entities with text properties or of large collections, with a {@link Deflater} and optionally a
+ * {@link CompressionDictionary}. Values are cached as {@link CompressedValue}s, which the region cache decompresses
+ * when they are read, so members store and ship the values compressed.
+ * <p/>
+ * Values below the threshold, and values which do not compress, are cached serialized as they are, so that they are
+ * not serialized twice. The time spent compressing and decompressing, and the sizes of the values before and after
+ * compression, are recorded by the {@link RegionMetrics} of the region.
+ */
+public final class ValueCompressor {
+
+    private final SerializationService serializationService;
+    private final int threshold;
+    private final CompressionDictionary dictionary;
+    private final RegionMetrics metrics;
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * @param threshold  the size in bytes of the serialized values from which they are compressed
+     * @param dictionary the preset dictionary of the compressor, or {@code null} to compress without one
+     */
+    public ValueCompressor(SerializationService serializationService, int threshold, CompressionDictionary dictionary,
+                           RegionMetrics metrics) {
+        this.serializationService = serializationService;
+        this.threshold = threshold;
+        this.dictionary = dictionary;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the value as it is to be cached
+     */
+    public Object compress(final Object value) {
+        if (value == null) {
+            return null;
+        }
+        final byte[] serialized = serializationService.toData(value).toByteArray();
+        if (serialized.length < threshold) {
+            return new CompressedValue(CompressedValue.STORED, 0, serialized.length, serialized);
+        }
+        final long start = System.nanoTime();
+        final byte[] deflated = deflate(serialized);
+        metrics.recordCompression(start, serialized.length, deflated == null ? serialized.length : deflated.length);
+        if (deflated == null) {
+            return new CompressedValue(CompressedValue.STORED, 0, serialized.length, serialized);
+        }
+        return dictionary == null
+                ? new CompressedValue(CompressedValue.DEFLATED, 0, serialized.length, deflated)
+                : new CompressedValue(CompressedValue.DEFLATED_WITH_DICTIONARY, dictionary.getId(), serialized.length,
+                deflated);
+    }
+
+    /**
+     * @return the value as it was cached, or {@code null} if it is compressed with another dictionary than that of
+     * this compressor
+     */
+    public Object decompress(final Object value) {
+        if (!(value instanceof CompressedValue)) {
+            // cached before the region compressed its values
+            return value;
+        }
+        final CompressedValue compressed = (CompressedValue) value;
+        if (compressed.getEncoding() == CompressedValue.STORED) {
+            return toObject(compressed.getBytes());
+        }
+        if (compressed.getEncoding() == CompressedValue.DEFLATED_WITH_DICTIONARY
+                && (dictionary == null || dictionary.getId() != compressed.getDictionaryId())) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        final byte[] serialized = inflate(compressed);
+        metrics.recordDecompression(start);
+        return toObject(serialized);
+    }
+
+    private Object toObject(final byte[] serialized) {
+        return serializationService.toObject(new HeapData(serialized));
+    }
+
+    /**
+     * @return the compressed bytes, or {@code null} if they are not smaller than the given ones
+     */
+    private byte[] deflate(final byte[] serialized) {
+        final Deflater deflater = deflaters.get();
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.bytes());
+            }
+            deflater.setInput(serialized);
+            deflater.finish();
+            final byte[] deflated = new byte[serialized.length];
+            int length = 0;
+            while (!deflater.finished() && length < deflated.length) {
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            return deflater.finished() && length < serialized.length ? Arrays.copyOf(deflated, length) : null;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private byte[] inflate(final CompressedValue compressed) {
+        final Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(compressed.getBytes());
+            final byte[] serialized = new byte[compressed.getLength()];
+            int length = 0;
+            while (length < serialized.length) {
+                final int inflated = inflater.inflate(serialized, length, serialized.length - length);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(dictionary.bytes());
+                } else if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new DataFormatException("Truncated value");
+                }
+                length += inflated;
+            }
+            return serialized;
+        } catch (DataFormatException e) {
+            throw new HazelcastSerializationException("Cannot decompress the cached value", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+}
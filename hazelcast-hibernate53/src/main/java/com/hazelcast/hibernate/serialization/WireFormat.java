@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The compact wire format of the {@link CompactWireFormatSupport} types, which writes versions of the common types
+ * by a tag and their primitive values rather than as objects, and UUIDs as two longs rather than as strings.
+ * <p/>
+ * Nodes create the objects in the compact format only where the system property
+ * {@link CacheEnvironment#COMPACT_WIRE_FORMAT} is enabled, which applies to the whole JVM rather than to a region
+ * factory. Nodes read both formats regardless of it.
+ */
+public final class WireFormat {
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte SHORT = 3;
+    private static final byte SQL_TIMESTAMP = 4;
+    private static final byte INSTANT = 5;
+    private static final byte OBJECT = 6;
+
+    private static final byte STRING_ID = 0;
+    private static final byte UUID_ID = 1;
+    private static final int UUID_STRING_LENGTH = 36;
+
+    private static volatile boolean compact = Boolean.parseBoolean(
+            System.getProperty(CacheEnvironment.COMPACT_WIRE_FORMAT, "false"));
+
+    private WireFormat() {
+    }
+
+    /**
+     * @return whether the objects created by this node are written in the compact wire format
+     */
+    public static boolean isCompact() {
+        return compact;
+    }
+
+    static void setCompact(final boolean compact) {
+        WireFormat.compact = compact;
+    }
+
+    /**
+     * Writes the version of an entry, by a tag and its value for the types Hibernate versions entities with
+     */
+    public static void writeVersion(final ObjectDataOutput out, final Object version) throws IOException {
+        if (version == null) {
+            out.writeByte(NULL);
+        } else if (version instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) version);
+        } else if (version instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) version);
+        } else if (version instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) version);
+        } else if (version.getClass() == java.sql.Timestamp.class) {
+            final java.sql.Timestamp timestamp = (java.sql.Timestamp) version;
+            out.writeByte(SQL_TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (version instanceof Instant) {
+            final Instant instant = (Instant) version;
+            out.writeByte(INSTANT);
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        } else {
+            out.writeByte(OBJECT);
+            out.writeObject(version);
+        }
+    }
+
+    public static Object readVersion(final ObjectDataInput in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case SHORT:
+                return in.readShort();
+            case SQL_TIMESTAMP:
+                final java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case INSTANT:
+                return Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case OBJECT:
+                return in.readObject();
+            default:
+                throw new IOException("Unknown version tag " + tag);
+        }
+    }
+
+    public static void writeUuid(final ObjectDataOutput out, final UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(final ObjectDataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    /**
+     * Writes an id, as a UUID if it is the string form of one, like the ids of soft locks
+     */
+    public static void writeId(final ObjectDataOutput out, final String id) throws IOException {
+        final UUID uuid = id.length() == UUID_STRING_LENGTH ? parseUuid(id) : null;
+        if (uuid != null && uuid.toString().equals(id)) {
+            out.writeByte(UUID_ID);
+            writeUuid(out, uuid);
+        } else {
+            out.writeByte(STRING_ID);
+            out.writeString(id);
+        }
+    }
+
+    public static String readId(final ObjectDataInput in) throws IOException {
+        return in.readByte() == UUID_ID ? readUuid(in).toString() : in.readString();
+    }
+
+    private static UUID parseUuid(final String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.entity.DummyEntity;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.ParallelJVMTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionDataAccess;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category({QuickTest.class, ParallelJVMTest.class})
+public class BulkDataAccessTest extends HibernateStatisticsTestSupport {
+
+    @Override
+    protected AccessType getCacheStrategy() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected Properties getCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty(Environment.CACHE_REGION_FACTORY, HazelcastCacheRegionFactory.class.getName());
+        return props;
+    }
+
+    @Test
+    public void testEntitiesAreReadInBulk() {
+        insertDummyEntities(5);
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(DummyEntity.class);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        List<Object> keys = new ArrayList<>();
+        for (long id = 0; id < 6; id++) {
+            keys.add(access.generateCacheKey(id, persister, factory, null));
+        }
+
+        try (Session session = sf.openSession()) {
+            BulkDataAccess bulkAccess = BulkDataAccess.of(access);
+            Map<Object, Object> values = bulkAccess.getAll((SharedSessionContractImplementor) session, keys);
+
+            assertThat(bulkAccess).isSameAs(access);
+            assertThat(values).containsOnlyKeys(keys.subList(0, 5));
+            CacheEntry entry = (CacheEntry) access.get((SharedSessionContractImplementor) session, keys.get(0));
+            assertThat(((CacheEntry) values.get(keys.get(0))).getDisassembledState())
+                    .isEqualTo(entry.getDisassembledState());
+        }
+    }
+
+    @Test
+    public void testCollectionsAreReadInBulk() {
+        insertDummyEntities(3, 2);
+        getPropertiesOfEntity(0).size();
+        getPropertiesOfEntity(1).size();
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        CollectionPersister persister = factory.getMappingMetamodel()
+                .getCollectionDescriptor(DummyEntity.class.getName() + ".properties");
+        CollectionDataAccess access = persister.getCacheAccessStrategy();
+        List<Object> keys = new ArrayList<>();
+        for (long id = 0; id < 3; id++) {
+            keys.add(access.generateCacheKey(id, persister, factory, null));
+        }
+
+        try (Session session = sf.openSession()) {
+            Map<Object, Object> values = BulkDataAccess.of(access).getAll((SharedSessionContractImplementor) session, keys);
+
+            assertThat(values).containsOnlyKeys(keys.get(0), keys.get(1));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.entity.DummyEntity;
+import com.hazelcast.hibernate.entity.DummyProperty;
+import com.hazelcast.hibernate.serialization.CompactIdList;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.ParallelJVMTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionDataAccess;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category({QuickTest.class, ParallelJVMTest.class})
+public class BulkPrefetchTest extends HibernateStatisticsTestSupport {
+
+    @Override
+    protected AccessType getCacheStrategy() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected Properties getCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty(Environment.CACHE_REGION_FACTORY, HazelcastCacheRegionFactory.class.getName());
+        props.setProperty(Environment.QUERY_CACHE_LAYOUT, "SHALLOW");
+        props.setProperty(CacheEnvironment.BULK_PREFETCH_SIZE, "100");
+        return props;
+    }
+
+    @Test
+    public void testEntitiesOfQueryHitAreLoaded() {
+        insertDummyEntities(5);
+        executeQuery();
+        sf.getStatistics().clear();
+
+        List<DummyEntity> entities = executeQuery();
+
+        assertThat(entities).extracting(DummyEntity::getName)
+                .containsExactlyInAnyOrder("dummy:0", "dummy:1", "dummy:2", "dummy:3", "dummy:4");
+        assertThat(sf.getStatistics().getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(sf.getStatistics().getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testEntitiesOfCollectionHitAreReadInBulk() {
+        insertDummyEntities(1, 3);
+        getPropertiesOfEntity(0).size();
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        CollectionPersister collectionPersister = factory.getMappingMetamodel()
+                .getCollectionDescriptor(DummyEntity.class.getName() + ".properties");
+        CollectionDataAccess collectionAccess = collectionPersister.getCacheAccessStrategy();
+        EntityPersister propertyPersister = factory.getMappingMetamodel().getEntityDescriptor(DummyProperty.class);
+        EntityDataAccess propertyAccess = propertyPersister.getCacheAccessStrategy();
+
+        try (Session session = sf.openSession()) {
+            SharedSessionContractImplementor sessionImpl = (SharedSessionContractImplementor) session;
+            assertThat(BulkPrefetch.of(sessionImpl)).isNotNull();
+            Object collection = storageAccess(collectionAccess)
+                    .getFromCache(collectionAccess.generateCacheKey(0L, collectionPersister, factory, null), sessionImpl);
+            List<?> propertyIds = CompactIdList.idsOf(collection);
+            assertThat(propertyIds).hasSize(3);
+
+            HazelcastStorageAccessImpl propertyStorage = storageAccess(propertyAccess);
+            assertThat(propertyStorage.getFromCache(
+                    propertyAccess.generateCacheKey(propertyIds.get(0), propertyPersister, factory, null), sessionImpl))
+                    .isNotNull();
+            HazelcastAccessor.getHazelcastInstance(sf).getMap(DummyProperty.class.getName()).evictAll();
+
+            Object second = propertyAccess.generateCacheKey(propertyIds.get(1), propertyPersister, factory, null);
+            assertThat(propertyStorage.getFromCache(second, sessionImpl)).isNotNull();
+            assertThat(propertyStorage.getFromCache(second, sessionImpl)).isNull();
+        }
+    }
+
+    @Test
+    public void testWrittenEntriesAreNotServedFromBulkRead() {
+        insertDummyEntities(1, 2);
+        getPropertiesOfEntity(0).size();
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        CollectionPersister collectionPersister = factory.getMappingMetamodel()
+                .getCollectionDescriptor(DummyEntity.class.getName() + ".properties");
+        CollectionDataAccess collectionAccess = collectionPersister.getCacheAccessStrategy();
+        EntityPersister propertyPersister = factory.getMappingMetamodel().getEntityDescriptor(DummyProperty.class);
+        EntityDataAccess propertyAccess = propertyPersister.getCacheAccessStrategy();
+
+        try (Session session = sf.openSession()) {
+            SharedSessionContractImplementor sessionImpl = (SharedSessionContractImplementor) session;
+            List<?> propertyIds = CompactIdList.idsOf(storageAccess(collectionAccess)
+                    .getFromCache(collectionAccess.generateCacheKey(0L, collectionPersister, factory, null), sessionImpl));
+            HazelcastStorageAccessImpl propertyStorage = storageAccess(propertyAccess);
+            propertyStorage.getFromCache(
+                    propertyAccess.generateCacheKey(propertyIds.get(0), propertyPersister, factory, null), sessionImpl);
+
+            Object second = propertyAccess.generateCacheKey(propertyIds.get(1), propertyPersister, factory, null);
+            propertyStorage.putIntoCache(second, "written", sessionImpl);
+
+            assertThat(propertyStorage.getFromCache(second, sessionImpl)).isEqualTo("written");
+        }
+    }
+
+    @Test
+    public void testEntriesReadInBulkAreDiscardedOnEviction() {
+        insertDummyEntities(1, 3);
+        getPropertiesOfEntity(0).size();
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        CollectionPersister collectionPersister = factory.getMappingMetamodel()
+                .getCollectionDescriptor(DummyEntity.class.getName() + ".properties");
+        CollectionDataAccess collectionAccess = collectionPersister.getCacheAccessStrategy();
+        EntityPersister propertyPersister = factory.getMappingMetamodel().getEntityDescriptor(DummyProperty.class);
+        EntityDataAccess propertyAccess = propertyPersister.getCacheAccessStrategy();
+
+        try (Session session = sf.openSession()) {
+            SharedSessionContractImplementor sessionImpl = (SharedSessionContractImplementor) session;
+            List<?> propertyIds = CompactIdList.idsOf(storageAccess(collectionAccess)
+                    .getFromCache(collectionAccess.generateCacheKey(0L, collectionPersister, factory, null), sessionImpl));
+            HazelcastStorageAccessImpl propertyStorage = storageAccess(propertyAccess);
+            propertyStorage.getFromCache(
+                    propertyAccess.generateCacheKey(propertyIds.get(0), propertyPersister, factory, null), sessionImpl);
+            HazelcastAccessor.getHazelcastInstance(sf).getMap(DummyProperty.class.getName()).evictAll();
+
+            propertyStorage.evictData(
+                    propertyAccess.generateCacheKey(propertyIds.get(2), propertyPersister, factory, null));
+
+            Object second = propertyAccess.generateCacheKey(propertyIds.get(1), propertyPersister, factory, null);
+            assertThat(propertyStorage.getFromCache(second, sessionImpl)).isNull();
+        }
+    }
+
+    @Test
+    public void testIdsOfCollectionAreOnlyReadInBulkForTheirEntity() {
+        insertDummyEntities(1, 3);
+        getPropertiesOfEntity(0).size();
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        CollectionPersister collectionPersister = factory.getMappingMetamodel()
+                .getCollectionDescriptor(DummyEntity.class.getName() + ".properties");
+        CollectionDataAccess collectionAccess = collectionPersister.getCacheAccessStrategy();
+        EntityPersister entityPersister = factory.getMappingMetamodel().getEntityDescriptor(DummyEntity.class);
+        EntityDataAccess entityAccess = entityPersister.getCacheAccessStrategy();
+        EntityPersister propertyPersister = factory.getMappingMetamodel().getEntityDescriptor(DummyProperty.class);
+        EntityDataAccess propertyAccess = propertyPersister.getCacheAccessStrategy();
+
+        try (Session session = sf.openSession()) {
+            SharedSessionContractImplementor sessionImpl = (SharedSessionContractImplementor) session;
+            List<?> propertyIds = CompactIdList.idsOf(storageAccess(collectionAccess)
+                    .getFromCache(collectionAccess.generateCacheKey(0L, collectionPersister, factory, null), sessionImpl));
+            storageAccess(entityAccess).getFromCache(
+                    entityAccess.generateCacheKey(propertyIds.get(0), entityPersister, factory, null), sessionImpl);
+
+            HazelcastStorageAccessImpl propertyStorage = storageAccess(propertyAccess);
+            propertyStorage.getFromCache(
+                    propertyAccess.generateCacheKey(propertyIds.get(0), propertyPersister, factory, null), sessionImpl);
+            HazelcastAccessor.getHazelcastInstance(sf).getMap(DummyProperty.class.getName()).evictAll();
+
+            Object second = propertyAccess.generateCacheKey(propertyIds.get(1), propertyPersister, factory, null);
+            assertThat(propertyStorage.getFromCache(second, sessionImpl)).isNotNull();
+        }
+    }
+
+    private static HazelcastStorageAccessImpl storageAccess(Object access) {
+        DomainDataRegionTemplate region = (DomainDataRegionTemplate) (access instanceof EntityDataAccess
+                ? ((EntityDataAccess) access).getRegion()
+                : ((CollectionDataAccess) access).getRegion());
+        return (HazelcastStorageAccessImpl) region.getCacheStorageAccess();
+    }
+}
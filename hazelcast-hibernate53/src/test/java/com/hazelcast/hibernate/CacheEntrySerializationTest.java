@@ -0,0 +1,71 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.entity.DummyEntity;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.entry.StandardCacheEntryImpl;
+import org.hibernate.cfg.Environment;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class CacheEntrySerializationTest extends HibernateStatisticsTestSupport {
+
+    @BeforeClass
+    public static void enableNativeEntrySerialization() {
+        System.setProperty(CacheEnvironment.NATIVE_ENTRY_SERIALIZATION, "true");
+    }
+
+    @AfterClass
+    public static void disableNativeEntrySerialization() {
+        System.clearProperty(CacheEnvironment.NATIVE_ENTRY_SERIALIZATION);
+    }
+
+    @Override
+    protected AccessType getCacheStrategy() {
+        return AccessType.READ_ONLY;
+    }
+
+    @Override
+    protected Properties getCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty(Environment.CACHE_REGION_FACTORY, HazelcastCacheRegionFactory.class.getName());
+        props.setProperty(CacheEnvironment.COMPACT_ENTITY_NAMES, "true");
+        return props;
+    }
+
+    @Test
+    public void testEntriesHibernateCreatesAreWrittenWithIdOfEntityName() {
+        insertDummyEntities(1);
+        HazelcastInstance hz = HazelcastAccessor.getHazelcastInstance(sf);
+        Collection<Object> values = hz.getMap(DummyEntity.class.getName()).values();
+        assertThat(values).hasSize(1);
+        CacheEntry entry = (CacheEntry) ((Expirable) values.iterator().next()).getValue();
+        SerializationService serializationService = ((SerializationServiceSupport) hz).getSerializationService();
+
+        Data data = serializationService.toData(entry);
+
+        assertThat(entry).isInstanceOf(StandardCacheEntryImpl.class);
+        assertThat(new String(data.toByteArray(), StandardCharsets.ISO_8859_1)).doesNotContain(DummyEntity.class.getName());
+        CacheEntry read = serializationService.toObject(data);
+        assertThat(read.getSubclass()).isEqualTo(DummyEntity.class.getName());
+        assertThat(read.getDisassembledState()).containsExactly(entry.getDisassembledState());
+    }
+}
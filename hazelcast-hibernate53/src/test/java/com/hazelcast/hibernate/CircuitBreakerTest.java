@@ -0,0 +1,247 @@
+package com.hazelcast.hibernate;
+
+import org.hibernate.cache.spi.access.SoftLock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(5);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+
+        fail(breaker);
+        fail(breaker);
+        assertThat(succeed(breaker)).isEqualTo("value");
+        fail(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(succeed(breaker)).isEqualTo("fallback");
+        assertThat(calls).hasValue(6);
+    }
+
+    @Test
+    public void testOpensAfterSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(100), OPEN_DURATION, nanoTime::get);
+
+        assertThat(breaker.execute(this::slowCall, "fallback")).isEqualTo("value");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.execute(this::slowCall, "fallback")).isEqualTo("value");
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testProbeClosesBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        fail(breaker);
+
+        nanoTime.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(succeed(breaker)).isEqualTo("fallback");
+
+        nanoTime.incrementAndGet();
+        assertThat(succeed(breaker)).isEqualTo("value");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testFailedProbeOpensBreakerAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        fail(breaker);
+
+        nanoTime.addAndGet(OPEN_DURATION.toNanos());
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        nanoTime.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(succeed(breaker)).isEqualTo("fallback");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    public void testOnlyOneProbeIsPermitted() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        fail(breaker);
+        nanoTime.addAndGet(OPEN_DURATION.toNanos());
+
+        String result = breaker.execute(() -> {
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+            return succeed(breaker);
+        }, "fallback");
+
+        assertThat(result).isEqualTo("fallback");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testInFlightCallCompletingAfterOpeningDoesNotCloseBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+
+        String result = breaker.execute(() -> {
+            fail(breaker);
+            return "value";
+        }, "fallback");
+
+        assertThat(result).isEqualTo("value");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(succeed(breaker)).isEqualTo("fallback");
+    }
+
+    @Test
+    public void testInFlightCallFailingAfterOpeningDoesNotPostponeProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+
+        fail(breaker, () -> {
+            fail(breaker);
+            nanoTime.addAndGet(OPEN_DURATION.toNanos() - 1);
+        });
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        nanoTime.incrementAndGet();
+        assertThat(succeed(breaker)).isEqualTo("value");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testInFlightCallCompletingDuringProbeDoesNotCloseBreaker() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        CountDownLatch probing = new CountDownLatch(1);
+        CountDownLatch probeCompletes = new CountDownLatch(1);
+        AtomicReference<String> probeResult = new AtomicReference<>();
+        Thread probe = new Thread(() -> probeResult.set(breaker.execute(() -> {
+            probing.countDown();
+            await(probeCompletes);
+            return "probe";
+        }, "fallback")));
+
+        String result = breaker.execute(() -> {
+            fail(breaker);
+            nanoTime.addAndGet(OPEN_DURATION.toNanos());
+            probe.start();
+            await(probing);
+            return "value";
+        }, "fallback");
+
+        assertThat(result).isEqualTo("value");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        probeCompletes.countDown();
+        probe.join();
+        assertThat(probeResult).hasValue("probe");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testStorageAccessShortCircuitsToFallbackValue() {
+        RegionCache cache = mock(RegionCache.class);
+        when(cache.get(any(), anyLong())).thenThrow(new IllegalStateException("unreachable"));
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        HazelcastStorageAccessImpl storageAccess = new HazelcastStorageAccessImpl(cache, true, breaker);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(storageAccess.getFromCache("key", null)).isNull();
+        }
+
+        verify(cache, times(2)).get(any(), anyLong());
+    }
+
+    @Test
+    public void testStorageAccessNeverShortCircuitsInvalidations() {
+        RegionCache cache = mock(RegionCache.class);
+        when(cache.get(any(), anyLong())).thenThrow(new IllegalStateException("unreachable"));
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        HazelcastStorageAccessImpl storageAccess = new HazelcastStorageAccessImpl(cache, true, breaker);
+        storageAccess.getFromCache("key", null);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        SoftLock lock = mock(SoftLock.class);
+        storageAccess.evictData("key");
+        storageAccess.evictData();
+        storageAccess.unlockItem("key", lock);
+        storageAccess.afterUpdate("key", "value", 1);
+        storageAccess.putIntoCache("key", lock, null);
+        storageAccess.putIntoCache("key", "value", null);
+
+        verify(cache).evictData("key");
+        verify(cache).evictData();
+        verify(cache).unlockItem("key", lock);
+        verify(cache).afterUpdate("key", "value", 1);
+        verify(cache).put(eq("key"), eq(lock), anyLong(), any());
+        verify(cache, never()).put(eq("key"), eq("value"), anyLong(), any());
+    }
+
+    @Test
+    public void testStorageAccessIgnoresBreakerWithoutFallback() {
+        RegionCache cache = mock(RegionCache.class);
+        when(cache.get(any(), anyLong())).thenThrow(new IllegalStateException("unreachable"));
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, OPEN_DURATION, nanoTime::get);
+        HazelcastStorageAccessImpl storageAccess = new HazelcastStorageAccessImpl(cache, false, breaker);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> storageAccess.getFromCache("key", null))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private String succeed(CircuitBreaker breaker) {
+        return breaker.execute(() -> {
+            calls.incrementAndGet();
+            return "value";
+        }, "fallback");
+    }
+
+    private void fail(CircuitBreaker breaker) {
+        fail(breaker, () -> {
+        });
+    }
+
+    private void fail(CircuitBreaker breaker, Runnable beforeFailing) {
+        try {
+            breaker.execute(() -> {
+                calls.incrementAndGet();
+                beforeFailing.run();
+                throw new IllegalStateException("unreachable");
+            }, "fallback");
+        } catch (IllegalStateException expected) {
+            // the failure is rethrown
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String slowCall() {
+        nanoTime.addAndGet(Duration.ofMillis(101).toNanos());
+        return "value";
+    }
+}
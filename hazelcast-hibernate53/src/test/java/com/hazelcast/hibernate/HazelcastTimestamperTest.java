@@ -0,0 +1,130 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.cluster.Cluster;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.util.Clock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HazelcastTimestamperTest {
+
+    private static final long OFFSET = Duration.ofHours(1).toMillis();
+
+    private final HazelcastInstance instance = mock(HazelcastInstance.class);
+    private final Cluster cluster = mock(Cluster.class);
+
+    @Before
+    public void setUp() {
+        when(instance.getCluster()).thenReturn(cluster);
+        when(cluster.getClusterTime()).thenAnswer(invocation -> Clock.currentTimeMillis() + OFFSET);
+    }
+
+    @Test
+    public void testClusterTimeIsRequestedOnlyOnRefresh() {
+        HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, mock(ScheduledExecutorService.class),
+                Duration.ofSeconds(1));
+
+        long before = Clock.currentTimeMillis() + OFFSET;
+        long timestamp = timestamper.next();
+        for (int i = 0; i < 100; i++) {
+            timestamper.next();
+        }
+
+        assertThat(timestamp / HazelcastTimestamper.ONE_MS).isBetween(before - 1, Clock.currentTimeMillis() + OFFSET + 1);
+        verify(cluster, times(1)).getClusterTime();
+
+        timestamper.refreshClusterTimeOffset();
+        verify(cluster, times(2)).getClusterTime();
+    }
+
+    @Test
+    public void testTimestampsAreStrictlyMonotonicWithinMillisecond() {
+        when(cluster.getClusterTime()).thenReturn(1000L);
+        HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, Duration.ZERO);
+
+        long previous = timestamper.next();
+        assertThat(previous).isEqualTo(1000L * HazelcastTimestamper.ONE_MS);
+        for (int i = 0; i < HazelcastTimestamper.ONE_MS * 2; i++) {
+            long next = timestamper.next();
+            assertThat(next).isEqualTo(previous + 1);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void testTimestampsAreInMillisecondsIfNotSequenced() {
+        when(cluster.getClusterTime()).thenReturn(1000L);
+        HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, null, Duration.ZERO, false);
+
+        assertThat(timestamper.next()).isEqualTo(1000L);
+        assertThat(timestamper.next()).isEqualTo(1000L);
+
+        when(cluster.getClusterTime()).thenReturn(999L);
+        assertThat(timestamper.next()).isEqualTo(1000L);
+    }
+
+    @Test
+    public void testTimestampsAreConvertedToUnitOfReference() {
+        long millis = Clock.currentTimeMillis();
+        long sequenced = millis * HazelcastTimestamper.ONE_MS + 5;
+
+        assertThat(HazelcastTimestamper.inUnitOf(millis, sequenced)).isEqualTo(millis * HazelcastTimestamper.ONE_MS);
+        assertThat(HazelcastTimestamper.inUnitOf(sequenced, millis)).isEqualTo(millis);
+        assertThat(HazelcastTimestamper.inUnitOf(sequenced, sequenced + 1)).isEqualTo(sequenced);
+        assertThat(HazelcastTimestamper.inUnitOf(millis, millis + 1)).isEqualTo(millis);
+    }
+
+    @Test
+    public void testTimestampsAreMonotonicWhenClusterTimeGoesBackwards() {
+        HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, mock(ScheduledExecutorService.class),
+                Duration.ofSeconds(1));
+        long timestamp = timestamper.next();
+
+        when(cluster.getClusterTime()).thenAnswer(invocation -> Clock.currentTimeMillis());
+        timestamper.refreshClusterTimeOffset();
+
+        assertThat(timestamper.next()).isGreaterThan(timestamp);
+    }
+
+    @Test
+    public void testOffsetIsKeptWhenRefreshFails() {
+        HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, mock(ScheduledExecutorService.class),
+                Duration.ofSeconds(1));
+
+        when(cluster.getClusterTime()).thenThrow(new IllegalStateException("disconnected"));
+        timestamper.refreshClusterTimeOffset();
+
+        long before = Clock.currentTimeMillis() + OFFSET;
+        assertThat(timestamper.next() / HazelcastTimestamper.ONE_MS).isGreaterThanOrEqualTo(before - 1);
+    }
+
+    @Test
+    public void testConcurrentTimestampsAreUnique() {
+        try (HazelcastTimestamper timestamper = new HazelcastTimestamper(instance, Duration.ofMillis(10))) {
+            Set<Long> timestamps = ConcurrentHashMap.newKeySet();
+            IntStream.range(0, 100_000).parallel().forEach(i -> timestamps.add(timestamper.next()));
+
+            assertThat(timestamps).hasSize(100_000);
+        }
+    }
+
+    @Test
+    public void testLocalRegionFactoryFallsBackToTheClockWhenNotStarted() {
+        long before = Clock.currentTimeMillis();
+        long timestamp = new HazelcastLocalCacheRegionFactory().nextTimestamp();
+
+        assertThat(timestamp).isBetween(before, Clock.currentTimeMillis());
+    }
+}
@@ -0,0 +1,61 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.entity.DummyEntity;
+import com.hazelcast.partition.PartitionService;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.ParallelJVMTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.Session;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cfg.Environment;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category({QuickTest.class, ParallelJVMTest.class})
+public class PartitionAwareCacheKeysTest extends RegionFactoryDefaultTest {
+
+    @Override
+    protected Properties getCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty(Environment.CACHE_REGION_FACTORY, PartitionAwareCacheRegionFactory.class.getName());
+        return props;
+    }
+
+    @Test
+    public void testEntityAndItsCollectionAreInThePartitionOfItsId() {
+        final int count = 20;
+        insertDummyEntities(count, 2);
+        try (Session session = sf.openSession()) {
+            for (long i = 0; i < count; i++) {
+                session.get(DummyEntity.class, i).getProperties().size();
+            }
+        }
+
+        HazelcastInstance hz = HazelcastAccessor.getHazelcastInstance(sf);
+        PartitionService partitionService = hz.getPartitionService();
+        Set<Object> entityKeys = hz.getMap(DummyEntity.class.getName()).keySet();
+        Set<Object> collectionKeys = hz.getMap(DummyEntity.class.getName() + ".properties").keySet();
+
+        assertThat(entityKeys).hasSize(count);
+        assertThat(collectionKeys).hasSize(count);
+        for (Object key : entityKeys) {
+            Object id = PartitionAwareCacheKeysFactory.INSTANCE.getEntityId(key);
+            assertThat(key).isInstanceOf(PartitionAwareCacheKey.class);
+            assertThat(partitionService.getPartition(key)).isEqualTo(partitionService.getPartition(id));
+        }
+        for (Object key : collectionKeys) {
+            Object ownerId = PartitionAwareCacheKeysFactory.INSTANCE.getCollectionId(key);
+            assertThat(partitionService.getPartition(key)).isEqualTo(partitionService.getPartition(ownerId));
+            assertThat(DefaultCacheKeysFactory.staticGetCollectionId(((PartitionAwareCacheKey) key).getKey()))
+                    .isEqualTo(ownerId);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.hazelcast.hibernate;
+
+/**
+ * A {@link HazelcastCacheRegionFactory} with {@link PartitionAwareCacheKeysFactory}, to be configured by its class name.
+ */
+public class PartitionAwareCacheRegionFactory extends HazelcastCacheRegionFactory {
+
+    public PartitionAwareCacheRegionFactory() {
+        super(PartitionAwareCacheKeysFactory.INSTANCE);
+    }
+}
@@ -0,0 +1,96 @@
+package com.hazelcast.hibernate;
+
+import com.hazelcast.hibernate.entity.DummyEntity;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.ParallelJVMTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category({QuickTest.class, ParallelJVMTest.class})
+public class SoftLockingReadWriteTest extends HibernateStatisticsTestSupport {
+
+    @Override
+    protected AccessType getCacheStrategy() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected Properties getCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty(Environment.CACHE_REGION_FACTORY, HazelcastCacheRegionFactory.class.getName());
+        props.setProperty(CacheEnvironment.SERVER_SIDE_SOFT_LOCKS, "true");
+        return props;
+    }
+
+    @Test
+    public void testReadWriteAccessIsSoftLocking() {
+        EntityDataAccess access = ((SessionFactoryImplementor) sf).getMappingMetamodel()
+                .getEntityDescriptor(DummyEntity.class).getCacheAccessStrategy();
+
+        assertThat(access).isInstanceOf(SoftLockingEntityReadWriteAccess.class);
+    }
+
+    @Test
+    public void testSoftLockingAccessReadsInBulk() {
+        insertDummyEntities(2);
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) sf;
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(DummyEntity.class);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        List<Object> keys = Arrays.asList(access.generateCacheKey(0L, persister, factory, null),
+                access.generateCacheKey(1L, persister, factory, null), access.generateCacheKey(2L, persister, factory, null));
+
+        try (Session session = sf.openSession()) {
+            Map<Object, Object> values = BulkDataAccess.of(access).getAll((SharedSessionContractImplementor) session, keys);
+
+            assertThat(values).containsOnlyKeys(keys.get(0), keys.get(1));
+        }
+    }
+
+    @Test
+    public void testUpdatesAreVisibleToOtherSessionFactory() {
+        insertDummyEntities(1, 2);
+        assertThat(sf.getStatistics().getSecondLevelCachePutCount()).isPositive();
+
+        sf.getStatistics().clear();
+        getDummyEntities(1);
+        assertThat(sf.getStatistics().getSecondLevelCacheHitCount()).isPositive();
+
+        updateDummyEntityName(0, "updated");
+
+        sf2.getStatistics().clear();
+        try (Session session = sf2.openSession()) {
+            assertThat(session.get(DummyEntity.class, 0L).getName()).isEqualTo("updated");
+        }
+        assertThat(sf2.getStatistics().getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    public void testDeletedEntityIsNotCached() throws Exception {
+        insertDummyEntities(1, 0);
+
+        deleteDummyEntity(0);
+
+        sf2.getStatistics().clear();
+        try (Session session = sf2.openSession()) {
+            assertThat(session.get(DummyEntity.class, 0L)).isNull();
+        }
+        assertThat(sf2.getStatistics().getSecondLevelCacheHitCount()).isZero();
+    }
+}
@@ -0,0 +1,121 @@
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.map.IMap;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IMapRegionCacheDeadlineTest {
+
+    private final HazelcastInstance instance = mock(HazelcastInstance.class);
+    private final IMap<Object, Expirable> map = mock(IMap.class);
+
+    private IMapRegionCache cache;
+
+    @Before
+    public void setUp() {
+        when(instance.<Object, Expirable>getMap(anyString())).thenReturn(map);
+        cache = new IMapRegionCache(mock(RegionFactory.class), "region", instance, false, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void testReadWithinDeadlineReturnsValue() {
+        when(map.getAsync("key")).thenReturn(CompletableFuture.completedFuture(new Value(null, 1L, "value")));
+
+        assertThat(cache.get("key", 2L)).isEqualTo("value");
+        assertThat(cache.getReadTimeoutCount()).isZero();
+        verify(map, never()).get(any());
+    }
+
+    @Test
+    public void testReadPastDeadlineMisses() {
+        when(map.getAsync("key")).thenReturn(new CompletableFuture<>());
+
+        assertThat(cache.get("key", 2L)).isNull();
+        assertThat(cache.getReadTimeoutCount()).isEqualTo(1);
+        assertThat(cache.getMetrics().getReadTimeoutCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWritePastDeadlineCompletesInBackground() {
+        when(map.setAsync(any(), any())).thenReturn(new CompletableFuture<>());
+
+        assertThat(cache.put("key", "value", 1L, null)).isTrue();
+        assertThat(cache.getWriteTimeoutCount()).isEqualTo(1);
+        verify(map, never()).put(any(), any());
+    }
+
+    @Test
+    public void testBulkReadPastDeadlineMissesKeysNotReadInTime() {
+        when(map.getAsync("a")).thenReturn(CompletableFuture.completedFuture(new Value(null, 1L, "value-a")));
+        when(map.getAsync("b")).thenReturn(new CompletableFuture<>());
+        when(map.getAsync("c")).thenReturn(new CompletableFuture<>());
+
+        assertThat(cache.getAll(Arrays.asList("a", "b", "c"), 2L)).containsExactly(entry("a", "value-a"));
+        assertThat(cache.getReadTimeoutCount()).isEqualTo(2);
+        verify(map, never()).getAll(any());
+    }
+
+    @Test
+    public void testBulkReadRecordsLatencyOnce() {
+        when(map.getAsync(any())).thenReturn(CompletableFuture.completedFuture(new Value(null, 1L, "value")));
+
+        cache.getAll(Arrays.asList("a", "b", "c"), 2L);
+
+        assertThat(cache.getMetrics().getHitCount()).isEqualTo(3);
+        assertThat(cache.getMetrics().getGetAllLatency().getCount()).isEqualTo(1);
+        assertThat(cache.getMetrics().getGetLatency().getCount()).isZero();
+    }
+
+    @Test
+    public void testBulkReadUsesSingleMapCall() {
+        cache = new IMapRegionCache(mock(RegionFactory.class), "region", instance);
+        Map<Object, Expirable> entries = new HashMap<>();
+        entries.put("a", new Value(null, 1L, "value-a"));
+        entries.put("b", new Value(null, 3L, "too-new"));
+        when(map.getAll(new HashSet<>(Arrays.asList("a", "b", "c")))).thenReturn(entries);
+
+        assertThat(cache.getAll(Arrays.asList("a", "b", "c"), 2L)).containsExactly(entry("a", "value-a"));
+
+        verify(map, never()).get(any());
+    }
+
+    @Test
+    public void testFailedReadIsRethrown() {
+        CompletableFuture<Expirable> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("unreachable"));
+        when(map.getAsync("key")).thenReturn(failed);
+
+        assertThatThrownBy(() -> cache.get("key", 2L)).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.getReadTimeoutCount()).isZero();
+    }
+
+    @Test
+    public void testNoDeadlineBlocks() {
+        cache = new IMapRegionCache(mock(RegionFactory.class), "region", instance);
+        when(map.get("key")).thenReturn(new Value(null, 1L, "value"));
+
+        assertThat(cache.get("key", 2L)).isEqualTo("value");
+        verify(map, never()).getAsync(any());
+    }
+}
@@ -0,0 +1,96 @@
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.client.map.impl.nearcache.NearCachedClientMapProxy;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.map.IMap;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class NearCacheConfigurerTest {
+
+    private final TestHazelcastFactory factory = new TestHazelcastFactory();
+
+    @After
+    public void tearDown() {
+        factory.shutdownAll();
+    }
+
+    @Test
+    public void testNearCacheConfigFromProperties() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(CacheEnvironment.NEAR_CACHE_ENABLED, "true");
+        props.put(CacheEnvironment.NEAR_CACHE_MAX_SIZE, "500");
+        props.put(CacheEnvironment.NEAR_CACHE_TIME_TO_LIVE + ".region", "60");
+        props.put(CacheEnvironment.NEAR_CACHE_IN_MEMORY_FORMAT, "object");
+        props.put(CacheEnvironment.NEAR_CACHE_INVALIDATE_ON_CHANGE, "false");
+
+        NearCacheConfig nearCacheConfig = CacheEnvironment.getNearCacheConfig(props, "region");
+
+        assertThat(nearCacheConfig.getEvictionConfig().getSize()).isEqualTo(500);
+        assertThat(nearCacheConfig.getTimeToLiveSeconds()).isEqualTo(60);
+        assertThat(nearCacheConfig.getInMemoryFormat()).isEqualTo(InMemoryFormat.OBJECT);
+        assertThat(nearCacheConfig.isInvalidateOnChange()).isFalse();
+        assertThat(CacheEnvironment.getNearCacheConfig(props, "other").getTimeToLiveSeconds()).isZero();
+
+        props.put(CacheEnvironment.NEAR_CACHE_ENABLED + ".other", "false");
+        assertThat(CacheEnvironment.getNearCacheConfig(props, "other")).isNull();
+    }
+
+    @Test
+    public void testNearCacheAttachedOnClient() {
+        factory.newHazelcastInstance();
+        HazelcastInstance client = factory.newHazelcastClient();
+
+        NearCacheConfigurer.configure(client, "region", new NearCacheConfig().setInvalidateOnChange(true));
+        IMap<Object, Object> map = client.getMap("region");
+
+        assertThat((Object) map).isInstanceOf(NearCachedClientMapProxy.class);
+        assertThat(((HazelcastClientProxy) client).getClientConfig().getNearCacheConfig("region").isInvalidateOnChange())
+                .isTrue();
+        map.put("key", "value");
+        map.get("key");
+        map.get("key");
+        assertThat(map.getLocalMapStats().getNearCacheStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNearCacheAttachedOnMember() {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+        nearCacheConfig.getPreloaderConfig().setEnabled(true);
+
+        NearCacheConfigurer.configure(member, "region", nearCacheConfig);
+
+        NearCacheConfig attached = member.getConfig().findMapConfig("region").getNearCacheConfig();
+        assertThat(attached).isNotNull();
+        assertThat(attached.getPreloaderConfig().isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testExplicitNearCacheIsKept() {
+        Config config = new Config();
+        config.getMapConfig("region").setNearCacheConfig(new NearCacheConfig().setTimeToLiveSeconds(42));
+        HazelcastInstance member = factory.newHazelcastInstance(config);
+
+        NearCacheConfigurer.configure(member, "region", new NearCacheConfig());
+
+        assertThat(member.getConfig().findMapConfig("region").getNearCacheConfig().getTimeToLiveSeconds()).isEqualTo(42);
+    }
+}
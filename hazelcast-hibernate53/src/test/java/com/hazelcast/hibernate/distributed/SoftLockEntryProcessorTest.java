@@ -0,0 +1,130 @@
+package com.hazelcast.hibernate.distributed;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.ExpiryMarker;
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.hibernate.internal.util.compare.ComparableComparator;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SoftLockEntryProcessorTest {
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testLockUnlockExpiresTheEntry() {
+        Map.Entry<Object, Expirable> entry = entry(new Value(1, 100L, "A"));
+
+        ExpiryMarker lock = new LockEntryProcessor("lock", 200L, 1).process(entry);
+        assertThat(entry.getValue()).isEqualTo(lock);
+        assertThat(entry.getValue().getValue(150L)).isNull();
+
+        new UnlockEntryProcessor(lock, "next", 120L).process(entry);
+        assertThat(((ExpiryMarker) entry.getValue()).isConcurrent()).isFalse();
+        assertThat(entry.getValue().isReplaceableBy(130L, 1, ComparableComparator.INSTANCE)).isFalse();
+        assertThat(entry.getValue().isReplaceableBy(130L, 2, ComparableComparator.INSTANCE)).isTrue();
+    }
+
+    @Test
+    public void testUpdateReleasesTheLock() {
+        Map.Entry<Object, Expirable> entry = entry(new Value(1, 100L, "A"));
+        ExpiryMarker lock = new LockEntryProcessor("lock", 200L, 1).process(entry);
+
+        assertThat(new UpdateEntryProcessor(lock, "next", "B", 2, 150L).process(entry)).isTrue();
+
+        assertThat(entry.getValue().getValue(160L)).isEqualTo("B");
+        assertThat(entry.getValue().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUpdateDoesNotOverwriteConcurrentlyLockedEntry() {
+        Map.Entry<Object, Expirable> entry = entry(new Value(1, 100L, "A"));
+        ExpiryMarker lock = new LockEntryProcessor("lock", 200L, 1).process(entry);
+        ExpiryMarker concurrentLock = new LockEntryProcessor("other", 200L, 1).process(entry);
+
+        assertThat(new UpdateEntryProcessor(lock, "next", "B", 2, 150L).process(entry)).isFalse();
+        assertThat(entry.getValue().getValue(160L)).isNull();
+
+        // both transactions hold the marker, neither may cache its own value
+        assertThat(new UpdateEntryProcessor(concurrentLock, "next", "C", 3, 160L).process(entry)).isFalse();
+        assertThat(entry.getValue().getValue(170L)).isNull();
+    }
+
+    @Test
+    public void testUpdateExpiresTheValueIfTheLockWasLost() {
+        Map.Entry<Object, Expirable> entry = entry(new Value(1, 100L, "A"));
+        ExpiryMarker lock = new LockEntryProcessor("lock", 200L, 1).process(entry);
+        // the lock timed out, and another transaction cached a newer version
+        entry.setValue(new Value(3, 180L, "C"));
+
+        assertThat(new UpdateEntryProcessor(lock, "next", "B", 2, 190L).process(entry)).isFalse();
+
+        assertThat(entry.getValue().getValue(200L)).isNull();
+        // transactions which started before it may have read either version
+        assertThat(entry.getValue().isReplaceableBy(185L, 3, ComparableComparator.INSTANCE)).isFalse();
+        assertThat(entry.getValue().isReplaceableBy(195L, 3, ComparableComparator.INSTANCE)).isTrue();
+    }
+
+    @Test
+    public void testPutFromLoadDoesNotOverwriteLockedEntry() {
+        Map.Entry<Object, Expirable> entry = entry(null);
+        new LockEntryProcessor("lock", 200L, 1).process(entry);
+
+        assertThat(new PutFromLoadEntryProcessor("A", 1, 150L, 150L, null).process(entry)).isFalse();
+        assertThat(entry.getValue().getValue(160L)).isNull();
+    }
+
+    @Test
+    public void testPutFromLoadDoesNotOverwriteNewerVersion() {
+        Map.Entry<Object, Expirable> entry = entry(new Value(2, 100L, "B"));
+
+        assertThat(new PutFromLoadEntryProcessor("A", 1, 150L, 150L, null).process(entry)).isFalse();
+        assertThat(entry.getValue().getValue(160L)).isEqualTo("B");
+
+        assertThat(new PutFromLoadEntryProcessor("C", 3, 150L, 150L, ComparableComparator.INSTANCE).process(entry))
+                .isTrue();
+        assertThat(entry.getValue().getValue(160L)).isEqualTo("C");
+    }
+
+    @Test
+    public void testPutFromLoadCachesAbsentEntry() {
+        Map.Entry<Object, Expirable> entry = entry(null);
+
+        assertThat(new PutFromLoadEntryProcessor("A", 1, 150L, 150L, null).process(entry)).isTrue();
+        assertThat(entry.getValue().getValue(160L)).isEqualTo("A");
+    }
+
+    @Test
+    public void testEntryProcessorsAreSerializable() {
+        ExpiryMarker lock = new ExpiryMarker(1, 200L, "lock");
+        Map.Entry<Object, Expirable> entry = entry(null);
+        LockEntryProcessor lockProcessor = roundTrip(new LockEntryProcessor("lock", 200L, 1));
+        UnlockEntryProcessor unlockProcessor = roundTrip(new UnlockEntryProcessor(lock, "next", 120L));
+        UpdateEntryProcessor updateProcessor = roundTrip(new UpdateEntryProcessor(lock, "next", "B", 2, 150L));
+        PutFromLoadEntryProcessor putFromLoadProcessor = roundTrip(
+                new PutFromLoadEntryProcessor("A", 1, 100L, 100L, ComparableComparator.INSTANCE));
+
+        assertThat(putFromLoadProcessor.process(entry)).isTrue();
+        assertThat(lockProcessor.process(entry).matches(lock)).isTrue();
+        assertThat(updateProcessor.process(entry)).isTrue();
+        assertThat(entry.getValue().getValue(160L)).isEqualTo("B");
+        unlockProcessor.process(entry);
+        assertThat(entry.getValue()).isInstanceOf(ExpiryMarker.class);
+    }
+
+    private <T> T roundTrip(T processor) {
+        Data data = serializationService.toData(processor);
+        return serializationService.toObject(data);
+    }
+
+    private static Map.Entry<Object, Expirable> entry(Expirable value) {
+        return new AbstractMap.SimpleEntry<>("key", value);
+    }
+}
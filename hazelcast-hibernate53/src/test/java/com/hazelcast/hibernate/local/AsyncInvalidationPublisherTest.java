@@ -0,0 +1,82 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.topic.ITopic;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class AsyncInvalidationPublisherTest {
+
+    private final RegionMetrics metrics = new RegionMetrics("some-cache");
+
+    @Test
+    public void should_publish_without_waiting_for_acknowledgement() {
+        ITopic<Object> topic = mock(ITopic.class);
+        CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+        when(topic.publishAsync(any())).thenReturn(acknowledgement);
+        AsyncInvalidationPublisher sut = new AsyncInvalidationPublisher("some-cache", topic, 10, metrics);
+
+        sut.publish("message");
+
+        verify(topic).publishAsync("message");
+        verify(topic, never()).publish(any());
+        assertThat(sut.getInFlightCount()).isEqualTo(1);
+        assertThat(metrics.getInvalidationsInFlightCount()).isEqualTo(1);
+
+        acknowledgement.complete(null);
+
+        assertThat(sut.getInFlightCount()).isZero();
+        assertThat(metrics.getInvalidationsInFlightCount()).isZero();
+        assertThat(metrics.getInvalidationsPublishedCount()).isEqualTo(1);
+        assertThat(metrics.getInvalidationPublishFailureCount()).isZero();
+        assertThat(metrics.getInvalidationPublishLatency().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_block_when_window_is_full() {
+        ITopic<Object> topic = mock(ITopic.class);
+        CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+        when(topic.publishAsync(any())).thenReturn(acknowledgement, CompletableFuture.completedFuture(null));
+        AsyncInvalidationPublisher sut = new AsyncInvalidationPublisher("some-cache", topic, 1, metrics);
+        sut.publish("first");
+
+        AtomicBoolean published = new AtomicBoolean();
+        new Thread(() -> {
+            sut.publish("second");
+            published.set(true);
+        }).start();
+
+        await().pollDelay(Duration.ofMillis(100)).until(() -> !published.get());
+        acknowledgement.complete(null);
+        await().untilTrue(published);
+        assertThat(metrics.getInvalidationsPublishedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_release_window_when_publishing_fails() {
+        ITopic<Object> topic = mock(ITopic.class);
+        CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+        when(topic.publishAsync(any())).thenReturn(acknowledgement);
+        AsyncInvalidationPublisher sut = new AsyncInvalidationPublisher("some-cache", topic, 1, metrics);
+
+        sut.publish("message");
+        acknowledgement.completeExceptionally(new IllegalStateException("expected"));
+
+        assertThat(sut.getInFlightCount()).isZero();
+        assertThat(metrics.getInvalidationsInFlightCount()).isZero();
+        assertThat(metrics.getInvalidationPublishFailureCount()).isEqualTo(1);
+        assertThat(metrics.getInvalidationsPublishedCount()).isZero();
+    }
+}
@@ -0,0 +1,76 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.Value;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntrySizeEstimatorTest {
+
+    @Test
+    public void should_grow_with_value_size() {
+        int small = EntrySizeEstimator.weigh(1L, new Value(null, 0, new byte[200]));
+        int large = EntrySizeEstimator.weigh(1L, new Value(null, 0, new byte[200 * 1024]));
+
+        assertThat(small).isBetween(200, 1024);
+        assertThat(large).isBetween(200 * 1024, 201 * 1024);
+    }
+
+    @Test
+    public void should_follow_disassembled_state() {
+        Object[] state = {"some-name", 42, new byte[10_000]};
+
+        assertThat(EntrySizeEstimator.estimate(state, 0)).isGreaterThan(10_000);
+    }
+
+    @Test
+    public void should_extrapolate_large_collections() {
+        List<String> values = new ArrayList<>(Collections.nCopies(10_000, "0123456789"));
+
+        long size = EntrySizeEstimator.estimate(values, 0);
+
+        assertThat(size).isGreaterThan(10_000L * 24).isLessThan(10_000L * 100);
+    }
+
+    @Test
+    public void should_stop_at_max_depth() {
+        Object[] nested = {new byte[10_000]};
+        for (int i = 0; i < 10; i++) {
+            nested = new Object[]{nested};
+        }
+
+        assertThat(EntrySizeEstimator.estimate(nested, 0)).isLessThan(10_000);
+    }
+
+    @Test
+    public void should_weigh_payload_of_read_write_items() throws Exception {
+        Constructor<AbstractReadWriteAccess.Item> constructor = AbstractReadWriteAccess.Item.class
+                .getDeclaredConstructor(Object.class, Object.class, long.class);
+        constructor.setAccessible(true);
+        Object item = constructor.newInstance(new Object[]{"some-name", new byte[10_000]}, null, 0L);
+
+        assertThat(EntrySizeEstimator.weigh(1L, new Value(null, 0, item))).isGreaterThan(10_000);
+    }
+
+    @Test
+    public void should_weigh_query_results() throws Exception {
+        Class<?> cacheItemClass = Class.forName("org.hibernate.cache.internal.QueryResultsCacheImpl$CacheItem");
+        Constructor<?> constructor = cacheItemClass.getDeclaredConstructor(long.class, List.class);
+        constructor.setAccessible(true);
+        List<Object> rows = new ArrayList<>(Collections.nCopies(1_000, new Object[]{"0123456789", 1L}));
+        Object cacheItem = constructor.newInstance(0L, rows);
+
+        assertThat(EntrySizeEstimator.weigh("query", new Value(null, 0, cacheItem))).isGreaterThan(1_000 * 24);
+    }
+
+    @Test
+    public void should_ignore_null() {
+        assertThat(EntrySizeEstimator.estimate(null, 0)).isZero();
+    }
+}
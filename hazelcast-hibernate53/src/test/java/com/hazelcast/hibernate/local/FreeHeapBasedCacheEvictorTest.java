@@ -10,6 +10,7 @@ import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -120,10 +121,12 @@ public class FreeHeapBasedCacheEvictorTest {
 
         assertThat(cache.estimatedSize()).isEqualTo(25);
 
-        sut.start("some-cache", cache, 100);
+        LongAdder evicted = new LongAdder();
+        sut.start("some-cache", cache, 100, evicted::add);
 
         await().atMost(5, TimeUnit.SECONDS)
                 .until(() -> cache.estimatedSize() == 0);
+        assertThat(evicted.sum()).isEqualTo(25);
 
         assertThat(allThreads()).anyMatch(thread -> thread.getName().contains("-free-heap-evictor"));
 
@@ -0,0 +1,86 @@
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.Value;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class GcNotificationCacheEvictorTest {
+
+    private static final long MAX_HEAP = 100L * 1024 * 1024;
+    private static final byte[] ONE_HUNDRED_KB = new byte[100 * 1024];
+
+    private final ExecutorService executorService = newSingleThreadExecutor();
+    private final GcNotificationCacheEvictor sut = new GcNotificationCacheEvictor(executorService, () -> MAX_HEAP, false);
+
+    @After
+    public void tearDown() {
+        sut.close();
+    }
+
+    @Test
+    public void should_evict_excess_of_FREE_HEAP_PERCENTAGE() {
+        Cache<Object, Expirable> cache = cacheWithEntries(1000);
+        sut.start("some-cache", cache, MaxSizePolicy.FREE_HEAP_PERCENTAGE, 20);
+
+        // 10 MB over the budget of 80 MB
+        sut.onHeapUsageAfterGc(90L * 1024 * 1024, false);
+
+        await().untilAsserted(() -> assertThat(cache.estimatedSize()).isBetween(890L, 900L));
+    }
+
+    @Test
+    public void should_not_evict_within_budget() throws Exception {
+        Cache<Object, Expirable> cache = cacheWithEntries(1000);
+        sut.start("some-cache", cache, MaxSizePolicy.FREE_HEAP_SIZE, 20);
+
+        sut.onHeapUsageAfterGc(70L * 1024 * 1024, false);
+        executorService.submit(() -> { }).get();
+
+        assertThat(cache.estimatedSize()).isEqualTo(1000);
+    }
+
+    @Test
+    public void should_not_evict_again_until_tenured_pool_reclaimed() throws Exception {
+        Cache<Object, Expirable> cache = cacheWithEntries(1000);
+        sut.start("some-cache", cache, MaxSizePolicy.FREE_HEAP_PERCENTAGE, 20);
+
+        sut.onHeapUsageAfterGc(90L * 1024 * 1024, false);
+        await().untilAsserted(() -> assertThat(cache.estimatedSize()).isLessThanOrEqualTo(900L));
+        long sizeAfterEviction = cache.estimatedSize();
+
+        sut.onHeapUsageAfterGc(90L * 1024 * 1024, false);
+        executorService.submit(() -> { }).get();
+        assertThat(cache.estimatedSize()).isEqualTo(sizeAfterEviction);
+
+        sut.onHeapUsageAfterGc(90L * 1024 * 1024, true);
+        await().untilAsserted(() -> assertThat(cache.estimatedSize()).isLessThan(sizeAfterEviction));
+    }
+
+    @Test
+    public void should_fail_stopping_evicting_of_non_existing_cache() {
+        assertThatThrownBy(() -> sut.stop("some-cache"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Evicting of cache 'some-cache' not started");
+    }
+
+    private static Cache<Object, Expirable> cacheWithEntries(int count) {
+        Cache<Object, Expirable> cache = Caffeine.newBuilder()
+                //enable eviction operations
+                .maximumSize(Long.MAX_VALUE)
+                .build();
+        IntStream.range(0, count).forEach(i -> cache.put(i, new Value(null, 0, ONE_HUNDRED_KB)));
+        return cache;
+    }
+}
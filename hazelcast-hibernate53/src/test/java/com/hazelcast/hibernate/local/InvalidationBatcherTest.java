@@ -0,0 +1,111 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.topic.ITopic;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("unchecked")
+public class InvalidationBatcherTest {
+
+    @Test
+    public void should_publish_batch_when_max_size_reached() {
+        ITopic<Object> topic = mock(ITopic.class);
+        InvalidationBatcher sut = new InvalidationBatcher(mock(ScheduledExecutorService.class));
+        sut.start("some-cache", topic::publish, Duration.ofHours(1), 3);
+
+        IntStream.range(0, 3).forEach(i -> sut.add("some-cache", new Invalidation(i, null)));
+
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(topic).publish(message.capture());
+        assertThat(message.getValue()).isInstanceOf(InvalidationBatch.class);
+        assertThat(((InvalidationBatch) message.getValue()).getInvalidations())
+                .extracting(Invalidation::getKey)
+                .containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void should_schedule_flush_once_per_window() {
+        ScheduledExecutorService executorService = mock(ScheduledExecutorService.class);
+        InvalidationBatcher sut = new InvalidationBatcher(executorService);
+        sut.start("some-cache", message -> { }, Duration.ofMillis(20), 100);
+
+        IntStream.range(0, 10).forEach(i -> sut.add("some-cache", new Invalidation(i, null)));
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void should_publish_batch_when_window_elapsed() {
+        ITopic<Object> topic = mock(ITopic.class);
+        ScheduledExecutorService executorService = newSingleThreadScheduledExecutor();
+        InvalidationBatcher sut = new InvalidationBatcher(executorService);
+        sut.start("some-cache", topic::publish, Duration.ofMillis(20), 100);
+
+        sut.add("some-cache", new Invalidation(1, null));
+        sut.add("some-cache", new Invalidation(2, null));
+
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        await().atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> verify(topic).publish(message.capture()));
+        assertThat(((InvalidationBatch) message.getValue()).getInvalidations()).hasSize(2);
+
+        sut.close();
+    }
+
+    @Test
+    public void should_publish_single_invalidation_without_batch() {
+        ITopic<Object> topic = mock(ITopic.class);
+        InvalidationBatcher sut = new InvalidationBatcher(mock(ScheduledExecutorService.class));
+        sut.start("some-cache", topic::publish, Duration.ofHours(1), 100);
+        Invalidation invalidation = new Invalidation(1, null);
+
+        sut.add("some-cache", invalidation);
+        sut.stop("some-cache");
+
+        verify(topic).publish(invalidation);
+    }
+
+    @Test
+    public void should_publish_pending_invalidations_when_stopped() {
+        ITopic<Object> topic = mock(ITopic.class);
+        InvalidationBatcher sut = new InvalidationBatcher(mock(ScheduledExecutorService.class));
+        sut.start("some-cache", topic::publish, Duration.ofHours(1), 100);
+        sut.add("some-cache", new Invalidation(1, null));
+        sut.add("some-cache", new Invalidation(2, null));
+
+        sut.stop("some-cache");
+        sut.stop("some-cache");
+
+        verify(topic).publish(any(InvalidationBatch.class));
+        assertThatThrownBy(() -> sut.add("some-cache", new Invalidation(3, null)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Invalidation batching for cache 'some-cache' not started");
+    }
+
+    @Test
+    public void should_not_publish_empty_batch() {
+        ITopic<Object> topic = mock(ITopic.class);
+        InvalidationBatcher sut = new InvalidationBatcher(mock(ScheduledExecutorService.class));
+        sut.start("some-cache", topic::publish, Duration.ofHours(1), 100);
+
+        sut.stop("some-cache");
+
+        verify(topic, never()).publish(any());
+    }
+}
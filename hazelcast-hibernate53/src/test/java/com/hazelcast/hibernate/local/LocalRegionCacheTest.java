@@ -5,11 +5,15 @@ import com.hazelcast.cluster.Cluster;
 import com.hazelcast.cluster.Member;
 import com.hazelcast.config.Config;
 import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MaxSizePolicy;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.map.impl.eviction.ZeroMemoryInfoAccessor;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import com.hazelcast.test.annotation.QuickTest;
 import com.hazelcast.topic.ITopic;
@@ -26,9 +30,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 
@@ -36,6 +43,7 @@ import static com.hazelcast.config.MapConfig.DEFAULT_MAX_SIZE_POLICY;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
@@ -49,6 +57,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 @RunWith(HazelcastSerialClassRunner.class)
 @Category(QuickTest.class)
@@ -225,7 +234,7 @@ public class LocalRegionCacheTest {
                 .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor)
                 .build();
 
-        verify(freeHeapBasedCacheEvictor).start(eq(CACHE_NAME), any(), eq(234L * 1024 * 1024));
+        verify(freeHeapBasedCacheEvictor).start(eq(CACHE_NAME), any(), eq(234L * 1024 * 1024), any());
     }
 
     @Test
@@ -247,6 +256,174 @@ public class LocalRegionCacheTest {
                 .hasMessage("FreeHeapBasedCacheEvictor is required for FREE_HEAP_SIZE policy");
     }
 
+    @Test
+    public void test_USED_HEAP_SIZE_policy_bounds_estimated_size() {
+        MapConfig mapConfig = someMapConfigWithEvictionConfig(1, MaxSizePolicy.USED_HEAP_SIZE);
+
+        Config config = mock(Config.class);
+        when(config.findMapConfig(eq(CACHE_NAME))).thenReturn(mapConfig);
+
+        Cluster cluster = mock(Cluster.class);
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(config);
+        when(instance.getCluster()).thenReturn(cluster);
+
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(false)
+                .build();
+
+        localRegionCache.put("small", "value", 1L, null);
+        await().untilAsserted(() -> assertThat(localRegionCache.getSizeInMemory()).isPositive().isLessThan(1024));
+
+        for (int i = 0; i < 30; i++) {
+            localRegionCache.put(i, new byte[100 * 1024], 1L, null);
+        }
+
+        await().untilAsserted(() -> {
+            assertThat(localRegionCache.getSizeInMemory()).isGreaterThan(500 * 1024).isLessThanOrEqualTo(1024 * 1024);
+            assertThat(localRegionCache.getElementCountInMemory()).isLessThan(30);
+        });
+    }
+
+    @Test
+    public void test_gcNotificationCacheEvictor_started_when_FREE_HEAP_SIZE_policy_with_gc_notification_eviction() {
+        MapConfig mapConfig = someMapConfigWithEvictionConfig(234, MaxSizePolicy.FREE_HEAP_SIZE);
+
+        Config config = mock(Config.class);
+        when(config.findMapConfig(eq(CACHE_NAME))).thenReturn(mapConfig);
+
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(config);
+
+        GcNotificationCacheEvictor gcNotificationCacheEvictor = mock(GcNotificationCacheEvictor.class);
+        FreeHeapBasedCacheEvictor freeHeapBasedCacheEvictor = mock(FreeHeapBasedCacheEvictor.class);
+
+        LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(false)
+                .withFreeHeapBasedCacheEvictor(freeHeapBasedCacheEvictor)
+                .withGcNotificationCacheEvictor(gcNotificationCacheEvictor, true)
+                .build()
+                .destroy();
+
+        verify(gcNotificationCacheEvictor).start(eq(CACHE_NAME), any(), eq(MaxSizePolicy.FREE_HEAP_SIZE), eq(234), any());
+        verify(gcNotificationCacheEvictor).stop(CACHE_NAME);
+        verifyNoInteractions(freeHeapBasedCacheEvictor);
+    }
+
+    @Test
+    public void test_USED_HEAP_PERCENTAGE_policy_weighs_entries() {
+        MapConfig mapConfig = someMapConfigWithEvictionConfig(1, MaxSizePolicy.USED_HEAP_PERCENTAGE);
+
+        Config config = mock(Config.class);
+        when(config.findMapConfig(eq(CACHE_NAME))).thenReturn(mapConfig);
+
+        Cluster cluster = mock(Cluster.class);
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(config);
+        when(instance.getCluster()).thenReturn(cluster);
+
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(false)
+                .build();
+
+        localRegionCache.put("key", new byte[100 * 1024], 1L, null);
+
+        await().untilAsserted(() -> assertThat(localRegionCache.getSizeInMemory()).isGreaterThan(100 * 1024));
+    }
+
+    @Test
+    public void test_PER_NODE_policy_bounded_by_memory_budget() {
+        Cluster cluster = mock(Cluster.class);
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getCluster()).thenReturn(cluster);
+
+        MemoryBudgetCoordinator coordinator = new MemoryBudgetCoordinator(mock(ScheduledExecutorService.class),
+                1024 * 1024, Duration.ofSeconds(1));
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(false)
+                .withMemoryBudgetCoordinator(coordinator)
+                .build();
+
+        for (int i = 0; i < 30; i++) {
+            localRegionCache.put(i, new byte[100 * 1024], 1L, null);
+        }
+
+        await().untilAsserted(() -> {
+            assertThat(localRegionCache.getSizeInMemory()).isGreaterThan(500 * 1024).isLessThanOrEqualTo(1024 * 1024);
+            assertThat(localRegionCache.getElementCountInMemory()).isLessThan(30);
+        });
+        localRegionCache.destroy();
+    }
+
+    @Test
+    public void test_off_heap_storage_bounded_by_capacity() {
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(serializingInstance())
+                .withTopic(false)
+                .withOffHeapStorage(1024 * 1024, OffHeapStore.EvictionPolicy.LRU)
+                .build();
+
+        for (int i = 0; i < 30; i++) {
+            localRegionCache.put(i, new byte[100 * 1024], 1L, null);
+        }
+
+        assertThat(localRegionCache.getSizeInMemory()).isGreaterThan(500 * 1024).isLessThanOrEqualTo(1024 * 1024);
+        assertThat(localRegionCache.getElementCountInMemory()).isLessThan(30);
+        assertThat(localRegionCache.get(29, 2L)).isEqualTo(new byte[100 * 1024]);
+        localRegionCache.destroy();
+    }
+
+    @Test
+    public void test_BINARY_in_memory_format_deserializes_on_get() {
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(serializingInstance())
+                .withTopic(false)
+                .withInMemoryFormat(InMemoryFormat.BINARY, 0)
+                .build();
+
+        ArrayList<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+        localRegionCache.put("key", value, 1L, null);
+
+        Object cached = localRegionCache.get("key", Long.MAX_VALUE);
+        assertThat(cached).isEqualTo(value).isNotSameAs(value);
+        assertThat(localRegionCache.get("key", Long.MAX_VALUE)).isEqualTo(value).isNotSameAs(cached);
+        assertThat(localRegionCache.cache.get("key")).isInstanceOf(SerializedValue.class);
+    }
+
+    @Test
+    public void test_BINARY_in_memory_format_keeps_hot_objects() {
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(serializingInstance())
+                .withTopic(false)
+                .withInMemoryFormat(InMemoryFormat.BINARY, 10)
+                .build();
+
+        localRegionCache.put("key", new ArrayList<>(Arrays.asList("a", "b")), 1L, null);
+        Object cached = localRegionCache.get("key", Long.MAX_VALUE);
+        assertThat(localRegionCache.get("key", Long.MAX_VALUE)).isSameAs(cached);
+
+        localRegionCache.put("key", new ArrayList<>(Collections.singletonList("c")), 1L, null);
+        assertThat(localRegionCache.get("key", Long.MAX_VALUE)).isEqualTo(Collections.singletonList("c"));
+    }
+
+    @Test
+    public void test_NATIVE_in_memory_format_not_supported() {
+        assertThatThrownBy(() -> LocalRegionCache.builder().withInMemoryFormat(InMemoryFormat.NATIVE, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void test_freeHeapCacheEvictor_NOT_started_when_PER_NODE_policy() {
         MapConfig mapConfig = someMapConfigWithEvictionConfig(234, MaxSizePolicy.PER_NODE);
@@ -439,4 +616,146 @@ public class LocalRegionCacheTest {
         // Verify that our message listener process messages
         verify(message).getMessageObject();
     }
+
+    @Test
+    public void testInvalidationBatchFromRemoteNodeIsApplied() {
+        ITopic<Object> topic = mock(ITopic.class);
+
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.getLocalMember()).thenReturn(mock(Member.class));
+
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getTopic(eq(CACHE_NAME))).thenReturn(topic);
+        when(instance.getCluster()).thenReturn(cluster);
+
+        LocalRegionCache localRegionCache = LocalRegionCache.builder()
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(true)
+                .build();
+        localRegionCache.put("a", "value-a", 1L, null);
+        localRegionCache.put("b", "value-b", 1L, null);
+        localRegionCache.put("c", "value-c", 1L, null);
+
+        ArgumentCaptor<MessageListener> messageListenerArgumentCaptor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topic).addMessageListener(messageListenerArgumentCaptor.capture());
+
+        Message message = mock(Message.class);
+        when(message.getPublishingMember()).thenReturn(mock(Member.class));
+        when(message.getMessageObject()).thenReturn(new InvalidationBatch(Arrays.asList(
+                new Invalidation("a", null), new Invalidation("c", null))));
+
+        messageListenerArgumentCaptor.getValue().onMessage(message);
+
+        assertThat(localRegionCache.contains("a")).isFalse();
+        assertThat(localRegionCache.contains("b")).isTrue();
+        assertThat(localRegionCache.contains("c")).isFalse();
+        assertThat(localRegionCache.getMetrics().getInvalidationsReceivedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMetricsRecordAccessesAndEvictions() {
+        LocalRegionCache localRegionCache = LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withTopic(false)
+                .withEvictionConfig(LocalRegionCache.EvictionConfig.create(
+                        someMapConfigWithEvictionConfig(10, MaxSizePolicy.PER_NODE)))
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            localRegionCache.put(i, "value", 1L, null);
+        }
+        localRegionCache.get(9, Long.MAX_VALUE);
+        localRegionCache.get("missing", Long.MAX_VALUE);
+        for (int i = 10; i < 20; i++) {
+            localRegionCache.put(i, "value", 1L, null);
+        }
+
+        RegionMetrics metrics = localRegionCache.getMetrics();
+        assertThat(metrics.getRegionName()).isEqualTo(CACHE_NAME);
+        assertThat(metrics.getPutCount()).isEqualTo(20);
+        assertThat(metrics.getPutLatency().getCount()).isEqualTo(20);
+        assertThat(metrics.getHitCount()).isEqualTo(1);
+        assertThat(metrics.getMissCount()).isEqualTo(1);
+        assertThat(metrics.getGetLatency().getCount()).isEqualTo(2);
+        await().untilAsserted(() -> assertThat(metrics.getEvictionCount()).isEqualTo(10));
+    }
+
+    @Test
+    public void testInvalidationsArePublishedThroughBatcher() {
+        ITopic<Object> topic = mock(ITopic.class);
+
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getTopic(eq(CACHE_NAME))).thenReturn(topic);
+
+        InvalidationBatcher invalidationBatcher = new InvalidationBatcher(mock(ScheduledExecutorService.class));
+        LocalRegionCache localRegionCache = LocalRegionCache.builder()
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(true)
+                .withInvalidationBatching(invalidationBatcher, Duration.ofHours(1), 100)
+                .build();
+
+        localRegionCache.evictData("a");
+        localRegionCache.unlockItem("b", null);
+        verify(topic, never()).publish(any());
+
+        localRegionCache.destroy();
+        verify(topic).publish(any(InvalidationBatch.class));
+        assertThat(localRegionCache.getMetrics().getInvalidationsSentCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidationsArePublishedAsynchronously() {
+        ITopic<Object> topic = mock(ITopic.class);
+        when(topic.publishAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getTopic(eq(CACHE_NAME))).thenReturn(topic);
+
+        LocalRegionCache localRegionCache = LocalRegionCache.builder()
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(true)
+                .withAsyncPublishing(10)
+                .build();
+
+        localRegionCache.evictData("a");
+
+        verify(topic, never()).publish(any());
+        verify(topic).publishAsync(any(Invalidation.class));
+        assertThat(localRegionCache.getMetrics().getInvalidationsPublishedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRegistrationReliableTopicListener() {
+        ITopic<Object> topic = mock(ITopic.class);
+        when(topic.addMessageListener(isNotNull())).thenReturn(UUID.randomUUID());
+
+        HazelcastInstance instance = mock(HazelcastInstance.class);
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getReliableTopic(eq(CACHE_NAME))).thenReturn(topic);
+
+        LocalRegionCache.builder().withRegionFactory(regionFactory)
+                .withName(CACHE_NAME)
+                .withHazelcastInstance(instance)
+                .withTopic(true)
+                .withReliableTopic(true)
+                .build();
+
+        verify(instance, never()).getTopic(anyString());
+        verify(topic).addMessageListener(any(ReliableInvalidationListener.class));
+    }
+
+    private static HazelcastInstance serializingInstance() {
+        HazelcastInstance instance = mock(HazelcastInstance.class, withSettings().extraInterfaces(SerializationServiceSupport.class));
+        when(instance.getConfig()).thenReturn(mock(Config.class));
+        when(instance.getCluster()).thenReturn(mock(Cluster.class));
+        when(((SerializationServiceSupport) instance).getSerializationService())
+                .thenReturn(new DefaultSerializationServiceBuilder().build());
+        return instance;
+    }
 }
@@ -0,0 +1,152 @@
+package com.hazelcast.hibernate.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.Value;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class MemoryBudgetCoordinatorTest {
+
+    private static final long ONE_MB = 1024 * 1024;
+    private static final byte[] TEN_KB = new byte[10 * 1024];
+
+    private final MemoryBudgetCoordinator sut = new MemoryBudgetCoordinator(mock(ScheduledExecutorService.class),
+            2 * ONE_MB, Duration.ofSeconds(1));
+
+    @Test
+    public void should_grant_unallocated_budget_or_floor_on_registration() {
+        Policy.Eviction<Object, Expirable> first = weightedCache().policy().eviction().get();
+        Policy.Eviction<Object, Expirable> second = weightedCache().policy().eviction().get();
+
+        sut.register("first", first, Long.MAX_VALUE);
+        sut.register("second", second, Long.MAX_VALUE);
+
+        assertThat(first.getMaximum()).isEqualTo(2 * ONE_MB);
+        // a tenth of the budget split between two regions
+        assertThat(second.getMaximum()).isEqualTo(2 * ONE_MB / 20);
+    }
+
+    @Test
+    public void should_cap_grant_by_region_maximum() {
+        Policy.Eviction<Object, Expirable> eviction = weightedCache().policy().eviction().get();
+
+        sut.register("some-cache", eviction, ONE_MB / 2);
+
+        assertThat(eviction.getMaximum()).isEqualTo(ONE_MB / 2);
+    }
+
+    @Test
+    public void should_shift_budget_to_regions_with_more_marginal_hits_per_byte() {
+        AtomicReference<MemoryBudgetCoordinator.Registration> hotHolder = new AtomicReference<>();
+        AtomicReference<MemoryBudgetCoordinator.Registration> coldHolder = new AtomicReference<>();
+        Cache<Object, Expirable> hot = weightedCache(hotHolder);
+        Cache<Object, Expirable> cold = weightedCache(coldHolder);
+        MemoryBudgetCoordinator.Registration hotRegistration = sut.register("hot", hot.policy().eviction().get(), Long.MAX_VALUE);
+        MemoryBudgetCoordinator.Registration coldRegistration = sut.register("cold", cold.policy().eviction().get(), Long.MAX_VALUE);
+        hotHolder.set(hotRegistration);
+        coldHolder.set(coldRegistration);
+
+        List<String> hotKeys = new ArrayList<>();
+        for (int round = 0; round < 10; round++) {
+            // the hot region misses the entries it evicted, the cold one only ever reads new entries
+            hotKeys.forEach(key -> hotRegistration.recordAccess(key, hot.getIfPresent(key) != null));
+            hotKeys.clear();
+            IntStream.range(0, 200).forEach(i -> {
+                String key = i + "-" + System.nanoTime();
+                hot.put(key, new Value(null, 0, TEN_KB));
+                hotKeys.add(key);
+                coldRegistration.recordAccess(key, false);
+                cold.put(key, new Value(null, 0, TEN_KB));
+                // more hits per byte for the cold region, on the entries it keeps anyway
+                coldRegistration.recordAccess(key, true);
+                coldRegistration.recordAccess(key, true);
+            });
+            hot.cleanUp();
+            cold.cleanUp();
+            sut.rebalance();
+        }
+
+        long hotMaximum = hot.policy().eviction().get().getMaximum();
+        long coldMaximum = cold.policy().eviction().get().getMaximum();
+        assertThat(hotMaximum).isGreaterThan(ONE_MB);
+        assertThat(coldMaximum).isLessThan(hotMaximum / 2);
+        assertThat(hotMaximum + coldMaximum).isLessThanOrEqualTo(2 * ONE_MB);
+    }
+
+    @Test
+    public void should_cap_grant_by_bytes_of_maximum_entries() {
+        Cache<Object, Expirable> cache = weightedCache(new AtomicReference<>());
+        MemoryBudgetCoordinator.Registration registration = sut.register("some-cache", cache.policy().eviction().get(),
+                Long.MAX_VALUE, 10, cache::estimatedSize);
+
+        for (int round = 0; round < 10; round++) {
+            IntStream.range(0, 100).forEach(i -> {
+                String key = i + "-" + System.nanoTime();
+                cache.put(key, new Value(null, 0, TEN_KB));
+                registration.recordAccess(key, false);
+            });
+            cache.cleanUp();
+            sut.rebalance();
+        }
+
+        cache.cleanUp();
+        assertThat(cache.estimatedSize()).isBetween(1L, 11L);
+    }
+
+    @Test
+    public void should_release_budget_of_unregistered_region() {
+        Policy.Eviction<Object, Expirable> first = weightedCache().policy().eviction().get();
+        sut.register("first", first, Long.MAX_VALUE).unregister();
+
+        Policy.Eviction<Object, Expirable> second = weightedCache().policy().eviction().get();
+        sut.register("second", second, Long.MAX_VALUE);
+
+        assertThat(second.getMaximum()).isEqualTo(2 * ONE_MB);
+    }
+
+    @Test
+    public void should_share_coordinator_in_jvm() {
+        MemoryBudgetCoordinator first = MemoryBudgetCoordinator.acquire(ONE_MB);
+        MemoryBudgetCoordinator second = MemoryBudgetCoordinator.acquire(ONE_MB);
+        try {
+            assertThat(second).isSameAs(first);
+        } finally {
+            first.release();
+            second.release();
+        }
+
+        MemoryBudgetCoordinator third = MemoryBudgetCoordinator.acquire(ONE_MB);
+        third.release();
+        assertThat(third).isNotSameAs(first);
+    }
+
+    private static Cache<Object, Expirable> weightedCache() {
+        return weightedCache(new AtomicReference<>());
+    }
+
+    private static Cache<Object, Expirable> weightedCache(AtomicReference<MemoryBudgetCoordinator.Registration> registration) {
+        return Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumWeight(Long.MAX_VALUE)
+                .<Object, Expirable>weigher(EntrySizeEstimator::weigh)
+                .evictionListener((Object key, Expirable value, RemovalCause cause) -> {
+                    if (registration.get() != null) {
+                        registration.get().recordEviction(key, EntrySizeEstimator.weigh(key, value));
+                    }
+                })
+                .build();
+    }
+}
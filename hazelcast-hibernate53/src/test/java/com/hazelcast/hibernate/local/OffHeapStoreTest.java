@@ -0,0 +1,135 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.Expirable;
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class OffHeapStoreTest {
+
+    private static final int SLAB_SIZE = 4 * 1024;
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    private OffHeapStore store;
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    @Test
+    public void testEntriesAreReadBackFromDirectMemory() {
+        store = new OffHeapStore(64 * 1024, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 0, serializationService);
+
+        assertThat(store.put("a", value("A"))).isNull();
+        assertThat(store.put("a", value("B")).getValue()).isEqualTo("A");
+        assertThat(store.putIfAbsent("a", value("C")).getValue()).isEqualTo("B");
+        assertThat(store.putIfAbsent("b", value("C"))).isNull();
+
+        assertThat(store.get("a").getValue()).isEqualTo("B");
+        assertThat(store.get("b").getValue()).isEqualTo("C");
+        assertThat(store.containsKey("a")).isTrue();
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.getUsedBytes()).isPositive();
+        assertThat(store.getReservedBytes()).isEqualTo(SLAB_SIZE);
+
+        assertThat(store.remove("a").getValue()).isEqualTo("B");
+        assertThat(store.get("a")).isNull();
+        assertThat(store.entrySet()).hasSize(1);
+    }
+
+    @Test
+    public void testConditionalOperationsCompareSerializedValues() {
+        store = new OffHeapStore(64 * 1024, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 0, serializationService);
+        store.put("a", value("A"));
+
+        assertThat(store.replace("a", value("X"), value("B"))).isFalse();
+        assertThat(store.replace("a", value("A"), value("B"))).isTrue();
+        assertThat(store.remove("a", value("A"))).isFalse();
+        assertThat(store.remove("a", value("B"))).isTrue();
+        assertThat(store.replace("a", value("C"))).isNull();
+        assertThat(store.containsKey("a")).isFalse();
+    }
+
+    @Test
+    public void testEntriesExpireAfterTimeToLive() {
+        store = new OffHeapStore(64 * 1024, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 50, serializationService);
+        store.put("a", value("A"));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(store.get("a")).isNull());
+        assertThat(store.entrySet()).isEmpty();
+        assertThat(store.putIfAbsent("a", value("B"))).isNull();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvictedWhenCapacityIsExhausted() {
+        store = new OffHeapStore(SLAB_SIZE, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 0, serializationService);
+        for (int i = 0; i < 1000; i++) {
+            store.put(i, value("value"));
+            // keep the first entry hot
+            assertThat(store.get(0)).isNotNull();
+        }
+
+        assertThat(store.size()).isLessThan(1000);
+        assertThat(store.get(0)).isNotNull();
+        assertThat(store.get(999)).isNotNull();
+        assertThat(store.getReservedBytes()).isEqualTo(SLAB_SIZE);
+    }
+
+    @Test
+    public void testLeastFrequentlyUsedEntriesAreEvictedWhenCapacityIsExhausted() {
+        store = new OffHeapStore(SLAB_SIZE, SLAB_SIZE, OffHeapStore.EvictionPolicy.LFU, 0, serializationService);
+        store.put("hot", value("value"));
+        for (int i = 0; i < 100; i++) {
+            store.get("hot");
+        }
+        // accessed once, but more recently than the hot entry
+        for (int i = 0; i < 50; i++) {
+            store.put(i, value("value"));
+            store.get(i);
+        }
+        for (int i = 50; i < 150; i++) {
+            store.put(i, value("value"));
+        }
+
+        assertThat(store.size()).isLessThan(151);
+        assertThat(store.get("hot")).isNotNull();
+    }
+
+    @Test
+    public void testSlabIsReleasedToAnotherSizeClass() {
+        store = new OffHeapStore(SLAB_SIZE, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 0, serializationService);
+        store.put("small", value("value"));
+
+        store.put("large", value(new String(new char[1024])));
+
+        assertThat(store.get("small")).isNull();
+        assertThat(store.get("large")).isNotNull();
+        assertThat(store.getReservedBytes()).isEqualTo(SLAB_SIZE);
+    }
+
+    @Test
+    public void testValuesLargerThanSlabAreNotStored() {
+        store = new OffHeapStore(SLAB_SIZE, SLAB_SIZE, OffHeapStore.EvictionPolicy.LRU, 0, serializationService);
+        store.put("a", value("A"));
+
+        assertThat(store.put("a", value(new String(new char[SLAB_SIZE])))).isNotNull();
+
+        assertThat(store.containsKey("a")).isFalse();
+        assertThat(store.getUsedBytes()).isZero();
+    }
+
+    private static Expirable value(Object value) {
+        return new Value(null, 1L, value);
+    }
+}
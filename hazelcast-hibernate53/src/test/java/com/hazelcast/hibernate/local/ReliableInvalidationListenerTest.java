@@ -0,0 +1,54 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("unchecked")
+public class ReliableInvalidationListenerTest {
+
+    private final MessageListener<Object> delegate = mock(MessageListener.class);
+    private final Runnable onGap = mock(Runnable.class);
+    private final ReliableInvalidationListener sut = new ReliableInvalidationListener("some-cache", delegate, onGap);
+
+    @Test
+    public void should_start_from_next_published_message() {
+        assertThat(sut.retrieveInitialSequence()).isEqualTo(-1);
+        assertThat(sut.isLossTolerant()).isTrue();
+        assertThat(sut.isTerminal(new RuntimeException())).isFalse();
+    }
+
+    @Test
+    public void should_delegate_messages() {
+        Message<Object> message = mock(Message.class);
+
+        sut.storeSequence(0);
+        sut.onMessage(message);
+
+        verify(delegate).onMessage(message);
+    }
+
+    @Test
+    public void should_not_clear_cache_for_consecutive_sequences() {
+        sut.storeSequence(5);
+        sut.storeSequence(6);
+        sut.storeSequence(7);
+
+        verify(onGap, never()).run();
+        assertThat(sut.getLastSequence()).isEqualTo(7);
+    }
+
+    @Test
+    public void should_clear_cache_when_sequence_has_gap() {
+        sut.storeSequence(5);
+        sut.storeSequence(9);
+
+        verify(onGap).run();
+        assertThat(sut.getLastSequence()).isEqualTo(9);
+    }
+}
@@ -0,0 +1,63 @@
+package com.hazelcast.hibernate.local;
+
+import com.hazelcast.hibernate.serialization.Value;
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SerializedValueTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final BinaryInMemoryFormat format = new BinaryInMemoryFormat(serializationService, 0);
+
+    @Test
+    public void testGetValueWithTimestamp() {
+        SerializedValue value = (SerializedValue) format.newValue(1, 100L, "Some value");
+
+        assertThat(value.getValue(99L)).isNull();
+        assertThat(value.getValue(100L)).isEqualTo("Some value");
+        assertThat(value.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIsReplaceableBy() {
+        SerializedValue value = (SerializedValue) format.newValue(null, 100L, "Some value");
+
+        assertThat(value.isReplaceableBy(99L, null, null)).isFalse();
+        assertThat(value.isReplaceableBy(100L, null, null)).isTrue();
+    }
+
+    @Test
+    public void testIsWrittenAsValue() {
+        SerializedValue value = (SerializedValue) format.newValue(1, 100L, "Some value");
+
+        Object copy = serializationService.toObject(serializationService.toData(value));
+
+        assertThat(copy).isEqualTo(new Value(1, 100L, "Some value"));
+    }
+
+    @Test
+    public void testReadsLikeValue() throws Exception {
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        new Value(2, 200L, "Other value").writeData(out);
+        SerializedValue value = (SerializedValue) format.newValue(1, 100L, "Some value");
+
+        value.readData(serializationService.createObjectDataInput(out.toByteArray()));
+
+        assertThat(value.getVersion()).isEqualTo(2);
+        assertThat(value.getValue(199L)).isNull();
+        assertThat(value.getValue(200L)).isEqualTo("Other value");
+    }
+
+    @Test
+    public void testWeighedWithoutDeserializing() {
+        SerializedValue value = (SerializedValue) format.newValue(null, 100L, new String(new char[1000]));
+
+        assertThat(EntrySizeEstimator.estimate(value, 0))
+                .isGreaterThan(value.getBytes().length)
+                .isLessThan(2 * value.getBytes().length);
+    }
+}
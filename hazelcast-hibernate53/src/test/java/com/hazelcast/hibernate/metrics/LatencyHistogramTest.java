@@ -0,0 +1,56 @@
+package com.hazelcast.hibernate.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void testEmptyHistogramReportsZero() {
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMean()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestValueOf(index - 1)).isLessThan(value);
+            }
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE)))
+                .isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void testPercentilesWithinRelativeError() {
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat(histogram.getMean()).isEqualTo(5_000_500);
+        assertThat(histogram.getMax()).isEqualTo(10_000_000);
+        assertThat(histogram.getValueAtPercentile(50)).isCloseTo(5_000_000, withPercentage(100.0 / 16));
+        assertThat(histogram.getValueAtPercentile(99)).isCloseTo(9_900_000, withPercentage(100.0 / 16));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.getMax()).isEqualTo(LatencyHistogram.MAX_VALUE);
+        assertThat(histogram.getValueAtPercentile(50)).isZero();
+    }
+}
@@ -0,0 +1,116 @@
+package com.hazelcast.hibernate.metrics;
+
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.instance.impl.HazelcastInstanceProxy;
+import com.hazelcast.internal.metrics.MetricDescriptor;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.collectors.MetricsCollector;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class RegionMetricsProviderTest {
+
+    private final TestHazelcastFactory factory = new TestHazelcastFactory();
+
+    @After
+    public void tearDown() {
+        factory.shutdownAll();
+    }
+
+    @Test
+    public void testRegionMetricsAreCollectedByMemberRegistry() {
+        HazelcastInstance member = factory.newHazelcastInstance();
+        RegionMetricsProvider provider = RegionMetricsProvider.register(member);
+        provider.add(someMetrics("region"));
+
+        Map<String, Long> collected = collect(((HazelcastInstanceProxy) member).getOriginal().node.getNodeEngine()
+                .getMetricsRegistry());
+
+        assertThat(collected).containsEntry("region.hits", 1L)
+                .containsEntry("region.misses", 1L)
+                .containsEntry("region.puts", 1L)
+                .containsEntry("region.evictions", 3L)
+                .containsEntry("region.freeHeapEvictions", 15L)
+                .containsEntry("region.invalidationsSent", 1L)
+                .containsEntry("region.invalidationsReceived", 2L)
+                .containsEntry("region.readTimeouts", 1L)
+                .containsEntry("region.writeTimeouts", 0L)
+                .containsEntry("region.getCount", 2L)
+                .containsEntry("region.invalidationsInFlight", 1L)
+                .containsEntry("region.invalidationsPublished", 1L)
+                .containsEntry("region.invalidationPublishFailures", 0L)
+                .containsEntry("region.invalidationPublishCount", 1L)
+                .containsKeys("region.getLatencyP99", "region.putLatencyMax", "region.invalidationPublishLatencyMax");
+
+        provider.close();
+        assertThat(collect(((HazelcastInstanceProxy) member).getOriginal().node.getNodeEngine().getMetricsRegistry()))
+                .doesNotContainKey("region.hits");
+    }
+
+    @Test
+    public void testMetricsAreRecordedWithoutRegistry() {
+        RegionMetricsProvider provider = RegionMetricsProvider.register(mock(HazelcastInstance.class));
+        RegionMetrics metrics = someMetrics("region");
+        provider.add(metrics);
+
+        assertThat(provider.get("region")).isSameAs(metrics);
+        provider.remove(metrics);
+        assertThat(provider.get("region")).isNull();
+        provider.close();
+    }
+
+    private static RegionMetrics someMetrics(String regionName) {
+        RegionMetrics metrics = new RegionMetrics(regionName);
+        long start = System.nanoTime();
+        metrics.recordGet(start, true);
+        metrics.recordGet(start, false);
+        metrics.recordPut(start);
+        metrics.recordEvictions(3);
+        metrics.recordFreeHeapEvictions(15);
+        metrics.recordInvalidationSent();
+        metrics.recordInvalidationsReceived(2);
+        metrics.recordReadTimeout();
+        metrics.recordInvalidationPublishing();
+        metrics.recordInvalidationPublishing();
+        metrics.recordInvalidationPublished(start, true);
+        return metrics;
+    }
+
+    private static Map<String, Long> collect(MetricsRegistry registry) {
+        Map<String, Long> collected = new HashMap<>();
+        registry.collect(new MetricsCollector() {
+            @Override
+            public void collectLong(MetricDescriptor descriptor, long value) {
+                if (RegionMetricsProvider.PREFIX.equals(descriptor.prefix())) {
+                    collected.put(descriptor.discriminatorValue() + "." + descriptor.metric(), value);
+                }
+            }
+
+            @Override
+            public void collectDouble(MetricDescriptor descriptor, double value) {
+            }
+
+            @Override
+            public void collectException(MetricDescriptor descriptor, Exception e) {
+            }
+
+            @Override
+            public void collectNoValue(MetricDescriptor descriptor) {
+            }
+        });
+        return collected;
+    }
+}
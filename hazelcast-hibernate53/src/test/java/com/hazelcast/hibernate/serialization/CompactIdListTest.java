@@ -0,0 +1,141 @@
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactIdListTest {
+
+    private static final int LARGE_COLLECTION = 10_000;
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Before
+    public void enableCompactWireFormat() {
+        WireFormat.setCompact(true);
+    }
+
+    @After
+    public void resetWireFormat() {
+        WireFormat.setCompact(false);
+    }
+
+    @Test
+    public void testCollectionOfLongIdsRoundTrips() {
+        Serializable[] state = {3L, 1L, Long.MAX_VALUE, Long.MIN_VALUE, -7L};
+        CollectionCacheEntry entry = IdListEntries.newCollectionEntry(state);
+
+        Object compacted = CompactIdList.compact(entry);
+
+        assertThat(compacted).isInstanceOf(CompactIdList.class);
+        assertThat(((CompactIdList) compacted).getIds()).isEqualTo(new long[]{3L, 1L, Long.MAX_VALUE, Long.MIN_VALUE, -7L});
+        assertThat(expandedState(roundTrip(compacted))).containsExactly(state).hasSameClassAs(state);
+    }
+
+    @Test
+    public void testCollectionOfIntIdsRoundTrips() {
+        Serializable[] state = {1, 2, 3, Integer.MIN_VALUE};
+
+        Object compacted = CompactIdList.compact(IdListEntries.newCollectionEntry(state));
+
+        assertThat(((CompactIdList) compacted).getIds()).isEqualTo(new int[]{1, 2, 3, Integer.MIN_VALUE});
+        assertThat(expandedState(roundTrip(compacted))).containsExactly(state);
+    }
+
+    @Test
+    public void testQueryResultsOfIdsRoundTrip() {
+        List<Long> ids = Arrays.asList(10L, 11L, 12L);
+        Object queryResults = IdListEntries.newQueryResults(1234L, new ArrayList<>(ids));
+
+        Object expanded = CompactIdList.expand(roundTrip(CompactIdList.compact(queryResults)));
+
+        assertThat(IdListEntries.isQueryResults(expanded)).isTrue();
+        assertThat(IdListEntries.queryTimestamp(expanded)).isEqualTo(1234L);
+        assertThat(IdListEntries.queryResults(expanded)).isEqualTo(ids);
+    }
+
+    @Test
+    public void testCollectionInReadWriteItemRoundTrips() {
+        Serializable[] state = {5L, 6L, 7L};
+        Object item = IdListEntries.newReadWriteItem(IdListEntries.newCollectionEntry(state), 4, 1234L);
+
+        Object compacted = CompactIdList.compact(item);
+        Object expanded = CompactIdList.expand(roundTrip(compacted));
+
+        assertThat(compacted).isInstanceOf(CompactIdList.class);
+        assertThat(((CompactIdList) compacted).getIds()).isEqualTo(new long[]{5L, 6L, 7L});
+        assertThat(IdListEntries.isReadWriteItem(expanded)).isTrue();
+        assertThat(IdListEntries.readWriteItemVersion(expanded)).isEqualTo(4);
+        assertThat(IdListEntries.readWriteItemTimestamp(expanded)).isEqualTo(1234L);
+        assertThat(expandedState(IdListEntries.unwrapReadWriteItem(expanded))).containsExactly(state);
+        assertThat(CompactIdList.idsOf(expanded)).isEqualTo(Arrays.asList(state));
+    }
+
+    @Test
+    public void testReadWriteItemsOfOtherValuesAreNotCompacted() {
+        Object item = IdListEntries.newReadWriteItem("value", 4, 1234L);
+
+        assertThat(CompactIdList.compact(item)).isSameAs(item);
+    }
+
+    @Test
+    public void testValuesOfOtherIdsAreNotCompacted() {
+        List<Object> values = Arrays.asList(
+                IdListEntries.newCollectionEntry(new Serializable[]{1L, 2}),
+                IdListEntries.newCollectionEntry(new Serializable[]{1L, null}),
+                IdListEntries.newCollectionEntry(new Serializable[]{"a", "b"}),
+                IdListEntries.newCollectionEntry(new Serializable[0]),
+                IdListEntries.newQueryResults(1L, new ArrayList<>(Arrays.asList(new Object[]{1L, "a"}))),
+                "value");
+
+        for (Object value : values) {
+            assertThat(CompactIdList.compact(value)).isSameAs(value);
+        }
+    }
+
+    @Test
+    public void testValuesAreNotCompactedInTheOriginalWireFormat() {
+        WireFormat.setCompact(false);
+        CollectionCacheEntry entry = IdListEntries.newCollectionEntry(new Serializable[]{1L, 2L});
+
+        assertThat(CompactIdList.compact(entry)).isSameAs(entry);
+    }
+
+    @Test
+    public void testLargeCollectionIsCompact() {
+        Serializable[] state = new Serializable[LARGE_COLLECTION];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = 1_000_000L + i;
+        }
+
+        CompactIdList compacted = (CompactIdList) CompactIdList.compact(IdListEntries.newCollectionEntry(state));
+        Data data = serializationService.toData(compacted);
+
+        assertThat(compacted.size()).isEqualTo(LARGE_COLLECTION);
+        assertThat(((long[]) compacted.getIds()).length * Long.BYTES).isEqualTo(80_000);
+        assertThat(data.totalSize()).isLessThan(2 * LARGE_COLLECTION);
+        assertThat(data.totalSize()).isLessThan(serializationService.toData(state).totalSize() / 4);
+        assertThat(expandedState(serializationService.toObject(data))).containsExactly(state);
+    }
+
+    private Object roundTrip(Object value) {
+        return serializationService.toObject(serializationService.toData(value));
+    }
+
+    private static Serializable[] expandedState(Object compacted) {
+        Object expanded = CompactIdList.expand(compacted);
+        assertThat(expanded).isInstanceOf(CollectionCacheEntry.class);
+        return ((CollectionCacheEntry) expanded).getState();
+    }
+}
@@ -0,0 +1,221 @@
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.entry.StandardCacheEntryImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class Hibernate53CacheEntrySerializerTest {
+
+    private static final String ENTITY_NAME = "com.example.domain.Customer";
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final Hibernate53CacheEntrySerializer serializer = new Hibernate53CacheEntrySerializer();
+
+    @Before
+    @After
+    public void clearDictionary() {
+        CacheEntryDictionary.clear();
+    }
+
+    @Test
+    public void testRegisteredEntityNameIsWrittenAsId() {
+        Data withName = serializationService.toData(newEntry());
+        CacheEntryDictionary.register(ENTITY_NAME);
+        Data withId = serializationService.toData(newEntry());
+
+        assertThat(withId.totalSize()).isLessThan(withName.totalSize() - ENTITY_NAME.length() + Long.BYTES);
+        assertEntry(serializationService.toObject(withId));
+        assertEntry(serializationService.toObject(withName));
+    }
+
+    @Test
+    public void testUnknownIdIsWrittenBackUnchanged() {
+        CacheEntryDictionary.register(ENTITY_NAME);
+        Data data = serializationService.toData(newEntry());
+        CacheEntryDictionary.clear();
+
+        CacheEntry entry = serializationService.toObject(data);
+
+        assertThat(serializationService.toData(entry).toByteArray()).isEqualTo(data.toByteArray());
+        assertThatThrownBy(entry::getSubclass).isInstanceOf(IllegalStateException.class);
+        CacheEntryDictionary.register(ENTITY_NAME);
+        assertEntry(entry);
+    }
+
+    @Test
+    public void testEntriesOfKnownEntitiesAreReadAsHibernateCreatesThem() {
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class));
+        Data data = serializationService.toData(StandardCacheEntries.newEntry(new Serializable[]{1L, "name"}, ENTITY_NAME, 3));
+
+        CacheEntry entry = serializationService.toObject(data);
+
+        assertThat(entry).isInstanceOf(StandardCacheEntryImpl.class);
+        assertEntry(entry);
+    }
+
+    @Test
+    public void testReadsEntriesOfEarlierVersions() throws Exception {
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        out.writeBoolean(false);
+        out.writeInt(2);
+        out.writeObject(1L);
+        out.writeObject("name");
+        out.writeString(ENTITY_NAME);
+        out.writeObject(3);
+
+        CacheEntry entry = serializer.read(serializationService.createObjectDataInput(out.toByteArray()));
+
+        assertEntry(entry);
+    }
+
+    @Test
+    public void testOnlyRegisteredNamesHaveIds() {
+        CacheEntryDictionary.register(ENTITY_NAME);
+        CacheEntryDictionary.register(ENTITY_NAME);
+
+        assertThat(CacheEntryDictionary.idOf(ENTITY_NAME)).isEqualTo(CacheEntryDictionary.hash(ENTITY_NAME));
+        assertThat(CacheEntryDictionary.idOf("com.example.Unknown")).isEqualTo(CacheEntryDictionary.NO_ID);
+    }
+
+    @Test
+    public void testNamesAreUnregisteredWithTheirLastOwner() {
+        Object factory = new Object();
+        Object otherFactory = new Object();
+        CacheEntryDictionary.register(factory, ENTITY_NAME, null, true, false);
+        CacheEntryDictionary.register(otherFactory, ENTITY_NAME, null, true, false);
+
+        CacheEntryDictionary.unregister(factory);
+        assertThat(CacheEntryDictionary.idOf(ENTITY_NAME)).isEqualTo(CacheEntryDictionary.hash(ENTITY_NAME));
+
+        CacheEntryDictionary.unregister(otherFactory);
+        assertThat(CacheEntryDictionary.idOf(ENTITY_NAME)).isEqualTo(CacheEntryDictionary.NO_ID);
+        assertThat(CacheEntryDictionary.nameOf(CacheEntryDictionary.hash(ENTITY_NAME))).isNull();
+    }
+
+    @Test
+    public void testOwnersWhichDisagreeDoNotReplaceEachOther() {
+        Object factory = new Object();
+        Object otherFactory = new Object();
+        CacheEntryDictionary.register(factory, ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class), true, true);
+        Data withSchema = serializationService.toData(newEntry());
+        CacheEntryDictionary.register(otherFactory, ENTITY_NAME, () -> new CacheEntrySchema(Long.class, Long.class), true,
+                true);
+        Data withoutSchema = serializationService.toData(newEntry());
+        CacheEntryDictionary.register(otherFactory, ENTITY_NAME, null, false, false);
+        Data inFull = serializationService.toData(newEntry());
+
+        assertThat(withoutSchema.totalSize()).isGreaterThan(withSchema.totalSize());
+        assertThat(inFull.totalSize()).isGreaterThan(withoutSchema.totalSize());
+        assertEntry(serializationService.toObject(withSchema));
+        assertEntry(serializationService.toObject(withoutSchema));
+        assertEntry(serializationService.toObject(inFull));
+        CacheEntryDictionary.unregister(otherFactory);
+        assertThat(serializationService.toData(newEntry()).toByteArray()).isEqualTo(withSchema.toByteArray());
+    }
+
+    @Test
+    public void testStateIsWrittenWithSchema() {
+        CacheEntryDictionary.register(ENTITY_NAME);
+        Data withoutSchema = serializationService.toData(newEntry());
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class));
+        Data withSchema = serializationService.toData(newEntry());
+
+        assertThat(withSchema.totalSize()).isLessThan(withoutSchema.totalSize());
+        assertEntry(serializationService.toObject(withSchema));
+    }
+
+    @Test
+    public void testStateWithNullsAndObjectsIsWrittenWithSchema() {
+        Serializable[] state = {null, "name", BigDecimal.TEN, 'c', null, 2.5d, true, (short) 1, (byte) 2, 3f, 4};
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class, null,
+                char.class, String.class, Double.class, boolean.class, Short.class, byte.class, float.class, int.class));
+
+        CacheEntry entry = serializationService.toObject(
+                serializationService.toData(new CacheEntryImpl(state, ENTITY_NAME, 3)));
+
+        assertThat(entry.getDisassembledState()).containsExactly(state);
+    }
+
+    @Test
+    public void testStateNotMatchingSchemaIsWrittenWithoutIt() {
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(String.class, String.class));
+
+        assertEntry(serializationService.toObject(serializationService.toData(newEntry())));
+    }
+
+    @Test
+    public void testStateOfUnknownEntityIsWrittenBackUnchanged() {
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class));
+        Data data = serializationService.toData(newEntry());
+        CacheEntryDictionary.clear();
+
+        CacheEntry entry = serializationService.toObject(data);
+
+        assertThat(serializationService.toData(entry).toByteArray()).isEqualTo(data.toByteArray());
+        assertThatThrownBy(entry::getDisassembledState).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testStateOfUnknownSchemaOfKnownEntityIsMissed() {
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class));
+        Data data = serializationService.toData(newEntry());
+        CacheEntryDictionary.clear();
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, Long.class));
+
+        assertThat((Object) serializationService.toObject(data)).isNull();
+    }
+
+    @Test
+    public void testIdsAndSchemasAreReadIfNotWritten() {
+        CacheEntryDictionary.register(ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class));
+        Data withSchema = serializationService.toData(newEntry());
+        CacheEntryDictionary.register(new Object(), ENTITY_NAME, () -> new CacheEntrySchema(Long.class, String.class),
+                false, false);
+        Data inFull = serializationService.toData(newEntry());
+
+        assertThat(inFull.totalSize()).isGreaterThan(withSchema.totalSize() + ENTITY_NAME.length() - Long.BYTES);
+        CacheEntry entry = serializationService.toObject(withSchema);
+        assertThat(entry).isInstanceOf(StandardCacheEntryImpl.class);
+        assertEntry(entry);
+        assertEntry(serializationService.toObject(inFull));
+    }
+
+    @Test
+    public void testSchemaIsResolvedOnceAvailable() {
+        AtomicBoolean available = new AtomicBoolean();
+        CacheEntryDictionary.register(ENTITY_NAME, () -> {
+            if (!available.get()) {
+                throw new IllegalStateException("not built yet");
+            }
+            return new CacheEntrySchema(Long.class, String.class);
+        });
+        Data withoutSchema = serializationService.toData(newEntry());
+        available.set(true);
+        Data withSchema = serializationService.toData(newEntry());
+
+        assertThat(withSchema.totalSize()).isLessThan(withoutSchema.totalSize());
+    }
+
+    private static CacheEntry newEntry() {
+        return new CacheEntryImpl(new Serializable[]{1L, "name"}, ENTITY_NAME, 3);
+    }
+
+    private static void assertEntry(CacheEntry entry) {
+        assertThat(entry.getSubclass()).isEqualTo(ENTITY_NAME);
+        assertThat(entry.getDisassembledState()).containsExactly(1L, "name");
+        assertThat(entry.getVersion()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,125 @@
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.CacheEnvironment;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.UuidUtil;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.internal.NaturalIdCacheKey;
+import org.hibernate.cache.spi.QueryKey;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+
+import static com.hazelcast.internal.serialization.impl.SerializationConstants.HIBERNATE5_TYPE_HIBERNATE_CACHE_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Hibernate53CacheKeySerializerTest {
+
+    private static final String ENTITY_NAME = "com.example.domain.Order";
+
+    private static InternalSerializationService serializationService;
+
+    @BeforeClass
+    public static void setup() {
+        // the key serializer is registered only where it is enabled
+        System.setProperty(CacheEnvironment.NATIVE_KEY_SERIALIZATION, "true");
+        try {
+            serializationService = new DefaultSerializationServiceBuilder().build();
+        } finally {
+            System.clearProperty(CacheEnvironment.NATIVE_KEY_SERIALIZATION);
+        }
+    }
+
+    @Test
+    public void testBasicKeyRoundTrips() throws IOException {
+        BasicCacheKeyImplementation key = new BasicCacheKeyImplementation(42L, ENTITY_NAME, 42);
+
+        assertRoundTrip(key);
+    }
+
+    @Test
+    public void testKeyWithCompositeIdAndTenantRoundTrips() throws IOException {
+        Object[] compositeId = {1L, "line", UuidUtil.newUnsecureUUID(), 7, null};
+        CacheKeyImplementation key = new CacheKeyImplementation(compositeId, ENTITY_NAME + ".lines", "tenant", 17);
+
+        CacheKeyImplementation read = assertRoundTrip(key);
+
+        assertThat((Object[]) read.getId()).containsExactly(compositeId);
+        assertThat(read.getTenantId()).isEqualTo("tenant");
+    }
+
+    @Test
+    public void testNaturalIdKeyRoundTrips() throws IOException {
+        NaturalIdCacheKey key = new NaturalIdCacheKey(new Object[]{"ACME", 12L}, ENTITY_NAME, null, 31);
+
+        NaturalIdCacheKey read = assertRoundTrip(key);
+
+        assertThat(read.getEntityName()).isEqualTo(ENTITY_NAME);
+        assertThat(read.getTenantId()).isNull();
+    }
+
+    @Test
+    public void testQueryKeyRoundTrips() throws IOException {
+        QueryKey key = new QueryKey("select o from Order o where o.status = ?", new Bindings("OPEN"), 10, null,
+                new LinkedHashSet<>(Arrays.asList("active", "tenant")));
+
+        assertRoundTrip(key);
+    }
+
+    @Test
+    public void testEqualKeysAreWrittenTheSame() {
+        Data data = serializationService.toData(new CacheKeyImplementation(new Object[]{1L, "a"}, ENTITY_NAME, null, 3));
+        Data other = serializationService.toData(new CacheKeyImplementation(new Object[]{1L, "a"}, ENTITY_NAME, null, 3));
+
+        assertThat(data.getType()).isEqualTo(HIBERNATE5_TYPE_HIBERNATE_CACHE_KEY);
+        assertThat(data).isEqualTo(other);
+        assertThat(data.getPartitionHash()).isEqualTo(other.getPartitionHash());
+    }
+
+    private <T> T assertRoundTrip(T key) throws IOException {
+        Data data = serializationService.toData(key);
+        T read = serializationService.toObject(data);
+
+        assertThat(data.getType()).isEqualTo(HIBERNATE5_TYPE_HIBERNATE_CACHE_KEY);
+        assertThat(read).isEqualTo(key);
+        assertThat(read.hashCode()).isEqualTo(key.hashCode());
+        assertThat(data.totalSize()).isLessThan(javaSerializedSize(key));
+        return read;
+    }
+
+    private static int javaSerializedSize(Object key) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(key);
+        }
+        return bytes.size();
+    }
+
+    private static final class Bindings implements QueryKey.ParameterBindingsMemento {
+
+        private final String value;
+
+        private Bindings(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bindings && Objects.equals(value, ((Bindings) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(value);
+        }
+    }
+}
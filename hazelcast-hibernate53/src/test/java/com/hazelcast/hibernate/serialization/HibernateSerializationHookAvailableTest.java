@@ -17,12 +17,17 @@ package com.hazelcast.hibernate.serialization;
 
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.CacheEnvironment;
 import com.hazelcast.instance.impl.HazelcastInstanceImpl;
 import com.hazelcast.instance.impl.HazelcastInstanceProxy;
 import com.hazelcast.internal.serialization.impl.AbstractSerializationService;
 import com.hazelcast.internal.serialization.SerializationService;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import com.hazelcast.test.annotation.QuickTest;
+import org.hibernate.cache.internal.BasicCacheKeyImplementation;
+import org.hibernate.cache.internal.CacheKeyImplementation;
+import org.hibernate.cache.internal.NaturalIdCacheKey;
+import org.hibernate.cache.spi.QueryKey;
 import org.hibernate.cache.spi.entry.StandardCacheEntryImpl;
 import org.junit.After;
 import org.junit.Test;
@@ -32,6 +37,7 @@ import org.junit.runner.RunWith;
 import java.lang.reflect.Field;
 import java.util.concurrent.ConcurrentMap;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastSerialClassRunner.class)
@@ -56,6 +62,8 @@ public class HibernateSerializationHookAvailableTest {
     @After
     public void teardown() {
         Hazelcast.shutdownAll();
+        System.clearProperty(CacheEnvironment.NATIVE_KEY_SERIALIZATION);
+        System.clearProperty(CacheEnvironment.NATIVE_ENTRY_SERIALIZATION);
     }
 
     @Test
@@ -78,4 +86,49 @@ public class HibernateSerializationHookAvailableTest {
 
         assertTrue("CacheEntry serializer not found", cacheEntrySerializerFound);
     }
+
+    @Test
+    public void testStandardCacheEntrySerializerIsRegistered()
+            throws Exception {
+
+        System.setProperty(CacheEnvironment.NATIVE_ENTRY_SERIALIZATION, "true");
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance();
+        HazelcastInstanceImpl impl = (HazelcastInstanceImpl) ORIGINAL.get(hz);
+        @SuppressWarnings("unchecked")
+        ConcurrentMap<Class, ?> typeMap = (ConcurrentMap) TYPE_MAP.get(impl.getSerializationService());
+
+        assertTrue("StandardCacheEntryImpl serializer not found", typeMap.containsKey(StandardCacheEntryImpl.class));
+        assertTrue("CacheEntryImpl serializer not found", typeMap.containsKey(CacheEntryImpl.class));
+    }
+
+    @Test
+    public void testCacheKeySerializersAreRegistered()
+            throws Exception {
+
+        System.setProperty(CacheEnvironment.NATIVE_KEY_SERIALIZATION, "true");
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance();
+        HazelcastInstanceImpl impl = (HazelcastInstanceImpl) ORIGINAL.get(hz);
+        @SuppressWarnings("unchecked")
+        ConcurrentMap<Class, ?> typeMap = (ConcurrentMap) TYPE_MAP.get(impl.getSerializationService());
+
+        assertTrue("CacheKeyImplementation serializer not found", typeMap.containsKey(CacheKeyImplementation.class));
+        assertTrue("BasicCacheKeyImplementation serializer not found",
+                typeMap.containsKey(BasicCacheKeyImplementation.class));
+        assertTrue("NaturalIdCacheKey serializer not found", typeMap.containsKey(NaturalIdCacheKey.class));
+        assertTrue("QueryKey serializer not found", typeMap.containsKey(QueryKey.class));
+    }
+
+    @Test
+    public void testNativeSerializersAreNotRegisteredByDefault()
+            throws Exception {
+
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance();
+        HazelcastInstanceImpl impl = (HazelcastInstanceImpl) ORIGINAL.get(hz);
+        @SuppressWarnings("unchecked")
+        ConcurrentMap<Class, ?> typeMap = (ConcurrentMap) TYPE_MAP.get(impl.getSerializationService());
+
+        assertFalse("StandardCacheEntryImpl serializer found", typeMap.containsKey(StandardCacheEntryImpl.class));
+        assertFalse("CacheKeyImplementation serializer found", typeMap.containsKey(CacheKeyImplementation.class));
+        assertFalse("QueryKey serializer found", typeMap.containsKey(QueryKey.class));
+    }
 }
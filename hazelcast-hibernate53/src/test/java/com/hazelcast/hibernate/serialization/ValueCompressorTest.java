@@ -0,0 +1,122 @@
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.metrics.RegionMetrics;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValueCompressorTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final RegionMetrics metrics = new RegionMetrics("region");
+    private final ValueCompressor compressor = new ValueCompressor(serializationService, THRESHOLD, null, metrics);
+
+    @Test
+    public void testValueBelowThresholdIsStored() {
+        CompressedValue value = (CompressedValue) compressor.compress("small");
+
+        assertThat(value.getEncoding()).isEqualTo(CompressedValue.STORED);
+        assertThat(compressor.decompress(roundTrip(value))).isEqualTo("small");
+        assertThat(metrics.getCompressionTime().getCount()).isZero();
+    }
+
+    @Test
+    public void testValueAboveThresholdIsDeflated() {
+        String text = document(1);
+
+        CompressedValue value = (CompressedValue) compressor.compress(text);
+
+        assertThat(value.getEncoding()).isEqualTo(CompressedValue.DEFLATED);
+        assertThat(value.getBytes().length).isLessThan(text.length() / 2);
+        assertThat(compressor.decompress(roundTrip(value))).isEqualTo(text);
+        assertThat(metrics.getCompressionRatio()).isGreaterThan(2);
+        assertThat(metrics.getDecompressionTime().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIncompressibleValueIsStored() {
+        byte[] random = new byte[THRESHOLD * 2];
+        new Random(1).nextBytes(random);
+
+        CompressedValue value = (CompressedValue) compressor.compress(random);
+
+        assertThat(value.getEncoding()).isEqualTo(CompressedValue.STORED);
+        assertThat((byte[]) compressor.decompress(roundTrip(value))).isEqualTo(random);
+    }
+
+    @Test
+    public void testDictionaryImprovesCompressionOfSmallValues() {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(serializationService.toData(new Document(i, document(i))).toByteArray());
+        }
+        CompressionDictionary dictionary = CompressionDictionary.train(samples, 4096);
+        ValueCompressor withDictionary = new ValueCompressor(serializationService, THRESHOLD, dictionary, metrics);
+        Document document = new Document(100, document(100));
+
+        CompressedValue plain = (CompressedValue) compressor.compress(document);
+        CompressedValue value = (CompressedValue) withDictionary.compress(document);
+
+        assertThat(value.getEncoding()).isEqualTo(CompressedValue.DEFLATED_WITH_DICTIONARY);
+        assertThat(value.getBytes().length).isLessThan(plain.getBytes().length);
+        assertThat(withDictionary.decompress(roundTrip(value))).isEqualTo(document);
+    }
+
+    @Test
+    public void testValueOfAnotherDictionaryMisses() {
+        CompressionDictionary dictionary = new CompressionDictionary(document(1).getBytes());
+        ValueCompressor withDictionary = new ValueCompressor(serializationService, THRESHOLD, dictionary, metrics);
+
+        Object value = withDictionary.compress(document(2));
+
+        assertThat(compressor.decompress(value)).isNull();
+    }
+
+    @Test
+    public void testUncompressedValueIsReturnedAsItIs() {
+        assertThat(compressor.decompress("cached before")).isEqualTo("cached before");
+        assertThat(compressor.compress(null)).isNull();
+    }
+
+    private Object roundTrip(Object value) {
+        return serializationService.toObject(serializationService.toData(value));
+    }
+
+    private static String document(int seed) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("<paragraph id=\"").append(seed * 100 + i).append("\">Lorem ipsum dolor sit amet</paragraph>");
+        }
+        return text.toString();
+    }
+
+    private static final class Document implements Serializable {
+
+        private final long id;
+        private final String text;
+
+        private Document(long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Document && ((Document) o).id == id && ((Document) o).text.equals(text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.hazelcast.hibernate.serialization;
+
+import com.hazelcast.hibernate.local.Invalidation;
+import com.hazelcast.hibernate.local.InvalidationBatch;
+import com.hazelcast.hibernate.local.Timestamp;
+import com.hazelcast.internal.nio.BufferObjectDataInput;
+import com.hazelcast.internal.nio.BufferObjectDataOutput;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.UuidUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WireFormatTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Before
+    public void enableCompactWireFormat() {
+        WireFormat.setCompact(true);
+    }
+
+    @After
+    public void resetWireFormat() {
+        WireFormat.setCompact(false);
+    }
+
+    @Test
+    public void testVersionsRoundTrip() throws IOException {
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(1_600_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        List<Object> versions = Arrays.asList(null, 42, 1L << 40, (short) 7, timestamp,
+                Instant.ofEpochSecond(1_600_000_000L, 987_654_321), "other");
+
+        for (Object version : versions) {
+            BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+            WireFormat.writeVersion(out, version);
+
+            Object read = WireFormat.readVersion(serializationService.createObjectDataInput(out.toByteArray()));
+
+            assertThat(read).isEqualTo(version);
+        }
+    }
+
+    @Test
+    public void testIdsRoundTrip() throws IOException {
+        String uuid = UuidUtil.newUnsecureUuidString();
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        WireFormat.writeId(out, uuid);
+        WireFormat.writeId(out, "lock-1");
+        WireFormat.writeId(out, uuid.toUpperCase());
+
+        assertThat(out.position()).isLessThan(3 * (uuid.length() + 1));
+        BufferObjectDataInput in = serializationService.createObjectDataInput(out.toByteArray());
+        assertThat(WireFormat.readId(in)).isEqualTo(uuid);
+        assertThat(WireFormat.readId(in)).isEqualTo("lock-1");
+        assertThat(WireFormat.readId(in)).isEqualTo(uuid.toUpperCase());
+    }
+
+    @Test
+    public void testCompactValueIsSmallerAndRoundTrips() {
+        Value compact = new Value(3L, 100L, "value");
+        WireFormat.setCompact(false);
+        Value original = new Value(3L, 100L, "value");
+
+        Data compactData = serializationService.toData(compact);
+        Data originalData = serializationService.toData(original);
+
+        assertThat(compactData.totalSize()).isLessThan(originalData.totalSize());
+        assertRoundTrip(compact, true);
+        assertRoundTrip(original, false);
+    }
+
+    @Test
+    public void testExpiryMarkerRoundTripsInBothFormats() {
+        ExpiryMarker compact = new ExpiryMarker(3, 1000L, UuidUtil.newUnsecureUuidString()).markForExpiration(2000L, "next");
+        WireFormat.setCompact(false);
+        ExpiryMarker original = new ExpiryMarker(3, 1000L, UuidUtil.newUnsecureUuidString());
+
+        ExpiryMarker readCompact = assertRoundTrip(compact, true);
+        assertRoundTrip(original, false);
+        assertThat(readCompact.matches(compact)).isTrue();
+        assertThat(readCompact.isConcurrent()).isTrue();
+        assertThat(serializationService.toData(compact).totalSize())
+                .isLessThan(serializationService.toData(original).totalSize());
+    }
+
+    @Test
+    public void testTimestampRoundTripsInBothFormats() {
+        UUID senderId = UuidUtil.newUnsecureUUID();
+        Timestamp compact = new Timestamp("key", 100L, senderId);
+        WireFormat.setCompact(false);
+        Timestamp original = new Timestamp("key", 100L, senderId);
+
+        for (Timestamp timestamp : Arrays.asList(compact, original)) {
+            Timestamp read = serializationService.toObject(serializationService.toData(timestamp));
+
+            assertThat(read.getKey()).isEqualTo("key");
+            assertThat(read.getTimestamp()).isEqualTo(100L);
+            assertThat(read.getSenderId()).isEqualTo(senderId);
+            assertThat(read.isCompactWireFormat()).isEqualTo(timestamp.isCompactWireFormat());
+        }
+        assertThat(serializationService.toData(compact).totalSize())
+                .isLessThan(serializationService.toData(original).totalSize());
+    }
+
+    @Test
+    public void testInvalidationBatchRoundTripsInBothFormats() {
+        InvalidationBatch compact = new InvalidationBatch(Arrays.asList(new Invalidation("a", 1), new Invalidation("b", null)));
+        WireFormat.setCompact(false);
+        InvalidationBatch original = new InvalidationBatch(Arrays.asList(new Invalidation("a", 1),
+                new Invalidation("b", null)));
+
+        for (InvalidationBatch batch : Arrays.asList(compact, original)) {
+            InvalidationBatch read = serializationService.toObject(serializationService.toData(batch));
+
+            assertThat(read.isCompactWireFormat()).isEqualTo(batch.isCompactWireFormat());
+            assertThat(read.getInvalidations()).extracting(Invalidation::getKey).containsExactly("a", "b");
+            assertThat(read.getInvalidations()).extracting(Invalidation::getVersion).containsExactly(1, null);
+        }
+        assertThat(serializationService.toData(compact).totalSize())
+                .isLessThan(serializationService.toData(original).totalSize());
+    }
+
+    private <T extends CompactWireFormatSupport> T assertRoundTrip(T object, boolean compact) {
+        assertThat(object.isCompactWireFormat()).isEqualTo(compact);
+        T read = serializationService.toObject(serializationService.toData(object));
+
+        assertThat(read).isEqualTo(object);
+        assertThat(read.isCompactWireFormat()).isEqualTo(compact);
+        assertThat(read.getClassId()).isEqualTo(object.getClassId());
+        return read;
+    }
+}